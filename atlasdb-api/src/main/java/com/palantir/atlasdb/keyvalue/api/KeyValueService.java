@@ -92,8 +92,8 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("get-rows")
-    @Produces(MediaType.APPLICATION_JSON)
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     Map<Cell, Value> getRows(@QueryParam("tableName") String tableName,
                              Iterable<byte[]> rows,
@@ -114,8 +114,8 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("get")
-    @Produces(MediaType.APPLICATION_JSON)
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     Map<Cell, Value> get(@QueryParam("tableName") String tableName, Map<Cell, Long> timestampByCell);
 
@@ -134,8 +134,8 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("get-latest-timestamps")
-    @Produces(MediaType.APPLICATION_JSON)
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     Map<Cell, Long> getLatestTimestamps(@QueryParam("tableName") String tableName,
                                         Map<Cell, Long> timestampByCell);
@@ -163,7 +163,7 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("put")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     void put(@QueryParam("tableName") String tableName,
              Map<Cell, byte[]> values,
@@ -191,7 +191,7 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("multi-put")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     void multiPut(Map<String, ? extends Map<Cell, byte[]>> valuesByTable,
                   @QueryParam("timestamp") long timestamp) throws KeyAlreadyExistsException;
@@ -222,7 +222,7 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("put-with-timestamps")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @NonIdempotent
     @Idempotent
     void putWithTimestamps(@QueryParam("tableName") String tableName,
@@ -251,7 +251,7 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("put-unless-exists")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     void putUnlessExists(@QueryParam("tableName") String tableName,
                          Map<Cell, byte[]> values) throws KeyAlreadyExistsException;
 
@@ -281,7 +281,7 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("delete")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     void delete(@QueryParam("tableName") String tableName, Multimap<Cell, Long> keys);
 
@@ -329,8 +329,8 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("get-range")
-    @Produces(MediaType.APPLICATION_JSON)
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     ClosableIterator<RowResult<Value>> getRange(@QueryParam("tableName") String tableName,
                                                 RangeRequest rangeRequest,
@@ -351,8 +351,8 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("get-range-with-history")
-    @Produces(MediaType.APPLICATION_JSON)
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     ClosableIterator<RowResult<Set<Value>>> getRangeWithHistory(@QueryParam("tableName") String tableName,
                                                                 RangeRequest rangeRequest,
@@ -376,8 +376,8 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("get-range-of-timestamps")
-    @Produces(MediaType.APPLICATION_JSON)
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     ClosableIterator<RowResult<Set<Long>>> getRangeOfTimestamps(@QueryParam("tableName") String tableName,
                                                                 RangeRequest rangeRequest,
@@ -517,7 +517,7 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("add-gc-sentinel-values")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     void addGarbageCollectionSentinelValues(@QueryParam("tableName") String tableName, Set<Cell> cells);
 
@@ -540,8 +540,8 @@ public interface KeyValueService extends AutoCloseable {
      */
     @POST
     @Path("get-all-timestamps")
-    @Produces(MediaType.APPLICATION_JSON)
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
+    @Consumes({MediaType.APPLICATION_JSON, KeyValueServiceMediaTypes.BINARY})
     @Idempotent
     Multimap<Cell, Long> getAllTimestamps(@QueryParam("tableName") String tableName,
                                           Set<Cell> cells,
@@ -0,0 +1,30 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.api;
+
+/**
+ * Media types that a remote {@link KeyValueService} can negotiate in addition to JSON.
+ */
+public final class KeyValueServiceMediaTypes {
+    /**
+     * A compact binary encoding of cells, values and range pages: byte arrays are length prefixed
+     * and timestamps and counts are varints. Endpoints that support it list it after JSON, so
+     * clients only get it when they ask for it.
+     */
+    public static final String BINARY = "application/x-atlasdb-kvs";
+
+    private KeyValueServiceMediaTypes() { /* */ }
+}
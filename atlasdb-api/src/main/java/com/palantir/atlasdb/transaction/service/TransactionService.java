@@ -48,4 +48,15 @@ public interface TransactionService {
      */
     void putUnlessExists(long startTimestamp, long commitTimestamp)
             throws KeyAlreadyExistsException;
+
+    /**
+     * Batched version of {@link #putUnlessExists(long, long)}. Each start timestamp is set
+     * atomically and independently of the others.
+     * @throws KeyAlreadyExistsException If any of the values were already set. The other values
+     * may or may not have been set, so {@link #get(Iterable)} should be called to check.
+     * @throws RuntimeException If a runtime exception is thrown, this operation may or may
+     * not have ran for any of the values.
+     */
+    void putUnlessExists(Map<Long, Long> startTimestampToCommitTimestamp)
+            throws KeyAlreadyExistsException;
 }
@@ -129,6 +129,15 @@ public final class StreamPersistence {
      * <code>required bytes hash = 3;</code>
      */
     com.google.protobuf.ByteString getHash();
+
+    /**
+     * <code>optional bool blocksCompressed = 4;</code>
+     */
+    boolean hasBlocksCompressed();
+    /**
+     * <code>optional bool blocksCompressed = 4;</code>
+     */
+    boolean getBlocksCompressed();
   }
   /**
    * Protobuf type {@code com.palantir.atlasdb.protos.generated.StreamMetadata}
@@ -203,6 +212,11 @@ public final class StreamPersistence {
               hash_ = input.readBytes();
               break;
             }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              blocksCompressed_ = input.readBool();
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -288,10 +302,26 @@ public final class StreamPersistence {
       return hash_;
     }
 
+    public static final int BLOCKSCOMPRESSED_FIELD_NUMBER = 4;
+    private boolean blocksCompressed_;
+    /**
+     * <code>optional bool blocksCompressed = 4;</code>
+     */
+    public boolean hasBlocksCompressed() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    /**
+     * <code>optional bool blocksCompressed = 4;</code>
+     */
+    public boolean getBlocksCompressed() {
+      return blocksCompressed_;
+    }
+
     private void initFields() {
       status_ = com.palantir.atlasdb.protos.generated.StreamPersistence.Status.STORING;
       length_ = 0L;
       hash_ = com.google.protobuf.ByteString.EMPTY;
+      blocksCompressed_ = false;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -327,6 +357,9 @@ public final class StreamPersistence {
       if (((bitField0_ & 0x00000004) == 0x00000004)) {
         output.writeBytes(3, hash_);
       }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeBool(4, blocksCompressed_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -348,6 +381,10 @@ public final class StreamPersistence {
         size += com.google.protobuf.CodedOutputStream
           .computeBytesSize(3, hash_);
       }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBoolSize(4, blocksCompressed_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -471,6 +508,8 @@ public final class StreamPersistence {
         bitField0_ = (bitField0_ & ~0x00000002);
         hash_ = com.google.protobuf.ByteString.EMPTY;
         bitField0_ = (bitField0_ & ~0x00000004);
+        blocksCompressed_ = false;
+        bitField0_ = (bitField0_ & ~0x00000008);
         return this;
       }
 
@@ -511,6 +550,10 @@ public final class StreamPersistence {
           to_bitField0_ |= 0x00000004;
         }
         result.hash_ = hash_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.blocksCompressed_ = blocksCompressed_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -536,6 +579,9 @@ public final class StreamPersistence {
         if (other.hasHash()) {
           setHash(other.getHash());
         }
+        if (other.hasBlocksCompressed()) {
+          setBlocksCompressed(other.getBlocksCompressed());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -677,6 +723,38 @@ public final class StreamPersistence {
         return this;
       }
 
+      private boolean blocksCompressed_ ;
+      /**
+       * <code>optional bool blocksCompressed = 4;</code>
+       */
+      public boolean hasBlocksCompressed() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      /**
+       * <code>optional bool blocksCompressed = 4;</code>
+       */
+      public boolean getBlocksCompressed() {
+        return blocksCompressed_;
+      }
+      /**
+       * <code>optional bool blocksCompressed = 4;</code>
+       */
+      public Builder setBlocksCompressed(boolean value) {
+        bitField0_ |= 0x00000008;
+        blocksCompressed_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bool blocksCompressed = 4;</code>
+       */
+      public Builder clearBlocksCompressed() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        blocksCompressed_ = false;
+        onChanged();
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:com.palantir.atlasdb.protos.generated.StreamMetadata)
     }
 
@@ -704,11 +782,12 @@ public final class StreamPersistence {
     java.lang.String[] descriptorData = {
       "\n>main/proto/com/palantir/atlasdb/protos" +
       "/StreamPersistence.proto\022%com.palantir.a" +
-      "tlasdb.protos.generated\"m\n\016StreamMetadat" +
-      "a\022=\n\006status\030\001 \002(\0162-.com.palantir.atlasdb" +
-      ".protos.generated.Status\022\016\n\006length\030\002 \002(\003" +
-      "\022\014\n\004hash\030\003 \002(\014*-\n\006Status\022\013\n\007STORING\020\001\022\n\n" +
-      "\006STORED\020\002\022\n\n\006FAILED\020\003"
+      "tlasdb.protos.generated\"\207\001\n\016StreamMetada" +
+      "ta\022=\n\006status\030\001 \002(\0162-.com.palantir.atlasd" +
+      "b.protos.generated.Status\022\016\n\006length\030\002 \002(" +
+      "\003\022\014\n\004hash\030\003 \002(\014\022\030\n\020blocksCompressed\030\004 \001(" +
+      "\010*-\n\006Status\022\013\n\007STORING\020\001\022\n\n\006STORED\020\002\022\n\n\006" +
+      "FAILED\020\003"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -727,7 +806,7 @@ public final class StreamPersistence {
     internal_static_com_palantir_atlasdb_protos_generated_StreamMetadata_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessage.FieldAccessorTable(
         internal_static_com_palantir_atlasdb_protos_generated_StreamMetadata_descriptor,
-        new java.lang.String[] { "Status", "Length", "Hash", });
+        new java.lang.String[] { "Status", "Length", "Hash", "BlocksCompressed", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)
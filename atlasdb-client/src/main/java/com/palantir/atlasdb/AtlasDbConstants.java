@@ -30,6 +30,8 @@ public class AtlasDbConstants {
 
     public static final String PUNCH_TABLE = "_punch";
     public static final String SCRUB_TABLE = "_scrub";
+    public static final String SCRUB_QUEUE_TABLE = "_scrub_queue";
+    public static final String SCRUB_TABLE_IDS_TABLE = "_scrub_table_ids";
     public static final String NAMESPACE_TABLE = "_namespace";
     public static final String TIMESTAMP_TABLE = "_timestamp";
     public static final String NAMESPACE_PREFIX = "_n_";
@@ -55,6 +57,8 @@ public class AtlasDbConstants {
             TransactionConstants.TRANSACTION_TABLE,
             PUNCH_TABLE,
             SCRUB_TABLE,
+            SCRUB_QUEUE_TABLE,
+            SCRUB_TABLE_IDS_TABLE,
             NAMESPACE_TABLE,
             PARTITION_MAP_TABLE);
     public static final Set<String> SKIP_POSTFILTER_TABLES = ImmutableSet.of(TransactionConstants.TRANSACTION_TABLE,
@@ -76,6 +80,8 @@ public class AtlasDbConstants {
     public static final int DEFAULT_BACKGROUND_SCRUB_READ_THREADS = 8;
     public static final long DEFAULT_BACKGROUND_SCRUB_FREQUENCY_MILLIS = 3600000L;
     public static final int DEFAULT_BACKGROUND_SCRUB_BATCH_SIZE = 2000;
+    public static final boolean DEFAULT_USE_BUCKETED_SCRUB_QUEUE = false;
+    public static final long DEFAULT_SCRUB_QUEUE_TIMESTAMP_BUCKET_SIZE = 1000000L;
     public static final boolean DEFAULT_ENABLE_SWEEP = false;
     public static final long DEFAULT_SWEEP_PAUSE_MILLIS = 5 * 1000;
     public static final int DEFAULT_SWEEP_BATCH_SIZE = 1000;
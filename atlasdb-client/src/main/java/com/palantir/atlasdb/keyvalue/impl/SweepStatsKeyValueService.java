@@ -15,6 +15,7 @@
  */
 package com.palantir.atlasdb.keyvalue.impl;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +32,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
 import com.google.common.base.Functions;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Collections2;
@@ -51,15 +53,23 @@ import com.palantir.atlasdb.schema.SweepSchema;
 import com.palantir.atlasdb.schema.generated.SweepPriorityTable;
 import com.palantir.atlasdb.schema.generated.SweepPriorityTable.SweepPriorityNamedColumn;
 import com.palantir.atlasdb.schema.generated.SweepPriorityTable.SweepPriorityRow;
+import com.palantir.atlasdb.schema.generated.SweepRangePriorityTable;
+import com.palantir.atlasdb.schema.generated.SweepRangePriorityTable.SweepRangePriorityNamedColumn;
+import com.palantir.atlasdb.schema.generated.SweepRangePriorityTable.SweepRangePriorityRow;
 import com.palantir.atlasdb.transaction.impl.TransactionConstants;
 import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.persist.Persistables;
 import com.palantir.timestamp.TimestampService;
+import com.palantir.util.Pair;
 
 /**
  * This kvs wrapper tracks the approximate number of writes to every table
  * since the last time the table was completely swept. This is used when
  * deciding the order in which tables should be swept.
+ * <p>
+ * Writes and deletes are also counted separately for each of
+ * {@link #NUM_SWEEP_RANGES} row ranges of every table, so that sweep can
+ * target the parts of a table that have accumulated the most garbage.
  */
 public class SweepStatsKeyValueService extends ForwardingKeyValueService {
 
@@ -68,12 +78,25 @@ public class SweepStatsKeyValueService extends ForwardingKeyValueService {
     private static final int WRITE_THRESHOLD = 1 << 16;
     private static final long FLUSH_DELAY_SECONDS = 42;
 
+    /**
+     * Rows are bucketed into ranges by the high four bits of their first byte, since a range has
+     * to be a contiguous span of rows for sweep to scan it. This only spreads rows out evenly for
+     * tables whose row keys start with hashed or otherwise uniform bytes. Tables whose rows share
+     * a common prefix (a fixed first component, small VAR_LONGs, ASCII strings) fall into one or
+     * two ranges, and for those sweeping a range costs about as much as sweeping the whole table.
+     */
+    public static final int NUM_SWEEP_RANGES = 16;
+    private static final int SWEEP_RANGE_SHIFT = 4;
+
     // This is gross and won't work if someone starts namespacing sweep differently
     private static final String SWEEP_PRIORITY_TABLE = SweepSchema.INSTANCE.getNamespace().getName() + '.' + SweepPriorityTable.getRawTableName();
+    private static final String SWEEP_RANGE_PRIORITY_TABLE = SweepSchema.INSTANCE.getNamespace().getName() + '.' + SweepRangePriorityTable.getRawTableName();
 
     private final KeyValueService delegate;
     private final TimestampService timestampService;
     private final Multiset<String> writesByTable = ConcurrentHashMultiset.create();
+    private final Multiset<Pair<String, Integer>> writesByRange = ConcurrentHashMultiset.create();
+    private final Multiset<Pair<String, Integer>> deletesByRange = ConcurrentHashMultiset.create();
     private final Set<String> clearedTables = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     private final AtomicInteger totalModifications = new AtomicInteger();
     private final Lock flushLock = new ReentrantLock();
@@ -95,6 +118,7 @@ public class SweepStatsKeyValueService extends ForwardingKeyValueService {
     public void put(String tableName, Map<Cell, byte[]> values, long timestamp) {
         delegate().put(tableName, values, timestamp);
         writesByTable.add(tableName, values.size());
+        recordRangeWrites(tableName, values.entrySet());
         recordModifications(values.size());
     }
 
@@ -104,6 +128,7 @@ public class SweepStatsKeyValueService extends ForwardingKeyValueService {
         int newWrites = 0;
         for (Entry<String, ? extends Map<Cell, byte[]>> entry : valuesByTable.entrySet()) {
             writesByTable.add(entry.getKey(), entry.getValue().size());
+            recordRangeWrites(entry.getKey(), entry.getValue().entrySet());
             newWrites += entry.getValue().size();
         }
         recordModifications(newWrites);
@@ -113,9 +138,42 @@ public class SweepStatsKeyValueService extends ForwardingKeyValueService {
     public void putWithTimestamps(String tableName, Multimap<Cell, Value> cellValues) {
         delegate().putWithTimestamps(tableName, cellValues);
         writesByTable.add(tableName, cellValues.size());
+        int[] writes = new int[NUM_SWEEP_RANGES];
+        int[] deletes = new int[NUM_SWEEP_RANGES];
+        for (Entry<Cell, Value> entry : cellValues.entries()) {
+            int range = getSweepRange(entry.getKey().getRowName());
+            writes[range]++;
+            if (entry.getValue().getContents().length == 0) {
+                deletes[range]++;
+            }
+        }
+        addRangeWrites(tableName, writes, deletes);
         recordModifications(cellValues.size());
     }
 
+    /**
+     * Returns the sweep range that the given row falls into.
+     */
+    public static int getSweepRange(byte[] row) {
+        return row.length == 0 ? 0 : (row[0] & 0xff) >>> SWEEP_RANGE_SHIFT;
+    }
+
+    /**
+     * Returns the first row (inclusive) of the given sweep range. The empty array is the start of the table.
+     */
+    public static byte[] getSweepRangeStartRow(int range) {
+        Preconditions.checkArgument(range >= 0 && range < NUM_SWEEP_RANGES, "invalid sweep range %s", range);
+        return range == 0 ? new byte[0] : new byte[] { (byte) (range << SWEEP_RANGE_SHIFT) };
+    }
+
+    /**
+     * Returns the last row (exclusive) of the given sweep range. The empty array is the end of the table.
+     */
+    public static byte[] getSweepRangeEndRow(int range) {
+        Preconditions.checkArgument(range >= 0 && range < NUM_SWEEP_RANGES, "invalid sweep range %s", range);
+        return range == NUM_SWEEP_RANGES - 1 ? new byte[0] : getSweepRangeStartRow(range + 1);
+    }
+
     @Override
     public void truncateTable(String tableName) {
         delegate().truncateTable(tableName);
@@ -195,6 +253,30 @@ public class SweepStatsKeyValueService extends ForwardingKeyValueService {
     // all updates are flushed. It is intended only to be "good enough" for
     // determining what tables have been written to a lot.
 
+    private void recordRangeWrites(String tableName, Collection<? extends Entry<Cell, byte[]>> values) {
+        int[] writes = new int[NUM_SWEEP_RANGES];
+        int[] deletes = new int[NUM_SWEEP_RANGES];
+        for (Entry<Cell, byte[]> entry : values) {
+            int range = getSweepRange(entry.getKey().getRowName());
+            writes[range]++;
+            if (entry.getValue().length == 0) {
+                deletes[range]++;
+            }
+        }
+        addRangeWrites(tableName, writes, deletes);
+    }
+
+    private void addRangeWrites(String tableName, int[] writes, int[] deletes) {
+        for (int range = 0; range < NUM_SWEEP_RANGES; range++) {
+            if (writes[range] > 0) {
+                writesByRange.add(Pair.create(tableName, range), writes[range]);
+            }
+            if (deletes[range] > 0) {
+                deletesByRange.add(Pair.create(tableName, range), deletes[range]);
+            }
+        }
+    }
+
     private void recordModifications(int newWrites) {
         totalModifications.addAndGet(newWrites);
     }
@@ -211,11 +293,15 @@ public class SweepStatsKeyValueService extends ForwardingKeyValueService {
                                 totalModifications.set(0);
                                 Multiset<String> localWritesByTable = ImmutableMultiset.copyOf(writesByTable);
                                 writesByTable.clear();
+                                Multiset<Pair<String, Integer>> localWritesByRange = ImmutableMultiset.copyOf(writesByRange);
+                                writesByRange.clear();
+                                Multiset<Pair<String, Integer>> localDeletesByRange = ImmutableMultiset.copyOf(deletesByRange);
+                                deletesByRange.clear();
                                 Set<String> localClearedTables = ImmutableSet.copyOf(clearedTables);
                                 clearedTables.clear();
 
                                 // apply back pressure by only allowing one flush at a time
-                                flushWrites(localWritesByTable, localClearedTables);
+                                flushWrites(localWritesByTable, localWritesByRange, localDeletesByRange, localClearedTables);
                             }
                         } finally {
                             flushLock.unlock();
@@ -228,7 +314,10 @@ public class SweepStatsKeyValueService extends ForwardingKeyValueService {
         };
     }
 
-    private void flushWrites(Multiset<String> writes, Set<String> clears) {
+    private void flushWrites(Multiset<String> writes,
+                             Multiset<Pair<String, Integer>> rangeWrites,
+                             Multiset<Pair<String, Integer>> rangeDeletes,
+                             Set<String> clears) {
         if (writes.isEmpty() && clears.isEmpty()) {
             log.debug("No writes to flush");
             return;
@@ -258,12 +347,14 @@ public class SweepStatsKeyValueService extends ForwardingKeyValueService {
                 log.debug("Sweep priority for {} has {} writes (was {})", tableName, newValue, oldCount);
                 newWriteCounts.put(cell, SweepPriorityTable.WriteCount.of(newValue).persistValue());
             }
+            Map<Cell, byte[]> newRangeCounts = getNewRangeCounts(rangeWrites, rangeDeletes, clears);
             long timestamp = timestampService.getFreshTimestamp();
 
             // Committing before writing is intentional, we want the start timestamp to
             // show up in the transaction table before we write do our writes.
             commit(timestamp);
             delegate().put(SWEEP_PRIORITY_TABLE, newWriteCounts, timestamp);
+            delegate().put(SWEEP_RANGE_PRIORITY_TABLE, newRangeCounts, timestamp);
         } catch (RuntimeException e) {
             Set<String> allTableNames = delegate().getAllTableNames();
             if (!allTableNames.contains(SWEEP_PRIORITY_TABLE)
@@ -277,6 +368,54 @@ public class SweepStatsKeyValueService extends ForwardingKeyValueService {
         }
     }
 
+    private Map<Cell, byte[]> getNewRangeCounts(Multiset<Pair<String, Integer>> writes,
+                                                Multiset<Pair<String, Integer>> deletes,
+                                                Set<String> clears) {
+        Set<Pair<String, Integer>> ranges = Sets.newHashSet(writes.elementSet());
+        for (String tableName : clears) {
+            // Reset every range of a cleared table, not just the ones written to since.
+            for (int range = 0; range < NUM_SWEEP_RANGES; range++) {
+                ranges.add(Pair.create(tableName, range));
+            }
+        }
+        Map<Cell, byte[]> newRangeCounts = Maps.newHashMapWithExpectedSize(2 * ranges.size());
+        if (ranges.isEmpty()) {
+            return newRangeCounts;
+        }
+        Collection<byte[]> rows = Collections2.transform(ranges, new Function<Pair<String, Integer>, byte[]>() {
+            @Override
+            public byte[] apply(Pair<String, Integer> range) {
+                return SweepRangePriorityRow.of(range.lhSide, range.rhSide).persistToBytes();
+            }
+        });
+        Map<Cell, Value> oldCounts = delegate().getRows(SWEEP_RANGE_PRIORITY_TABLE, rows,
+                SweepRangePriorityTable.getColumnSelection(
+                        SweepRangePriorityNamedColumn.WRITE_COUNT,
+                        SweepRangePriorityNamedColumn.DELETE_COUNT),
+                Long.MAX_VALUE);
+        byte[] writeCol = SweepRangePriorityNamedColumn.WRITE_COUNT.getShortName();
+        byte[] deleteCol = SweepRangePriorityNamedColumn.DELETE_COUNT.getShortName();
+        for (Pair<String, Integer> range : ranges) {
+            boolean cleared = clears.contains(range.lhSide);
+            byte[] row = SweepRangePriorityRow.of(range.lhSide, range.rhSide).persistToBytes();
+            Cell writeCell = Cell.create(row, writeCol);
+            Cell deleteCell = Cell.create(row, deleteCol);
+            Value oldWriteCount = cleared ? null : oldCounts.get(writeCell);
+            Value oldDeleteCount = cleared ? null : oldCounts.get(deleteCell);
+            long newWriteCount = writes.count(range) + (isEmpty(oldWriteCount) ? 0 :
+                SweepRangePriorityTable.WriteCount.BYTES_HYDRATOR.hydrateFromBytes(oldWriteCount.getContents()).getValue());
+            long newDeleteCount = deletes.count(range) + (isEmpty(oldDeleteCount) ? 0 :
+                SweepRangePriorityTable.DeleteCount.BYTES_HYDRATOR.hydrateFromBytes(oldDeleteCount.getContents()).getValue());
+            newRangeCounts.put(writeCell, SweepRangePriorityTable.WriteCount.of(newWriteCount).persistValue());
+            newRangeCounts.put(deleteCell, SweepRangePriorityTable.DeleteCount.of(newDeleteCount).persistValue());
+        }
+        return newRangeCounts;
+    }
+
+    private static boolean isEmpty(Value value) {
+        return value == null || value.getContents().length == 0;
+    }
+
     private void commit(long timestamp) {
         Cell cell = Cell.create(
                 TransactionConstants.getValueForTimestamp(timestamp),
@@ -56,6 +56,9 @@ public enum SweepSchema implements AtlasSchema {
                 column("cells_deleted", "d", ValueType.VAR_LONG);
                 // The number of cells examined so far.
                 column("cells_examined", "e", ValueType.VAR_LONG);
+                // The row range being swept, if only a single range
+                // of the table is being swept.
+                column("range", "g", ValueType.VAR_LONG);
             conflictHandler(ConflictHandler.IGNORE_ALL);
         }});
 
@@ -81,6 +84,33 @@ public enum SweepSchema implements AtlasSchema {
             conflictHandler(ConflictHandler.IGNORE_ALL);
         }});
 
+        // This table tracks the same stats as the priority table, but
+        // for each of a fixed number of row ranges of every table. This
+        // is used to decide which part of a table is worth sweeping.
+        schema.addTableDefinition("range_priority", new TableDefinition() {{
+            javaTableName("SweepRangePriority");
+            rowName();
+                rowComponent("full_table_name", ValueType.VAR_STRING);
+                rowComponent("range", ValueType.VAR_LONG);
+            columns();
+                // The (approximate) number of writes to this range
+                // since the last time it was swept.
+                column("write_count", "w", ValueType.VAR_LONG);
+                // The (approximate) number of those writes that
+                // were deletes.
+                column("delete_count", "x", ValueType.VAR_LONG);
+                // The (wall clock) time of when this range was
+                // last swept.
+                column("last_sweep_time", "t", ValueType.VAR_LONG);
+                // The number of cells deleted when this range was
+                // last swept on its own.
+                column("cells_deleted", "d", ValueType.VAR_LONG);
+                // The number of cells in the range when this range
+                // was last swept on its own.
+                column("cells_examined", "e", ValueType.VAR_LONG);
+            conflictHandler(ConflictHandler.IGNORE_ALL);
+        }});
+
         schema.validate();
         return schema;
     }
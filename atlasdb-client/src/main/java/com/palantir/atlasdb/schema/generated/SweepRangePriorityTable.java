@@ -0,0 +1,1256 @@
+package com.palantir.atlasdb.schema.generated;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Generated;
+
+
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.palantir.atlasdb.compress.CompressionUtils;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.Prefix;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.impl.Cells;
+import com.palantir.atlasdb.ptobject.EncodingUtils;
+import com.palantir.atlasdb.schema.Namespace;
+import com.palantir.atlasdb.table.api.AtlasDbDynamicMutableExpiringTable;
+import com.palantir.atlasdb.table.api.AtlasDbDynamicMutablePersistentTable;
+import com.palantir.atlasdb.table.api.AtlasDbMutableExpiringTable;
+import com.palantir.atlasdb.table.api.AtlasDbMutablePersistentTable;
+import com.palantir.atlasdb.table.api.AtlasDbNamedExpiringSet;
+import com.palantir.atlasdb.table.api.AtlasDbNamedMutableTable;
+import com.palantir.atlasdb.table.api.AtlasDbNamedPersistentSet;
+import com.palantir.atlasdb.table.api.ColumnValue;
+import com.palantir.atlasdb.table.api.TypedRowResult;
+import com.palantir.atlasdb.table.description.ColumnValueDescription.Compression;
+import com.palantir.atlasdb.table.description.ValueType;
+import com.palantir.atlasdb.table.generation.ColumnValues;
+import com.palantir.atlasdb.table.generation.Descending;
+import com.palantir.atlasdb.table.generation.NamedColumnValue;
+import com.palantir.atlasdb.transaction.api.AtlasDbConstraintCheckingMode;
+import com.palantir.atlasdb.transaction.api.ConstraintCheckingTransaction;
+import com.palantir.atlasdb.transaction.api.Transaction;
+import com.palantir.common.base.AbortingVisitor;
+import com.palantir.common.base.AbortingVisitors;
+import com.palantir.common.base.BatchingVisitable;
+import com.palantir.common.base.BatchingVisitableView;
+import com.palantir.common.base.BatchingVisitables;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.collect.IterableView;
+import com.palantir.common.persist.Persistable;
+import com.palantir.common.persist.Persistable.Hydrator;
+import com.palantir.common.persist.Persistables;
+import com.palantir.common.proxy.AsyncProxy;
+import com.palantir.util.AssertUtils;
+import com.palantir.util.crypto.Sha256Hash;
+
+
+@Generated("com.palantir.atlasdb.table.description.render.TableRenderer")
+public final class SweepRangePriorityTable implements
+        AtlasDbMutablePersistentTable<SweepRangePriorityTable.SweepRangePriorityRow,
+                                         SweepRangePriorityTable.SweepRangePriorityNamedColumnValue<?>,
+                                         SweepRangePriorityTable.SweepRangePriorityRowResult>,
+        AtlasDbNamedMutableTable<SweepRangePriorityTable.SweepRangePriorityRow,
+                                    SweepRangePriorityTable.SweepRangePriorityNamedColumnValue<?>,
+                                    SweepRangePriorityTable.SweepRangePriorityRowResult> {
+    private final Transaction t;
+    private final List<SweepRangePriorityTrigger> triggers;
+    private final static String rawTableName = "range_priority";
+    private final String tableName;
+    private final Namespace namespace;
+
+    static SweepRangePriorityTable of(Transaction t, Namespace namespace) {
+        return new SweepRangePriorityTable(t, namespace, ImmutableList.<SweepRangePriorityTrigger>of());
+    }
+
+    static SweepRangePriorityTable of(Transaction t, Namespace namespace, SweepRangePriorityTrigger trigger, SweepRangePriorityTrigger... triggers) {
+        return new SweepRangePriorityTable(t, namespace, ImmutableList.<SweepRangePriorityTrigger>builder().add(trigger).add(triggers).build());
+    }
+
+    static SweepRangePriorityTable of(Transaction t, Namespace namespace, List<SweepRangePriorityTrigger> triggers) {
+        return new SweepRangePriorityTable(t, namespace, triggers);
+    }
+
+    private SweepRangePriorityTable(Transaction t, Namespace namespace, List<SweepRangePriorityTrigger> triggers) {
+        this.t = t;
+        this.tableName = namespace.getName().isEmpty() ? rawTableName : namespace.getName() + "." + rawTableName;
+        this.triggers = triggers;
+        this.namespace = namespace;
+    }
+
+    public static String getRawTableName() {
+        return rawTableName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Namespace getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * <pre>
+     * SweepRangePriorityRow {
+     *   {@literal String fullTableName};
+     *   {@literal Long range};
+     * }
+     * </pre>
+     */
+    public static final class SweepRangePriorityRow implements Persistable, Comparable<SweepRangePriorityRow> {
+        private final String fullTableName;
+        private final long range;
+
+        public static SweepRangePriorityRow of(String fullTableName, long range) {
+            return new SweepRangePriorityRow(fullTableName, range);
+        }
+
+        private SweepRangePriorityRow(String fullTableName, long range) {
+            this.fullTableName = fullTableName;
+            this.range = range;
+        }
+
+        public String getFullTableName() {
+            return fullTableName;
+        }
+
+        public long getRange() {
+            return range;
+        }
+
+        public static Function<SweepRangePriorityRow, String> getFullTableNameFun() {
+            return new Function<SweepRangePriorityRow, String>() {
+                @Override
+                public String apply(SweepRangePriorityRow row) {
+                    return row.fullTableName;
+                }
+            };
+        }
+
+        public static Function<SweepRangePriorityRow, Long> getRangeFun() {
+            return new Function<SweepRangePriorityRow, Long>() {
+                @Override
+                public Long apply(SweepRangePriorityRow row) {
+                    return row.range;
+                }
+            };
+        }
+
+        @Override
+        public byte[] persistToBytes() {
+            byte[] fullTableNameBytes = EncodingUtils.encodeVarString(fullTableName);
+            byte[] rangeBytes = EncodingUtils.encodeUnsignedVarLong(range);
+            return EncodingUtils.add(fullTableNameBytes, rangeBytes);
+        }
+
+        public static final Hydrator<SweepRangePriorityRow> BYTES_HYDRATOR = new Hydrator<SweepRangePriorityRow>() {
+            @Override
+            public SweepRangePriorityRow hydrateFromBytes(byte[] __input) {
+                int __index = 0;
+                String fullTableName = EncodingUtils.decodeVarString(__input, __index);
+                __index += EncodingUtils.sizeOfVarString(fullTableName);
+                Long range = EncodingUtils.decodeUnsignedVarLong(__input, __index);
+                __index += EncodingUtils.sizeOfUnsignedVarLong(range);
+                return new SweepRangePriorityRow(fullTableName, range);
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("fullTableName", fullTableName)
+                .add("range", range)
+                .toString();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            SweepRangePriorityRow other = (SweepRangePriorityRow) obj;
+            return Objects.equal(fullTableName, other.fullTableName) && Objects.equal(range, other.range);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(fullTableName, range);
+        }
+
+        @Override
+        public int compareTo(SweepRangePriorityRow o) {
+            return ComparisonChain.start()
+                .compare(this.fullTableName, o.fullTableName)
+                .compare(this.range, o.range)
+                .result();
+        }
+    }
+
+    public interface SweepRangePriorityNamedColumnValue<T> extends NamedColumnValue<T> { /* */ }
+
+    /**
+     * <pre>
+     * Column value description {
+     *   type: Long;
+     * }
+     * </pre>
+     */
+    public static final class CellsDeleted implements SweepRangePriorityNamedColumnValue<Long> {
+        private final Long value;
+
+        public static CellsDeleted of(Long value) {
+            return new CellsDeleted(value);
+        }
+
+        private CellsDeleted(Long value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getColumnName() {
+            return "cells_deleted";
+        }
+
+        @Override
+        public String getShortColumnName() {
+            return "d";
+        }
+
+        @Override
+        public Long getValue() {
+            return value;
+        }
+
+        @Override
+        public byte[] persistValue() {
+            byte[] bytes = EncodingUtils.encodeUnsignedVarLong(value);
+            return CompressionUtils.compress(bytes, Compression.NONE);
+        }
+
+        @Override
+        public byte[] persistColumnName() {
+            return PtBytes.toCachedBytes("d");
+        }
+
+        public static final Hydrator<CellsDeleted> BYTES_HYDRATOR = new Hydrator<CellsDeleted>() {
+            @Override
+            public CellsDeleted hydrateFromBytes(byte[] bytes) {
+                bytes = CompressionUtils.decompress(bytes, Compression.NONE);
+                return of(EncodingUtils.decodeUnsignedVarLong(bytes, 0));
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("Value", this.value)
+                .toString();
+        }
+    }
+
+    /**
+     * <pre>
+     * Column value description {
+     *   type: Long;
+     * }
+     * </pre>
+     */
+    public static final class CellsExamined implements SweepRangePriorityNamedColumnValue<Long> {
+        private final Long value;
+
+        public static CellsExamined of(Long value) {
+            return new CellsExamined(value);
+        }
+
+        private CellsExamined(Long value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getColumnName() {
+            return "cells_examined";
+        }
+
+        @Override
+        public String getShortColumnName() {
+            return "e";
+        }
+
+        @Override
+        public Long getValue() {
+            return value;
+        }
+
+        @Override
+        public byte[] persistValue() {
+            byte[] bytes = EncodingUtils.encodeUnsignedVarLong(value);
+            return CompressionUtils.compress(bytes, Compression.NONE);
+        }
+
+        @Override
+        public byte[] persistColumnName() {
+            return PtBytes.toCachedBytes("e");
+        }
+
+        public static final Hydrator<CellsExamined> BYTES_HYDRATOR = new Hydrator<CellsExamined>() {
+            @Override
+            public CellsExamined hydrateFromBytes(byte[] bytes) {
+                bytes = CompressionUtils.decompress(bytes, Compression.NONE);
+                return of(EncodingUtils.decodeUnsignedVarLong(bytes, 0));
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("Value", this.value)
+                .toString();
+        }
+    }
+
+    /**
+     * <pre>
+     * Column value description {
+     *   type: Long;
+     * }
+     * </pre>
+     */
+    public static final class DeleteCount implements SweepRangePriorityNamedColumnValue<Long> {
+        private final Long value;
+
+        public static DeleteCount of(Long value) {
+            return new DeleteCount(value);
+        }
+
+        private DeleteCount(Long value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getColumnName() {
+            return "delete_count";
+        }
+
+        @Override
+        public String getShortColumnName() {
+            return "x";
+        }
+
+        @Override
+        public Long getValue() {
+            return value;
+        }
+
+        @Override
+        public byte[] persistValue() {
+            byte[] bytes = EncodingUtils.encodeUnsignedVarLong(value);
+            return CompressionUtils.compress(bytes, Compression.NONE);
+        }
+
+        @Override
+        public byte[] persistColumnName() {
+            return PtBytes.toCachedBytes("x");
+        }
+
+        public static final Hydrator<DeleteCount> BYTES_HYDRATOR = new Hydrator<DeleteCount>() {
+            @Override
+            public DeleteCount hydrateFromBytes(byte[] bytes) {
+                bytes = CompressionUtils.decompress(bytes, Compression.NONE);
+                return of(EncodingUtils.decodeUnsignedVarLong(bytes, 0));
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("Value", this.value)
+                .toString();
+        }
+    }
+
+    /**
+     * <pre>
+     * Column value description {
+     *   type: Long;
+     * }
+     * </pre>
+     */
+    public static final class LastSweepTime implements SweepRangePriorityNamedColumnValue<Long> {
+        private final Long value;
+
+        public static LastSweepTime of(Long value) {
+            return new LastSweepTime(value);
+        }
+
+        private LastSweepTime(Long value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getColumnName() {
+            return "last_sweep_time";
+        }
+
+        @Override
+        public String getShortColumnName() {
+            return "t";
+        }
+
+        @Override
+        public Long getValue() {
+            return value;
+        }
+
+        @Override
+        public byte[] persistValue() {
+            byte[] bytes = EncodingUtils.encodeUnsignedVarLong(value);
+            return CompressionUtils.compress(bytes, Compression.NONE);
+        }
+
+        @Override
+        public byte[] persistColumnName() {
+            return PtBytes.toCachedBytes("t");
+        }
+
+        public static final Hydrator<LastSweepTime> BYTES_HYDRATOR = new Hydrator<LastSweepTime>() {
+            @Override
+            public LastSweepTime hydrateFromBytes(byte[] bytes) {
+                bytes = CompressionUtils.decompress(bytes, Compression.NONE);
+                return of(EncodingUtils.decodeUnsignedVarLong(bytes, 0));
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("Value", this.value)
+                .toString();
+        }
+    }
+
+    /**
+     * <pre>
+     * Column value description {
+     *   type: Long;
+     * }
+     * </pre>
+     */
+    public static final class WriteCount implements SweepRangePriorityNamedColumnValue<Long> {
+        private final Long value;
+
+        public static WriteCount of(Long value) {
+            return new WriteCount(value);
+        }
+
+        private WriteCount(Long value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getColumnName() {
+            return "write_count";
+        }
+
+        @Override
+        public String getShortColumnName() {
+            return "w";
+        }
+
+        @Override
+        public Long getValue() {
+            return value;
+        }
+
+        @Override
+        public byte[] persistValue() {
+            byte[] bytes = EncodingUtils.encodeUnsignedVarLong(value);
+            return CompressionUtils.compress(bytes, Compression.NONE);
+        }
+
+        @Override
+        public byte[] persistColumnName() {
+            return PtBytes.toCachedBytes("w");
+        }
+
+        public static final Hydrator<WriteCount> BYTES_HYDRATOR = new Hydrator<WriteCount>() {
+            @Override
+            public WriteCount hydrateFromBytes(byte[] bytes) {
+                bytes = CompressionUtils.decompress(bytes, Compression.NONE);
+                return of(EncodingUtils.decodeUnsignedVarLong(bytes, 0));
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("Value", this.value)
+                .toString();
+        }
+    }
+
+    public interface SweepRangePriorityTrigger {
+        public void putSweepRangePriority(Multimap<SweepRangePriorityRow, ? extends SweepRangePriorityNamedColumnValue<?>> newRows);
+    }
+
+    public static final class SweepRangePriorityRowResult implements TypedRowResult {
+        private final RowResult<byte[]> row;
+
+        public static SweepRangePriorityRowResult of(RowResult<byte[]> row) {
+            return new SweepRangePriorityRowResult(row);
+        }
+
+        private SweepRangePriorityRowResult(RowResult<byte[]> row) {
+            this.row = row;
+        }
+
+        @Override
+        public SweepRangePriorityRow getRowName() {
+            return SweepRangePriorityRow.BYTES_HYDRATOR.hydrateFromBytes(row.getRowName());
+        }
+
+        public static Function<SweepRangePriorityRowResult, SweepRangePriorityRow> getRowNameFun() {
+            return new Function<SweepRangePriorityRowResult, SweepRangePriorityRow>() {
+                @Override
+                public SweepRangePriorityRow apply(SweepRangePriorityRowResult rowResult) {
+                    return rowResult.getRowName();
+                }
+            };
+        }
+
+        public static Function<RowResult<byte[]>, SweepRangePriorityRowResult> fromRawRowResultFun() {
+            return new Function<RowResult<byte[]>, SweepRangePriorityRowResult>() {
+                @Override
+                public SweepRangePriorityRowResult apply(RowResult<byte[]> rowResult) {
+                    return new SweepRangePriorityRowResult(rowResult);
+                }
+            };
+        }
+
+        public boolean hasCellsDeleted() {
+            return row.getColumns().containsKey(PtBytes.toCachedBytes("d"));
+        }
+
+        public boolean hasCellsExamined() {
+            return row.getColumns().containsKey(PtBytes.toCachedBytes("e"));
+        }
+
+        public boolean hasDeleteCount() {
+            return row.getColumns().containsKey(PtBytes.toCachedBytes("x"));
+        }
+
+        public boolean hasLastSweepTime() {
+            return row.getColumns().containsKey(PtBytes.toCachedBytes("t"));
+        }
+
+        public boolean hasWriteCount() {
+            return row.getColumns().containsKey(PtBytes.toCachedBytes("w"));
+        }
+
+        public Long getCellsDeleted() {
+            byte[] bytes = row.getColumns().get(PtBytes.toCachedBytes("d"));
+            if (bytes == null) {
+                return null;
+            }
+            CellsDeleted value = CellsDeleted.BYTES_HYDRATOR.hydrateFromBytes(bytes);
+            return value.getValue();
+        }
+
+        public Long getCellsExamined() {
+            byte[] bytes = row.getColumns().get(PtBytes.toCachedBytes("e"));
+            if (bytes == null) {
+                return null;
+            }
+            CellsExamined value = CellsExamined.BYTES_HYDRATOR.hydrateFromBytes(bytes);
+            return value.getValue();
+        }
+
+        public Long getDeleteCount() {
+            byte[] bytes = row.getColumns().get(PtBytes.toCachedBytes("x"));
+            if (bytes == null) {
+                return null;
+            }
+            DeleteCount value = DeleteCount.BYTES_HYDRATOR.hydrateFromBytes(bytes);
+            return value.getValue();
+        }
+
+        public Long getLastSweepTime() {
+            byte[] bytes = row.getColumns().get(PtBytes.toCachedBytes("t"));
+            if (bytes == null) {
+                return null;
+            }
+            LastSweepTime value = LastSweepTime.BYTES_HYDRATOR.hydrateFromBytes(bytes);
+            return value.getValue();
+        }
+
+        public Long getWriteCount() {
+            byte[] bytes = row.getColumns().get(PtBytes.toCachedBytes("w"));
+            if (bytes == null) {
+                return null;
+            }
+            WriteCount value = WriteCount.BYTES_HYDRATOR.hydrateFromBytes(bytes);
+            return value.getValue();
+        }
+
+        public static Function<SweepRangePriorityRowResult, Long> getCellsDeletedFun() {
+            return new Function<SweepRangePriorityRowResult, Long>() {
+                @Override
+                public Long apply(SweepRangePriorityRowResult rowResult) {
+                    return rowResult.getCellsDeleted();
+                }
+            };
+        }
+
+        public static Function<SweepRangePriorityRowResult, Long> getCellsExaminedFun() {
+            return new Function<SweepRangePriorityRowResult, Long>() {
+                @Override
+                public Long apply(SweepRangePriorityRowResult rowResult) {
+                    return rowResult.getCellsExamined();
+                }
+            };
+        }
+
+        public static Function<SweepRangePriorityRowResult, Long> getDeleteCountFun() {
+            return new Function<SweepRangePriorityRowResult, Long>() {
+                @Override
+                public Long apply(SweepRangePriorityRowResult rowResult) {
+                    return rowResult.getDeleteCount();
+                }
+            };
+        }
+
+        public static Function<SweepRangePriorityRowResult, Long> getLastSweepTimeFun() {
+            return new Function<SweepRangePriorityRowResult, Long>() {
+                @Override
+                public Long apply(SweepRangePriorityRowResult rowResult) {
+                    return rowResult.getLastSweepTime();
+                }
+            };
+        }
+
+        public static Function<SweepRangePriorityRowResult, Long> getWriteCountFun() {
+            return new Function<SweepRangePriorityRowResult, Long>() {
+                @Override
+                public Long apply(SweepRangePriorityRowResult rowResult) {
+                    return rowResult.getWriteCount();
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("RowName", getRowName())
+                .add("CellsDeleted", getCellsDeleted())
+                .add("CellsExamined", getCellsExamined())
+                .add("DeleteCount", getDeleteCount())
+                .add("LastSweepTime", getLastSweepTime())
+                .add("WriteCount", getWriteCount())
+                .toString();
+        }
+    }
+
+    public enum SweepRangePriorityNamedColumn {
+        CELLS_DELETED {
+            @Override
+            public byte[] getShortName() {
+                return PtBytes.toCachedBytes("d");
+            }
+        },
+        CELLS_EXAMINED {
+            @Override
+            public byte[] getShortName() {
+                return PtBytes.toCachedBytes("e");
+            }
+        },
+        DELETE_COUNT {
+            @Override
+            public byte[] getShortName() {
+                return PtBytes.toCachedBytes("x");
+            }
+        },
+        LAST_SWEEP_TIME {
+            @Override
+            public byte[] getShortName() {
+                return PtBytes.toCachedBytes("t");
+            }
+        },
+        WRITE_COUNT {
+            @Override
+            public byte[] getShortName() {
+                return PtBytes.toCachedBytes("w");
+            }
+        };
+
+        public abstract byte[] getShortName();
+
+        public static Function<SweepRangePriorityNamedColumn, byte[]> toShortName() {
+            return new Function<SweepRangePriorityNamedColumn, byte[]>() {
+                @Override
+                public byte[] apply(SweepRangePriorityNamedColumn namedColumn) {
+                    return namedColumn.getShortName();
+                }
+            };
+        }
+    }
+
+    public static ColumnSelection getColumnSelection(Collection<SweepRangePriorityNamedColumn> cols) {
+        return ColumnSelection.create(Collections2.transform(cols, SweepRangePriorityNamedColumn.toShortName()));
+    }
+
+    public static ColumnSelection getColumnSelection(SweepRangePriorityNamedColumn... cols) {
+        return getColumnSelection(Arrays.asList(cols));
+    }
+
+    private static final Map<String, Hydrator<? extends SweepRangePriorityNamedColumnValue<?>>> shortNameToHydrator =
+            ImmutableMap.<String, Hydrator<? extends SweepRangePriorityNamedColumnValue<?>>>builder()
+                .put("w", WriteCount.BYTES_HYDRATOR)
+                .put("x", DeleteCount.BYTES_HYDRATOR)
+                .put("t", LastSweepTime.BYTES_HYDRATOR)
+                .put("d", CellsDeleted.BYTES_HYDRATOR)
+                .put("e", CellsExamined.BYTES_HYDRATOR)
+                .build();
+
+    public Map<SweepRangePriorityRow, Long> getWriteCounts(Collection<SweepRangePriorityRow> rows) {
+        Map<Cell, SweepRangePriorityRow> cells = Maps.newHashMapWithExpectedSize(rows.size());
+        for (SweepRangePriorityRow row : rows) {
+            cells.put(Cell.create(row.persistToBytes(), PtBytes.toCachedBytes("w")), row);
+        }
+        Map<Cell, byte[]> results = t.get(tableName, cells.keySet());
+        Map<SweepRangePriorityRow, Long> ret = Maps.newHashMapWithExpectedSize(results.size());
+        for (Entry<Cell, byte[]> e : results.entrySet()) {
+            Long val = WriteCount.BYTES_HYDRATOR.hydrateFromBytes(e.getValue()).getValue();
+            ret.put(cells.get(e.getKey()), val);
+        }
+        return ret;
+    }
+
+    public Map<SweepRangePriorityRow, Long> getDeleteCounts(Collection<SweepRangePriorityRow> rows) {
+        Map<Cell, SweepRangePriorityRow> cells = Maps.newHashMapWithExpectedSize(rows.size());
+        for (SweepRangePriorityRow row : rows) {
+            cells.put(Cell.create(row.persistToBytes(), PtBytes.toCachedBytes("x")), row);
+        }
+        Map<Cell, byte[]> results = t.get(tableName, cells.keySet());
+        Map<SweepRangePriorityRow, Long> ret = Maps.newHashMapWithExpectedSize(results.size());
+        for (Entry<Cell, byte[]> e : results.entrySet()) {
+            Long val = DeleteCount.BYTES_HYDRATOR.hydrateFromBytes(e.getValue()).getValue();
+            ret.put(cells.get(e.getKey()), val);
+        }
+        return ret;
+    }
+
+    public Map<SweepRangePriorityRow, Long> getLastSweepTimes(Collection<SweepRangePriorityRow> rows) {
+        Map<Cell, SweepRangePriorityRow> cells = Maps.newHashMapWithExpectedSize(rows.size());
+        for (SweepRangePriorityRow row : rows) {
+            cells.put(Cell.create(row.persistToBytes(), PtBytes.toCachedBytes("t")), row);
+        }
+        Map<Cell, byte[]> results = t.get(tableName, cells.keySet());
+        Map<SweepRangePriorityRow, Long> ret = Maps.newHashMapWithExpectedSize(results.size());
+        for (Entry<Cell, byte[]> e : results.entrySet()) {
+            Long val = LastSweepTime.BYTES_HYDRATOR.hydrateFromBytes(e.getValue()).getValue();
+            ret.put(cells.get(e.getKey()), val);
+        }
+        return ret;
+    }
+
+    public Map<SweepRangePriorityRow, Long> getCellsDeleteds(Collection<SweepRangePriorityRow> rows) {
+        Map<Cell, SweepRangePriorityRow> cells = Maps.newHashMapWithExpectedSize(rows.size());
+        for (SweepRangePriorityRow row : rows) {
+            cells.put(Cell.create(row.persistToBytes(), PtBytes.toCachedBytes("d")), row);
+        }
+        Map<Cell, byte[]> results = t.get(tableName, cells.keySet());
+        Map<SweepRangePriorityRow, Long> ret = Maps.newHashMapWithExpectedSize(results.size());
+        for (Entry<Cell, byte[]> e : results.entrySet()) {
+            Long val = CellsDeleted.BYTES_HYDRATOR.hydrateFromBytes(e.getValue()).getValue();
+            ret.put(cells.get(e.getKey()), val);
+        }
+        return ret;
+    }
+
+    public Map<SweepRangePriorityRow, Long> getCellsExamineds(Collection<SweepRangePriorityRow> rows) {
+        Map<Cell, SweepRangePriorityRow> cells = Maps.newHashMapWithExpectedSize(rows.size());
+        for (SweepRangePriorityRow row : rows) {
+            cells.put(Cell.create(row.persistToBytes(), PtBytes.toCachedBytes("e")), row);
+        }
+        Map<Cell, byte[]> results = t.get(tableName, cells.keySet());
+        Map<SweepRangePriorityRow, Long> ret = Maps.newHashMapWithExpectedSize(results.size());
+        for (Entry<Cell, byte[]> e : results.entrySet()) {
+            Long val = CellsExamined.BYTES_HYDRATOR.hydrateFromBytes(e.getValue()).getValue();
+            ret.put(cells.get(e.getKey()), val);
+        }
+        return ret;
+    }
+
+    public void putWriteCount(SweepRangePriorityRow row, Long value) {
+        put(ImmutableMultimap.of(row, WriteCount.of(value)));
+    }
+
+    public void putWriteCount(Map<SweepRangePriorityRow, Long> map) {
+        Map<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<SweepRangePriorityRow, Long> e : map.entrySet()) {
+            toPut.put(e.getKey(), WriteCount.of(e.getValue()));
+        }
+        put(Multimaps.forMap(toPut));
+    }
+
+    public void putWriteCountUnlessExists(SweepRangePriorityRow row, Long value) {
+        putUnlessExists(ImmutableMultimap.of(row, WriteCount.of(value)));
+    }
+
+    public void putWriteCountUnlessExists(Map<SweepRangePriorityRow, Long> map) {
+        Map<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<SweepRangePriorityRow, Long> e : map.entrySet()) {
+            toPut.put(e.getKey(), WriteCount.of(e.getValue()));
+        }
+        putUnlessExists(Multimaps.forMap(toPut));
+    }
+
+    public void putDeleteCount(SweepRangePriorityRow row, Long value) {
+        put(ImmutableMultimap.of(row, DeleteCount.of(value)));
+    }
+
+    public void putDeleteCount(Map<SweepRangePriorityRow, Long> map) {
+        Map<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<SweepRangePriorityRow, Long> e : map.entrySet()) {
+            toPut.put(e.getKey(), DeleteCount.of(e.getValue()));
+        }
+        put(Multimaps.forMap(toPut));
+    }
+
+    public void putDeleteCountUnlessExists(SweepRangePriorityRow row, Long value) {
+        putUnlessExists(ImmutableMultimap.of(row, DeleteCount.of(value)));
+    }
+
+    public void putDeleteCountUnlessExists(Map<SweepRangePriorityRow, Long> map) {
+        Map<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<SweepRangePriorityRow, Long> e : map.entrySet()) {
+            toPut.put(e.getKey(), DeleteCount.of(e.getValue()));
+        }
+        putUnlessExists(Multimaps.forMap(toPut));
+    }
+
+    public void putLastSweepTime(SweepRangePriorityRow row, Long value) {
+        put(ImmutableMultimap.of(row, LastSweepTime.of(value)));
+    }
+
+    public void putLastSweepTime(Map<SweepRangePriorityRow, Long> map) {
+        Map<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<SweepRangePriorityRow, Long> e : map.entrySet()) {
+            toPut.put(e.getKey(), LastSweepTime.of(e.getValue()));
+        }
+        put(Multimaps.forMap(toPut));
+    }
+
+    public void putLastSweepTimeUnlessExists(SweepRangePriorityRow row, Long value) {
+        putUnlessExists(ImmutableMultimap.of(row, LastSweepTime.of(value)));
+    }
+
+    public void putLastSweepTimeUnlessExists(Map<SweepRangePriorityRow, Long> map) {
+        Map<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<SweepRangePriorityRow, Long> e : map.entrySet()) {
+            toPut.put(e.getKey(), LastSweepTime.of(e.getValue()));
+        }
+        putUnlessExists(Multimaps.forMap(toPut));
+    }
+
+    public void putCellsDeleted(SweepRangePriorityRow row, Long value) {
+        put(ImmutableMultimap.of(row, CellsDeleted.of(value)));
+    }
+
+    public void putCellsDeleted(Map<SweepRangePriorityRow, Long> map) {
+        Map<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<SweepRangePriorityRow, Long> e : map.entrySet()) {
+            toPut.put(e.getKey(), CellsDeleted.of(e.getValue()));
+        }
+        put(Multimaps.forMap(toPut));
+    }
+
+    public void putCellsDeletedUnlessExists(SweepRangePriorityRow row, Long value) {
+        putUnlessExists(ImmutableMultimap.of(row, CellsDeleted.of(value)));
+    }
+
+    public void putCellsDeletedUnlessExists(Map<SweepRangePriorityRow, Long> map) {
+        Map<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<SweepRangePriorityRow, Long> e : map.entrySet()) {
+            toPut.put(e.getKey(), CellsDeleted.of(e.getValue()));
+        }
+        putUnlessExists(Multimaps.forMap(toPut));
+    }
+
+    public void putCellsExamined(SweepRangePriorityRow row, Long value) {
+        put(ImmutableMultimap.of(row, CellsExamined.of(value)));
+    }
+
+    public void putCellsExamined(Map<SweepRangePriorityRow, Long> map) {
+        Map<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<SweepRangePriorityRow, Long> e : map.entrySet()) {
+            toPut.put(e.getKey(), CellsExamined.of(e.getValue()));
+        }
+        put(Multimaps.forMap(toPut));
+    }
+
+    public void putCellsExaminedUnlessExists(SweepRangePriorityRow row, Long value) {
+        putUnlessExists(ImmutableMultimap.of(row, CellsExamined.of(value)));
+    }
+
+    public void putCellsExaminedUnlessExists(Map<SweepRangePriorityRow, Long> map) {
+        Map<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<SweepRangePriorityRow, Long> e : map.entrySet()) {
+            toPut.put(e.getKey(), CellsExamined.of(e.getValue()));
+        }
+        putUnlessExists(Multimaps.forMap(toPut));
+    }
+
+    @Override
+    public void put(Multimap<SweepRangePriorityRow, ? extends SweepRangePriorityNamedColumnValue<?>> rows) {
+        t.useTable(tableName, this);
+        t.put(tableName, ColumnValues.toCellValues(rows));
+        for (SweepRangePriorityTrigger trigger : triggers) {
+            trigger.putSweepRangePriority(rows);
+        }
+    }
+
+    @Override
+    public void putUnlessExists(Multimap<SweepRangePriorityRow, ? extends SweepRangePriorityNamedColumnValue<?>> rows) {
+        Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> existing = getRowsMultimap(rows.keySet());
+        Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> toPut = HashMultimap.create();
+        for (Entry<SweepRangePriorityRow, ? extends SweepRangePriorityNamedColumnValue<?>> entry : rows.entries()) {
+            if (!existing.containsEntry(entry.getKey(), entry.getValue())) {
+                toPut.put(entry.getKey(), entry.getValue());
+            }
+        }
+        put(toPut);
+    }
+
+    public void deleteWriteCount(SweepRangePriorityRow row) {
+        deleteWriteCount(ImmutableSet.of(row));
+    }
+
+    public void deleteWriteCount(Iterable<SweepRangePriorityRow> rows) {
+        byte[] col = PtBytes.toCachedBytes("w");
+        Set<Cell> cells = Cells.cellsWithConstantColumn(Persistables.persistAll(rows), col);
+        t.delete(tableName, cells);
+    }
+
+    public void deleteDeleteCount(SweepRangePriorityRow row) {
+        deleteDeleteCount(ImmutableSet.of(row));
+    }
+
+    public void deleteDeleteCount(Iterable<SweepRangePriorityRow> rows) {
+        byte[] col = PtBytes.toCachedBytes("x");
+        Set<Cell> cells = Cells.cellsWithConstantColumn(Persistables.persistAll(rows), col);
+        t.delete(tableName, cells);
+    }
+
+    public void deleteLastSweepTime(SweepRangePriorityRow row) {
+        deleteLastSweepTime(ImmutableSet.of(row));
+    }
+
+    public void deleteLastSweepTime(Iterable<SweepRangePriorityRow> rows) {
+        byte[] col = PtBytes.toCachedBytes("t");
+        Set<Cell> cells = Cells.cellsWithConstantColumn(Persistables.persistAll(rows), col);
+        t.delete(tableName, cells);
+    }
+
+    public void deleteCellsDeleted(SweepRangePriorityRow row) {
+        deleteCellsDeleted(ImmutableSet.of(row));
+    }
+
+    public void deleteCellsDeleted(Iterable<SweepRangePriorityRow> rows) {
+        byte[] col = PtBytes.toCachedBytes("d");
+        Set<Cell> cells = Cells.cellsWithConstantColumn(Persistables.persistAll(rows), col);
+        t.delete(tableName, cells);
+    }
+
+    public void deleteCellsExamined(SweepRangePriorityRow row) {
+        deleteCellsExamined(ImmutableSet.of(row));
+    }
+
+    public void deleteCellsExamined(Iterable<SweepRangePriorityRow> rows) {
+        byte[] col = PtBytes.toCachedBytes("e");
+        Set<Cell> cells = Cells.cellsWithConstantColumn(Persistables.persistAll(rows), col);
+        t.delete(tableName, cells);
+    }
+
+    @Override
+    public void delete(SweepRangePriorityRow row) {
+        delete(ImmutableSet.of(row));
+    }
+
+    @Override
+    public void delete(Iterable<SweepRangePriorityRow> rows) {
+        List<byte[]> rowBytes = Persistables.persistAll(rows);
+        Set<Cell> cells = Sets.newHashSetWithExpectedSize(rowBytes.size() * 5);
+        cells.addAll(Cells.cellsWithConstantColumn(rowBytes, PtBytes.toCachedBytes("d")));
+        cells.addAll(Cells.cellsWithConstantColumn(rowBytes, PtBytes.toCachedBytes("e")));
+        cells.addAll(Cells.cellsWithConstantColumn(rowBytes, PtBytes.toCachedBytes("x")));
+        cells.addAll(Cells.cellsWithConstantColumn(rowBytes, PtBytes.toCachedBytes("t")));
+        cells.addAll(Cells.cellsWithConstantColumn(rowBytes, PtBytes.toCachedBytes("w")));
+        t.delete(tableName, cells);
+    }
+
+    @Override
+    public Optional<SweepRangePriorityRowResult> getRow(SweepRangePriorityRow row) {
+        return getRow(row, ColumnSelection.all());
+    }
+
+    @Override
+    public Optional<SweepRangePriorityRowResult> getRow(SweepRangePriorityRow row, ColumnSelection columns) {
+        byte[] bytes = row.persistToBytes();
+        RowResult<byte[]> rowResult = t.getRows(tableName, ImmutableSet.of(bytes), columns).get(bytes);
+        if (rowResult == null) {
+            return Optional.absent();
+        } else {
+            return Optional.of(SweepRangePriorityRowResult.of(rowResult));
+        }
+    }
+
+    @Override
+    public List<SweepRangePriorityRowResult> getRows(Iterable<SweepRangePriorityRow> rows) {
+        return getRows(rows, ColumnSelection.all());
+    }
+
+    @Override
+    public List<SweepRangePriorityRowResult> getRows(Iterable<SweepRangePriorityRow> rows, ColumnSelection columns) {
+        SortedMap<byte[], RowResult<byte[]>> results = t.getRows(tableName, Persistables.persistAll(rows), columns);
+        List<SweepRangePriorityRowResult> rowResults = Lists.newArrayListWithCapacity(results.size());
+        for (RowResult<byte[]> row : results.values()) {
+            rowResults.add(SweepRangePriorityRowResult.of(row));
+        }
+        return rowResults;
+    }
+
+    @Override
+    public List<SweepRangePriorityRowResult> getAsyncRows(Iterable<SweepRangePriorityRow> rows, ExecutorService exec) {
+        return getAsyncRows(rows, ColumnSelection.all(), exec);
+    }
+
+    @Override
+    public List<SweepRangePriorityRowResult> getAsyncRows(final Iterable<SweepRangePriorityRow> rows, final ColumnSelection columns, ExecutorService exec) {
+        Callable<List<SweepRangePriorityRowResult>> c =
+                new Callable<List<SweepRangePriorityRowResult>>() {
+            @Override
+            public List<SweepRangePriorityRowResult> call() {
+                return getRows(rows, columns);
+            }
+        };
+        return AsyncProxy.create(exec.submit(c), List.class);
+    }
+
+    @Override
+    public List<SweepRangePriorityNamedColumnValue<?>> getRowColumns(SweepRangePriorityRow row) {
+        return getRowColumns(row, ColumnSelection.all());
+    }
+
+    @Override
+    public List<SweepRangePriorityNamedColumnValue<?>> getRowColumns(SweepRangePriorityRow row, ColumnSelection columns) {
+        byte[] bytes = row.persistToBytes();
+        RowResult<byte[]> rowResult = t.getRows(tableName, ImmutableSet.of(bytes), columns).get(bytes);
+        if (rowResult == null) {
+            return ImmutableList.of();
+        } else {
+            List<SweepRangePriorityNamedColumnValue<?>> ret = Lists.newArrayListWithCapacity(rowResult.getColumns().size());
+            for (Entry<byte[], byte[]> e : rowResult.getColumns().entrySet()) {
+                ret.add(shortNameToHydrator.get(PtBytes.toString(e.getKey())).hydrateFromBytes(e.getValue()));
+            }
+            return ret;
+        }
+    }
+
+    @Override
+    public Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> getRowsMultimap(Iterable<SweepRangePriorityRow> rows) {
+        return getRowsMultimapInternal(rows, ColumnSelection.all());
+    }
+
+    @Override
+    public Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> getRowsMultimap(Iterable<SweepRangePriorityRow> rows, ColumnSelection columns) {
+        return getRowsMultimapInternal(rows, columns);
+    }
+
+    @Override
+    public Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> getAsyncRowsMultimap(Iterable<SweepRangePriorityRow> rows, ExecutorService exec) {
+        return getAsyncRowsMultimap(rows, ColumnSelection.all(), exec);
+    }
+
+    @Override
+    public Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> getAsyncRowsMultimap(final Iterable<SweepRangePriorityRow> rows, final ColumnSelection columns, ExecutorService exec) {
+        Callable<Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>>> c =
+                new Callable<Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>>>() {
+            @Override
+            public Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> call() {
+                return getRowsMultimapInternal(rows, columns);
+            }
+        };
+        return AsyncProxy.create(exec.submit(c), Multimap.class);
+    }
+
+    private Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> getRowsMultimapInternal(Iterable<SweepRangePriorityRow> rows, ColumnSelection columns) {
+        SortedMap<byte[], RowResult<byte[]>> results = t.getRows(tableName, Persistables.persistAll(rows), columns);
+        return getRowMapFromRowResults(results.values());
+    }
+
+    private static Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> getRowMapFromRowResults(Collection<RowResult<byte[]>> rowResults) {
+        Multimap<SweepRangePriorityRow, SweepRangePriorityNamedColumnValue<?>> rowMap = HashMultimap.create();
+        for (RowResult<byte[]> result : rowResults) {
+            SweepRangePriorityRow row = SweepRangePriorityRow.BYTES_HYDRATOR.hydrateFromBytes(result.getRowName());
+            for (Entry<byte[], byte[]> e : result.getColumns().entrySet()) {
+                rowMap.put(row, shortNameToHydrator.get(PtBytes.toString(e.getKey())).hydrateFromBytes(e.getValue()));
+            }
+        }
+        return rowMap;
+    }
+
+    public BatchingVisitableView<SweepRangePriorityRowResult> getAllRowsUnordered() {
+        return getAllRowsUnordered(ColumnSelection.all());
+    }
+
+    public BatchingVisitableView<SweepRangePriorityRowResult> getAllRowsUnordered(ColumnSelection columns) {
+        return BatchingVisitables.transform(t.getRange(tableName, RangeRequest.builder().retainColumns(columns).build()),
+                new Function<RowResult<byte[]>, SweepRangePriorityRowResult>() {
+            @Override
+            public SweepRangePriorityRowResult apply(RowResult<byte[]> input) {
+                return SweepRangePriorityRowResult.of(input);
+            }
+        });
+    }
+
+    @Override
+    public List<String> findConstraintFailures(Map<Cell, byte[]> writes,
+                                               ConstraintCheckingTransaction transaction,
+                                               AtlasDbConstraintCheckingMode constraintCheckingMode) {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public List<String> findConstraintFailuresNoRead(Map<Cell, byte[]> writes,
+                                                     AtlasDbConstraintCheckingMode constraintCheckingMode) {
+        return ImmutableList.of();
+    }
+
+    /**
+     * This exists to avoid unused import warnings
+     * {@link AbortingVisitor}
+     * {@link AbortingVisitors}
+     * {@link ArrayListMultimap}
+     * {@link Arrays}
+     * {@link AssertUtils}
+     * {@link AsyncProxy}
+     * {@link AtlasDbConstraintCheckingMode}
+     * {@link AtlasDbDynamicMutableExpiringTable}
+     * {@link AtlasDbDynamicMutablePersistentTable}
+     * {@link AtlasDbMutableExpiringTable}
+     * {@link AtlasDbMutablePersistentTable}
+     * {@link AtlasDbNamedExpiringSet}
+     * {@link AtlasDbNamedMutableTable}
+     * {@link AtlasDbNamedPersistentSet}
+     * {@link BatchingVisitable}
+     * {@link BatchingVisitableView}
+     * {@link BatchingVisitables}
+     * {@link Bytes}
+     * {@link Callable}
+     * {@link Cell}
+     * {@link Cells}
+     * {@link Collection}
+     * {@link Collections2}
+     * {@link ColumnSelection}
+     * {@link ColumnValue}
+     * {@link ColumnValues}
+     * {@link ComparisonChain}
+     * {@link Compression}
+     * {@link CompressionUtils}
+     * {@link ConstraintCheckingTransaction}
+     * {@link Descending}
+     * {@link EncodingUtils}
+     * {@link Entry}
+     * {@link EnumSet}
+     * {@link ExecutorService}
+     * {@link Function}
+     * {@link Generated}
+     * {@link HashMultimap}
+     * {@link HashSet}
+     * {@link Hashing}
+     * {@link Hydrator}
+     * {@link ImmutableList}
+     * {@link ImmutableMap}
+     * {@link ImmutableMultimap}
+     * {@link ImmutableSet}
+     * {@link InvalidProtocolBufferException}
+     * {@link IterableView}
+     * {@link Iterables}
+     * {@link Iterator}
+     * {@link Joiner}
+     * {@link List}
+     * {@link Lists}
+     * {@link Map}
+     * {@link Maps}
+     * {@link MoreObjects}
+     * {@link Multimap}
+     * {@link Multimaps}
+     * {@link NamedColumnValue}
+     * {@link Namespace}
+     * {@link Objects}
+     * {@link Optional}
+     * {@link Persistable}
+     * {@link Persistables}
+     * {@link Prefix}
+     * {@link PtBytes}
+     * {@link RangeRequest}
+     * {@link RowResult}
+     * {@link Set}
+     * {@link Sets}
+     * {@link Sha256Hash}
+     * {@link SortedMap}
+     * {@link Supplier}
+     * {@link Throwables}
+     * {@link TimeUnit}
+     * {@link Transaction}
+     * {@link TypedRowResult}
+     * {@link UnsignedBytes}
+     * {@link ValueType}
+     */
+    static String __CLASS_HASH = "gqx8jRnC7I684ejQWCQKRA==";
+}
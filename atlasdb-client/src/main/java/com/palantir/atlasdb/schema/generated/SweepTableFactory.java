@@ -2,6 +2,8 @@ package com.palantir.atlasdb.schema.generated;
 
 import java.util.List;
 
+import javax.annotation.Generated;
+
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
@@ -9,7 +11,8 @@ import com.palantir.atlasdb.schema.Namespace;
 import com.palantir.atlasdb.table.generation.Triggers;
 import com.palantir.atlasdb.transaction.api.Transaction;
 
-public class SweepTableFactory {
+@Generated("com.palantir.atlasdb.table.description.render.TableFactoryRenderer")
+public final class SweepTableFactory {
     private final static Namespace defaultNamespace = Namespace.create("sweep", Namespace.UNCHECKED_NAME);
     private final List<Function<? super Transaction, SharedTriggers>> sharedTriggers;
     private final Namespace namespace;
@@ -43,9 +46,14 @@ public class SweepTableFactory {
         return SweepProgressTable.of(t, namespace, Triggers.getAllTriggers(t, sharedTriggers, triggers));
     }
 
+    public SweepRangePriorityTable getSweepRangePriorityTable(Transaction t, SweepRangePriorityTable.SweepRangePriorityTrigger... triggers) {
+        return SweepRangePriorityTable.of(t, namespace, Triggers.getAllTriggers(t, sharedTriggers, triggers));
+    }
+
     public interface SharedTriggers extends
             SweepPriorityTable.SweepPriorityTrigger,
-            SweepProgressTable.SweepProgressTrigger {
+            SweepProgressTable.SweepProgressTrigger,
+            SweepRangePriorityTable.SweepRangePriorityTrigger {
         /* empty */
     }
 
@@ -59,5 +67,10 @@ public class SweepTableFactory {
         public void putSweepProgress(Multimap<SweepProgressTable.SweepProgressRow, ? extends SweepProgressTable.SweepProgressNamedColumnValue<?>> newRows) {
             // do nothing
         }
+
+        @Override
+        public void putSweepRangePriority(Multimap<SweepRangePriorityTable.SweepRangePriorityRow, ? extends SweepRangePriorityTable.SweepRangePriorityNamedColumnValue<?>> newRows) {
+            // do nothing
+        }
     }
 }
\ No newline at end of file
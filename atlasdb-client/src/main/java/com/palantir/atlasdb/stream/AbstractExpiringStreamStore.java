@@ -101,12 +101,7 @@ public abstract class AbstractExpiringStreamStore<ID> extends AbstractGenericStr
         long length = countingStream.getCount();
 
         // Return the final metadata.
-        StreamMetadata metadata = StreamMetadata.newBuilder()
-            .setStatus(Status.STORED)
-            .setLength(length)
-            .setHash(hashByteString)
-            .build();
-        return metadata;
+        return getStoredMetadata(length, hashByteString);
     }
 
     private void storeBlocksFromStream(ID id, InputStream stream, long duration, TimeUnit durationUnit) throws IOException {
@@ -124,11 +119,11 @@ public abstract class AbstractExpiringStreamStore<ID> extends AbstractGenericStr
             Preconditions.checkNotNull(txnMgr);
             if (length < BLOCK_SIZE_IN_BYTES) {
                 // This is the last block.
-                storeBlockWithTransaction(id, blockNumber, PtBytes.head(bytesToStore, length), duration, durationUnit);
+                storeBlockWithTransaction(id, blockNumber, compressBlockIfEnabled(PtBytes.head(bytesToStore, length)), duration, durationUnit);
                 break;
             } else {
                 // Store a full block.
-                storeBlockWithTransaction(id, blockNumber, bytesToStore, duration, durationUnit);
+                storeBlockWithTransaction(id, blockNumber, compressBlockIfEnabled(bytesToStore), duration, durationUnit);
             }
             blockNumber++;
         }
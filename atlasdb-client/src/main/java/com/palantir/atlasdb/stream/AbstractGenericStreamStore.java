@@ -22,28 +22,40 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import javax.annotation.CheckForNull;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Ints;
+import com.google.protobuf.ByteString;
+import com.palantir.atlasdb.compress.CompressionUtils;
 import com.palantir.atlasdb.protos.generated.StreamPersistence.Status;
 import com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata;
 import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
+import com.palantir.atlasdb.transaction.api.TransactionTask;
 import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.util.ByteArrayIOStream;
 import com.palantir.util.file.DeleteOnCloseFileInputStream;
 
 public abstract class AbstractGenericStreamStore<ID> implements GenericStreamStore<ID> {
     protected static final Logger log = LoggerFactory.getLogger(AbstractGenericStreamStore.class);
+    private static final int DEFAULT_BLOCKS_TO_PREFETCH = 4;
+    private static final ExecutorService blockLoaderExecutor = PTExecutors.newCachedThreadPool(
+            new NamedThreadFactory(AbstractGenericStreamStore.class.getSimpleName() + "-block-loader", true));
 
     @CheckForNull protected final TransactionManager txnMgr;
 
@@ -65,6 +77,50 @@ public abstract class AbstractGenericStreamStore<ID> implements GenericStreamSto
 
     protected abstract long getInMemoryThreshold();
 
+    /**
+     * Stores that return true here compress each block they store with Snappy when that makes it
+     * smaller, and set blocksCompressed in the metadata of the streams they store.
+     */
+    protected boolean compressesBlocks() {
+        return false;
+    }
+
+    protected final byte[] compressBlockIfEnabled(byte[] block) {
+        if (!compressesBlocks()) {
+            return block;
+        }
+        byte[] compressed = CompressionUtils.compressWithSnappy(block);
+        // Blocks are only stored compressed if that makes them shorter, which is how we tell them apart when loading.
+        return compressed.length < block.length ? compressed : block;
+    }
+
+    protected final StreamMetadata getStoredMetadata(long length, ByteString hash) {
+        StreamMetadata.Builder builder = StreamMetadata.newBuilder()
+            .setStatus(Status.STORED)
+            .setLength(length)
+            .setHash(hash);
+        if (compressesBlocks()) {
+            builder.setBlocksCompressed(true);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Streams too large to be held in memory are read a block at a time as the caller consumes
+     * them, with this many of the following blocks loaded in the background.
+     */
+    protected int getNumberOfBlocksToPrefetch() {
+        return DEFAULT_BLOCKS_TO_PREFETCH;
+    }
+
+    /**
+     * Return true to copy streams too large to be held in memory to a temp file before returning
+     * them, rather than reading them lazily.
+     */
+    protected boolean shouldLoadLargeStreamsToTempFiles() {
+        return false;
+    }
+
     @Override
     public final InputStream loadStream(Transaction t, final ID id) {
         try {
@@ -72,12 +128,12 @@ public abstract class AbstractGenericStreamStore<ID> implements GenericStreamSto
             if (metadata.getLength() == 0) {
                 return new ByteArrayInputStream(new byte[0]);
             } else if (metadata.getLength() <= Math.min(getInMemoryThreshold(), BLOCK_SIZE_IN_BYTES)) {
-                ByteArrayIOStream ios = new ByteArrayIOStream(Ints.saturatedCast(metadata.getLength()));
-                loadSingleBlockToOutputStream(t, id, 0, ios);
-                return ios.getInputStream();
-            } else {
+                return loadSingleBlockStream(t, id, metadata);
+            } else if (shouldLoadLargeStreamsToTempFiles()) {
                 File file = loadToNewTempFile(t, id, metadata);
                 return new DeleteOnCloseFileInputStream(file);
+            } else {
+                return loadLazily(t, id, metadata);
             }
         } catch (FileNotFoundException e) {
             log.error("Error opening temp file for stream " + id, e);
@@ -96,12 +152,12 @@ public abstract class AbstractGenericStreamStore<ID> implements GenericStreamSto
                 if (metadata.getLength() == 0) {
                     ret.put(id, new ByteArrayInputStream(new byte[0]));
                 } else if (metadata.getLength() <= Math.min(getInMemoryThreshold(), BLOCK_SIZE_IN_BYTES)) {
-                    ByteArrayIOStream ios = new ByteArrayIOStream(Ints.saturatedCast(metadata.getLength()));
-                    loadSingleBlockToOutputStream(t, id, 0, ios);
-                    ret.put(id, ios.getInputStream());
-                } else {
+                    ret.put(id, loadSingleBlockStream(t, id, metadata));
+                } else if (shouldLoadLargeStreamsToTempFiles()) {
                     File file = loadToNewTempFile(t, id, metadata);
                     ret.put(id, new DeleteOnCloseFileInputStream(file));
+                } else {
+                    ret.put(id, loadLazily(t, id, metadata));
                 }
             } catch (FileNotFoundException e) {
                 log.error("Error opening temp file for stream " + id, e);
@@ -117,6 +173,35 @@ public abstract class AbstractGenericStreamStore<ID> implements GenericStreamSto
         return loadToNewTempFile(t, id, metadata);
     }
 
+    @Override
+    public final InputStream loadStreamRange(Transaction t, ID id, long offset, long length) {
+        Preconditions.checkArgument(offset >= 0, "offset must not be negative");
+        Preconditions.checkArgument(length >= 0, "length must not be negative");
+        StreamMetadata metadata = checkStreamStored(id, getMetadata(t, id));
+        if (offset >= metadata.getLength() || length == 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        long end = offset + Math.min(length, metadata.getLength() - offset);
+        InputStream blocks = new PrefetchingBlockInputStream(
+                newBlockLoader(t, id, metadata),
+                offset / BLOCK_SIZE_IN_BYTES,
+                (int) (offset % BLOCK_SIZE_IN_BYTES),
+                (end + BLOCK_SIZE_IN_BYTES - 1) / BLOCK_SIZE_IN_BYTES,
+                getNumberOfBlocksToPrefetch(),
+                blockLoaderExecutor);
+        return ByteStreams.limit(blocks, end - offset);
+    }
+
+    @Override
+    public final SeekableByteChannel loadStreamAsChannel(Transaction t, ID id) {
+        StreamMetadata metadata = checkStreamStored(id, getMetadata(t, id));
+        return new StreamBlockSeekableByteChannel(
+                newBlockLoader(t, id, metadata),
+                metadata.getLength(),
+                BLOCK_SIZE_IN_BYTES,
+                blockLoaderExecutor);
+    }
+
     private File loadToNewTempFile(Transaction t, ID id, StreamMetadata metadata) {
         try {
             File file = createTempFile(id);
@@ -128,6 +213,81 @@ public abstract class AbstractGenericStreamStore<ID> implements GenericStreamSto
         }
     }
 
+    private InputStream loadSingleBlockStream(Transaction t, ID id, StreamMetadata metadata) {
+        if (metadata.getBlocksCompressed()) {
+            return new ByteArrayInputStream(loadBlockOfStoredStream(t, id, metadata, 0));
+        }
+        ByteArrayIOStream ios = new ByteArrayIOStream(Ints.saturatedCast(metadata.getLength()));
+        loadSingleBlockToOutputStream(t, id, 0, ios);
+        return ios.getInputStream();
+    }
+
+    private InputStream loadLazily(Transaction t, ID id, StreamMetadata metadata) {
+        return new PrefetchingBlockInputStream(
+                newBlockLoader(t, id, metadata),
+                0,
+                getNumberOfBlocksFromMetadata(metadata),
+                getNumberOfBlocksToPrefetch(),
+                blockLoaderExecutor);
+    }
+
+    private PrefetchingBlockInputStream.BlockLoader newBlockLoader(final Transaction t, final ID id, final StreamMetadata metadata) {
+        return new PrefetchingBlockInputStream.BlockLoader() {
+            @Override
+            public byte[] loadBlock(long blockId) {
+                return loadBlockOfStoredStream(t, id, metadata, blockId);
+            }
+        };
+    }
+
+    /**
+     * Loads the block in the given transaction if it is still open. Otherwise the caller is reading
+     * the stream after the transaction that loaded it finished, and the block is read in a new one,
+     * which fails if the stream has since been cleaned up.
+     */
+    private byte[] loadBlockOfStoredStream(Transaction t, final ID id, StreamMetadata metadata, final long blockId) {
+        long blockStart = blockId * BLOCK_SIZE_IN_BYTES;
+        int expectedLength = Ints.checkedCast(Math.min(BLOCK_SIZE_IN_BYTES, metadata.getLength() - blockStart));
+        if (t.isUncommitted()) {
+            ByteArrayIOStream ios = new ByteArrayIOStream(expectedLength);
+            boolean loaded = false;
+            try {
+                loadSingleBlockToOutputStream(t, id, blockId, ios);
+                loaded = true;
+            } catch (IllegalStateException e) {
+                if (t.isUncommitted()) {
+                    throw e;
+                }
+                // The transaction finished while we were reading from it.
+            }
+            if (loaded) {
+                return toBlock(id, blockId, metadata, ios, expectedLength);
+            }
+        }
+        Preconditions.checkState(txnMgr != null,
+                "Stream %s must be read before the transaction that loaded it finishes.", id);
+        final ByteArrayIOStream ios = new ByteArrayIOStream(expectedLength);
+        txnMgr.runTaskReadOnly(new TransactionTask<Void, RuntimeException>() {
+            @Override
+            public Void execute(Transaction t) {
+                checkStreamStored(id, getMetadata(t, id));
+                loadSingleBlockToOutputStream(t, id, blockId, ios);
+                return null;
+            }
+        });
+        return toBlock(id, blockId, metadata, ios, expectedLength);
+    }
+
+    private byte[] toBlock(ID id, long blockId, StreamMetadata metadata, ByteArrayIOStream ios, int expectedLength) {
+        byte[] block = ios.toByteArray();
+        if (metadata.getBlocksCompressed() && block.length < expectedLength) {
+            block = CompressionUtils.decompressWithSnappy(block);
+        }
+        Preconditions.checkState(block.length == expectedLength,
+                "Block %s of stream %s has %s bytes, but its metadata implies %s.", blockId, id, block.length, expectedLength);
+        return block;
+    }
+
     private StreamMetadata checkStreamStored(ID id, StreamMetadata metadata) {
         if (metadata == null) {
             log.error("Error loading stream " + id + " because it was never stored.");
@@ -154,7 +314,11 @@ public abstract class AbstractGenericStreamStore<ID> implements GenericStreamSto
     private void tryWriteStreamToFile(Transaction t, ID id, StreamMetadata metadata, FileOutputStream fos) throws IOException {
         long numBlocks = getNumberOfBlocksFromMetadata(metadata);
         for (long i = 0; i < numBlocks; i++) {
-            loadSingleBlockToOutputStream(t, id, i, fos);
+            if (metadata.getBlocksCompressed()) {
+                fos.write(loadBlockOfStoredStream(t, id, metadata, i));
+            } else {
+                loadSingleBlockToOutputStream(t, id, i, fos);
+            }
         }
         fos.close();
     }
@@ -20,7 +20,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nullable;
 
@@ -28,7 +34,9 @@ import com.google.common.base.Function;
 import com.google.common.base.Functions;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteStreams;
@@ -42,10 +50,23 @@ import com.palantir.atlasdb.transaction.api.TransactionManager;
 import com.palantir.atlasdb.transaction.api.TransactionTask;
 import com.palantir.atlasdb.transaction.impl.TxTask;
 import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.util.Pair;
 import com.palantir.util.crypto.Sha256Hash;
 
 public abstract class AbstractPersistentStreamStore extends AbstractGenericStreamStore<Long> implements PersistentStreamStore {
+    // Streams stored outside of a transaction are written BLOCKS_PER_TRANSACTION blocks at a time,
+    // with up to MAX_TRANSACTIONS_IN_FLIGHT of those transactions running while we read ahead.
+    private static final int BLOCKS_PER_TRANSACTION = 4;
+    private static final int MAX_TRANSACTIONS_IN_FLIGHT = 4;
+    // Shared by every store, so that many concurrent uploads queue for threads rather than each
+    // adding MAX_TRANSACTIONS_IN_FLIGHT more.
+    private static final int DEFAULT_BLOCK_WRITER_THREADS = 16;
+    private static final ExecutorService blockWriterExecutor = PTExecutors.newFixedThreadPool(
+            DEFAULT_BLOCK_WRITER_THREADS,
+            new NamedThreadFactory(AbstractPersistentStreamStore.class.getSimpleName() + "-block-writer", true));
+
     protected AbstractPersistentStreamStore(TransactionManager txManager) {
         super(txManager);
     }
@@ -171,18 +192,17 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
         long length = countingStream.getCount();
 
         // Return the final metadata.
-        StreamMetadata metadata = StreamMetadata.newBuilder()
-            .setStatus(Status.STORED)
-            .setLength(length)
-            .setHash(hashByteString)
-            .build();
-        return metadata;
+        return getStoredMetadata(length, hashByteString);
     }
 
 
     private void storeBlocksFromStream(@Nullable Transaction t, long id, InputStream stream) throws IOException {
         // We need to use a buffered stream here because we assume each read will fill the whole buffer.
         stream = new BufferedInputStream(stream);
+        if (t == null) {
+            storeBlocksConcurrently(id, stream);
+            return;
+        }
         byte[] bytesToStore = new byte[BLOCK_SIZE_IN_BYTES];
         long blockNumber = 0;
 
@@ -194,16 +214,102 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
             }
             if (length < BLOCK_SIZE_IN_BYTES) {
                 // This is the last block.
-                storeBlockWithNonNullTransaction(t, id, blockNumber, PtBytes.head(bytesToStore, length));
+                storeBlockWithNonNullTransaction(t, id, blockNumber, compressBlockIfEnabled(PtBytes.head(bytesToStore, length)));
                 break;
             } else {
                 // Store a full block.
-                storeBlockWithNonNullTransaction(t, id, blockNumber, bytesToStore);
+                storeBlockWithNonNullTransaction(t, id, blockNumber, compressBlockIfEnabled(bytesToStore));
             }
             blockNumber++;
         }
     }
 
+    /**
+     * Reads the stream a group of blocks at a time on this thread, and writes each group in its own
+     * transaction on {@link #getBlockWriterExecutor()} while the next groups are read.
+     * <p>
+     * The group transactions only read the metadata row, so that they do not conflict with each
+     * other. Before a group is handed off, a small transaction on this thread extends the metadata
+     * length over its blocks, so a concurrent cleanup either sees STORING fail in the group
+     * transaction or deletes the group's cells and conflicts with it.
+     */
+    private void storeBlocksConcurrently(final long id, InputStream stream) throws IOException {
+        Preconditions.checkNotNull(txnMgr);
+        ExecutorService executor = getBlockWriterExecutor();
+        Deque<Future<?>> writes = new ArrayDeque<Future<?>>();
+        try {
+            long nextBlockNumber = 0;
+            boolean isLastGroup = false;
+            while (!isLastGroup) {
+                final List<byte[]> blocks = Lists.newArrayListWithCapacity(BLOCKS_PER_TRANSACTION);
+                while (blocks.size() < BLOCKS_PER_TRANSACTION) {
+                    byte[] block = new byte[BLOCK_SIZE_IN_BYTES];
+                    int length = ByteStreams.read(stream, block, 0, BLOCK_SIZE_IN_BYTES);
+                    if (length < BLOCK_SIZE_IN_BYTES) {
+                        if (length > 0) {
+                            blocks.add(PtBytes.head(block, length));
+                        }
+                        isLastGroup = true;
+                        break;
+                    }
+                    blocks.add(block);
+                }
+                if (blocks.isEmpty()) {
+                    break;
+                }
+
+                final long firstBlockNumber = nextBlockNumber;
+                nextBlockNumber += blocks.size();
+                final long lastBlockNumber = nextBlockNumber - 1;
+                txnMgr.runTaskThrowOnConflict(new TxTask() {
+                    @Override
+                    public Void execute(Transaction t) {
+                        markBlocksAsStoring(t, id, lastBlockNumber);
+                        return null;
+                    }
+                });
+
+                if (writes.size() >= MAX_TRANSACTIONS_IN_FLIGHT) {
+                    waitForWrite(writes.poll());
+                }
+                writes.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        final List<byte[]> blocksToStore = Lists.newArrayListWithCapacity(blocks.size());
+                        for (byte[] block : blocks) {
+                            blocksToStore.add(compressBlockIfEnabled(block));
+                        }
+                        txnMgr.runTaskThrowOnConflict(new TxTask() {
+                            @Override
+                            public Void execute(Transaction t) {
+                                storeBlocksWithoutTouchingMetadata(t, id, firstBlockNumber, blocksToStore);
+                                return null;
+                            }
+                        });
+                    }
+                }));
+            }
+            while (!writes.isEmpty()) {
+                waitForWrite(writes.poll());
+            }
+        } finally {
+            // Only non-empty if we failed; don't interrupt, the writes may be in the middle of a commit.
+            for (Future<?> write : writes) {
+                write.cancel(false);
+            }
+        }
+    }
+
+    private static void waitForWrite(Future<?> write) {
+        try {
+            write.get();
+        } catch (InterruptedException e) {
+            throw Throwables.rewrapAndThrowUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw Throwables.rewrapAndThrowUncheckedException(e.getCause());
+        }
+    }
+
     protected void storeBlockWithNonNullTransaction(@Nullable Transaction t, final long id, final long blockNumber, final byte[] bytesToStore) {
         if (t != null) {
             storeBlock(t, id, blockNumber, bytesToStore);
@@ -226,6 +332,46 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
 
     protected abstract void storeBlock(Transaction t, long id, long blockNumber, byte[] block);
 
+    /**
+     * The executor that streams stored outside of a transaction are written on. The default is
+     * shared by all stores and has a fixed number of threads.
+     */
+    protected ExecutorService getBlockWriterExecutor() {
+        return blockWriterExecutor;
+    }
+
+    /**
+     * Checks that the stream is still being stored and extends its metadata length to cover every
+     * block up to and including lastBlockNumber, so that cleanup will delete them.
+     */
+    protected void markBlocksAsStoring(Transaction t, long id, long lastBlockNumber) {
+        touchMetadataWhileStoringForConflicts(t, id, lastBlockNumber);
+    }
+
+    /**
+     * Checks that the stream is still being stored and writes the given consecutive blocks, without
+     * writing the metadata row. {@link #markBlocksAsStoring} must already have covered the blocks.
+     */
+    protected void storeBlocksWithoutTouchingMetadata(Transaction t, long id, long firstBlockNumber, List<byte[]> blocks) {
+        StreamMetadata metadata = getMetadata(t, ImmutableSet.of(id)).get(id);
+        Preconditions.checkState(metadata != null && metadata.getStatus() == Status.STORING,
+                "This stream is being cleaned up while storing blocks: " + id);
+        for (int i = 0; i < blocks.size(); i++) {
+            storeBlockWithoutTouchingMetadata(t, id, firstBlockNumber + i, blocks.get(i));
+        }
+    }
+
+    /**
+     * Checks that the stream is still being stored and sets its metadata length to cover the given
+     * block, so that a concurrent cleanup conflicts with this transaction.
+     */
+    protected abstract void touchMetadataWhileStoringForConflicts(Transaction t, Long id, long blockNumber);
+
+    /**
+     * Writes a single block without reading or writing the metadata row.
+     */
+    protected abstract void storeBlockWithoutTouchingMetadata(Transaction t, long id, long blockNumber, byte[] block);
+
     protected abstract void touchMetadataWhileMarkingUsedForConflicts(Transaction t, Iterable<Long> ids) throws StreamCleanedException;
 
     protected abstract void markStreamsAsUsedInternal(Transaction t, final Map<Long, byte[]> streamIdsToReference);
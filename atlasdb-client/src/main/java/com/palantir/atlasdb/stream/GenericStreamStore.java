@@ -17,6 +17,7 @@ package com.palantir.atlasdb.stream;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Map;
 import java.util.Set;
 
@@ -34,4 +35,15 @@ public interface GenericStreamStore<ID> {
     InputStream loadStream(Transaction t, ID id);
     Map<ID, InputStream> loadStreams(Transaction t, Set<ID> ids);
     File loadStreamAsFile(Transaction t, ID id);
+
+    /**
+     * Loads up to length bytes of the stream starting at offset, reading only the blocks that hold
+     * them. The returned stream ends early if the stream is shorter than offset + length.
+     */
+    InputStream loadStreamRange(Transaction t, ID id, long offset, long length);
+
+    /**
+     * Returns a read only channel over the stream that loads only the blocks it is positioned on.
+     */
+    SeekableByteChannel loadStreamAsChannel(Transaction t, ID id);
 }
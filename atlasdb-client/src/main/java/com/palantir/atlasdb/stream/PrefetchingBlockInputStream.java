@@ -0,0 +1,189 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * An input stream over a range of blocks of a stored stream, which loads each block only when
+ * the reader gets to it, keeping up to a fixed number of the following blocks loading in the
+ * background. At most blocksToPrefetch + 1 blocks are held in memory at once.
+ */
+final class PrefetchingBlockInputStream extends InputStream {
+    interface BlockLoader {
+        byte[] loadBlock(long blockId);
+    }
+
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final BlockLoader loader;
+    private final ExecutorService executor;
+    private final long endBlockId;
+    private final int blocksToPrefetch;
+    private final Deque<Future<byte[]>> loadingBlocks = new ArrayDeque<Future<byte[]>>();
+    private long nextBlockIdToLoad;
+    private byte[] block = NO_BYTES;
+    private int position = 0;
+    private int firstBlockOffset;
+    private boolean closed = false;
+
+    PrefetchingBlockInputStream(BlockLoader loader,
+                                long startBlockId,
+                                long endBlockId,
+                                int blocksToPrefetch,
+                                ExecutorService executor) {
+        this(loader, startBlockId, 0, endBlockId, blocksToPrefetch, executor);
+    }
+
+    /**
+     * @param startBlockId the first block to read
+     * @param firstBlockOffset the number of bytes of the first block to skip
+     * @param endBlockId one past the last block to read
+     */
+    PrefetchingBlockInputStream(BlockLoader loader,
+                                long startBlockId,
+                                int firstBlockOffset,
+                                long endBlockId,
+                                int blocksToPrefetch,
+                                ExecutorService executor) {
+        Preconditions.checkArgument(startBlockId <= endBlockId, "startBlockId must not be after endBlockId");
+        Preconditions.checkArgument(firstBlockOffset >= 0, "firstBlockOffset must not be negative");
+        Preconditions.checkArgument(blocksToPrefetch >= 0, "blocksToPrefetch must not be negative");
+        this.loader = loader;
+        this.firstBlockOffset = firstBlockOffset;
+        this.executor = executor;
+        this.nextBlockIdToLoad = startBlockId;
+        this.endBlockId = endBlockId;
+        this.blocksToPrefetch = blocksToPrefetch;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureBlockHasRemaining()) {
+            return -1;
+        }
+        return block[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Preconditions.checkPositionIndexes(off, off + len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureBlockHasRemaining()) {
+            return -1;
+        }
+        int toCopy = Math.min(len, block.length - position);
+        System.arraycopy(block, position, b, off, toCopy);
+        position += toCopy;
+        return toCopy;
+    }
+
+    /**
+     * Skips within the current block only, without loading any more blocks.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        checkNotClosed();
+        if (n <= 0) {
+            return 0;
+        }
+        int skipped = (int) Math.min(n, block.length - position);
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        checkNotClosed();
+        return block.length - position;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        block = NO_BYTES;
+        for (Future<byte[]> loadingBlock : loadingBlocks) {
+            // Interrupting a load could interrupt the transaction's reads part way through.
+            loadingBlock.cancel(false);
+        }
+        loadingBlocks.clear();
+    }
+
+    private boolean ensureBlockHasRemaining() throws IOException {
+        checkNotClosed();
+        while (position == block.length) {
+            if (loadingBlocks.isEmpty()) {
+                if (nextBlockIdToLoad == endBlockId) {
+                    return false;
+                }
+                startLoadingNextBlock();
+            }
+            block = await(loadingBlocks.poll());
+            position = Math.min(firstBlockOffset, block.length);
+            firstBlockOffset = 0;
+            // The block just taken no longer counts, so this keeps the current block plus at
+            // most blocksToPrefetch more in memory.
+            while (loadingBlocks.size() < blocksToPrefetch && nextBlockIdToLoad < endBlockId) {
+                startLoadingNextBlock();
+            }
+        }
+        return true;
+    }
+
+    private void startLoadingNextBlock() {
+        final long blockId = nextBlockIdToLoad++;
+        loadingBlocks.add(executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return loader.loadBlock(blockId);
+            }
+        }));
+    }
+
+    private static byte[] await(Future<byte[]> loadingBlock) throws IOException {
+        try {
+            return loadingBlock.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while loading a stream block.");
+            interrupted.initCause(e);
+            throw interrupted;
+        } catch (ExecutionException e) {
+            throw new IOException("Could not load a stream block.", e.getCause());
+        }
+    }
+
+    private void checkNotClosed() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed.");
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.stream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A read only channel over a stored stream, which loads only the blocks holding the bytes that
+ * are read. The block being read is kept in memory, and when reads move on to the following
+ * block the one after that is loaded in the background.
+ */
+final class StreamBlockSeekableByteChannel implements SeekableByteChannel {
+    private final PrefetchingBlockInputStream.BlockLoader loader;
+    private final ExecutorService executor;
+    private final long size;
+    private final int blockSize;
+    private long position = 0;
+    private long blockId = -1;
+    private byte[] block;
+    private long prefetchedBlockId = -1;
+    private Future<byte[]> prefetchedBlock;
+    private boolean open = true;
+
+    StreamBlockSeekableByteChannel(PrefetchingBlockInputStream.BlockLoader loader,
+                                   long size,
+                                   int blockSize,
+                                   ExecutorService executor) {
+        this.loader = loader;
+        this.size = size;
+        this.blockSize = blockSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        checkOpen();
+        if (position >= size) {
+            return -1;
+        }
+        int read = 0;
+        while (dst.hasRemaining() && position < size) {
+            long neededBlockId = position / blockSize;
+            if (neededBlockId != blockId) {
+                loadBlock(neededBlockId);
+            }
+            int offset = (int) (position - blockId * blockSize);
+            int toCopy = Math.min(dst.remaining(), block.length - offset);
+            if (toCopy <= 0) {
+                throw new IOException("Block " + blockId + " is shorter than the stream length implies.");
+            }
+            dst.put(block, offset, toCopy);
+            position += toCopy;
+            read += toCopy;
+        }
+        return read;
+    }
+
+    @Override
+    public long position() throws IOException {
+        checkOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        checkOpen();
+        Preconditions.checkArgument(newPosition >= 0, "position must not be negative");
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        checkOpen();
+        return size;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long newSize) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        block = null;
+        if (prefetchedBlock != null) {
+            prefetchedBlock.cancel(false);
+            prefetchedBlock = null;
+        }
+    }
+
+    private void loadBlock(long neededBlockId) throws IOException {
+        boolean isSequential = blockId >= 0 && neededBlockId == blockId + 1;
+        if (prefetchedBlock != null && prefetchedBlockId == neededBlockId) {
+            block = await(prefetchedBlock);
+            prefetchedBlock = null;
+        } else {
+            if (prefetchedBlock != null) {
+                prefetchedBlock.cancel(false);
+                prefetchedBlock = null;
+            }
+            try {
+                block = loader.loadBlock(neededBlockId);
+            } catch (RuntimeException e) {
+                throw new IOException("Could not load block " + neededBlockId + ".", e);
+            }
+        }
+        blockId = neededBlockId;
+        final long nextBlockId = neededBlockId + 1;
+        if (isSequential && prefetchedBlock == null && nextBlockId * blockSize < size) {
+            prefetchedBlockId = nextBlockId;
+            prefetchedBlock = executor.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() {
+                    return loader.loadBlock(nextBlockId);
+                }
+            });
+        }
+    }
+
+    private static byte[] await(Future<byte[]> loadingBlock) throws IOException {
+        try {
+            return loadingBlock.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while loading a stream block.");
+            interrupted.initCause(e);
+            throw interrupted;
+        } catch (ExecutionException e) {
+            throw new IOException("Could not load a stream block.", e.getCause());
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
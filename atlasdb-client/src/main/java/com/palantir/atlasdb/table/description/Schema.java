@@ -141,20 +141,29 @@ public class Schema {
      * @param longName
      * @param shortName
      * @param streamIdType
-     * @param inMemoryThreshold Normally streams are stored in temp files when they are loaded
-     * from the {@link GenericStreamStore} and wrapped in {@link DeleteOnCloseFileInputStream}.
-     * Streams that are smaller than this value will not be pulled into a file, but will be pulled
-     * into memory.
+     * @param inMemoryThreshold Normally streams loaded from the {@link GenericStreamStore} are
+     * read a block at a time as the caller consumes them, or stored in temp files and wrapped in
+     * {@link DeleteOnCloseFileInputStream} if the store loads large streams to temp files.
+     * Streams that are smaller than this value will be pulled into memory in one read.
      */
     public void addStreamStoreDefinition(final String longName, String shortName, ValueType streamIdType, int inMemoryThreshold) {
         addStreamStoreDefinition(longName, shortName, streamIdType, inMemoryThreshold, ExpirationStrategy.NEVER, false, false);
     }
 
     public void addStreamStoreDefinition(final String longName, String shortName, ValueType streamIdType, int inMemoryThreshold, ExpirationStrategy expirationStrategy, boolean hashFirstRowComponent, boolean isAppendHeavyAndReadLight) {
+        addStreamStoreDefinition(longName, shortName, streamIdType, inMemoryThreshold, expirationStrategy, hashFirstRowComponent, isAppendHeavyAndReadLight, false);
+    }
+
+    /**
+     * @param compressBlocks if true, the generated store compresses each block it writes with
+     * Snappy when that makes it smaller, and marks the stream's metadata so that it is
+     * decompressed when loaded. Streams stored before this was turned on can still be loaded.
+     */
+    public void addStreamStoreDefinition(final String longName, String shortName, ValueType streamIdType, int inMemoryThreshold, ExpirationStrategy expirationStrategy, boolean hashFirstRowComponent, boolean isAppendHeavyAndReadLight, boolean compressBlocks) {
         if (expirationStrategy == ExpirationStrategy.NEVER) {
             Preconditions.checkArgument(streamIdType.getJavaClassName().equals("long"), "Stream ids must be a long for persistent streams.");
         }
-        final StreamStoreRenderer renderer = new StreamStoreRenderer(Renderers.CamelCase(longName), streamIdType, packageName, name, inMemoryThreshold, expirationStrategy);
+        final StreamStoreRenderer renderer = new StreamStoreRenderer(Renderers.CamelCase(longName), streamIdType, packageName, name, inMemoryThreshold, expirationStrategy, compressBlocks);
         addTableDefinition(shortName + "_stream_metadata", StreamTables.getStreamMetadataDefinition(longName, streamIdType, expirationStrategy, hashFirstRowComponent, isAppendHeavyAndReadLight));
         addTableDefinition(shortName + "_stream_value", StreamTables.getStreamValueDefinition(longName, streamIdType, expirationStrategy, hashFirstRowComponent, isAppendHeavyAndReadLight));
         addTableDefinition(shortName + "_stream_hash_aidx", StreamTables.getStreamHashIdxDefinition(longName, streamIdType, expirationStrategy, isAppendHeavyAndReadLight));
@@ -83,14 +83,20 @@ public class StreamStoreRenderer {
     private final String schemaName;
     private final int inMemoryThreshold;
     private final ExpirationStrategy expirationStrategy;
+    private final boolean compressBlocks;
 
     public StreamStoreRenderer(String name, ValueType streamIdType, String packageName, String schemaName, int inMemoryThreshold, ExpirationStrategy expirationStrategy) {
+        this(name, streamIdType, packageName, schemaName, inMemoryThreshold, expirationStrategy, false);
+    }
+
+    public StreamStoreRenderer(String name, ValueType streamIdType, String packageName, String schemaName, int inMemoryThreshold, ExpirationStrategy expirationStrategy, boolean compressBlocks) {
         this.name = name;
         this.streamIdType = streamIdType;
         this.packageName = packageName;
         this.schemaName = schemaName;
         this.inMemoryThreshold = inMemoryThreshold;
         this.expirationStrategy = expirationStrategy;
+        this.compressBlocks = compressBlocks;
     }
 
     public String getPackageName() {
@@ -148,10 +154,18 @@ public class StreamStoreRenderer {
                     line();
                     getInMemoryThreshold();
                     line();
+                    if (compressBlocks) {
+                        compressesBlocks();
+                        line();
+                    }
                     storeBlock();
                     line();
                     touchMetadataWhileStoringForConflicts();
                     line();
+                    if (!isExpiring()) {
+                        storeBlockWithoutTouchingMetadata();
+                        line();
+                    }
                     putMetadataAndHashIndexTask();
                     line();
                     getNumberOfBlocksFromMetadata();
@@ -238,7 +252,10 @@ public class StreamStoreRenderer {
             private void touchMetadataWhileStoringForConflicts() {
                 String params = isExpiring() ? ", long duration, TimeUnit unit" : "";
                 String args = isExpiring() ? ", duration, unit" : "";
-                line("private void touchMetadataWhileStoringForConflicts(Transaction t, ", StreamId, " id, long blockNumber", params, ") {"); {
+                if (!isExpiring()) {
+                    line("@Override");
+                }
+                line(isExpiring() ? "private" : "protected", " void touchMetadataWhileStoringForConflicts(Transaction t, ", StreamId, " id, long blockNumber", params, ") {"); {
                     line(StreamMetadataTable, " metaTable = tables.get", StreamMetadataTable, "(t);");
                     line(StreamMetadataRow, " row = ", StreamMetadataRow, ".of(id);");
                     line("StreamMetadata metadata = metaTable.getMetadatas(ImmutableSet.of(row)).values().iterator().next();");
@@ -249,6 +266,21 @@ public class StreamStoreRenderer {
                 } line("}");
             }
 
+            private void compressesBlocks() {
+                line("@Override");
+                line("protected boolean compressesBlocks() {"); {
+                    line("return true;");
+                } line("}");
+            }
+
+            private void storeBlockWithoutTouchingMetadata() {
+                line("@Override");
+                line("protected void storeBlockWithoutTouchingMetadata(Transaction t, long id, long blockNumber, byte[] block) {"); {
+                    line("Preconditions.checkArgument(block.length <= BLOCK_SIZE_IN_BYTES, \"Block to store in DB must be less than BLOCK_SIZE_IN_BYTES\");");
+                    line("tables.get", StreamValueTable, "(t).putValue(", StreamValueRow, ".of(id, blockNumber), block);");
+                } line("}");
+            }
+
             private void putMetadataAndHashIndexTask() {
                 String streamType = isExpiring() ? StreamId : "long";
                 String params = isExpiring() ? ", long duration, TimeUnit unit" : "";
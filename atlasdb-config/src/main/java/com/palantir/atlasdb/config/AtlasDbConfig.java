@@ -120,6 +120,18 @@ public abstract class AtlasDbConfig {
         return AtlasDbConstants.DEFAULT_BACKGROUND_SCRUB_BATCH_SIZE;
     }
 
+    /**
+     * If true, the scrub queue is stored keyed by scrub timestamp bucket and
+     * table, so that background scrub only reads entries that are old enough
+     * to be scrubbed and its reader threads work on disjoint buckets. Entries
+     * in the old scrub queue are still read by background scrub until it is
+     * empty.
+     */
+    @Value.Default
+    public boolean useBucketedScrubQueue() {
+        return AtlasDbConstants.DEFAULT_USE_BUCKETED_SCRUB_QUEUE;
+    }
+
     /**
      * If true, a background thread will periodically delete cells that
      * have been overwritten or deleted. This differs from scrubbing
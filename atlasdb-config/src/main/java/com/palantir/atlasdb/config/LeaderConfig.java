@@ -48,6 +48,15 @@ public abstract class LeaderConfig {
     @Size(min=1)
     public abstract Set<String> leaders();
 
+    /**
+     * How many rounds below the latest one the paxos learner and acceptor logs keep, or 0 to keep
+     * every round.
+     */
+    @Value.Default
+    public long retainedPaxosRounds() {
+        return 0l;
+    }
+
     @Value.Default
     public long pingRateMs() {
         return 5000l;
@@ -63,6 +72,36 @@ public abstract class LeaderConfig {
         return 5000l;
     }
 
+    /**
+     * How long the leader may answer leadership checks without asking a quorum, or 0 to disable.
+     * This is also the longest lease the local acceptor grants, so every server should use the
+     * same value. A server restarted after its acceptor granted a lease refuses other servers'
+     * paxos rounds for this long.
+     * <p>
+     * Older servers cannot grant leases, and a lease is only taken out once a quorum has granted
+     * it, so when upgrading, roll out the new version with this set to 0 first and only then
+     * enable it.
+     */
+    @Value.Default
+    public long leaderLeaseMs() {
+        return 0l;
+    }
+
+    @Value.Default
+    public long maxClockDriftMs() {
+        return 0l;
+    }
+
+    /**
+     * If true, this server's proposer skips the prepare phase for consecutive rounds while this
+     * server is the leader, having prepared every later round at once. Other servers see no
+     * difference, so this may be turned on one server at a time.
+     */
+    @Value.Default
+    public boolean multiPaxos() {
+        return false;
+    }
+
     protected final void check() {
         Preconditions.checkArgument(leaders().contains(localServer()),
                 "The localServer '%s' must included in the leader entries %s.", localServer(), leaders());
@@ -70,6 +109,8 @@ public abstract class LeaderConfig {
                 "Learner log directory '%s' does not exist and cannot be created.", learnerLogDir());
         Preconditions.checkArgument(acceptorLogDir().exists() || acceptorLogDir().mkdirs(),
                 "Acceptor log directory '%s' does not exist and cannot be created.", acceptorLogDir());
+        Preconditions.checkArgument(leaderLeaseMs() == 0 || leaderLeaseMs() > maxClockDriftMs(),
+                "The leader lease of %sms must be longer than the max clock drift of %sms.", leaderLeaseMs(), maxClockDriftMs());
     }
 
 }
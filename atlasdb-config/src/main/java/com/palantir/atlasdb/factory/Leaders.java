@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.net.ssl.SSLSocketFactory;
 
@@ -54,8 +55,13 @@ public class Leaders {
             Environment env,
             LeaderConfig config) {
 
-        PaxosAcceptor ourAcceptor = PaxosAcceptorImpl.newAcceptor(config.acceptorLogDir().getPath());
-        PaxosLearner ourLearner = PaxosLearnerImpl.newLearner(config.learnerLogDir().getPath());
+        PaxosAcceptor ourAcceptor = PaxosAcceptorImpl.newAcceptor(
+                config.acceptorLogDir().getPath(),
+                config.retainedPaxosRounds(),
+                config.leaderLeaseMs());
+        PaxosLearner ourLearner = PaxosLearnerImpl.newLearner(
+                config.learnerLogDir().getPath(),
+                config.retainedPaxosRounds());
 
         Set<String> remoteLeaderUris = Sets.newHashSet(config.leaders());
         remoteLeaderUris.remove(config.localServer());
@@ -72,12 +78,33 @@ public class Leaders {
 
         ExecutorService executor = Executors.newCachedThreadPool();
 
-        PaxosProposer proposer = PaxosProposerImpl.newProposer(
-                ourLearner,
-                ImmutableList.copyOf(acceptors),
-                ImmutableList.copyOf(learners),
-                config.quorumSize(),
-                executor);
+        // The leader election service needs the proposer, so the proposer only sees it once built.
+        final AtomicReference<PingableLeader> localLeader = new AtomicReference<PingableLeader>();
+        PaxosProposer proposer = config.multiPaxos()
+                ? PaxosProposerImpl.newMultiPaxosProposer(
+                        ourLearner,
+                        ImmutableList.copyOf(acceptors),
+                        ImmutableList.copyOf(learners),
+                        config.quorumSize(),
+                        executor,
+                        new PingableLeader() {
+                            @Override
+                            public boolean ping() {
+                                PingableLeader leader = localLeader.get();
+                                return leader != null && leader.ping();
+                            }
+
+                            @Override
+                            public String getUUID() {
+                                return localLeader.get().getUUID();
+                            }
+                        })
+                : PaxosProposerImpl.newProposer(
+                        ourLearner,
+                        ImmutableList.copyOf(acceptors),
+                        ImmutableList.copyOf(learners),
+                        config.quorumSize(),
+                        executor);
 
         PaxosLeaderElectionService leader = new PaxosLeaderElectionService(
                 proposer,
@@ -88,7 +115,10 @@ public class Leaders {
                 executor,
                 config.pingRateMs(),
                 config.randomWaitBeforeProposingLeadershipMs(),
-                config.leaderPingResponseWaitMs());
+                config.leaderPingResponseWaitMs(),
+                config.leaderLeaseMs(),
+                config.maxClockDriftMs());
+        localLeader.set(leader);
 
         env.register(ourAcceptor);
         env.register(ourLearner);
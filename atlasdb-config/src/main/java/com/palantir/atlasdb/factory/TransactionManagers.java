@@ -45,6 +45,7 @@ import com.palantir.atlasdb.schema.generated.SweepTableFactory;
 import com.palantir.atlasdb.spi.AtlasDbFactory;
 import com.palantir.atlasdb.sweep.BackgroundSweeper;
 import com.palantir.atlasdb.sweep.BackgroundSweeperImpl;
+import com.palantir.atlasdb.sweep.SweepMetrics;
 import com.palantir.atlasdb.sweep.SweepTaskRunner;
 import com.palantir.atlasdb.sweep.SweepTaskRunnerImpl;
 import com.palantir.atlasdb.table.description.Schema;
@@ -132,6 +133,8 @@ public class TransactionManagers {
 
         CleanupFollower follower = CleanupFollower.create(schemas);
 
+        SweepMetrics sweepMetrics = SweepMetrics.createAndRegister();
+
         Cleaner cleaner = new DefaultCleanerBuilder(
                 kvs,
                 lts.lock(),
@@ -143,8 +146,10 @@ public class TransactionManagers {
                 .setBackgroundScrubBatchSize(config.getBackgroundScrubBatchSize())
                 .setBackgroundScrubFrequencyMillis(config.getBackgroundScrubFrequencyMillis())
                 .setBackgroundScrubThreads(config.getBackgroundScrubThreads())
+                .setUseBucketedScrubQueue(config.useBucketedScrubQueue())
                 .setPunchIntervalMillis(config.getPunchIntervalMillis())
                 .setTransactionReadTimeout(config.getTransactionReadTimeoutMillis())
+                .setScrubMetrics(sweepMetrics)
                 .buildCleaner();
 
         SerializableTransactionManager transactionManager = new SerializableTransactionManager(kvs,
@@ -166,6 +171,10 @@ public class TransactionManagers {
                 transactionService,
                 sweepStrategyManager,
                 ImmutableList.<Follower>of(follower));
+        sweepMetrics.setTimestampSuppliers(
+                sweepRunner,
+                getUnreadableTsSupplier(transactionManager),
+                getImmutableTsSupplier(transactionManager));
         BackgroundSweeper backgroundSweeper = new BackgroundSweeperImpl(
                 transactionManager,
                 kvs,
@@ -173,7 +182,8 @@ public class TransactionManagers {
                 Suppliers.ofInstance(config.enableSweep()),
                 Suppliers.ofInstance(config.getSweepPauseMillis()),
                 Suppliers.ofInstance(config.getSweepBatchSize()),
-                SweepTableFactory.of());
+                SweepTableFactory.of(),
+                sweepMetrics);
         backgroundSweeper.runInBackground();
 
         return transactionManager;
@@ -40,12 +40,14 @@ import com.google.common.net.HttpHeaders;
 
 import feign.FeignException;
 import feign.Response;
+import feign.Util;
 import feign.codec.DecodeException;
 import feign.codec.Decoder;
 import feign.codec.StringDecoder;
 
 /**
- * If the response has a Content-Type of text/plain, then this decoder uses a string decoder. Otherwise, it falls back to the delegate.
+ * If the response has a Content-Type of text/plain, then this decoder uses a string decoder. If it has a Content-Type of
+ * application/octet-stream and a byte[] is expected, the body is returned as is. Otherwise, it falls back to the delegate.
  * @author jmeacham
  */
 public class TextDelegateDecoder implements Decoder {
@@ -66,6 +68,12 @@ public class TextDelegateDecoder implements Decoder {
                 && Iterables.getOnlyElement(contentTypes, "").equals(MediaType.TEXT_PLAIN)) {
             return stringDecoder.decode(response, type);
         }
+        if (contentTypes != null
+                && contentTypes.size() == 1
+                && Iterables.getOnlyElement(contentTypes, "").equals(MediaType.APPLICATION_OCTET_STREAM)
+                && byte[].class.equals(type)) {
+            return response.body() == null ? new byte[0] : Util.toByteArray(response.body().asInputStream());
+        }
 
         return delegate.decode(response, type);
     }
@@ -16,6 +16,7 @@
 package com.palantir.atlasdb.keyvalue.remoting;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.IOException;
 import java.util.NavigableMap;
@@ -82,4 +83,20 @@ public class DynamicPartitionMapSerializeTest {
         System.err.println(partitionMap);
         assertEquals(partitionMap, deserialized);
     }
+
+    @Test
+    public void testBinaryFlagRoundTrips() throws IOException {
+        String kvsUri = endpointKvsService.baseUri().toString();
+        String pmsUri = endpointPmsService.baseUri().toString();
+        SimpleKeyValueEndpoint json = SimpleKeyValueEndpoint.create(kvsUri, pmsUri, "rack");
+        SimpleKeyValueEndpoint binary = SimpleKeyValueEndpoint.create(kvsUri, pmsUri, "rack", true);
+
+        String jsonString = mapper.writeValueAsString(json);
+        assertFalse(jsonString.contains("binary"));
+        assertEquals(json, mapper.readValue(jsonString, SimpleKeyValueEndpoint.class));
+
+        SimpleKeyValueEndpoint deserialized = mapper.readValue(mapper.writeValueAsString(binary), SimpleKeyValueEndpoint.class);
+        assertEquals(binary, deserialized);
+        assertFalse(json.equals(deserialized));
+    }
 }
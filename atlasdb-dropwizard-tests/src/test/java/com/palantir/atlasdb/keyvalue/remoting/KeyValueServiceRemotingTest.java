@@ -18,6 +18,9 @@ package com.palantir.atlasdb.keyvalue.remoting;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 
@@ -26,25 +29,45 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
 import com.google.common.primitives.UnsignedBytes;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.Value;
 import com.palantir.atlasdb.keyvalue.impl.AbstractAtlasDbKeyValueServiceTest;
 import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.common.base.ClosableIterator;
 
 import io.dropwizard.testing.junit.DropwizardClientRule;
 
+@RunWith(Parameterized.class)
 public class KeyValueServiceRemotingTest extends AbstractAtlasDbKeyValueServiceTest {
 
+    @Parameters(name = "binary={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][] { { false }, { true } });
+    }
+
+    private final boolean binary;
+
+    public KeyValueServiceRemotingTest(boolean binary) {
+        this.binary = binary;
+    }
+
     final KeyValueService remoteKvs = RemotingKeyValueService.createServerSide(new InMemoryKeyValueService(
             false), Suppliers.ofInstance(-1L));
 
@@ -116,11 +139,45 @@ public class KeyValueServiceRemotingTest extends AbstractAtlasDbKeyValueServiceT
         Assert.assertArrayEquals(someWeiredMeta, remoteResult);
     }
 
+    @Test
+    public void testRangeWithSmallBatchHint() {
+        // With the binary protocol this range scan is one streamed request whose pages of two
+        // rows arrive as separate frames; with JSON it is paged one request per two rows.
+        Map<Cell, byte[]> values = Maps.newHashMap();
+        for (int i = 0; i < 25; i++) {
+            values.put(Cell.create(String.format("row%02d", i).getBytes(), column0), value00);
+        }
+        getKeyValueService().put(TEST_TABLE, values, TEST_TIMESTAMP);
+
+        RangeRequest range = RangeRequest.builder().batchHint(2).build();
+        ClosableIterator<RowResult<Value>> it = getKeyValueService().getRange(TEST_TABLE, range, TEST_TIMESTAMP + 1);
+        try {
+            List<RowResult<Value>> rows = ImmutableList.copyOf(it);
+            assertEquals(25, rows.size());
+            for (int i = 0; i < 25; i++) {
+                Assert.assertArrayEquals(String.format("row%02d", i).getBytes(), rows.get(i).getRowName());
+            }
+        } finally {
+            it.close();
+        }
+
+        // Closing a range early must not keep it from being read again.
+        ClosableIterator<RowResult<Value>> partial = getKeyValueService().getRange(TEST_TABLE, range, TEST_TIMESTAMP + 1);
+        Assert.assertArrayEquals("row00".getBytes(), partial.next().getRowName());
+        partial.close();
+        ClosableIterator<RowResult<Value>> again = getKeyValueService().getRange(TEST_TABLE, range, TEST_TIMESTAMP + 1);
+        try {
+            assertEquals(25, Iterators.size(again));
+        } finally {
+            again.close();
+        }
+    }
+
     @Override
     protected KeyValueService getKeyValueService() {
         if (localKvs == null) {
             String uri = Rule.baseUri().toString();
-            localKvs = RemotingKeyValueService.createClientSide(uri, Suppliers.ofInstance(-1L));
+            localKvs = RemotingKeyValueService.createClientSide(uri, Suppliers.ofInstance(-1L), binary);
         }
         return Preconditions.checkNotNull(localKvs);
     }
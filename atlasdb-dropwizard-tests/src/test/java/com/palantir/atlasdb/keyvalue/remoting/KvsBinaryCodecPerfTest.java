@@ -0,0 +1,134 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.remoting;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.common.reflect.TypeToken;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.remoting.iterators.ValueRangeIterator;
+import com.palantir.atlasdb.keyvalue.remoting.serialization.KvsBinaryCodec;
+import com.palantir.common.base.ClosableIterator;
+
+/**
+ * Compares the payload size and encode/decode throughput of the JSON and binary encodings of
+ * the bodies of the biggest remote key value service calls.
+ */
+@Ignore
+public final class KvsBinaryCodecPerfTest {
+    private static final Random RAND = new Random(0);
+    private static final int NUM_CELLS = 10000;
+    private static final int KEY_SIZE = 16;
+    private static final int VALUE_SIZE = 100;
+    private static final int ITERATIONS = 50;
+    private static final ObjectMapper mapper = RemotingKeyValueService.kvsMapper();
+
+    @Test
+    @SuppressWarnings("serial")
+    public void testCellValuesPerf() throws IOException {
+        Map<Cell, Value> values = Maps.newHashMap();
+        for (int i = 0; i < NUM_CELLS; i++) {
+            values.put(Cell.create(randomBytes(KEY_SIZE), randomBytes(KEY_SIZE)),
+                    Value.create(randomBytes(VALUE_SIZE), 1000000L + i));
+        }
+        Type type = new TypeToken<Map<Cell, Value>>() {}.getType();
+        compare("get", values, type, mapper.getTypeFactory().constructType(type));
+    }
+
+    @Test
+    @SuppressWarnings("serial")
+    public void testRangePagePerf() throws IOException {
+        ImmutableList.Builder<RowResult<Value>> rows = ImmutableList.builder();
+        for (int i = 0; i < NUM_CELLS / 10; i++) {
+            SortedMap<byte[], Value> columns = Maps.newTreeMap(UnsignedBytes.lexicographicalComparator());
+            for (int j = 0; j < 10; j++) {
+                columns.put(randomBytes(KEY_SIZE), Value.create(randomBytes(VALUE_SIZE), 1000000L + j));
+            }
+            rows.add(RowResult.create(randomBytes(KEY_SIZE), columns));
+        }
+        ValueRangeIterator page = new ValueRangeIterator("t", RangeRequest.all(), 2000000L, true, rows.build());
+        Type type = new TypeToken<ClosableIterator<RowResult<Value>>>() {}.getType();
+        compare("get-range", page, type, mapper.getTypeFactory().constructType(ValueRangeIterator.class));
+    }
+
+    private void compare(String name, Object body, Type type, JavaType jsonType) throws IOException {
+        byte[] json = mapper.writerFor(jsonType).writeValueAsBytes(body);
+        byte[] binary = encodeBinary(body, type);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writerFor(jsonType).writeValueAsBytes(body);
+        }
+        long jsonEncodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.readValue(json, jsonType);
+        }
+        long jsonDecodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            encodeBinary(body, type);
+        }
+        long binaryEncodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            KvsBinaryCodec.read(type, new ByteArrayInputStream(binary));
+        }
+        long binaryDecodeNanos = System.nanoTime() - start;
+
+        System.out.println(name + ": json " + json.length + " bytes, encode " + mbPerSecond(json.length, jsonEncodeNanos)
+                + " MB/s, decode " + mbPerSecond(json.length, jsonDecodeNanos) + " MB/s");
+        System.out.println(name + ": binary " + binary.length + " bytes, encode " + mbPerSecond(binary.length, binaryEncodeNanos)
+                + " MB/s, decode " + mbPerSecond(binary.length, binaryDecodeNanos) + " MB/s");
+        System.out.println(name + ": binary is " + (100 * binary.length / json.length) + "% of the json size, encodes "
+                + String.format("%.1f", (double) jsonEncodeNanos / binaryEncodeNanos) + "x and decodes "
+                + String.format("%.1f", (double) jsonDecodeNanos / binaryDecodeNanos) + "x as fast");
+    }
+
+    private static byte[] encodeBinary(Object body, Type type) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        KvsBinaryCodec.write(body, type, bytes);
+        return bytes.toByteArray();
+    }
+
+    private static long mbPerSecond(long bytes, long nanos) {
+        return bytes * ITERATIONS * 1000L / Math.max(1L, nanos);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        RAND.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.remoting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.common.reflect.TypeToken;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.remoting.iterators.HistoryRangeIterator;
+import com.palantir.atlasdb.keyvalue.remoting.iterators.TimestampsRangeIterator;
+import com.palantir.atlasdb.keyvalue.remoting.iterators.ValueRangeIterator;
+import com.palantir.atlasdb.keyvalue.remoting.serialization.KvsBinaryCodec;
+import com.palantir.common.base.ClosableIterator;
+
+@SuppressWarnings("serial")
+public class KvsBinaryCodecTest {
+    private static final Cell CELL = Cell.create(PtBytes.toBytes("row"), PtBytes.toBytes("col"));
+    private static final Cell OTHER_CELL = Cell.create(new byte[] {0, -1}, new byte[] {0});
+    private static final RangeRequest RANGE = RangeRequest.builder()
+            .startRowInclusive(PtBytes.toBytes("a"))
+            .endRowExclusive(PtBytes.toBytes("z"))
+            .retainColumns(ImmutableList.of(PtBytes.toBytes("col")))
+            .batchHint(10)
+            .build();
+
+    @Test
+    public void testCellMaps() throws IOException {
+        Map<Cell, Value> values = ImmutableMap.of(
+                CELL, Value.create(PtBytes.toBytes("v"), 5L),
+                OTHER_CELL, Value.create(new byte[] {}, Value.INVALID_VALUE_TIMESTAMP));
+        assertEquals(values, roundTrip(values, new TypeToken<Map<Cell, Value>>() {}.getType()));
+
+        Map<Cell, Long> timestamps = ImmutableMap.of(CELL, 1L, OTHER_CELL, Long.MAX_VALUE);
+        assertEquals(timestamps, roundTrip(timestamps, new TypeToken<Map<Cell, Long>>() {}.getType()));
+
+        Map<Cell, byte[]> contents = ImmutableMap.of(CELL, new byte[] {1, 2, 3});
+        Map<Cell, byte[]> decoded = roundTrip(contents, new TypeToken<Map<Cell, byte[]>>() {}.getType());
+        assertArrayEquals(contents.get(CELL), decoded.get(CELL));
+    }
+
+    @Test
+    public void testMultimapsAndCollections() throws IOException {
+        Multimap<Cell, Value> values = ImmutableMultimap.of(
+                CELL, Value.create(PtBytes.toBytes("v1"), 1L),
+                CELL, Value.create(PtBytes.toBytes("v2"), 2L));
+        Multimap<Cell, Value> decodedValues = roundTrip(values, new TypeToken<Multimap<Cell, Value>>() {}.getType());
+        assertEquals(ImmutableMultimap.copyOf(values), ImmutableMultimap.copyOf(decodedValues));
+
+        Set<Cell> cells = ImmutableSet.of(CELL, OTHER_CELL);
+        assertEquals(cells, roundTrip(cells, new TypeToken<Set<Cell>>() {}.getType()));
+
+        List<byte[]> rows = roundTrip(ImmutableList.of(PtBytes.toBytes("r")), new TypeToken<Iterable<byte[]>>() {}.getType());
+        assertArrayEquals(PtBytes.toBytes("r"), rows.get(0));
+
+        assertEquals(RANGE, roundTrip(RANGE, RangeRequest.class));
+        assertEquals(RangeRequest.all(), roundTrip(RangeRequest.all(), RangeRequest.class));
+    }
+
+    @Test
+    public void testRangePages() throws IOException {
+        ValueRangeIterator values = new ValueRangeIterator("table", RANGE, 10L, true,
+                ImmutableList.of(row(Value.create(PtBytes.toBytes("v"), 3L))));
+        assertEquals(values, roundTrip(values, returnType("getRange")));
+
+        HistoryRangeIterator history = new HistoryRangeIterator("table", RANGE, 10L, false,
+                ImmutableList.of(row((Set<Value>) ImmutableSet.of(Value.create(PtBytes.toBytes("v"), 3L)))));
+        assertEquals(history, roundTrip(history, returnType("getRangeWithHistory")));
+
+        TimestampsRangeIterator timestamps = new TimestampsRangeIterator("table", RANGE, 10L, false,
+                ImmutableList.of(row((Set<Long>) ImmutableSet.of(1L, 2L))));
+        assertEquals(timestamps, roundTrip(timestamps, returnType("getRangeOfTimestamps")));
+    }
+
+    @Test
+    public void testSupportedTypesOfKeyValueService() throws NoSuchMethodException {
+        Method multiPut = KeyValueService.class.getMethod("multiPut", Map.class, long.class);
+        assertTrue(KvsBinaryCodec.canWrite(ImmutableMap.class, multiPut.getGenericParameterTypes()[0]));
+        assertTrue(KvsBinaryCodec.canRead(multiPut.getGenericParameterTypes()[0]));
+        assertTrue(KvsBinaryCodec.canRead(returnType("getAllTimestamps")));
+        // Pages are only written once the server has turned its iterator into a range iterator.
+        assertFalse(KvsBinaryCodec.canWrite(ImmutableList.of().iterator().getClass(), returnType("getRange")));
+        assertFalse(KvsBinaryCodec.canWrite(ImmutableSet.class, returnType("getAllTableNames")));
+        assertFalse(KvsBinaryCodec.canRead(Object.class));
+    }
+
+    @Test
+    public void testRowStream() throws IOException {
+        List<RowResult<Value>> rows = Lists.newArrayList();
+        for (int i = 0; i < 25; i++) {
+            rows.add(row(PtBytes.toBytes("row" + i), Value.create(PtBytes.toBytes("v" + i), i)));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        KvsBinaryCodec.writeRowStream(rows.iterator(), returnType("getRange"), 10, bytes);
+        ClosableIterator<RowResult<Value>> read = KvsBinaryCodec.readRowStream(
+                returnType("getRange"), new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(rows, ImmutableList.copyOf(read));
+
+        bytes.reset();
+        KvsBinaryCodec.writeRowStream(Iterators.<RowResult<Value>>emptyIterator(), returnType("getRange"), 10, bytes);
+        read = KvsBinaryCodec.readRowStream(returnType("getRange"), new ByteArrayInputStream(bytes.toByteArray()));
+        assertFalse(read.hasNext());
+    }
+
+    @Test
+    public void testRowStreamReportsFailuresAfterTheFirstPage() throws IOException {
+        Iterator<RowResult<Set<Long>>> failing = Iterators.concat(
+                Iterators.singletonIterator(row(PtBytes.toBytes("b"), (Set<Long>) ImmutableSet.of(1L))),
+                new AbstractIterator<RowResult<Set<Long>>>() {
+                    @Override
+                    protected RowResult<Set<Long>> computeNext() {
+                        throw new IllegalArgumentException("disk on fire");
+                    }
+                });
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        KvsBinaryCodec.writeRowStream(failing, returnType("getRangeOfTimestamps"), 1, bytes);
+        ClosableIterator<RowResult<Set<Long>>> read = KvsBinaryCodec.readRowStream(
+                returnType("getRangeOfTimestamps"), new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(ImmutableSet.of(1L), read.next().getOnlyColumnValue());
+        try {
+            read.next();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("disk on fire"));
+        }
+    }
+
+    private static <T> RowResult<T> row(T value) {
+        return row(PtBytes.toBytes("b"), value);
+    }
+
+    private static <T> RowResult<T> row(byte[] rowName, T value) {
+        return RowResult.create(rowName,
+                ImmutableSortedMap.<byte[], T>orderedBy(UnsignedBytes.lexicographicalComparator())
+                        .put(PtBytes.toBytes("col"), value)
+                        .build());
+    }
+
+    private static Type returnType(String methodName) {
+        for (Method method : KeyValueService.class.getMethods()) {
+            if (method.getName().equals(methodName)) {
+                return method.getGenericReturnType();
+            }
+        }
+        throw new IllegalArgumentException(methodName);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(Object body, Type type) throws IOException {
+        assertTrue(KvsBinaryCodec.canWrite(body.getClass(), type));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        KvsBinaryCodec.write(body, type, bytes);
+        return (T) KvsBinaryCodec.read(type, new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
@@ -42,6 +42,7 @@ public class Utils {
                 InsufficientConsistencyExceptionMapper.instance(),
                 ClientVersionTooOldExceptionMapper.instance(),
                 EndpointVersionTooOldExceptionMapper.instance(),
+                KvsBinaryMessageBodyProvider.instance(),
                 new InboxPopulatingContainerRequestFilter(mapper));
         return rule;
     }
@@ -0,0 +1,456 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.cleaner;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.ptobject.EncodingUtils;
+import com.palantir.atlasdb.table.description.ColumnMetadataDescription;
+import com.palantir.atlasdb.table.description.ColumnValueDescription;
+import com.palantir.atlasdb.table.description.DynamicColumnDescription;
+import com.palantir.atlasdb.table.description.NameComponentDescription;
+import com.palantir.atlasdb.table.description.NameMetadataDescription;
+import com.palantir.atlasdb.table.description.NamedColumnDescription;
+import com.palantir.atlasdb.table.description.TableMetadata;
+import com.palantir.atlasdb.table.description.ValueType;
+import com.palantir.atlasdb.transaction.api.ConflictHandler;
+import com.palantir.common.base.AbortingVisitor;
+import com.palantir.common.base.AbstractBatchingVisitable;
+import com.palantir.common.base.BatchingVisitable;
+import com.palantir.common.base.BatchingVisitableFromIterable;
+import com.palantir.common.base.BatchingVisitableView;
+import com.palantir.common.base.BatchingVisitables;
+import com.palantir.common.base.ClosableIterator;
+
+/**
+ * A ScrubberStore implemented as a table in the KeyValueService, keyed by
+ * (scrub timestamp bucket, table id, cell).
+ * <p>
+ * Unlike {@link KeyValueServiceScrubberStore}, each queued cell is stored once per table, and
+ * table names are dictionary-encoded into small ids in a separate table. Because the scrub
+ * timestamp bucket is the leading row component, readers only ever scan the prefix of the
+ * queue that is older than the scrub watermark, and background scrub readers are assigned
+ * disjoint ranges of buckets.
+ * <p>
+ * If a scrub queue written by {@link KeyValueServiceScrubberStore} exists when this store is
+ * created, the reader of the first range of buckets also reads it, and cells marked as scrubbed
+ * are deleted from both, until it is found to be empty. It is drained by scrubbing rather than
+ * moved up front, so switching formats does not hold up startup however long it is.
+ */
+public class BucketedKeyValueServiceScrubberStore implements ScrubberStore {
+    private static final Logger log = LoggerFactory.getLogger(BucketedKeyValueServiceScrubberStore.class);
+    private static final byte[] TABLE_NAME_COLUMN = PtBytes.toBytes("n");
+
+    private final KeyValueService keyValueService;
+    private final long timestampBucketSize;
+    @Nullable private final ScrubberStore legacyStore;
+    private volatile boolean legacyQueueDrained;
+
+    @GuardedBy("this")
+    private final SortedMap<Long, String> tableIdToName = Maps.newTreeMap();
+    @GuardedBy("this")
+    private final Map<String, Long> tableNameToId = Maps.newHashMap();
+
+    public static BucketedKeyValueServiceScrubberStore create(KeyValueService keyValueService,
+                                                              long timestampBucketSize) {
+        Preconditions.checkArgument(timestampBucketSize > 0, "timestampBucketSize must be positive");
+        keyValueService.createTable(AtlasDbConstants.SCRUB_QUEUE_TABLE, new TableMetadata(
+                NameMetadataDescription.create(ImmutableList.of(
+                        new NameComponentDescription("bucket", ValueType.FIXED_LONG),
+                        new NameComponentDescription("table_id", ValueType.VAR_LONG),
+                        new NameComponentDescription("row", ValueType.BLOB))),
+                new ColumnMetadataDescription(new DynamicColumnDescription(
+                        NameMetadataDescription.create(ImmutableList.of(new NameComponentDescription("col", ValueType.BLOB))),
+                        ColumnValueDescription.forType(ValueType.BLOB))),
+                ConflictHandler.IGNORE_ALL).persistToBytes());
+        keyValueService.createTable(AtlasDbConstants.SCRUB_TABLE_IDS_TABLE, new TableMetadata(
+                NameMetadataDescription.create(ImmutableList.of(new NameComponentDescription("id", ValueType.VAR_LONG))),
+                new ColumnMetadataDescription(ImmutableList.of(
+                        new NamedColumnDescription("n", "name", ColumnValueDescription.forType(ValueType.STRING)))),
+                ConflictHandler.IGNORE_ALL).persistToBytes());
+        ScrubberStore legacyStore = keyValueService.getAllTableNames().contains(AtlasDbConstants.SCRUB_TABLE)
+                ? KeyValueServiceScrubberStore.create(keyValueService)
+                : null;
+        return new BucketedKeyValueServiceScrubberStore(keyValueService, timestampBucketSize, legacyStore);
+    }
+
+    public static BucketedKeyValueServiceScrubberStore createWithInMemoryKvs(long timestampBucketSize) {
+        KeyValueService inMemoryKvs = new InMemoryKeyValueService(false);
+        return create(inMemoryKvs, timestampBucketSize);
+    }
+
+    private BucketedKeyValueServiceScrubberStore(KeyValueService keyValueService,
+                                                 long timestampBucketSize,
+                                                 @Nullable ScrubberStore legacyStore) {
+        this.keyValueService = keyValueService;
+        this.timestampBucketSize = timestampBucketSize;
+        this.legacyStore = legacyStore;
+        this.legacyQueueDrained = legacyStore == null;
+    }
+
+    @Override
+    public void queueCellsForScrubbing(Multimap<Cell, String> cellToTableNames, long scrubTimestamp, int batchSize) {
+        long bucket = getBucket(scrubTimestamp);
+        Map<Cell, byte[]> values = Maps.newHashMap();
+        for (Map.Entry<Cell, String> entry : cellToTableNames.entries()) {
+            long tableId = getOrCreateTableId(entry.getValue());
+            values.put(toQueueCell(bucket, tableId, entry.getKey()), PtBytes.EMPTY_BYTE_ARRAY);
+        }
+        for (List<Entry<Cell, byte[]>> batch : Iterables.partition(values.entrySet(), batchSize)) {
+            Map<Cell, byte[]> batchMap = Maps.newHashMap();
+            for (Entry<Cell, byte[]> e : batch) {
+                batchMap.put(e.getKey(), e.getValue());
+            }
+            keyValueService.put(
+                    AtlasDbConstants.SCRUB_QUEUE_TABLE,
+                    batchMap,
+                    scrubTimestamp);
+        }
+    }
+
+    @Override
+    public void markCellsAsScrubbed(Map<Long, Multimap<String, Cell>> scrubTimestampToTableNameToCell, int batchSize) {
+        Multimap<Cell, Long> queueCellToScrubTimestamp = HashMultimap.create();
+        for (Map.Entry<Long, Multimap<String, Cell>> entry : scrubTimestampToTableNameToCell.entrySet()) {
+            long scrubTimestamp = entry.getKey();
+            long bucket = getBucket(scrubTimestamp);
+            for (Map.Entry<String, Collection<Cell>> tableEntry : entry.getValue().asMap().entrySet()) {
+                // If no id is registered, nothing was ever queued for this table.
+                for (long tableId : getTableIds(tableEntry.getKey())) {
+                    for (Cell cell : tableEntry.getValue()) {
+                        queueCellToScrubTimestamp.put(toQueueCell(bucket, tableId, cell), scrubTimestamp);
+                    }
+                }
+            }
+        }
+        for (List<Entry<Cell, Long>> batch : Iterables.partition(queueCellToScrubTimestamp.entries(), batchSize)) {
+            Multimap<Cell, Long> batchMultimap = HashMultimap.create();
+            for (Entry<Cell, Long> e : batch) {
+                batchMultimap.put(e.getKey(), e.getValue());
+            }
+            keyValueService.delete(
+                    AtlasDbConstants.SCRUB_QUEUE_TABLE,
+                    batchMultimap);
+        }
+        if (!legacyQueueDrained) {
+            // We cannot tell which of these cells were read from the legacy queue.
+            legacyStore.markCellsAsScrubbed(scrubTimestampToTableNameToCell, batchSize);
+        }
+    }
+
+    /**
+     * Splits the buckets between the oldest bucket in the queue and the bucket containing
+     * maxScrubTimestamp - 1 into at most numRanges disjoint, contiguous groups of buckets.
+     */
+    @Override
+    public List<byte[]> getScrubQueueRangeBoundaries(int numRanges, long maxScrubTimestamp) {
+        long maxBucket = getBucket(maxScrubTimestamp - 1);
+        List<byte[]> rangeBoundaries = Lists.newArrayList();
+        rangeBoundaries.add(PtBytes.EMPTY_BYTE_ARRAY);
+        Long minBucket = getOldestQueuedBucket(maxScrubTimestamp);
+        if (minBucket != null && numRanges > 1 && minBucket < maxBucket) {
+            long numBuckets = maxBucket - minBucket + 1;
+            long numRangesToUse = Math.min(numRanges, numBuckets);
+            for (int i = 1; i < numRangesToUse; i++) {
+                rangeBoundaries.add(getBucketPrefix(minBucket + (numBuckets * i) / numRangesToUse));
+            }
+        }
+        rangeBoundaries.add(getBucketPrefix(maxBucket + 1));
+        return rangeBoundaries;
+    }
+
+    @Override
+    public BatchingVisitable<SortedMap<Long, Multimap<String, Cell>>> getBatchingVisitableScrubQueue(final int cellsToScrubBatchSize,
+                                                                                                     long maxScrubTimestamp /* exclusive */,
+                                                                                                     byte[] startRow,
+                                                                                                     byte[] endRow) {
+        BatchingVisitable<SortedMap<Long, Multimap<String, Cell>>> queue =
+                getBucketedScrubQueue(cellsToScrubBatchSize, maxScrubTimestamp, startRow, endRow);
+        boolean isFirstRange = startRow == null || startRow.length == 0;
+        if (!isFirstRange || isLegacyQueueDrained()) {
+            return queue;
+        }
+        return BatchingVisitables.concat(
+                legacyStore.getBatchingVisitableScrubQueue(cellsToScrubBatchSize, maxScrubTimestamp, null, null),
+                queue);
+    }
+
+    private boolean isLegacyQueueDrained() {
+        if (!legacyQueueDrained && legacyStore.getNumberRemainingScrubCells(1) == 0) {
+            log.info("The legacy scrub queue is empty and will no longer be read.");
+            legacyQueueDrained = true;
+        }
+        return legacyQueueDrained;
+    }
+
+    private BatchingVisitable<SortedMap<Long, Multimap<String, Cell>>> getBucketedScrubQueue(final int cellsToScrubBatchSize,
+                                                                                             long maxScrubTimestamp,
+                                                                                             byte[] startRow,
+                                                                                             byte[] endRow) {
+        ClosableIterator<RowResult<Value>> iterator = getIteratorToScrub(cellsToScrubBatchSize, maxScrubTimestamp, startRow, endRow);
+        final BatchingVisitable<RowResult<Value>> results = BatchingVisitableFromIterable.create(iterator);
+        return BatchingVisitableView.of(new AbstractBatchingVisitable<SortedMap<Long, Multimap<String, Cell>>>() {
+            @Override
+            protected <K extends Exception> void batchAcceptSizeHint(int batchSizeHint,
+                                                                        final ConsistentVisitor<SortedMap<Long, Multimap<String, Cell>>, K> v) throws K {
+                results.batchAccept(cellsToScrubBatchSize, new AbortingVisitor<List<RowResult<Value>>, K>() {
+                    @Override
+                    public boolean visit(List<RowResult<Value>> batch) throws K {
+                        return v.visit(ImmutableList.of(transformRows(batch)));
+                    }
+                });
+            }
+        });
+    }
+
+    private ClosableIterator<RowResult<Value>> getIteratorToScrub(int cellsToScrubBatchSize, long maxScrubTimestamp, byte[] startRow, byte[] endRow) {
+        // Never scan past the bucket containing the newest scrub timestamp we are allowed to read.
+        byte[] endOfReadableBuckets = getBucketPrefix(getBucket(maxScrubTimestamp - 1) + 1);
+        if (endRow == null || endRow.length == 0 || PtBytes.compareTo(endRow, endOfReadableBuckets) > 0) {
+            endRow = endOfReadableBuckets;
+        }
+        RangeRequest.Builder range = RangeRequest.builder().endRowExclusive(endRow);
+        if (startRow != null) {
+            range = range.startRowInclusive(startRow);
+        }
+        return keyValueService.getRange(
+                AtlasDbConstants.SCRUB_QUEUE_TABLE,
+                range.batchHint(cellsToScrubBatchSize).build(),
+                maxScrubTimestamp);
+    }
+
+    private SortedMap<Long, Multimap<String, Cell>> transformRows(List<RowResult<Value>> input) {
+        SortedMap<Long, Multimap<String, Cell>> scrubTimestampToTableNameToCell = Maps.newTreeMap();
+        for (RowResult<Value> rowResult : input) {
+            byte[] row = rowResult.getRowName();
+            int offset = PtBytes.SIZEOF_LONG;
+            long tableId = EncodingUtils.decodeVarLong(row, offset);
+            offset += EncodingUtils.sizeOfVarLong(tableId);
+            byte[] cellRow = EncodingUtils.getBytesFromOffsetToEnd(row, offset);
+            String tableName = getTableName(tableId);
+            for (Map.Entry<byte[], Value> entry : rowResult.getColumns().entrySet()) {
+                long scrubTimestamp = entry.getValue().getTimestamp();
+                if (!scrubTimestampToTableNameToCell.containsKey(scrubTimestamp)) {
+                    scrubTimestampToTableNameToCell.put(scrubTimestamp, HashMultimap.<String, Cell>create());
+                }
+                scrubTimestampToTableNameToCell.get(scrubTimestamp).put(tableName, Cell.create(cellRow, entry.getKey()));
+            }
+        }
+        return scrubTimestampToTableNameToCell;
+    }
+
+    @Override
+    public int getNumberRemainingScrubCells(int maxCellsToScan) {
+        ClosableIterator<RowResult<Value>> iterator = getIteratorToScrub(maxCellsToScan, Long.MAX_VALUE, null, null);
+        int numRemaining;
+        try {
+            numRemaining = Iterators.size(Iterators.limit(iterator, maxCellsToScan));
+        } finally {
+            iterator.close();
+        }
+        if (!legacyQueueDrained && numRemaining < maxCellsToScan) {
+            numRemaining += legacyStore.getNumberRemainingScrubCells(maxCellsToScan - numRemaining);
+        }
+        return numRemaining;
+    }
+
+    /**
+     * Moves any entries left in the scrub queue written by {@link KeyValueServiceScrubberStore}
+     * into this store at once. This is not needed for them to be scrubbed, but stops the first
+     * range of every scrub from also reading the legacy queue.
+     *
+     * @return the number of (cell, scrub timestamp) entries migrated
+     */
+    public int migrateLegacyScrubQueue(int batchSize) {
+        if (!keyValueService.getAllTableNames().contains(AtlasDbConstants.SCRUB_TABLE)) {
+            return 0;
+        }
+        int numMigrated = 0;
+        ClosableIterator<RowResult<Set<Value>>> iterator = keyValueService.getRangeWithHistory(
+                AtlasDbConstants.SCRUB_TABLE,
+                RangeRequest.builder().batchHint(batchSize).build(),
+                Long.MAX_VALUE);
+        try {
+            while (iterator.hasNext()) {
+                List<RowResult<Set<Value>>> batch = ImmutableList.copyOf(Iterators.limit(iterator, batchSize));
+                Map<Long, Multimap<Cell, String>> scrubTimestampToCellToTableNames = Maps.newHashMap();
+                Multimap<Cell, Long> legacyCellToScrubTimestamp = HashMultimap.create();
+                for (RowResult<Set<Value>> rowResult : batch) {
+                    for (Map.Entry<Cell, Set<Value>> entry : rowResult.getCells()) {
+                        for (Value value : entry.getValue()) {
+                            long scrubTimestamp = value.getTimestamp();
+                            if (!scrubTimestampToCellToTableNames.containsKey(scrubTimestamp)) {
+                                scrubTimestampToCellToTableNames.put(scrubTimestamp, HashMultimap.<Cell, String>create());
+                            }
+                            String[] tableNames = StringUtils.split(
+                                    PtBytes.toString(value.getContents()),
+                                    AtlasDbConstants.SCRUB_TABLE_SEPARATOR_CHAR);
+                            for (String tableName : tableNames) {
+                                scrubTimestampToCellToTableNames.get(scrubTimestamp).put(entry.getKey(), tableName);
+                            }
+                            legacyCellToScrubTimestamp.put(entry.getKey(), scrubTimestamp);
+                        }
+                    }
+                }
+                for (Map.Entry<Long, Multimap<Cell, String>> entry : scrubTimestampToCellToTableNames.entrySet()) {
+                    queueCellsForScrubbing(entry.getValue(), entry.getKey(), batchSize);
+                }
+                keyValueService.delete(AtlasDbConstants.SCRUB_TABLE, legacyCellToScrubTimestamp);
+                numMigrated += legacyCellToScrubTimestamp.size();
+            }
+        } finally {
+            iterator.close();
+        }
+        if (numMigrated > 0) {
+            log.info("Migrated " + numMigrated + " entries from the legacy scrub queue.");
+        }
+        return numMigrated;
+    }
+
+    private Long getOldestQueuedBucket(long maxScrubTimestamp) {
+        ClosableIterator<RowResult<Value>> iterator = getIteratorToScrub(1, maxScrubTimestamp, null, null);
+        try {
+            if (iterator.hasNext()) {
+                return (Long) ValueType.FIXED_LONG.convertToJava(iterator.next().getRowName(), 0);
+            }
+            return null;
+        } finally {
+            iterator.close();
+        }
+    }
+
+    private long getBucket(long scrubTimestamp) {
+        return Math.max(scrubTimestamp, 0L) / timestampBucketSize;
+    }
+
+    private static byte[] getBucketPrefix(long bucket) {
+        return ValueType.FIXED_LONG.convertFromJava(bucket);
+    }
+
+    private static Cell toQueueCell(long bucket, long tableId, Cell cell) {
+        byte[] row = EncodingUtils.add(
+                getBucketPrefix(bucket),
+                EncodingUtils.encodeVarLong(tableId),
+                cell.getRowName());
+        return Cell.create(row, cell.getColumnName());
+    }
+
+    private synchronized List<Long> getTableIds(String tableName) {
+        if (!tableNameToId.containsKey(tableName)) {
+            loadTableIds();
+        }
+        List<Long> ids = Lists.newArrayList();
+        for (Map.Entry<Long, String> entry : tableIdToName.entrySet()) {
+            if (entry.getValue().equals(tableName)) {
+                ids.add(entry.getKey());
+            }
+        }
+        return ids;
+    }
+
+    private synchronized String getTableName(long tableId) {
+        String tableName = tableIdToName.get(tableId);
+        if (tableName == null) {
+            loadTableIds();
+            tableName = tableIdToName.get(tableId);
+        }
+        if (tableName == null) {
+            throw new IllegalStateException("No table is registered in the scrub queue for table id " + tableId);
+        }
+        return tableName;
+    }
+
+    private synchronized long getOrCreateTableId(String tableName) {
+        Long tableId = tableNameToId.get(tableName);
+        if (tableId == null) {
+            loadTableIds();
+            tableId = tableNameToId.get(tableName);
+        }
+        while (tableId == null) {
+            long candidateId = tableIdToName.isEmpty() ? 0L : tableIdToName.lastKey() + 1;
+            try {
+                keyValueService.putUnlessExists(
+                        AtlasDbConstants.SCRUB_TABLE_IDS_TABLE,
+                        ImmutableMap.of(getTableIdCell(candidateId), PtBytes.toBytes(tableName)));
+                tableIdToName.put(candidateId, tableName);
+                tableNameToId.put(tableName, candidateId);
+                tableId = candidateId;
+            } catch (KeyAlreadyExistsException e) {
+                // Another client registered this id first; it may even have been for this table.
+                loadTableIds();
+                tableId = tableNameToId.get(tableName);
+            }
+        }
+        return tableId;
+    }
+
+    @GuardedBy("this")
+    private void loadTableIds() {
+        ClosableIterator<RowResult<Value>> iterator = keyValueService.getRange(
+                AtlasDbConstants.SCRUB_TABLE_IDS_TABLE,
+                RangeRequest.all(),
+                Long.MAX_VALUE);
+        try {
+            while (iterator.hasNext()) {
+                RowResult<Value> rowResult = iterator.next();
+                long tableId = EncodingUtils.decodeVarLong(rowResult.getRowName());
+                String tableName = PtBytes.toString(rowResult.getColumns().get(TABLE_NAME_COLUMN).getContents());
+                tableIdToName.put(tableId, tableName);
+                // Ids are only ever allocated one past the largest known id, so a table should never be
+                // registered twice; if it somehow is, new entries use the lowest id and all ids are scrubbed.
+                if (!tableNameToId.containsKey(tableName) || tableNameToId.get(tableName) > tableId) {
+                    tableNameToId.put(tableName, tableId);
+                }
+            }
+        } finally {
+            iterator.close();
+        }
+    }
+
+    private static Cell getTableIdCell(long tableId) {
+        return Cell.create(EncodingUtils.encodeVarLong(tableId), TABLE_NAME_COLUMN);
+    }
+}
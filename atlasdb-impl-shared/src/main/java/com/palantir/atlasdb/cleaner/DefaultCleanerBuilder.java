@@ -17,11 +17,16 @@ package com.palantir.atlasdb.cleaner;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.sweep.NoOpSweepMetricsListener;
+import com.palantir.atlasdb.sweep.SweepMetrics;
+import com.palantir.atlasdb.sweep.SweepMetricsListener;
 import com.palantir.atlasdb.transaction.service.TransactionService;
 import com.palantir.common.time.Clock;
 import com.palantir.lock.LockClient;
@@ -29,6 +34,9 @@ import com.palantir.lock.RemoteLockService;
 import com.palantir.timestamp.TimestampService;
 
 public class DefaultCleanerBuilder {
+    // Counting the scrub queue scans it, so deeper queues are all reported as this depth.
+    private static final int MAX_SCRUB_QUEUE_DEPTH_TO_COUNT = 100000;
+
     private final KeyValueService keyValueService;
     private final RemoteLockService lockService;
     private final TimestampService timestampService;
@@ -43,6 +51,9 @@ public class DefaultCleanerBuilder {
     private int backgroundScrubReadThreads = AtlasDbConstants.DEFAULT_BACKGROUND_SCRUB_READ_THREADS;
     private long backgroundScrubFrequencyMillis = AtlasDbConstants.DEFAULT_BACKGROUND_SCRUB_FREQUENCY_MILLIS;
     private int backgroundScrubBatchSize = AtlasDbConstants.DEFAULT_BACKGROUND_SCRUB_BATCH_SIZE;
+    private boolean useBucketedScrubQueue = AtlasDbConstants.DEFAULT_USE_BUCKETED_SCRUB_QUEUE;
+    private long scrubQueueTimestampBucketSize = AtlasDbConstants.DEFAULT_SCRUB_QUEUE_TIMESTAMP_BUCKET_SIZE;
+    @Nullable private SweepMetrics scrubMetrics = null;
 
     public DefaultCleanerBuilder(KeyValueService keyValueService,
                                  RemoteLockService lockService,
@@ -93,14 +104,33 @@ public class DefaultCleanerBuilder {
         return this;
     }
 
+    public DefaultCleanerBuilder setUseBucketedScrubQueue(boolean useBucketedScrubQueue) {
+        this.useBucketedScrubQueue = useBucketedScrubQueue;
+        return this;
+    }
+
+    public DefaultCleanerBuilder setScrubQueueTimestampBucketSize(long scrubQueueTimestampBucketSize) {
+        this.scrubQueueTimestampBucketSize = scrubQueueTimestampBucketSize;
+        return this;
+    }
+
+    /**
+     * Reports the progress of background scrubbing to these metrics, including the scrub queue
+     * depth, which is counted only when the metrics are read.
+     */
+    public DefaultCleanerBuilder setScrubMetrics(SweepMetrics scrubMetrics) {
+        this.scrubMetrics = scrubMetrics;
+        return this;
+    }
+
     private Puncher buildPuncher() {
         KeyValueServicePuncherStore keyValuePuncherStore = KeyValueServicePuncherStore.create(keyValueService);
-        PuncherStore cachingPuncherStore = CachingPuncherStore.create(
+        PuncherStore indexedPuncherStore = IndexedPuncherStore.create(
                 keyValuePuncherStore,
-                punchIntervalMillis * 3);
+                punchIntervalMillis);
         Clock clock = GlobalClock.create(lockService);
         SimplePuncher simplePuncher = SimplePuncher.create(
-                cachingPuncherStore,
+                indexedPuncherStore,
                 clock,
                 Suppliers.ofInstance(transactionReadTimeout));
         return AsyncPuncher.create(simplePuncher, punchIntervalMillis);
@@ -108,7 +138,17 @@ public class DefaultCleanerBuilder {
 
     private Scrubber buildScrubber(Supplier<Long> unreadableTimestampSupplier,
                                    Supplier<Long> immutableTimestampSupplier) {
-        ScrubberStore scrubberStore = KeyValueServiceScrubberStore.create(keyValueService);
+        final ScrubberStore scrubberStore = buildScrubberStore();
+        SweepMetricsListener scrubListener = new NoOpSweepMetricsListener();
+        if (scrubMetrics != null) {
+            scrubMetrics.setScrubQueueDepthSupplier(new Supplier<Long>() {
+                @Override
+                public Long get() {
+                    return (long) scrubberStore.getNumberRemainingScrubCells(MAX_SCRUB_QUEUE_DEPTH_TO_COUNT);
+                }
+            });
+            scrubListener = scrubMetrics;
+        }
         return Scrubber.create(
                 keyValueService,
                 scrubberStore,
@@ -121,7 +161,16 @@ public class DefaultCleanerBuilder {
                 Suppliers.ofInstance(backgroundScrubBatchSize),
                 backgroundScrubThreads,
                 backgroundScrubReadThreads,
-                followerList);
+                followerList,
+                scrubListener);
+    }
+
+    private ScrubberStore buildScrubberStore() {
+        if (!useBucketedScrubQueue) {
+            return KeyValueServiceScrubberStore.create(keyValueService);
+        }
+        // Any legacy scrub queue is read and drained by the background scrubber.
+        return BucketedKeyValueServiceScrubberStore.create(keyValueService, scrubQueueTimestampBucketSize);
     }
 
     public Cleaner buildCleaner() {
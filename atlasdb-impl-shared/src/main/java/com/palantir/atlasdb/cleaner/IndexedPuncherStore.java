@@ -0,0 +1,218 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.cleaner;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Wrap a KeyValueServicePuncherStore, answering #get() from an in-memory sorted array of
+ * (timeMillis, timestamp) pairs. The array is loaded incrementally from the underlying store: a
+ * lookup for a time newer than the newest indexed punch reads only the punch rows written since,
+ * and at most once per refreshIntervalMillis. Lookups for older times are a binary search.
+ * <p>
+ * Missing a punch written by another client only makes #get() return an older timestamp, which is
+ * always safe for the same reason that rounding down in {@link CachingPuncherStore} is safe.
+ * <p>
+ * Punches older than the full resolution retention are periodically thinned to one per
+ * compactedGranularityMillis, both in memory and in the underlying store. Compaction runs on the
+ * thread calling #put(), which is the background punch thread of {@link AsyncPuncher}.
+ */
+public class IndexedPuncherStore implements PuncherStore {
+    private static final Logger log = LoggerFactory.getLogger(IndexedPuncherStore.class);
+
+    private static final int INITIAL_CAPACITY = 1024;
+    public static final long DEFAULT_FULL_RESOLUTION_RETENTION_MILLIS = 7L * 24 * 60 * 60 * 1000; // one week
+    public static final long DEFAULT_COMPACTED_GRANULARITY_MILLIS = 60L * 60 * 1000; // one hour
+
+    public static IndexedPuncherStore create(KeyValueServicePuncherStore puncherStore, long refreshIntervalMillis) {
+        return create(
+                puncherStore,
+                refreshIntervalMillis,
+                DEFAULT_FULL_RESOLUTION_RETENTION_MILLIS,
+                DEFAULT_COMPACTED_GRANULARITY_MILLIS);
+    }
+
+    public static IndexedPuncherStore create(KeyValueServicePuncherStore puncherStore,
+                                             long refreshIntervalMillis,
+                                             long fullResolutionRetentionMillis,
+                                             long compactedGranularityMillis) {
+        IndexedPuncherStore indexedPuncherStore = new IndexedPuncherStore(
+                puncherStore,
+                refreshIntervalMillis,
+                fullResolutionRetentionMillis,
+                compactedGranularityMillis);
+        indexedPuncherStore.refresh();
+        return indexedPuncherStore;
+    }
+
+    private final KeyValueServicePuncherStore puncherStore;
+    private final long refreshIntervalMillis;
+    private final long fullResolutionRetentionMillis;
+    private final long compactedGranularityMillis;
+
+    // Only ever replaced under the lock; readers use whichever snapshot they see.
+    private volatile PunchIndex index = new PunchIndex(new long[INITIAL_CAPACITY], new long[INITIAL_CAPACITY], 0);
+    private volatile long lastRefreshMillis = 0L;
+    @GuardedBy("this") private long lastCompactionMillis = 0L;
+
+    private IndexedPuncherStore(KeyValueServicePuncherStore puncherStore,
+                                long refreshIntervalMillis,
+                                long fullResolutionRetentionMillis,
+                                long compactedGranularityMillis) {
+        this.puncherStore = puncherStore;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.fullResolutionRetentionMillis = fullResolutionRetentionMillis;
+        this.compactedGranularityMillis = compactedGranularityMillis;
+    }
+
+    @Override
+    public void put(long timestamp, long timeMillis) {
+        puncherStore.put(timestamp, timeMillis);
+        synchronized (this) {
+            append(timeMillis, timestamp);
+        }
+        maybeCompact();
+    }
+
+    @Override
+    public Long get(Long timeMillis) {
+        PunchIndex currentIndex = index;
+        if (currentIndex.isNewerThanLatestPunch(timeMillis)
+                && System.currentTimeMillis() - lastRefreshMillis >= refreshIntervalMillis) {
+            refresh();
+            currentIndex = index;
+        }
+        return currentIndex.get(timeMillis);
+    }
+
+    /**
+     * Loads any punches newer than the newest punch in the index from the underlying store.
+     */
+    public synchronized void refresh() {
+        lastRefreshMillis = System.currentTimeMillis();
+        long latestTimeMillis = index.size == 0 ? -1L : index.timeMillis[index.size - 1];
+        for (Map.Entry<Long, Long> entry : puncherStore.getPunchesAfter(latestTimeMillis).entrySet()) {
+            append(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Thins punches older than the full resolution retention (relative to the newest punch) so that
+     * at most one punch per compactedGranularityMillis remains, keeping the latest in each interval.
+     *
+     * @return the number of punches removed
+     */
+    public synchronized int compact() {
+        lastCompactionMillis = System.currentTimeMillis();
+        PunchIndex currentIndex = index;
+        if (currentIndex.size == 0) {
+            return 0;
+        }
+        long cutoffMillis = currentIndex.timeMillis[currentIndex.size - 1] - fullResolutionRetentionMillis;
+        long[] newTimeMillis = new long[currentIndex.timeMillis.length];
+        long[] newTimestamps = new long[currentIndex.timestamps.length];
+        int newSize = 0;
+        SortedMap<Long, Long> toDelete = Maps.newTreeMap();
+        for (int i = 0; i < currentIndex.size; i++) {
+            long timeMillis = currentIndex.timeMillis[i];
+            boolean isLastInInterval = i + 1 == currentIndex.size
+                    || currentIndex.timeMillis[i + 1] / compactedGranularityMillis != timeMillis / compactedGranularityMillis;
+            if (timeMillis < cutoffMillis && !isLastInInterval) {
+                toDelete.put(timeMillis, currentIndex.timestamps[i]);
+            } else {
+                newTimeMillis[newSize] = timeMillis;
+                newTimestamps[newSize] = currentIndex.timestamps[i];
+                newSize++;
+            }
+        }
+        if (toDelete.isEmpty()) {
+            return 0;
+        }
+        // Remove the punches from memory first: a punch missing from memory but still in the
+        // store is harmless, since the index is only ever refreshed with newer punches.
+        index = new PunchIndex(newTimeMillis, newTimestamps, newSize);
+        puncherStore.delete(toDelete);
+        log.info("Compacted " + toDelete.size() + " punches older than " + cutoffMillis + " millis.");
+        return toDelete.size();
+    }
+
+    private void maybeCompact() {
+        boolean shouldCompact;
+        synchronized (this) {
+            shouldCompact = System.currentTimeMillis() - lastCompactionMillis >= compactedGranularityMillis;
+        }
+        if (shouldCompact) {
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                log.warn("Failed to compact the punch table; will retry later.", e);
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private void append(long timeMillis, long timestamp) {
+        PunchIndex currentIndex = index;
+        if (currentIndex.size > 0 && timeMillis <= currentIndex.timeMillis[currentIndex.size - 1]) {
+            // Punches are only ever indexed in time order; dropping an out of order punch is safe.
+            return;
+        }
+        long[] timeMillisArray = currentIndex.timeMillis;
+        long[] timestampArray = currentIndex.timestamps;
+        if (currentIndex.size == timeMillisArray.length) {
+            timeMillisArray = Arrays.copyOf(timeMillisArray, timeMillisArray.length * 2);
+            timestampArray = Arrays.copyOf(timestampArray, timestampArray.length * 2);
+        }
+        // Readers of the old snapshot never look past its size, so writing past it is safe.
+        timeMillisArray[currentIndex.size] = timeMillis;
+        timestampArray[currentIndex.size] = timestamp;
+        index = new PunchIndex(timeMillisArray, timestampArray, currentIndex.size + 1);
+    }
+
+    private static final class PunchIndex {
+        final long[] timeMillis;
+        final long[] timestamps;
+        final int size;
+
+        PunchIndex(long[] timeMillis, long[] timestamps, int size) {
+            this.timeMillis = timeMillis;
+            this.timestamps = timestamps;
+            this.size = size;
+        }
+
+        boolean isNewerThanLatestPunch(long queryTimeMillis) {
+            return size == 0 || queryTimeMillis > timeMillis[size - 1];
+        }
+
+        long get(long queryTimeMillis) {
+            int index = Arrays.binarySearch(timeMillis, 0, size, queryTimeMillis);
+            if (index < 0) {
+                // The insertion point is the first punch after queryTimeMillis.
+                index = -index - 2;
+            }
+            return index < 0 ? Long.MIN_VALUE : timestamps[index];
+        }
+    }
+}
@@ -15,8 +15,16 @@
  */
 package com.palantir.atlasdb.cleaner;
 
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
@@ -42,6 +50,7 @@ import com.palantir.common.base.ClosableIterator;
  */
 public class KeyValueServicePuncherStore implements PuncherStore {
     private static final byte[] COLUMN = "t".getBytes();
+    private static final int BATCH_SIZE = 1000;
 
     public static KeyValueServicePuncherStore create(KeyValueService keyValueService) {
         keyValueService.createTable(AtlasDbConstants.PUNCH_TABLE, new TableMetadata(
@@ -85,4 +94,51 @@ public class KeyValueServicePuncherStore implements PuncherStore {
             result.close();
         }
     }
+
+    /**
+     * Returns all punches recorded at a time strictly after timeMillisExclusive, as a map from
+     * timeMillis to timestamp. Rows are stored newest first, so this only reads the new rows.
+     */
+    public SortedMap<Long, Long> getPunchesAfter(long timeMillisExclusive) {
+        SortedMap<Long, Long> punches = Maps.newTreeMap();
+        RangeRequest rangeRequest = RangeRequest.builder().batchHint(BATCH_SIZE).build();
+        ClosableIterator<RowResult<Value>> result =
+                keyValueService.getRange(AtlasDbConstants.PUNCH_TABLE, rangeRequest, Long.MAX_VALUE);
+        try {
+            while (result.hasNext()) {
+                RowResult<Value> rowResult = result.next();
+                long timeMillis = decodeTimeMillis(rowResult.getRowName());
+                if (timeMillis <= timeMillisExclusive) {
+                    break;
+                }
+                punches.put(timeMillis, EncodingUtils.decodeUnsignedVarLong(rowResult.getColumns().get(COLUMN).getContents()));
+            }
+        } finally {
+            result.close();
+        }
+        return punches;
+    }
+
+    /**
+     * Deletes the given punches, given as a map from timeMillis to timestamp.
+     */
+    public void delete(Map<Long, Long> timeMillisToTimestamp) {
+        Multimap<Cell, Long> toDelete = HashMultimap.create();
+        for (Map.Entry<Long, Long> entry : timeMillisToTimestamp.entrySet()) {
+            byte[] row = EncodingUtils.encodeUnsignedVarLong(entry.getKey());
+            EncodingUtils.flipAllBitsInPlace(row);
+            toDelete.put(Cell.create(row, COLUMN), entry.getValue());
+        }
+        for (List<Map.Entry<Cell, Long>> batch : Iterables.partition(toDelete.entries(), BATCH_SIZE)) {
+            Multimap<Cell, Long> batchMultimap = HashMultimap.create();
+            for (Map.Entry<Cell, Long> e : batch) {
+                batchMultimap.put(e.getKey(), e.getValue());
+            }
+            keyValueService.delete(AtlasDbConstants.PUNCH_TABLE, batchMultimap);
+        }
+    }
+
+    private static long decodeTimeMillis(byte[] row) {
+        return EncodingUtils.decodeUnsignedVarLong(EncodingUtils.flipAllBits(row));
+    }
 }
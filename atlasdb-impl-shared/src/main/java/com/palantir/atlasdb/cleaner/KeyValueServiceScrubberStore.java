@@ -27,8 +27,11 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Ordering;
+import com.google.common.primitives.UnsignedBytes;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.keyvalue.api.Cell;
@@ -43,6 +46,7 @@ import com.palantir.atlasdb.table.description.DynamicColumnDescription;
 import com.palantir.atlasdb.table.description.NameComponentDescription;
 import com.palantir.atlasdb.table.description.NameMetadataDescription;
 import com.palantir.atlasdb.table.description.TableMetadata;
+import com.palantir.atlasdb.table.description.UniformRowNamePartitioner;
 import com.palantir.atlasdb.table.description.ValueType;
 import com.palantir.atlasdb.transaction.api.ConflictHandler;
 import com.palantir.common.base.AbortingVisitor;
@@ -106,7 +110,14 @@ public class KeyValueServiceScrubberStore implements ScrubberStore {
     }
 
     @Override
-    public void markCellsAsScrubbed(Multimap<Cell, Long> cellToScrubTimestamp, int batchSize) {
+    public void markCellsAsScrubbed(Map<Long, Multimap<String, Cell>> scrubTimestampToTableNameToCell, int batchSize) {
+        // All of the table names for a cell are stored in a single value, so the table names are not needed here
+        Multimap<Cell, Long> cellToScrubTimestamp = HashMultimap.create();
+        for (Map.Entry<Long, Multimap<String, Cell>> entry : scrubTimestampToTableNameToCell.entrySet()) {
+            for (Cell cell : entry.getValue().values()) {
+                cellToScrubTimestamp.put(cell, entry.getKey());
+            }
+        }
         for (List<Entry<Cell, Long>> batch : Iterables.partition(cellToScrubTimestamp.entries(), batchSize)) {
             Multimap<Cell, Long> batchMultimap = HashMultimap.create();
             for (Entry<Cell, Long> e : batch) {
@@ -118,6 +129,19 @@ public class KeyValueServiceScrubberStore implements ScrubberStore {
         }
     }
 
+    @Override
+    public List<byte[]> getScrubQueueRangeBoundaries(int numRanges, long maxScrubTimestamp) {
+        List<byte[]> rangeBoundaries = Lists.newArrayList();
+        rangeBoundaries.add(PtBytes.EMPTY_BYTE_ARRAY);
+        if (numRanges > 1) {
+            // This will actually partition into the closest higher power of 2 number of ranges.
+            rangeBoundaries.addAll(Ordering.from(UnsignedBytes.lexicographicalComparator())
+                    .sortedCopy(new UniformRowNamePartitioner(ValueType.BLOB).getPartitions(numRanges - 1)));
+        }
+        rangeBoundaries.add(PtBytes.EMPTY_BYTE_ARRAY);
+        return rangeBoundaries;
+    }
+
     @Override
     public BatchingVisitable<SortedMap<Long, Multimap<String, Cell>>> getBatchingVisitableScrubQueue(final int cellsToScrubBatchSize,
                                                                                                      long maxScrubTimestamp /* exclusive */,
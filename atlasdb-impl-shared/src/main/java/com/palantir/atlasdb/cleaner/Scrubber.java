@@ -35,27 +35,25 @@ import javax.annotation.concurrent.GuardedBy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Functions;
+import com.google.common.base.Stopwatch;
 import com.google.common.base.Supplier;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
-import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
-import com.google.common.primitives.UnsignedBytes;
 import com.google.common.util.concurrent.Futures;
 import com.palantir.atlasdb.AtlasDbConstants;
-import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.Value;
-import com.palantir.atlasdb.table.description.UniformRowNamePartitioner;
-import com.palantir.atlasdb.table.description.ValueType;
+import com.palantir.atlasdb.sweep.SweepMetricsListener;
 import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.Transaction.TransactionType;
 import com.palantir.atlasdb.transaction.api.TransactionFailedRetriableException;
@@ -103,6 +101,7 @@ public final class Scrubber {
     private final int readThreadCount;
     private final ExecutorService readerExec;
     private final ExecutorService exec;
+    private final SweepMetricsListener scrubMetrics;
 
     private static final String SCRUBBER_THREAD_PREFIX = "AtlasScrubber";
 
@@ -126,7 +125,8 @@ public final class Scrubber {
                                   Supplier<Integer> batchSizeSupplier,
                                   int threadCount,
                                   int readThreadCount,
-                                  Collection<Follower> followers) {
+                                  Collection<Follower> followers,
+                                  SweepMetricsListener scrubMetrics) {
         Scrubber scrubber = new Scrubber(
                 keyValueService,
                 scrubberStore,
@@ -139,7 +139,8 @@ public final class Scrubber {
                 batchSizeSupplier,
                 threadCount,
                 readThreadCount,
-                followers);
+                followers,
+                scrubMetrics);
         return scrubber;
     }
 
@@ -154,7 +155,8 @@ public final class Scrubber {
                      Supplier<Integer> batchSizeSupplier,
                      int threadCount,
                      int readThreadCount,
-                     Collection<Follower> followers) {
+                     Collection<Follower> followers,
+                     SweepMetricsListener scrubMetrics) {
         this.keyValueService = keyValueService;
         this.scrubberStore = scrubberStore;
         this.backgroundScrubFrequencyMillisSupplier = backgroundScrubFrequencyMillisSupplier;
@@ -167,6 +169,7 @@ public final class Scrubber {
         this.threadCount = threadCount;
         this.readThreadCount = readThreadCount;
         this.followers = followers;
+        this.scrubMetrics = scrubMetrics;
         NamedThreadFactory threadFactory = new NamedThreadFactory(SCRUBBER_THREAD_PREFIX, true);
         this.readerExec = PTExecutors.newFixedThreadPool(readThreadCount, threadFactory);
         this.exec = PTExecutors.newFixedThreadPool(threadCount, threadFactory);
@@ -238,14 +241,7 @@ public final class Scrubber {
         }
         final int batchSize = ((int) Math.ceil(batchSizeSupplier.get() * ((double) threadCount / readThreadCount)));
 
-        List<byte[]> rangeBoundaries = Lists.newArrayList();
-        rangeBoundaries.add(PtBytes.EMPTY_BYTE_ARRAY);
-        if (readThreadCount > 1) {
-            // This will actually partition into the closest higher power of 2 number of ranges.
-            rangeBoundaries.addAll(Ordering.from(UnsignedBytes.lexicographicalComparator())
-                    .sortedCopy(new UniformRowNamePartitioner(ValueType.BLOB).getPartitions(readThreadCount - 1)));
-        }
-        rangeBoundaries.add(PtBytes.EMPTY_BYTE_ARRAY);
+        List<byte[]> rangeBoundaries = scrubberStore.getScrubQueueRangeBoundaries(readThreadCount, maxScrubTimestamp);
 
         List<Future<Void>> readerFutures = Lists.newArrayList();
         final AtomicInteger totalCellsRead = new AtomicInteger(0);
@@ -265,7 +261,9 @@ public final class Scrubber {
                                 // We may actually get more cells than the batch size. The batch size is used for pulling off the scrub queue,
                                 // and a single entry in the scrub queue may match multiple tables.
                                 // These will get broken down into smaller batches later on when we actually do deletes.
+                                Stopwatch watch = Stopwatch.createStarted();
                                 int numCellsRead = scrubSomeCells(cells, txManager, maxScrubTimestamp);
+                                scrubMetrics.scrubbedBatch(numCellsRead, watch.elapsed(TimeUnit.MILLISECONDS));
                                 int totalRead = totalCellsRead.addAndGet(numCellsRead);
                                 if (log.isInfoEnabled()) {
                                     log.info("Scrub task processed " + numCellsRead + " cells in a batch, total " + totalRead + " processed so far.");
@@ -335,13 +333,9 @@ public final class Scrubber {
                     // AFTER the transaction commits
                     scrubCells(txManager, batchMultimap, scrubTimestamp, TransactionType.AGGRESSIVE_HARD_DELETE);
 
-                    Multimap<Cell, Long> cellToScrubTimestamp = HashMultimap.create();
-
-                    cellToScrubTimestamp = Multimaps.invertFrom(
-                            Multimaps.index(batchMultimap.values(), Functions.constant(scrubTimestamp)),
-                            cellToScrubTimestamp);
-
-                    scrubberStore.markCellsAsScrubbed(cellToScrubTimestamp, batchSizeSupplier.get());
+                    scrubberStore.markCellsAsScrubbed(
+                            ImmutableMap.of(scrubTimestamp, batchMultimap),
+                            batchSizeSupplier.get());
 
                     if (log.isInfoEnabled()) {
                         log.info("Completed scrub immediately.");
@@ -441,7 +435,7 @@ public final class Scrubber {
             return 0; // No cells left to scrub
         }
 
-        Multimap<Long, Cell> toRemoveFromScrubQueue = HashMultimap.create();
+        Map<Long, Multimap<String, Cell>> toRemoveFromScrubQueue = Maps.newHashMap();
 
         int numCellsReadFromScrubTable = 0;
         List<Future<Void>> scrubFutures = Lists.newArrayList();
@@ -475,15 +469,14 @@ public final class Scrubber {
                         }}));
                 }
             }
-            toRemoveFromScrubQueue.putAll(scrubTimestamp, tableNameToCell.values());
+            toRemoveFromScrubQueue.put(scrubTimestamp, tableNameToCell);
         }
 
         for (Future<Void> future : scrubFutures) {
             Futures.getUnchecked(future);
         }
 
-        Multimap<Cell, Long> cellToScrubTimestamp = HashMultimap.create();
-        scrubberStore.markCellsAsScrubbed(Multimaps.invertFrom(toRemoveFromScrubQueue, cellToScrubTimestamp), batchSizeSupplier.get());
+        scrubberStore.markCellsAsScrubbed(toRemoveFromScrubQueue, batchSizeSupplier.get());
 
         if (log.isTraceEnabled()) {
             log.trace("Finished scrubbing cells: " + scrubTimestampToTableNameToCell);
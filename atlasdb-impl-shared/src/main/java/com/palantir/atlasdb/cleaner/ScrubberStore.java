@@ -15,6 +15,8 @@
  */
 package com.palantir.atlasdb.cleaner;
 
+import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
 
 import com.google.common.collect.Multimap;
@@ -31,7 +33,15 @@ public interface ScrubberStore {
 
     void queueCellsForScrubbing(Multimap<Cell, String> cellToTableNames, long scrubTimestamp, int batchSize);
 
-    void markCellsAsScrubbed(Multimap<Cell, Long> cellToScrubTimestamp, int batchSize);
+    void markCellsAsScrubbed(Map<Long, Multimap<String, Cell>> scrubTimestampToTableNameToCell, int batchSize);
+
+    /**
+     * Returns the boundaries of the ranges that background scrub readers should be assigned. The
+     * first and last boundaries may be empty, meaning the start or end of the queue respectively.
+     * Consecutive boundaries (i, i + 1) delimit the startRow and endRow that should be passed to
+     * {@link #getBatchingVisitableScrubQueue}.
+     */
+    List<byte[]> getScrubQueueRangeBoundaries(int numRanges, long maxScrubTimestamp /* exclusive */);
 
     public BatchingVisitable<SortedMap<Long, Multimap<String, Cell>>> getBatchingVisitableScrubQueue(int cellsToScrubBatchSize,
                                                                                                      long maxScrubTimestamp /* exclusive */,
@@ -46,4 +46,12 @@ public abstract class PartitionedKeyValueConfiguration implements KeyValueServic
     public abstract List<String> getPartitionMapProviders();
     public abstract int getPartitionMapProvidersReadFactor();
 
+    /**
+     * Whether reads write the newest value of a cell back to the replicas that returned an older one.
+     */
+    @Value.Default
+    public boolean isReadRepairEnabled() {
+        return false;
+    }
+
 }
@@ -15,8 +15,6 @@
  */
 package com.palantir.atlasdb.keyvalue.partition;
 
-import static com.palantir.atlasdb.keyvalue.partition.util.RequestCompletions.completeReadRequest;
-import static com.palantir.atlasdb.keyvalue.partition.util.RequestCompletions.completeWriteRequest;
 import static com.palantir.atlasdb.keyvalue.partition.util.RequestCompletions.retryUntilSuccess;
 
 import java.util.Collection;
@@ -25,7 +23,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import javax.annotation.Nullable;
 
@@ -34,11 +31,14 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Predicates;
 import com.google.common.base.Supplier;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
@@ -57,14 +57,15 @@ import com.palantir.atlasdb.keyvalue.partition.exception.ClientVersionTooOldExce
 import com.palantir.atlasdb.keyvalue.partition.map.DynamicPartitionMapImpl;
 import com.palantir.atlasdb.keyvalue.partition.map.PartitionMapService;
 import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumParameters;
-import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumTracker;
+import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumParameters.QuorumRequestParameters;
 import com.palantir.atlasdb.keyvalue.partition.util.AutoRetryingClosableIterator;
 import com.palantir.atlasdb.keyvalue.partition.util.ClosablePeekingIterator;
 import com.palantir.atlasdb.keyvalue.partition.util.ConsistentRingRangeRequest;
-import com.palantir.atlasdb.keyvalue.partition.util.EndpointRequestExecutor;
-import com.palantir.atlasdb.keyvalue.partition.util.EndpointRequestExecutor.EndpointRequestCompletionService;
 import com.palantir.atlasdb.keyvalue.partition.util.MergeResults;
 import com.palantir.atlasdb.keyvalue.partition.util.PartitionedRangedIterator;
+import com.palantir.atlasdb.keyvalue.partition.util.PrefetchingClosableIterator;
+import com.palantir.atlasdb.keyvalue.partition.util.QuorumRequest;
+import com.palantir.atlasdb.keyvalue.partition.util.ReadRepair;
 import com.palantir.atlasdb.keyvalue.partition.util.RowResults;
 import com.palantir.atlasdb.keyvalue.remoting.RemotingPartitionMapService;
 import com.palantir.atlasdb.keyvalue.remoting.proxy.VersionCheckProxy;
@@ -89,6 +90,10 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
     private static final Logger log = LoggerFactory.getLogger(PartitionedKeyValueService.class);
     private final QuorumParameters quorumParameters;
     private final ExecutorService executor;
+    private final boolean readRepairEnabled;
+
+    // How many rows each endpoint iterator of a range scan may read ahead of the merge.
+    private static final int RANGE_PREFETCH_ROWS = 256;
 
     // *** Read requests *************************************************************************
     @Override
@@ -102,26 +107,32 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
             @Override
             public Map<Cell, Value> apply(DynamicPartitionMap input) {
                 final Map<Cell, Value> overallResult = Maps.newHashMap();
-                final EndpointRequestCompletionService<Map<Cell, Value>> execSvc = EndpointRequestExecutor.newService(executor);
-                final QuorumTracker<Map<Cell, Value>, byte[]> tracker = QuorumTracker.of(
-                        rows, input.getReadRowsParameters(rows));
+                final QuorumRequest<byte[], Map<Cell, Value>> request = QuorumRequest.newReadRequest(
+                        executor, MergeResults.newCellValueMapMerger(overallResult));
+                final ReadRepair readRepair = readRepairEnabled ? new ReadRepair(tableName) : null;
 
                 // Schedule tasks for execution
                 input.runForRowsRead(tableName, rows, new Function<Pair<KeyValueService,Iterable<byte[]>>, Void>() {
                     @Override
                     public Void apply(final Pair<KeyValueService, Iterable<byte[]>> e) {
-                        Future<Map<Cell, Value>> future = execSvc.submit(new Callable<Map<Cell, Value>>() {
+                        request.add(e.lhSide, e.rhSide, new Callable<Map<Cell, Value>>() {
                             @Override
                             public Map<Cell, Value> call() throws Exception {
-                                return e.lhSide.getRows(tableName, e.rhSide, columnSelection, timestamp);
+                                Map<Cell, Value> result = e.lhSide.getRows(tableName, e.rhSide, columnSelection, timestamp);
+                                if (readRepair != null) {
+                                    readRepair.record(e.lhSide, ReadRepair.cellsOfRows(e.rhSide), result);
+                                }
+                                return result;
                             }
-                        }, e.lhSide);
-                        tracker.registerRef(future, e.rhSide);
+                        });
                         return null;
                     }
                 });
 
-                completeReadRequest(tracker, execSvc, MergeResults.newCellValueMapMerger(overallResult));
+                request.complete(readRowParameters(input));
+                if (readRepair != null) {
+                    readRepair.repairInBackground(executor);
+                }
                 return overallResult;
             }
         });
@@ -133,28 +144,33 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
         return runWithPartitionMapRetryable(new Function<DynamicPartitionMap, Map<Cell, Value>>() {
             @Override
             public Map<Cell, Value> apply(@Nullable DynamicPartitionMap input) {
-                final EndpointRequestCompletionService<Map<Cell, Value>> execSvc = EndpointRequestExecutor.newService(executor);
-                final QuorumTracker<Map<Cell, Value>, Cell> tracker = QuorumTracker.of(
-                        timestampByCell.keySet(),
-                        input.getReadCellsParameters(timestampByCell.keySet()));
                 final Map<Cell, Value> globalResult = Maps.newHashMap();
+                final QuorumRequest<Cell, Map<Cell, Value>> request = QuorumRequest.newReadRequest(
+                        executor, MergeResults.newCellValueMapMerger(globalResult));
+                final ReadRepair readRepair = readRepairEnabled ? new ReadRepair(tableName) : null;
 
                 // Schedule the tasks
                 input.runForCellsRead(tableName, timestampByCell, new Function<Pair<KeyValueService, Map<Cell, Long>>, Void>() {
                     @Override
                     public Void apply(final Pair<KeyValueService, Map<Cell, Long>> e) {
-                        Future<Map<Cell, Value>> future = execSvc.submit(new Callable<Map<Cell, Value>>() {
+                        request.add(e.lhSide, e.rhSide.keySet(), new Callable<Map<Cell, Value>>() {
                             @Override
                             public Map<Cell, Value> call() throws Exception {
-                                return e.lhSide.get(tableName, e.rhSide);
+                                Map<Cell, Value> result = e.lhSide.get(tableName, e.rhSide);
+                                if (readRepair != null) {
+                                    readRepair.record(e.lhSide, Predicates.in(e.rhSide.keySet()), result);
+                                }
+                                return result;
                             }
-                        }, e.lhSide);
-                        tracker.registerRef(future, e.rhSide.keySet());
+                        });
                         return null;
                     }
                 });
 
-                completeReadRequest(tracker, execSvc, MergeResults.newCellValueMapMerger(globalResult));
+                request.complete(readCellParameters(input));
+                if (readRepair != null) {
+                    readRepair.repairInBackground(executor);
+                }
                 return globalResult;
             }
         });
@@ -170,26 +186,23 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
         return runWithPartitionMapRetryable(new Function<DynamicPartitionMap, Multimap<Cell, Long>>() {
             @Override
             public Multimap<Cell, Long> apply(DynamicPartitionMap input) {
-                final EndpointRequestCompletionService<Multimap<Cell, Long>> execSvc = EndpointRequestExecutor.newService(executor);
-                final QuorumTracker<Multimap<Cell, Long>, Cell> tracker = QuorumTracker.of(
-                        cells,
-                        input.getReadCellsParameters(cells));
                 final Multimap<Cell, Long> globalResult = HashMultimap.create();
+                final QuorumRequest<Cell, Multimap<Cell, Long>> request = QuorumRequest.newReadRequest(
+                        executor, MergeResults.newAllTimestampsMapMerger(globalResult));
                 input.runForCellsRead(tableName, cells, new Function<Pair<KeyValueService, Set<Cell>>, Void>() {
                     @Override @Nullable
                     public Void apply(@Nullable final Pair<KeyValueService, Set<Cell>> e) {
-                        Future<Multimap<Cell, Long>> future = execSvc.submit(new Callable<Multimap<Cell, Long>>() {
+                        request.add(e.lhSide, e.rhSide, new Callable<Multimap<Cell, Long>>() {
                             @Override
                             public Multimap<Cell, Long> call() throws Exception {
                                 return e.lhSide.getAllTimestamps(tableName, cells, timestamp);
                             }
-                        }, e.lhSide);
-                        tracker.registerRef(future, e.rhSide);
+                        });
                         return null;
                     }
                 });
 
-                completeReadRequest(tracker, execSvc, MergeResults.newAllTimestampsMapMerger(globalResult));
+                request.complete(readCellParameters(input));
                 return globalResult;
             }
         });
@@ -203,25 +216,22 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
             @Override
             public Map<Cell, Long> apply(DynamicPartitionMap input) {
                 final Map<Cell, Long> globalResult = Maps.newHashMap();
-                final QuorumTracker<Map<Cell, Long>, Cell> tracker = QuorumTracker.of(
-                        timestampByCell.keySet(),
-                        input.getReadCellsParameters(timestampByCell.keySet()));
-                final EndpointRequestCompletionService<Map<Cell, Long>> execSvc = EndpointRequestExecutor.newService(executor);
+                final QuorumRequest<Cell, Map<Cell, Long>> request = QuorumRequest.newReadRequest(
+                        executor, MergeResults.newLatestTimestampMapMerger(globalResult));
                 input.runForCellsRead(tableName, timestampByCell, new Function<Pair<KeyValueService, Map<Cell, Long>>, Void>() {
                     @Override @Nullable
                     public Void apply(@Nullable final Pair<KeyValueService, Map<Cell, Long>> e) {
-                        Future<Map<Cell, Long>> future = execSvc.submit(new Callable<Map<Cell, Long>>() {
+                        request.add(e.lhSide, e.rhSide.keySet(), new Callable<Map<Cell, Long>>() {
                             @Override
                             public Map<Cell, Long> call() throws Exception {
                                 return e.lhSide.getLatestTimestamps(tableName, e.rhSide);
                             }
-                        }, e.lhSide);
-                        tracker.registerRef(future, e.rhSide.keySet());
+                        });
                         return null;
                     }
                 });
 
-                completeReadRequest(tracker, execSvc, MergeResults.newLatestTimestampMapMerger(globalResult));
+                request.complete(readCellParameters(input));
                 return globalResult;
             }
         });
@@ -276,43 +286,28 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
 
             @Override
             protected Set<ClosablePeekingIterator<RowResult<Value>>> computeNextRange(final ConsistentRingRangeRequest range) {
-                // This is NOT retryable
-                return runWithPartitionMap(new Function<DynamicPartitionMap, Set<ClosablePeekingIterator<RowResult<Value>>>>() {
-                    @Override
-                    public Set<ClosablePeekingIterator<RowResult<Value>>> apply(
-                            @Nullable DynamicPartitionMap input) {
-                        final Set<ClosablePeekingIterator<RowResult<Value>>> result = Sets.newHashSet();
-
-                        // We need at least one iterator for each range in order for the
-                        // quorum exception mechanism to work properly. If all iterator
-                        // requests failed we need to throw immediately to avoid silent failure.
-                        RuntimeException lastSuppressedException = null;
-
-                        for (KeyValueEndpoint vkve : services.get(range)) {
-                            try {
-                                ClosableIterator<RowResult<Value>> it = vkve.keyValueService().getRange(tableName, range.get(), timestamp);
-                                result.add(ClosablePeekingIterator.of(it));
-                            } catch (ClientVersionTooOldException e) {
-                                throw e;
-                            } catch (RuntimeException e) {
-                                // If this failure is fatal for the range, the exception will be thrown when
-                                // retrieving data from the iterators.
-                                log.warn("Failed to getRange in table " + tableName);
-
-                                // The only exception is if all iterators for given range fail.
-                                // In such case it will rethrow last encountered exception immediately.
-                                lastSuppressedException = e;
-                            }
-                        }
-
-                        // TODO: Do NOT throw it now. Perhaps this subrange will never
-                        // be reached by the client. (?)
-                        if (result.isEmpty()) {
-                            throw lastSuppressedException;
-                        }
-                        return result;
-                    }
-                });
+                final Set<ClosablePeekingIterator<RowResult<Value>>> result = Sets.newHashSet();
+                for (final KeyValueEndpoint vkve : services.get(range)) {
+                    result.add(ClosablePeekingIterator.of(PrefetchingClosableIterator.start(
+                            new Callable<ClosableIterator<RowResult<Value>>>() {
+                                @Override
+                                public ClosableIterator<RowResult<Value>> call() {
+                                    return vkve.keyValueService().getRange(tableName, range.get(), timestamp);
+                                }
+                            }, RANGE_PREFETCH_ROWS, executor)));
+                }
+                return result;
+            }
+
+            @Override
+            protected void handleEndpointFailure(RuntimeException e, int failuresInRange) {
+                // The remaining endpoints of the range can still make a quorum for every row
+                // as long as fewer than failureFactor of them have failed.
+                if (e instanceof ClientVersionTooOldException
+                        || failuresInRange >= quorumParameters.getReadRequestParameters().getFailureFactor()) {
+                    throw rethrowWithPartitionMap(e);
+                }
+                log.warn("Failed to getRange in table " + tableName, e);
             }
         };
     }
@@ -355,22 +350,24 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
 
             @Override
             protected Set<ClosablePeekingIterator<RowResult<Set<Value>>>> computeNextRange(final ConsistentRingRangeRequest range) {
-                // This is NOT retryable
-                return runWithPartitionMap(new Function<DynamicPartitionMap, Set<ClosablePeekingIterator<RowResult<Set<Value>>>>>() {
-                    @Override
-                    public Set<ClosablePeekingIterator<RowResult<Set<Value>>>> apply(DynamicPartitionMap input) {
-                        final Set<ClosablePeekingIterator<RowResult<Set<Value>>>> result = Sets.newHashSet();
-
-                        // This method has stronger consistency guarantees. It has to talk to all endpoints
-                        // and thus must throw immediately on any failure encountered.
-                        for (KeyValueEndpoint vkve : services.get(range)) {
-                            ClosableIterator<RowResult<Set<Value>>> it = vkve.keyValueService().getRangeWithHistory(
-                                    tableName, range.get(), timestamp);
-                            result.add(ClosablePeekingIterator.of(it));
-                        }
-                        return result;
-                    }
-                });
+                final Set<ClosablePeekingIterator<RowResult<Set<Value>>>> result = Sets.newHashSet();
+                for (final KeyValueEndpoint vkve : services.get(range)) {
+                    result.add(ClosablePeekingIterator.of(PrefetchingClosableIterator.start(
+                            new Callable<ClosableIterator<RowResult<Set<Value>>>>() {
+                                @Override
+                                public ClosableIterator<RowResult<Set<Value>>> call() {
+                                    return vkve.keyValueService().getRangeWithHistory(tableName, range.get(), timestamp);
+                                }
+                            }, RANGE_PREFETCH_ROWS, executor)));
+                }
+                return result;
+            }
+
+            @Override
+            protected void handleEndpointFailure(RuntimeException e, int failuresInRange) {
+                // This method has stronger consistency guarantees. It has to talk to all endpoints
+                // and thus must throw immediately on any failure encountered.
+                throw rethrowWithPartitionMap(e);
             }
         };
     }
@@ -415,23 +412,24 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
 
             @Override
             protected Set<ClosablePeekingIterator<RowResult<Set<Long>>>> computeNextRange(final ConsistentRingRangeRequest range) {
-                // This is NOT retryable
-                return runWithPartitionMap(new Function<DynamicPartitionMap, Set<ClosablePeekingIterator<RowResult<Set<Long>>>>>() {
-                    @Override
-                    public Set<ClosablePeekingIterator<RowResult<Set<Long>>>> apply(DynamicPartitionMap input) {
-                        final Set<ClosablePeekingIterator<RowResult<Set<Long>>>> result = Sets.newHashSet();
-
-                        // This method has stronger consistency guarantees. It has to talk to all endpoints
-                        // and thus must throw immediately on any failure encountered.
-                        for (KeyValueEndpoint vkve : services.get(range)) {
-                            ClosableIterator<RowResult<Set<Long>>> it = vkve.keyValueService().getRangeOfTimestamps(
-                                    tableName, range.get(), timestamp);
-                            result.add(ClosablePeekingIterator.of(it));
-                        }
-
-                        return result;
-                    }
-                });
+                final Set<ClosablePeekingIterator<RowResult<Set<Long>>>> result = Sets.newHashSet();
+                for (final KeyValueEndpoint vkve : services.get(range)) {
+                    result.add(ClosablePeekingIterator.of(PrefetchingClosableIterator.start(
+                            new Callable<ClosableIterator<RowResult<Set<Long>>>>() {
+                                @Override
+                                public ClosableIterator<RowResult<Set<Long>>> call() {
+                                    return vkve.keyValueService().getRangeOfTimestamps(tableName, range.get(), timestamp);
+                                }
+                            }, RANGE_PREFETCH_ROWS, executor)));
+                }
+                return result;
+            }
+
+            @Override
+            protected void handleEndpointFailure(RuntimeException e, int failuresInRange) {
+                // This method has stronger consistency guarantees. It has to talk to all endpoints
+                // and thus must throw immediately on any failure encountered.
+                throw rethrowWithPartitionMap(e);
             }
         };
     }
@@ -442,26 +440,23 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
         runWithPartitionMap(new Function<DynamicPartitionMap, Void>() {
             @Override
             public Void apply(DynamicPartitionMap input) {
-                final EndpointRequestCompletionService<Void> writeService = EndpointRequestExecutor.newService(executor);
-                final QuorumTracker<Void, Cell> tracker =
-                        QuorumTracker.of(values.keySet(), input.getWriteCellsParameters(values.keySet()));
+                final QuorumRequest<Cell, Void> request = QuorumRequest.newWriteRequest(executor);
 
                 input.runForCellsWrite(tableName, values, new Function<Pair<KeyValueService, Map<Cell, byte[]>>, Void>() {
                     @Override
                     public Void apply(final Pair<KeyValueService, Map<Cell, byte[]>> e) {
-                        Future<Void> future = writeService.submit(new Callable<Void>() {
+                        request.add(e.lhSide, e.rhSide.keySet(), new Callable<Void>() {
                             @Override
                             public Void call() throws Exception {
                                 e.lhSide.put(tableName, e.rhSide, timestamp);
                                 return null;
                             }
-                        }, e.lhSide);
-                        tracker.registerRef(future, e.rhSide.keySet());
+                        });
                         return null;
                     }
                 });
 
-                completeWriteRequest(tracker, writeService);
+                request.complete(writeCellParameters(input));
                 return null;
             }
         });
@@ -475,26 +470,23 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
         runWithPartitionMap(new Function<DynamicPartitionMap, Void>() {
             @Override
             public Void apply(final DynamicPartitionMap input) {
-                final EndpointRequestCompletionService<Void> execSvc = EndpointRequestExecutor.newService(executor);
-                final QuorumTracker<Void, Map.Entry<Cell, Value>> tracker = QuorumTracker.of(
-                        cellValues.entries(), input.getWriteEntriesParameters(cellValues));
+                final QuorumRequest<Map.Entry<Cell, Value>, Void> request = QuorumRequest.newWriteRequest(executor);
 
                 input.runForCellsWrite(tableName, cellValues, new Function<Pair<KeyValueService, Multimap<Cell, Value>>, Void>() {
                     @Override
                     public Void apply(final Pair<KeyValueService, Multimap<Cell, Value>> e) {
-                        Future<Void> future = execSvc.submit(new Callable<Void>() {
+                        request.add(e.lhSide, e.rhSide.entries(), new Callable<Void>() {
                             @Override
                             public Void call() throws Exception {
                                 e.lhSide.putWithTimestamps(tableName, e.rhSide);
                                 return null;
                             }
-                        }, e.lhSide);
-                        tracker.registerRef(future, e.rhSide.entries());
+                        });
                         return null;
                     }
                 });
 
-                completeWriteRequest(tracker, execSvc);
+                request.complete(writeEntryParameters(input));
                 return null;
             }
         });
@@ -514,26 +506,23 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
         runWithPartitionMap(new Function<DynamicPartitionMap, Void>() {
             @Override
             public Void apply(DynamicPartitionMap input) {
-                final EndpointRequestCompletionService<Void> writeService = EndpointRequestExecutor.newService(executor);
-                final QuorumTracker<Void, Cell> tracker = QuorumTracker.of(
-                        values.keySet(), quorumParameters.getWriteRequestParameters());
+                final QuorumRequest<Cell, Void> request = QuorumRequest.newWriteRequest(executor);
 
                 input.runForCellsWrite(tableName, values, new Function<Pair<KeyValueService, Map<Cell, byte[]>>, Void>() {
                     @Override
                     public Void apply(final Pair<KeyValueService, Map<Cell, byte[]>> e) {
-                        Future<Void> future = writeService.submit(new Callable<Void>() {
+                        request.add(e.lhSide, e.rhSide.keySet(), new Callable<Void>() {
                             @Override
                             public Void call() throws Exception {
                                 e.lhSide.putUnlessExists(tableName, e.rhSide);
                                 return null;
                             }
-                        }, e.lhSide);
-                        tracker.registerRef(future, e.rhSide.keySet());
+                        });
                         return null;
                     }
                 });
 
-                completeWriteRequest(tracker, writeService);
+                request.complete(Functions.<QuorumRequestParameters> constant(quorumParameters.getWriteRequestParameters()));
                 return null;
             }
         });
@@ -545,26 +534,23 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
         runWithPartitionMapRetryable(new Function<DynamicPartitionMap, Void>() {
             @Override
             public Void apply(DynamicPartitionMap input) {
-                final EndpointRequestCompletionService<Void> execSvc = EndpointRequestExecutor.newService(executor);
-                final QuorumTracker<Void, Map.Entry<Cell, Long>> tracker = QuorumTracker.of(
-                        keys.entries(), input.getWriteEntriesParameters(keys));
+                final QuorumRequest<Map.Entry<Cell, Long>, Void> request = QuorumRequest.newWriteRequest(executor);
 
                 input.runForCellsWrite(tableName, keys, new Function<Pair<KeyValueService, Multimap<Cell, Long>>, Void>() {
                     @Override
                     public Void apply(final Pair<KeyValueService, Multimap<Cell, Long>> e) {
-                        final Future<Void> future = execSvc.submit(new Callable<Void>() {
+                        request.add(e.lhSide, e.rhSide.entries(), new Callable<Void>() {
                             @Override
                             public Void call() throws Exception {
                                 e.lhSide.delete(tableName, e.rhSide);
                                 return null;
                             }
-                        }, e.lhSide);
-                        tracker.registerRef(future, e.rhSide.entries());
+                        });
                         return null;
                     }
                 });
 
-                completeWriteRequest(tracker, execSvc);
+                request.complete(writeEntryParameters(input));
                 return null;
             }
         });
@@ -576,26 +562,23 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
         runWithPartitionMapRetryable(new Function<DynamicPartitionMap, Void>() {
             @Override
             public Void apply(DynamicPartitionMap input) {
-                final EndpointRequestCompletionService<Void> execSvc = EndpointRequestExecutor.newService(executor);
-                final QuorumTracker<Void, Cell> tracker = QuorumTracker.of(
-                        cells, input.getWriteCellsParameters(cells));
+                final QuorumRequest<Cell, Void> request = QuorumRequest.newWriteRequest(executor);
 
                 input.runForCellsWrite(tableName, cells, new Function<Pair<KeyValueService, Set<Cell>>, Void>() {
                     @Override
                     public Void apply(final Pair<KeyValueService, Set<Cell>> e) {
-                        Future<Void> future = execSvc.submit(new Callable<Void>() {
+                        request.add(e.lhSide, e.rhSide, new Callable<Void>() {
                             @Override
                             public Void call() throws Exception {
                                 e.lhSide.addGarbageCollectionSentinelValues(tableName, e.rhSide);
                                 return null;
                             }
-                        }, e.lhSide);
-                        tracker.registerRef(future, e.rhSide);
+                        });
                         return null;
                     }
                 });
 
-                completeWriteRequest(tracker, execSvc);
+                request.complete(writeCellParameters(input));
                 return null;
             }
         });
@@ -611,6 +594,46 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
         }
     }
 
+    // *** Quorum parameters ************************************************************************
+    // The parameters only depend on the row, and the quorum request only asks for one key of
+    // each group of keys sent to the same endpoints.
+    private static Function<byte[], QuorumRequestParameters> readRowParameters(final DynamicPartitionMap map) {
+        return new Function<byte[], QuorumRequestParameters>() {
+            @Override
+            public QuorumRequestParameters apply(byte[] row) {
+                return map.getReadRowsParameters(ImmutableList.of(row)).get(row);
+            }
+        };
+    }
+
+    private static Function<Cell, QuorumRequestParameters> readCellParameters(final DynamicPartitionMap map) {
+        return new Function<Cell, QuorumRequestParameters>() {
+            @Override
+            public QuorumRequestParameters apply(Cell cell) {
+                return map.getReadRowsParameters(ImmutableList.of(cell.getRowName())).get(cell.getRowName());
+            }
+        };
+    }
+
+    private static Function<Cell, QuorumRequestParameters> writeCellParameters(final DynamicPartitionMap map) {
+        return new Function<Cell, QuorumRequestParameters>() {
+            @Override
+            public QuorumRequestParameters apply(Cell cell) {
+                return map.getWriteRowsParameters(ImmutableSet.of(cell.getRowName())).get(cell.getRowName());
+            }
+        };
+    }
+
+    private static Function<Map.Entry<Cell, ?>, QuorumRequestParameters> writeEntryParameters(final DynamicPartitionMap map) {
+        final Function<Cell, QuorumRequestParameters> cellParameters = writeCellParameters(map);
+        return new Function<Map.Entry<Cell, ?>, QuorumRequestParameters>() {
+            @Override
+            public QuorumRequestParameters apply(Map.Entry<Cell, ?> entry) {
+                return cellParameters.apply(entry.getKey());
+            }
+        };
+    }
+
     // *** Table stuff
     // ***********************************************************************************
     @Override
@@ -849,15 +872,26 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
 
     // *** Creation *******************************************************************************
     protected PartitionedKeyValueService(ExecutorService executor, QuorumParameters quorumParameters,
-            ImmutableList<PartitionMapService> partitionMapProviders, int partitionMapProvidersReadFactor) {
+            ImmutableList<PartitionMapService> partitionMapProviders, int partitionMapProvidersReadFactor,
+            boolean readRepairEnabled) {
         super(partitionMapProviders, partitionMapProvidersReadFactor);
         this.executor = executor;
         this.quorumParameters = quorumParameters;
+        this.readRepairEnabled = readRepairEnabled;
     }
 
     public static PartitionedKeyValueService create(QuorumParameters quorumParameters, List<PartitionMapService> mapServices) {
+        return create(quorumParameters, mapServices, false);
+    }
+
+    /**
+     * @param readRepairEnabled whether {@link #get} and {@link #getRows} write the newest value of
+     *        a cell back to the replicas that returned an older one
+     */
+    public static PartitionedKeyValueService create(QuorumParameters quorumParameters, List<PartitionMapService> mapServices,
+                                                    boolean readRepairEnabled) {
         ExecutorService executor = PTExecutors.newCachedThreadPool();
-        return new PartitionedKeyValueService(executor, quorumParameters, ImmutableList.copyOf(mapServices), 1);
+        return new PartitionedKeyValueService(executor, quorumParameters, ImmutableList.copyOf(mapServices), 1, readRepairEnabled);
     }
 
     public static PartitionedKeyValueService create(PartitionedKeyValueConfiguration config) {
@@ -867,7 +901,7 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
         }
         ExecutorService executor = PTExecutors.newCachedThreadPool();
         return new PartitionedKeyValueService(executor, config.getQuorumParameters(),
-                builder.build(), config.getPartitionMapProvidersReadFactor());
+                builder.build(), config.getPartitionMapProvidersReadFactor(), config.isReadRepairEnabled());
     }
 
     // *** Helper methods *************************************************************************
@@ -890,6 +924,19 @@ public class PartitionedKeyValueService extends PartitionMapProvider implements
         });
     }
 
+    /**
+     * Runs the partition map handling of {@link #runWithPartitionMap} for an exception that was
+     * thrown outside of it, e.g. by an endpoint iterator opened in the background.
+     */
+    private RuntimeException rethrowWithPartitionMap(final RuntimeException e) {
+        throw runWithPartitionMap(new Function<DynamicPartitionMap, RuntimeException>() {
+            @Override
+            public RuntimeException apply(DynamicPartitionMap input) {
+                throw e;
+            }
+        });
+    }
+
     private <T> ClosableIterator<RowResult<T>> invalidateOnVersionChangeIterator(ClosableIterator<RowResult<T>> it) {
         return VersionCheckProxy.invalidateOnVersionChangeProxy(it, new Supplier<Long>() {
             @Override
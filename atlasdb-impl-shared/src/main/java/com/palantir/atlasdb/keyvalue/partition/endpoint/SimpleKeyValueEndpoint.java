@@ -16,6 +16,8 @@
 package com.palantir.atlasdb.keyvalue.partition.endpoint;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Supplier;
@@ -45,12 +47,14 @@ public class SimpleKeyValueEndpoint implements KeyValueEndpoint {
     @JsonProperty("kvsUri") final String kvsUri;
     @JsonProperty("pmsUri") final String pmsUri;
     @JsonProperty("rack") final String rack;
+    final boolean binary;
 
-    private SimpleKeyValueEndpoint(String kvsUri, String pmsUri, String rack) {
+    private SimpleKeyValueEndpoint(String kvsUri, String pmsUri, String rack, boolean binary) {
         this.kvsUri = Preconditions.checkNotNull(kvsUri);
         this.pmsUri = Preconditions.checkNotNull(pmsUri);
         this.pms = RemotingPartitionMapService.createClientSide(pmsUri);
         this.rack = KeyValueEndpoints.makeUniqueRackIfNoneSpecified(rack);
+        this.binary = binary;
     }
 
     /**
@@ -62,11 +66,24 @@ public class SimpleKeyValueEndpoint implements KeyValueEndpoint {
      * is also available.
      * @return
      */
+    public static SimpleKeyValueEndpoint create(String kvsUri, String pmsUri, String rack) {
+        return create(kvsUri, pmsUri, rack, null);
+    }
+
+    /**
+     * Same as {@link #create(String, String, String)}, but lets the endpoint talk to its key
+     * value service with the binary wire encoding and stream range scans in one request per
+     * range. Only enable this once the endpoint's server has the binary message body provider
+     * and the streaming range resource, or every request to it will fail.
+     *
+     * @param binary true to use the binary protocol; null or false to use JSON
+     */
     @JsonCreator
     public static SimpleKeyValueEndpoint create(@JsonProperty("kvsUri") String kvsUri,
                                                 @JsonProperty("pmsUri") String pmsUri,
-                                                @JsonProperty("rack") String rack) {
-        return new SimpleKeyValueEndpoint(kvsUri, pmsUri, rack);
+                                                @JsonProperty("rack") String rack,
+                                                @JsonProperty("binary") Boolean binary) {
+        return new SimpleKeyValueEndpoint(kvsUri, pmsUri, rack, Boolean.TRUE.equals(binary));
     }
 
     /**
@@ -104,10 +121,20 @@ public class SimpleKeyValueEndpoint implements KeyValueEndpoint {
         return kvsUri;
     }
 
+    /**
+     * Left out of the serialized form unless set, so that maps without binary endpoints can
+     * still be read by clients that do not know about the property.
+     */
+    @JsonProperty("binary")
+    @JsonInclude(Include.NON_NULL)
+    Boolean isBinaryOrNull() {
+        return binary ? Boolean.TRUE : null;
+    }
+
     @Override
     public void registerPartitionMapVersion(Supplier<Long> clientVersionSupplier) {
         Preconditions.checkState(kvs == null);
-        kvs = RemotingKeyValueService.createClientSide(kvsUri, clientVersionSupplier);
+        kvs = RemotingKeyValueService.createClientSide(kvsUri, clientVersionSupplier, binary);
         kvs = FillInUrlProxy.newFillInUrlProxy(kvs, pmsUri);
     }
 
@@ -118,6 +145,7 @@ public class SimpleKeyValueEndpoint implements KeyValueEndpoint {
         result = prime * result + ((kvsUri == null) ? 0 : kvsUri.hashCode());
         result = prime * result + ((pmsUri == null) ? 0 : pmsUri.hashCode());
         result = prime * result + ((rack == null) ? 0 : rack.hashCode());
+        result = prime * result + (binary ? 1231 : 1237);
         return result;
     }
 
@@ -145,13 +173,15 @@ public class SimpleKeyValueEndpoint implements KeyValueEndpoint {
                 return false;
         } else if (!rack.equals(other.rack))
             return false;
+        if (binary != other.binary)
+            return false;
         return true;
     }
 
     @Override
     public String toString() {
         return "SimpleKeyValueEndpoint [kvsUri=" + kvsUri + ", pmsUri=" + pmsUri
-                + ", rack=" + rack + "]";
+                + ", rack=" + rack + ", binary=" + binary + "]";
     }
 
 }
@@ -63,13 +63,13 @@ import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RangeRequests;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
-import com.palantir.atlasdb.keyvalue.api.Value;
 import com.palantir.atlasdb.keyvalue.partition.PartitionedKeyValueService;
 import com.palantir.atlasdb.keyvalue.partition.api.DynamicPartitionMap;
 import com.palantir.atlasdb.keyvalue.partition.endpoint.KeyValueEndpoint;
 import com.palantir.atlasdb.keyvalue.partition.endpoint.SimpleKeyValueEndpoint;
 import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumParameters;
 import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumParameters.QuorumRequestParameters;
+import com.palantir.atlasdb.keyvalue.partition.status.BackfillableEndpointWithStatus;
 import com.palantir.atlasdb.keyvalue.partition.status.EndpointWithJoiningStatus;
 import com.palantir.atlasdb.keyvalue.partition.status.EndpointWithLeavingStatus;
 import com.palantir.atlasdb.keyvalue.partition.status.EndpointWithNormalStatus;
@@ -165,6 +165,9 @@ public class DynamicPartitionMapImpl implements DynamicPartitionMap {
 
     private static final Logger log = LoggerFactory.getLogger(DynamicPartitionMapImpl.class);
     private static final int MAX_VALUE_SIZE = 1024 * 1024 * 1024;
+    private static final int BACKFILL_PARALLELISM = 8;
+    private static final int BACKFILL_BATCH_SIZE_BYTES = 4 * 1024 * 1024;
+    private static final long DEFAULT_BACKFILL_BYTES_PER_SECOND = 64L * 1024 * 1024;
 
     private final QuorumParameters quorumParameters;
     private final CycleMap<byte[], EndpointWithStatus> ring;
@@ -183,6 +186,11 @@ public class DynamicPartitionMapImpl implements DynamicPartitionMap {
     @GuardedBy("this")
     private long operationsInProgress;
 
+    // The backfill of the endpoint being added or removed, kept so that a retry can resume it.
+    @GuardedBy("this") private transient byte[] backfillKey;
+    @GuardedBy("this") private transient EndpointBackfill backfill;
+    private transient volatile long backfillBytesPerSecond = DEFAULT_BACKFILL_BYTES_PER_SECOND;
+
     /*** Creation ********************************************************************************/
     /**
      * This is used for deserialization.
@@ -519,35 +527,45 @@ public class DynamicPartitionMapImpl implements DynamicPartitionMap {
     }
 
     /**
-     * Copies rows within the specified range from all the tables.
-     * @param destKve
-     * @param srcKve
-     * @param rangeToCopy
+     * Limits how fast backfills copy data, counting the size of names and values written.
+     * Applies to backfills started after this call.
      */
-    private void copyData(KeyValueService destKvs, RangeRequest rangeToCopy) {
-        ImmutableList<PartitionMapService> mapServices = ImmutableList.<PartitionMapService> of(InMemoryPartitionMapService.create(this));
-        PartitionedKeyValueService pkvs = PartitionedKeyValueService.create(quorumParameters, mapServices);
-        for (String tableName : pkvs.getAllTableNames()) {
-            // TODO: getRangeOfTimestamps?
-            try (ClosableIterator<RowResult<Set<Value>>> allRows = pkvs
-                    .getRangeWithHistory(tableName, rangeToCopy,
-                            Long.MAX_VALUE)) {
-                while (allRows.hasNext()) {
-                    RowResult<Set<Value>> row = allRows.next();
-                    for (Entry<Cell, Set<Value>> cell : row.getCells()) {
-
-                        Multimap<Cell, Value> rowMap = HashMultimap.create();
-                        rowMap.putAll(cell.getKey(), cell.getValue());
-
-                        Multimap<Cell, Long> rowTsMap = HashMultimap.create();
-                        for (Entry<Cell, Value> entry : rowMap.entries()) {
-                            rowTsMap.put(entry.getKey(), entry.getValue().getTimestamp());
-                        }
+    public void setBackfillBytesPerSecond(long bytesPerSecond) {
+        Preconditions.checkArgument(bytesPerSecond > 0);
+        backfillBytesPerSecond = bytesPerSecond;
+    }
 
-                        destKvs.putWithTimestamps(tableName, rowMap);
-                    }
-                }
+    /**
+     * Returns the backfill in progress for the endpoint at <code>key</code>, or starts a new one
+     * copying rows within the specified ranges from all the tables.
+     *
+     * @param rangesToCopy each range with the service it should be copied to
+     */
+    @GuardedBy("this")
+    private EndpointBackfill getBackfill(byte[] key, List<Pair<RangeRequest, KeyValueService>> rangesToCopy) {
+        if (backfill == null || !Arrays.equals(backfillKey, key)) {
+            ImmutableList<PartitionMapService> mapServices = ImmutableList.<PartitionMapService> of(InMemoryPartitionMapService.create(this));
+            PartitionedKeyValueService pkvs = PartitionedKeyValueService.create(quorumParameters, mapServices);
+            backfill = new EndpointBackfill(pkvs, rangesToCopy, executor,
+                    BACKFILL_PARALLELISM, BACKFILL_BATCH_SIZE_BYTES, backfillBytesPerSecond);
+            backfillKey = key;
+        }
+        return backfill;
+    }
+
+    /**
+     * Runs the backfill outside of the monitor, as it can take long. The operation in progress
+     * keeps other threads from changing the ring meanwhile.
+     */
+    private void runBackfill(EndpointBackfill backfillToRun, BackfillableEndpointWithStatus ews) {
+        backfillToRun.run();
+        synchronized (this) {
+            // Remember that the backfill succeeded.
+            if (!ews.backfilled()) {
+                ews.setBackfilled();
             }
+            backfill = null;
+            backfillKey = null;
         }
     }
 
@@ -659,7 +677,7 @@ public class DynamicPartitionMapImpl implements DynamicPartitionMap {
         ImmutableList<PartitionMapService> mapServices = ImmutableList.<PartitionMapService> of(InMemoryPartitionMapService.create(this));
         PartitionedKeyValueService pkvs = PartitionedKeyValueService.create(quorumParameters, mapServices);
         for (String tableName : pkvs.getAllTableNames()) {
-            byte[] metadata = kve.keyValueService().getMetadataForTable(tableName);
+            byte[] metadata = pkvs.getMetadataForTable(tableName);
             kve.keyValueService().createTable(tableName, metadata);
         }
 
@@ -695,24 +713,30 @@ public class DynamicPartitionMapImpl implements DynamicPartitionMap {
      * <p>
      * You should not and you must not repeat the backfill if promotion fails.
      * You can safely retry just the promotion in such case.
+     * <p>
+     * A retry continues from the last batch written by the failed attempt.
      */
     @Override
-    public synchronized void backfillAddedEndpoint(byte[] key) {
-        Preconditions.checkArgument(ring.get(key) instanceof EndpointWithJoiningStatus);
-        Preconditions.checkState(operationsInProgress == 1);
-        EndpointWithJoiningStatus ews = (EndpointWithJoiningStatus) ring.get(key);
-        Preconditions.checkArgument(!ews.backfilled());
-
-        KeyValueService kvs = ews.get().keyValueService();
-        List<RangeRequest> ranges = getRangesOperatedByKvs(key, false);
-
-        // Copy all the ranges that should be operated by this kvs.
-        for (int i = 0; i < ranges.size(); ++i) {
-            copyData(kvs, ranges.get(i));
+    public void backfillAddedEndpoint(byte[] key) {
+        EndpointWithJoiningStatus ews;
+        EndpointBackfill backfillToRun;
+        synchronized (this) {
+            Preconditions.checkArgument(ring.get(key) instanceof EndpointWithJoiningStatus);
+            Preconditions.checkState(operationsInProgress == 1);
+            ews = (EndpointWithJoiningStatus) ring.get(key);
+            Preconditions.checkArgument(!ews.backfilled());
+
+            KeyValueService kvs = ews.get().keyValueService();
+            List<RangeRequest> ranges = getRangesOperatedByKvs(key, false);
+
+            // Copy all the ranges that should be operated by this kvs.
+            List<Pair<RangeRequest, KeyValueService>> rangesToCopy = Lists.newArrayList();
+            for (int i = 0; i < ranges.size(); ++i) {
+                rangesToCopy.add(Pair.create(ranges.get(i), kvs));
+            }
+            backfillToRun = getBackfill(key, rangesToCopy);
         }
-
-        // Remember that the backfill succeeded.
-        ews.setBackfilled();
+        runBackfill(backfillToRun, ews);
     }
 
     /**
@@ -851,17 +875,27 @@ public class DynamicPartitionMapImpl implements DynamicPartitionMap {
     }
 
     @Override
-    public synchronized void backfillRemovedEndpoint(byte[] key) {
-        Preconditions.checkArgument(ring.get(key) instanceof EndpointWithLeavingStatus);
-        Preconditions.checkState(operationsInProgress == 1);
-        EndpointWithLeavingStatus ews = (EndpointWithLeavingStatus) ring.get(key);
-        Preconditions.checkArgument(!ews.backfilled());
+    public void backfillRemovedEndpoint(byte[] key) {
+        EndpointWithLeavingStatus ews;
+        EndpointBackfill backfillToRun;
+        synchronized (this) {
+            Preconditions.checkArgument(ring.get(key) instanceof EndpointWithLeavingStatus);
+            Preconditions.checkState(operationsInProgress == 1);
+            ews = (EndpointWithLeavingStatus) ring.get(key);
+            Preconditions.checkArgument(!ews.backfilled());
+            backfillToRun = getBackfill(key, getRangesToCopyForRemoval(key));
+        }
+        runBackfill(backfillToRun, ews);
+    }
 
+    @GuardedBy("this")
+    private List<Pair<RangeRequest, KeyValueService>> getRangesToCopyForRemoval(byte[] key) {
         List<RangeRequest> ranges = getRangesOperatedByKvs(key, true);
+        List<Pair<RangeRequest, KeyValueService>> rangesToCopy = Lists.newArrayList();
 
         byte[] dstKvsKey = ring.nextKey(key);
         for (int i = 0; i < ranges.size() - 1; ++i) {
-            copyData(ring.get(dstKvsKey).get().keyValueService(), ranges.get(i));
+            rangesToCopy.add(Pair.create(ranges.get(i), ring.get(dstKvsKey).get().keyValueService()));
 
             // If it is unbounded, we need to move both ranges to the
             // same destination kvs (it really is the same range).
@@ -874,11 +908,9 @@ public class DynamicPartitionMapImpl implements DynamicPartitionMap {
         }
 
         // The special case for last range
-        copyData(ring.get(dstKvsKey).get().keyValueService(),
-                 ranges.get(ranges.size() - 1).getBuilder().endRowExclusive(key).build());
-
-
-        ews.setBackfilled();
+        rangesToCopy.add(Pair.create(ranges.get(ranges.size() - 1).getBuilder().endRowExclusive(key).build(),
+                                     ring.get(dstKvsKey).get().keyValueService()));
+        return rangesToCopy;
     }
 
     /**
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.partition.map;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.common.util.concurrent.RateLimiter;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RangeRequests;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.Throwables;
+import com.palantir.util.Pair;
+
+/**
+ * Copies the data of some ranges of all tables to the endpoints that should store them after an
+ * endpoint joins or leaves the ring.
+ * <p>
+ * Every (table, range) pair is copied by a separate task, at most {@link #parallelism} of which
+ * run at a time. Rows are sent to the destination in batches of about {@link #batchSizeBytes}
+ * bytes, and all tasks together send at most {@link #bytesPerSecond} bytes per second.
+ * <p>
+ * Each task remembers the first row it has not written yet. If {@link #run()} fails it can
+ * be called again and will continue from there instead of copying everything from the start.
+ */
+final class EndpointBackfill {
+    private static final Logger log = LoggerFactory.getLogger(EndpointBackfill.class);
+
+    private final KeyValueService source;
+    private final List<Pair<RangeRequest, KeyValueService>> rangesToCopy;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int batchSizeBytes;
+    private final RateLimiter rateLimiter;
+
+    @GuardedBy("this")
+    private final Map<String, List<RangeCopy>> copiesByTable = Maps.newHashMap();
+
+    /**
+     * @param source where to read the data from, usually a partitioned key value service over
+     *        the map being changed
+     * @param rangesToCopy the ranges to copy, each with the service it should be copied to
+     */
+    EndpointBackfill(KeyValueService source,
+                     List<Pair<RangeRequest, KeyValueService>> rangesToCopy,
+                     ExecutorService executor,
+                     int parallelism,
+                     int batchSizeBytes,
+                     long bytesPerSecond) {
+        this.source = source;
+        this.rangesToCopy = rangesToCopy;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.batchSizeBytes = batchSizeBytes;
+        this.rateLimiter = RateLimiter.create(bytesPerSecond);
+    }
+
+    /**
+     * Blocks until every range of every table has been copied. In case of failure it will wait
+     * for the tasks already running and rethrow the first encountered exception.
+     */
+    synchronized void run() {
+        for (String tableName : source.getAllTableNames()) {
+            if (!copiesByTable.containsKey(tableName)) {
+                List<RangeCopy> copies = Lists.newArrayList();
+                for (Pair<RangeRequest, KeyValueService> range : rangesToCopy) {
+                    copies.add(new RangeCopy(tableName, range.lhSide, range.rhSide));
+                }
+                copiesByTable.put(tableName, copies);
+            }
+        }
+
+        Iterator<RangeCopy> pending = getPendingCopies().iterator();
+        CompletionService<Void> completionService = new ExecutorCompletionService<Void>(executor);
+        int running = 0;
+        Throwable failure = null;
+        while (pending.hasNext() && running < parallelism) {
+            completionService.submit(pending.next());
+            running++;
+        }
+        while (running > 0) {
+            try {
+                Future<Void> future = completionService.take();
+                running--;
+                future.get();
+                if (failure == null && pending.hasNext()) {
+                    completionService.submit(pending.next());
+                    running++;
+                }
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                } else {
+                    log.warn("Backfill task failed after an earlier failure.", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                throw Throwables.throwUncheckedException(e);
+            }
+        }
+        if (failure != null) {
+            Throwables.rewrapAndThrowUncheckedException("Backfill failed, it can be resumed by retrying", failure);
+        }
+    }
+
+    @GuardedBy("this")
+    private List<RangeCopy> getPendingCopies() {
+        List<RangeCopy> pending = Lists.newArrayList();
+        for (List<RangeCopy> copies : copiesByTable.values()) {
+            for (RangeCopy copy : copies) {
+                if (!copy.isDone()) {
+                    pending.add(copy);
+                }
+            }
+        }
+        return pending;
+    }
+
+    private final class RangeCopy implements Callable<Void> {
+        private final String tableName;
+        private final RangeRequest range;
+        private final KeyValueService destination;
+        // The checkpoint: rows below this one have already been written to the destination.
+        private volatile byte[] nextStartRow;
+        private volatile boolean done = false;
+
+        RangeCopy(String tableName, RangeRequest range, KeyValueService destination) {
+            this.tableName = tableName;
+            this.range = range;
+            this.destination = destination;
+            this.nextStartRow = range.getStartInclusive();
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public Void call() {
+            byte[] endRow = range.getEndExclusive();
+            if (endRow.length > 0 && UnsignedBytes.lexicographicalComparator().compare(nextStartRow, endRow) >= 0) {
+                done = true;
+                return null;
+            }
+            RangeRequest remaining = range.getBuilder().startRowInclusive(nextStartRow).build();
+            try (ClosableIterator<RowResult<Set<Value>>> rows = source.getRangeWithHistory(tableName, remaining, Long.MAX_VALUE)) {
+                Multimap<Cell, Value> batch = ArrayListMultimap.create();
+                long batchBytes = 0;
+                while (rows.hasNext()) {
+                    RowResult<Set<Value>> row = rows.next();
+                    for (Map.Entry<Cell, Set<Value>> cell : row.getCells()) {
+                        long cellBytes = cell.getKey().getRowName().length + cell.getKey().getColumnName().length;
+                        for (Value value : cell.getValue()) {
+                            batch.put(cell.getKey(), value);
+                            batchBytes += cellBytes + value.getContents().length;
+                        }
+                    }
+                    // Only flush between rows so that the checkpoint can be a row name.
+                    if (batchBytes >= batchSizeBytes) {
+                        write(batch, batchBytes);
+                        batch.clear();
+                        batchBytes = 0;
+                        if (RangeRequests.isLastRowName(row.getRowName())) {
+                            break;
+                        }
+                        nextStartRow = RangeRequests.nextLexicographicName(row.getRowName());
+                    }
+                }
+                write(batch, batchBytes);
+            }
+            done = true;
+            return null;
+        }
+
+        private void write(Multimap<Cell, Value> batch, long batchBytes) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            rateLimiter.acquire(Math.max(1, Ints.saturatedCast(batchBytes)));
+            destination.putWithTimestamps(tableName, batch);
+        }
+
+        @Override
+        public String toString() {
+            return "RangeCopy [tableName=" + tableName + ", range=" + range + ", destination=" + destination + "]";
+        }
+    }
+}
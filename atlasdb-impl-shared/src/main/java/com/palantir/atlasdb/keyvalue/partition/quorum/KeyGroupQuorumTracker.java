@@ -0,0 +1,180 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.partition.quorum;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumParameters.QuorumRequestParameters;
+
+/**
+ * Tracks whether a request that was split into one sub-request per endpoint has succeeded on a
+ * quorum of endpoints for every key.
+ * <p>
+ * Keys that were sent to exactly the same sub-requests form a key group, and quorum is tracked
+ * per group rather than per key: the state is a few arrays indexed by sub-request and by group,
+ * so it does not grow with the number of keys, and handling a response costs one decrement per
+ * group it covers. There are usually only as many groups as ring ranges touched by the request.
+ */
+@NotThreadSafe
+public final class KeyGroupQuorumTracker {
+    private final int[][] groupsByRequest;
+    private final int[] remainingSuccessesByGroup;
+    private final int[] remainingFailuresByGroup;
+    private int groupsAwaitingQuorum;
+    private boolean failure = false;
+
+    private KeyGroupQuorumTracker(int[][] groupsByRequest, int[] remainingSuccessesByGroup, int[] remainingFailuresByGroup) {
+        this.groupsByRequest = groupsByRequest;
+        this.remainingSuccessesByGroup = remainingSuccessesByGroup;
+        this.remainingFailuresByGroup = remainingFailuresByGroup;
+        this.groupsAwaitingQuorum = remainingSuccessesByGroup.length;
+    }
+
+    public static <K> Builder<K> builder() {
+        return new Builder<K>();
+    }
+
+    /**
+     * @param request the index returned by {@link Builder#addRequest} for the sub-request
+     */
+    public void handleSuccess(int request) {
+        Preconditions.checkState(!finished());
+        for (int group : groupsByRequest[request]) {
+            if (remainingSuccessesByGroup[group] > 0 && --remainingSuccessesByGroup[group] == 0) {
+                groupsAwaitingQuorum--;
+            }
+        }
+    }
+
+    public void handleFailure(int request) {
+        Preconditions.checkState(!finished());
+        for (int group : groupsByRequest[request]) {
+            if (remainingSuccessesByGroup[group] > 0 && --remainingFailuresByGroup[group] == 0) {
+                failure = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Picks requests in the given order until the picked ones alone could bring every group that
+     * has not succeeded yet to quorum.
+     *
+     * @param requestsByPreference all request indexes, most preferred first
+     */
+    public BitSet getRequestsForQuorum(List<Integer> requestsByPreference) {
+        int[] missingSuccessesByGroup = remainingSuccessesByGroup.clone();
+        int groupsMissingSuccesses = groupsAwaitingQuorum;
+        BitSet picked = new BitSet(groupsByRequest.length);
+        for (int request : requestsByPreference) {
+            if (groupsMissingSuccesses == 0) {
+                break;
+            }
+            for (int group : groupsByRequest[request]) {
+                if (missingSuccessesByGroup[group] > 0) {
+                    picked.set(request);
+                    if (--missingSuccessesByGroup[group] == 0) {
+                        groupsMissingSuccesses--;
+                    }
+                }
+            }
+        }
+        return picked;
+    }
+
+    public int getNumberOfRequests() {
+        return groupsByRequest.length;
+    }
+
+    public boolean failed() {
+        return failure;
+    }
+
+    public boolean succeeded() {
+        return !failure && groupsAwaitingQuorum == 0;
+    }
+
+    public boolean finished() {
+        return failed() || succeeded();
+    }
+
+    @NotThreadSafe
+    public static final class Builder<K> {
+        // The sub-requests each key was sent to, only kept until the tracker is built.
+        private final Map<K, BitSet> requestsByKey = Maps.newHashMap();
+        private int numRequests = 0;
+
+        private Builder() { }
+
+        /**
+         * @return the index to report the outcome of this sub-request with
+         */
+        public int addRequest(Iterable<? extends K> keys) {
+            int request = numRequests++;
+            for (K key : keys) {
+                BitSet requests = requestsByKey.get(key);
+                if (requests == null) {
+                    requests = new BitSet();
+                    requestsByKey.put(key, requests);
+                }
+                requests.set(request);
+            }
+            return request;
+        }
+
+        /**
+         * @param parametersForKey the quorum parameters of a key; it is only asked about one key
+         *        of each group, as keys sent to the same endpoints share their parameters
+         */
+        public KeyGroupQuorumTracker build(Function<? super K, QuorumRequestParameters> parametersForKey) {
+            Map<BitSet, Integer> groupByRequests = Maps.newHashMap();
+            List<BitSet> requestsByGroup = Lists.newArrayList();
+            List<Integer> successesByGroup = Lists.newArrayList();
+            List<Integer> failuresByGroup = Lists.newArrayList();
+            for (Map.Entry<K, BitSet> e : requestsByKey.entrySet()) {
+                if (!groupByRequests.containsKey(e.getValue())) {
+                    QuorumRequestParameters parameters = parametersForKey.apply(e.getKey());
+                    groupByRequests.put(e.getValue(), requestsByGroup.size());
+                    requestsByGroup.add(e.getValue());
+                    successesByGroup.add(parameters.getSuccessFactor());
+                    failuresByGroup.add(parameters.getFailureFactor());
+                }
+            }
+
+            int[][] groupsByRequest = new int[numRequests][];
+            int[] groups = new int[requestsByGroup.size()];
+            for (int request = 0; request < numRequests; request++) {
+                int numGroups = 0;
+                for (int group = 0; group < requestsByGroup.size(); group++) {
+                    if (requestsByGroup.get(group).get(request)) {
+                        groups[numGroups++] = group;
+                    }
+                }
+                groupsByRequest[request] = Ints.toArray(Ints.asList(groups).subList(0, numGroups));
+            }
+            return new KeyGroupQuorumTracker(groupsByRequest, Ints.toArray(successesByGroup), Ints.toArray(failuresByGroup));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.partition.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A lock free record of the recent latencies of requests to one endpoint, in microseconds.
+ * <p>
+ * Endpoints are ranked by an exponentially weighted moving average of their latencies. Quantiles
+ * come from power of two buckets that are halved every {@link #DECAY_INTERVAL} samples, so that
+ * the latencies of a long gone slow period fade out. Both are approximate under concurrent updates.
+ */
+@ThreadSafe
+public final class EndpointLatencyTracker {
+    private static final int NUM_BUCKETS = 40;
+    private static final int DECAY_INTERVAL = 1024;
+    private static final double AVERAGE_WEIGHT = 0.2;
+
+    // bucket i holds latencies in [2^(i-1), 2^i), and bucket 0 holds zero.
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong samplesSinceDecay = new AtomicLong();
+    private final AtomicLong averageMicrosBits = new AtomicLong(Double.doubleToLongBits(0.0));
+
+    void record(long micros) {
+        int bucket = micros <= 0 ? 0 : Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        updateAverage(micros);
+        if (samplesSinceDecay.incrementAndGet() >= DECAY_INTERVAL) {
+            samplesSinceDecay.set(0);
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                long count;
+                do {
+                    count = buckets.get(i);
+                } while (!buckets.compareAndSet(i, count, count / 2));
+            }
+        }
+    }
+
+    /**
+     * Failed requests only push the average up, so that failing endpoints are asked last.
+     */
+    void recordFailure(long micros) {
+        updateAverage(Math.max(micros, 2 * (long) getAverageMicros()));
+    }
+
+    private void updateAverage(long micros) {
+        long bits;
+        double updated;
+        do {
+            bits = averageMicrosBits.get();
+            double average = Double.longBitsToDouble(bits);
+            updated = average == 0.0 ? micros : average + AVERAGE_WEIGHT * (micros - average);
+        } while (!averageMicrosBits.compareAndSet(bits, Double.doubleToLongBits(updated)));
+    }
+
+    public double getAverageMicros() {
+        return Double.longBitsToDouble(averageMicrosBits.get());
+    }
+
+    /**
+     * @return the number of recent samples, which decays along with the buckets
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given quantile, or 0 if nothing was recorded.
+     */
+    public long getQuantileMicros(double quantile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return getUpperBound(i);
+            }
+        }
+        return getUpperBound(NUM_BUCKETS - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointLatencyTracker [count=" + getCount()
+                + ", averageMicros=" + (long) getAverageMicros()
+                + ", p50Micros=" + getQuantileMicros(0.5)
+                + ", p95Micros=" + getQuantileMicros(0.95) + "]";
+    }
+
+    private static long getUpperBound(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+}
@@ -16,10 +16,15 @@
 package com.palantir.atlasdb.keyvalue.partition.util;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -28,7 +33,12 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 
 @ThreadSafe public class EndpointRequestExecutor {
@@ -40,6 +50,10 @@ import com.palantir.atlasdb.keyvalue.api.KeyValueService;
     private final ConcurrentMap<Future<?>, KeyValueService> endpointByFuture;
     private final ConcurrentHashMultiset<KeyValueService> numberOfTasksByEndpoint;
 
+    // Endpoints are often remoting proxies, so key them by identity.
+    private final ConcurrentMap<KeyValueService, EndpointLatencyTracker> latencyByEndpoint =
+            new MapMaker().weakKeys().makeMap();
+
     private EndpointRequestExecutor() {
         numberOfTasksByEndpoint = ConcurrentHashMultiset.create();
         endpointByFuture = Maps.newConcurrentMap();
@@ -58,6 +72,94 @@ import com.palantir.atlasdb.keyvalue.api.KeyValueService;
         return instance.newServiceInternal(executor);
     }
 
+    /**
+     * Like {@link EndpointRequestCompletionService#submit} but returns a future that can be
+     * listened to instead of taken from a queue; the endpoint's task is counted until it is done.
+     * <p>
+     * The latency of the task is recorded in the endpoint's {@link #getLatencyTracker}. Tasks
+     * cancelled while running count as taking at least as long as they ran.
+     */
+    public static <FutureReturnType> ListenableFuture<FutureReturnType> submit(
+            Callable<FutureReturnType> callable,
+            KeyValueService kvs,
+            ExecutorService executor) {
+        return instance.submitInternal(callable, kvs, executor);
+    }
+
+    public static EndpointLatencyTracker getLatencyTracker(KeyValueService kvs) {
+        return instance.getLatencyTrackerInternal(kvs);
+    }
+
+    private EndpointLatencyTracker getLatencyTrackerInternal(KeyValueService kvs) {
+        EndpointLatencyTracker tracker = latencyByEndpoint.get(kvs);
+        if (tracker == null) {
+            latencyByEndpoint.putIfAbsent(kvs, new EndpointLatencyTracker());
+            tracker = latencyByEndpoint.get(kvs);
+        }
+        return tracker;
+    }
+
+    private <FutureReturnType> ListenableFuture<FutureReturnType> submitInternal(
+            final Callable<FutureReturnType> callable,
+            final KeyValueService kvs,
+            ExecutorService executor) {
+        // Same soft limit as for the completion service.
+        if (numberOfTasksByEndpoint.count(kvs) > MAX_TASKS_PER_ENDPOINT) {
+            log.warn("Dropping task " + callable + " for kv service " + kvs + " due to queue overflow.");
+            return Futures.immediateFailedFuture(
+                    new RuntimeException("This task has not been enqueued due to queue overflow!"));
+        }
+
+        numberOfTasksByEndpoint.add(kvs);
+        final AtomicLong startNanos = new AtomicLong();
+        final ListenableFutureTask<FutureReturnType> task = ListenableFutureTask.create(new Callable<FutureReturnType>() {
+            @Override
+            public FutureReturnType call() throws Exception {
+                startNanos.set(System.nanoTime());
+                return callable.call();
+            }
+
+            @Override
+            public String toString() {
+                return callable.toString();
+            }
+        });
+        task.addListener(new Runnable() {
+            @Override
+            public void run() {
+                numberOfTasksByEndpoint.remove(kvs);
+                recordLatency(kvs, task, startNanos.get());
+            }
+        }, MoreExecutors.directExecutor());
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.cancel(false);
+            throw e;
+        }
+        return task;
+    }
+
+    private void recordLatency(KeyValueService kvs, Future<?> task, long startNanos) {
+        if (startNanos == 0) {
+            // Cancelled before it started running.
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        EndpointLatencyTracker tracker = getLatencyTrackerInternal(kvs);
+        try {
+            task.get();
+            tracker.record(micros);
+        } catch (CancellationException e) {
+            tracker.record(micros);
+        } catch (ExecutionException e) {
+            tracker.recordFailure(micros);
+        } catch (InterruptedException e) {
+            // The task is done, so get() does not block.
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private <FutureReturnType> EndpointRequestCompletionService<FutureReturnType> newServiceInternal(final ExecutorService executor) {
         return new EndpointRequestCompletionService<FutureReturnType>() {
             final ExecutorCompletionService<FutureReturnType> execSvc = new ExecutorCompletionService<>(executor);
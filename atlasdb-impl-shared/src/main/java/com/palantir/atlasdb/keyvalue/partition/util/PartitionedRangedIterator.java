@@ -17,7 +17,10 @@ package com.palantir.atlasdb.keyvalue.partition.util;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.SortedSet;
 
@@ -30,6 +33,14 @@ import com.google.common.primitives.UnsignedBytes;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.common.base.ClosableIterator;
 
+/**
+ * Iterates the rows of a range that is split into several ring ranges, one ring range after
+ * another. The rows of the endpoint iterators of a ring range are merged by row name with a heap,
+ * so all rows with the same name are adjacent for {@link #computeNext()} to combine.
+ *
+ * Endpoint iterators should fetch in the background (see {@link PrefetchingClosableIterator}),
+ * otherwise every endpoint is only read when the merge asks it for its next row.
+ */
 public abstract class PartitionedRangedIterator<T> implements ClosableIterator<RowResult<T>> {
 
     final SortedSet<ConsistentRingRangeRequest> ranges;
@@ -53,13 +64,23 @@ public abstract class PartitionedRangedIterator<T> implements ClosableIterator<R
         closeCurrentRangeIterators();
         currentRangeIterators = computeNextRange(newRange);
         Preconditions.checkState(!currentRangeIterators.isEmpty());
-        rowIterator = Iterators.<RowResult<T>>peekingIterator(Iterators.mergeSorted(
-                currentRangeIterators,
-                RowResult.<T>getOrderingByRowName()));
+        rowIterator = new RowMergingIterator(currentRangeIterators);
     }
 
     protected abstract Set<ClosablePeekingIterator<RowResult<T>>> computeNextRange(ConsistentRingRangeRequest range);
 
+    /**
+     * Called when reading from an endpoint iterator of the current ring range fails. The iterator
+     * is then left out of the merge. Rethrow the exception to fail the whole scan; this is what
+     * the default implementation does.
+     *
+     * @param failuresInRange how many endpoint iterators of the current ring range have failed,
+     *        including this one
+     */
+    protected void handleEndpointFailure(RuntimeException e, int failuresInRange) {
+        throw e;
+    }
+
     private final void prepareNextElement() {
         while (!getRowIterator().hasNext() && currentRange.hasNext()) {
             prepareNextRange();
@@ -115,4 +136,77 @@ public abstract class PartitionedRangedIterator<T> implements ClosableIterator<R
         return rowIterator;
     }
 
+    /**
+     * A k-way merge of the endpoint iterators of one ring range. The iterator a row was taken from
+     * is only put back into the heap on the next call, so an endpoint failure never loses a row
+     * that was already handed out and always surfaces from {@link #hasNext()} or {@link #peek()}.
+     */
+    private final class RowMergingIterator implements PeekingIterator<RowResult<T>> {
+        private final PriorityQueue<ClosablePeekingIterator<RowResult<T>>> heap;
+        private ClosablePeekingIterator<RowResult<T>> lastTaken;
+        private int failures = 0;
+
+        RowMergingIterator(Collection<ClosablePeekingIterator<RowResult<T>>> iterators) {
+            heap = new PriorityQueue<ClosablePeekingIterator<RowResult<T>>>(iterators.size(),
+                    new Comparator<PeekingIterator<RowResult<T>>>() {
+                        @Override
+                        public int compare(PeekingIterator<RowResult<T>> o1, PeekingIterator<RowResult<T>> o2) {
+                            return RowResult.<T>getOrderingByRowName().compare(o1.peek(), o2.peek());
+                        }
+                    });
+            for (ClosablePeekingIterator<RowResult<T>> it : iterators) {
+                offer(it);
+            }
+        }
+
+        private void offer(ClosablePeekingIterator<RowResult<T>> it) {
+            boolean hasNext;
+            try {
+                hasNext = it.hasNext();
+            } catch (RuntimeException e) {
+                handleEndpointFailure(e, ++failures);
+                return;
+            }
+            if (hasNext) {
+                heap.add(it);
+            }
+        }
+
+        private void restoreLastTaken() {
+            if (lastTaken != null) {
+                ClosablePeekingIterator<RowResult<T>> it = lastTaken;
+                lastTaken = null;
+                offer(it);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            restoreLastTaken();
+            return !heap.isEmpty();
+        }
+
+        @Override
+        public RowResult<T> peek() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return heap.peek().peek();
+        }
+
+        @Override
+        public RowResult<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastTaken = heap.poll();
+            return lastTaken.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
 }
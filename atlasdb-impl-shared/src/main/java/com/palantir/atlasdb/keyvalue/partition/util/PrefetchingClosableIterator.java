@@ -0,0 +1,151 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.partition.util;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.base.Preconditions;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.Throwables;
+
+/**
+ * Opens an iterator and reads it on a background thread, at most <code>capacity</code> elements
+ * ahead of the caller. This lets the range scans of several endpoints make progress at the same
+ * time instead of each one only fetching when the merge asks it for its next row.
+ *
+ * A failure to open or read the iterator is rethrown from {@link #hasNext()} once the elements read
+ * before it have been consumed.
+ */
+public final class PrefetchingClosableIterator<T> implements ClosableIterator<T> {
+
+    private static final Object END = new Object();
+
+    public static <T> PrefetchingClosableIterator<T> start(Callable<? extends ClosableIterator<T>> opener,
+                                                           int capacity,
+                                                           ExecutorService executor) {
+        PrefetchingClosableIterator<T> it = new PrefetchingClosableIterator<T>(opener, capacity);
+        it.producer = executor.submit(it.new Producer());
+        return it;
+    }
+
+    private final Callable<? extends ClosableIterator<T>> opener;
+    private final BlockingQueue<Object> queue;
+    // Whoever sets this first owns the delegate: either the producer opens it or close() makes sure it never is.
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Future<?> producer;
+    private Object next;
+    private Throwable failure;
+    private boolean closed;
+
+    private PrefetchingClosableIterator(Callable<? extends ClosableIterator<T>> opener, int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+        this.opener = opener;
+        this.queue = new ArrayBlockingQueue<Object>(capacity);
+    }
+
+    @Override
+    public boolean hasNext() {
+        Preconditions.checkState(!closed, "iterator is closed");
+        if (failure != null) {
+            throw Throwables.rewrapAndThrowUncheckedException(failure);
+        }
+        if (next == null) {
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                throw Throwables.throwUncheckedException(e);
+            }
+        }
+        if (next instanceof Failure) {
+            failure = ((Failure) next).cause;
+            throw Throwables.rewrapAndThrowUncheckedException(failure);
+        }
+        return next != END;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        @SuppressWarnings("unchecked")
+        T result = (T) next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (started.compareAndSet(false, true)) {
+            // The producer never got to open the delegate and now never will.
+            return;
+        }
+        // Interrupts a producer blocked on a full queue; it closes the delegate on its way out.
+        producer.cancel(true);
+    }
+
+    private final class Producer implements Runnable {
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            ClosableIterator<T> it = null;
+            try {
+                it = opener.call();
+                while (it.hasNext()) {
+                    queue.put(Preconditions.checkNotNull(it.next()));
+                }
+                queue.put(END);
+            } catch (InterruptedException e) {
+                // Closed by the consumer.
+            } catch (Throwable t) {
+                try {
+                    queue.put(new Failure(t));
+                } catch (InterruptedException e) {
+                    // Closed by the consumer.
+                }
+            } finally {
+                if (it != null) {
+                    it.close();
+                }
+            }
+        }
+    }
+
+    private static final class Failure {
+        final Throwable cause;
+
+        Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
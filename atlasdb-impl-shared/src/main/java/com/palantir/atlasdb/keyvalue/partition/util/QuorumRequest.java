@@ -0,0 +1,278 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.partition.util;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Doubles;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.partition.quorum.KeyGroupQuorumTracker;
+import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumParameters.QuorumRequestParameters;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.util.Pair;
+
+/**
+ * A request that is split into one sub-request per endpoint and succeeds once every key has
+ * succeeded on a quorum of the endpoints it was sent to.
+ * <p>
+ * Sub-requests are added with {@link #add} and all started by {@link #start}, which returns a
+ * future that is done as soon as success or failure can be concluded. Results are merged as
+ * they arrive, and results arriving after the future is done are dropped.
+ * <p>
+ * Read requests cancel the remaining sub-requests once they are done. Write requests only cancel
+ * them on failure and otherwise leave them running in the background.
+ * <p>
+ * Read requests first only go to the endpoints with the lowest recent latency that can together
+ * reach quorum for every key. The other sub-requests are started as soon as one of those fails,
+ * or speculatively once the slowest of them has taken longer than its
+ * {@link #SPECULATIVE_RETRY_QUANTILE} latency. Endpoints without enough recent samples are not
+ * ranked, and read requests involving them go to every endpoint at once.
+ */
+public final class QuorumRequest<K, T> {
+    static final double SPECULATIVE_RETRY_QUANTILE = 0.95;
+    private static final int MIN_SAMPLES_FOR_RANKING = 16;
+    private static final ScheduledExecutorService speculativeRetryScheduler =
+            PTExecutors.newSingleThreadScheduledExecutor();
+
+    private final ExecutorService executor;
+    private final Function<T, Void> mergeFunction;
+    private final boolean cancelRemainingOnSuccess;
+    private final KeyGroupQuorumTracker.Builder<K> trackerBuilder = KeyGroupQuorumTracker.builder();
+    private final List<Pair<KeyValueService, Callable<T>>> requests = Lists.newArrayList();
+    private final SettableFuture<Void> result = SettableFuture.create();
+    @GuardedBy("this") private KeyGroupQuorumTracker tracker;
+    @GuardedBy("this") private final List<ListenableFuture<T>> futures = Lists.newArrayList();
+    @GuardedBy("this") private final BitSet started = new BitSet();
+    @GuardedBy("this") private ScheduledFuture<?> speculativeRetry;
+
+    private QuorumRequest(ExecutorService executor, Function<T, Void> mergeFunction, boolean cancelRemainingOnSuccess) {
+        this.executor = executor;
+        this.mergeFunction = mergeFunction;
+        this.cancelRemainingOnSuccess = cancelRemainingOnSuccess;
+    }
+
+    /**
+     * @param mergeFunction called with the result of each sub-request that succeeds before the
+     *        request is done, never concurrently
+     */
+    public static <K, T> QuorumRequest<K, T> newReadRequest(ExecutorService executor, Function<T, Void> mergeFunction) {
+        return new QuorumRequest<K, T>(executor, mergeFunction, true);
+    }
+
+    public static <K> QuorumRequest<K, Void> newWriteRequest(ExecutorService executor) {
+        return new QuorumRequest<K, Void>(executor, Functions.<Void> identity(), false);
+    }
+
+    public synchronized void add(KeyValueService kvs, Iterable<? extends K> keys, Callable<T> callable) {
+        Preconditions.checkState(tracker == null, "Request already started");
+        trackerBuilder.addRequest(keys);
+        requests.add(Pair.create(kvs, callable));
+    }
+
+    /**
+     * Starts all the sub-requests. The returned future fails with the last exception encountered
+     * if quorum cannot be reached for some key.
+     *
+     * @param parametersForKey see {@link KeyGroupQuorumTracker.Builder#build}
+     */
+    public ListenableFuture<Void> start(Function<? super K, QuorumRequestParameters> parametersForKey) {
+        // Callbacks of sub-requests that complete while we are still submitting wait for the lock.
+        synchronized (this) {
+            Preconditions.checkState(tracker == null, "Request already started");
+            tracker = trackerBuilder.build(parametersForKey);
+            if (tracker.succeeded()) {
+                result.set(null);
+                return result;
+            }
+            BitSet initialRequests = getInitialRequests();
+            for (int i = initialRequests.nextSetBit(0); i >= 0; i = initialRequests.nextSetBit(i + 1)) {
+                startRequest(i);
+            }
+            if (initialRequests.cardinality() < requests.size()) {
+                speculativeRetry = speculativeRetryScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        startRemainingRequests();
+                    }
+                }, getSpeculativeRetryDelayMicros(initialRequests), TimeUnit.MICROSECONDS);
+            }
+        }
+        result.addListener(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (QuorumRequest.this) {
+                    if (speculativeRetry != null) {
+                        speculativeRetry.cancel(false);
+                    }
+                    if (cancelRemainingOnSuccess || !isSuccessful()) {
+                        for (ListenableFuture<T> future : futures) {
+                            future.cancel(true);
+                        }
+                    }
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    @GuardedBy("this")
+    private BitSet getInitialRequests() {
+        BitSet all = new BitSet();
+        all.set(0, requests.size());
+        // Writes must go to every endpoint anyway.
+        if (!cancelRemainingOnSuccess) {
+            return all;
+        }
+        List<Integer> requestsByLatency = Lists.newArrayList();
+        final double[] averageMicros = new double[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            EndpointLatencyTracker latency = EndpointRequestExecutor.getLatencyTracker(requests.get(i).lhSide);
+            if (latency.getCount() < MIN_SAMPLES_FOR_RANKING) {
+                return all;
+            }
+            averageMicros[i] = latency.getAverageMicros();
+            requestsByLatency.add(i);
+        }
+        Collections.sort(requestsByLatency, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Doubles.compare(averageMicros[o1], averageMicros[o2]);
+            }
+        });
+        return tracker.getRequestsForQuorum(requestsByLatency);
+    }
+
+    @GuardedBy("this")
+    private long getSpeculativeRetryDelayMicros(BitSet initialRequests) {
+        long delayMicros = 0;
+        for (int i = initialRequests.nextSetBit(0); i >= 0; i = initialRequests.nextSetBit(i + 1)) {
+            EndpointLatencyTracker latency = EndpointRequestExecutor.getLatencyTracker(requests.get(i).lhSide);
+            delayMicros = Math.max(delayMicros, latency.getQuantileMicros(SPECULATIVE_RETRY_QUANTILE));
+        }
+        return delayMicros;
+    }
+
+    @GuardedBy("this")
+    private void startRequest(int i) {
+        // A sub-request that failed right away may already have started the remaining ones.
+        if (started.get(i)) {
+            return;
+        }
+        started.set(i);
+        Pair<KeyValueService, Callable<T>> request = requests.get(i);
+        ListenableFuture<T> future = EndpointRequestExecutor.submit(request.rhSide, request.lhSide, executor);
+        futures.add(future);
+        Futures.addCallback(future, new SubRequestCallback(i), MoreExecutors.directExecutor());
+    }
+
+    private synchronized void startRemainingRequests() {
+        if (result.isDone()) {
+            return;
+        }
+        for (int i = started.nextClearBit(0); i < requests.size(); i = started.nextClearBit(i + 1)) {
+            startRequest(i);
+        }
+    }
+
+    /**
+     * Starts the request and blocks until success or failure can be concluded. In case of
+     * failure it will rethrow the last encountered exception.
+     */
+    public void complete(Function<? super K, QuorumRequestParameters> parametersForKey) {
+        ListenableFuture<Void> future = start(parametersForKey);
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw Throwables.throwUncheckedException(e);
+        } catch (ExecutionException e) {
+            Throwables.rewrapAndThrowUncheckedException(e.getCause());
+        }
+    }
+
+    private boolean isSuccessful() {
+        try {
+            Futures.getUnchecked(result);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private class SubRequestCallback implements FutureCallback<T> {
+        private final int request;
+
+        SubRequestCallback(int request) {
+            this.request = request;
+        }
+
+        @Override
+        public void onSuccess(T value) {
+            synchronized (QuorumRequest.this) {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    mergeFunction.apply(value);
+                } catch (RuntimeException e) {
+                    result.setException(e);
+                    return;
+                }
+                tracker.handleSuccess(request);
+                if (tracker.succeeded()) {
+                    result.set(null);
+                }
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            synchronized (QuorumRequest.this) {
+                if (result.isDone()) {
+                    return;
+                }
+                tracker.handleFailure(request);
+                // Check if the failure is fatal
+                if (RequestCompletions.isNonInterceptableException(t) || tracker.failed()) {
+                    result.setException(t);
+                } else {
+                    startRemainingRequests();
+                }
+            }
+        }
+    }
+}
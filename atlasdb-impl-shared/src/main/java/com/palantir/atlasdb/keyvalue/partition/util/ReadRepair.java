@@ -0,0 +1,218 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.partition.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.UnsignedBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.Value;
+
+/**
+ * Collects what each endpoint returned for a read and writes the newest value of every cell
+ * back to the endpoints that were asked for it but returned an older value or none at all.
+ * <p>
+ * Repairs are best effort: they run in the background, and a failed repair is only logged, as the
+ * next read of the cell will try again.
+ * <p>
+ * Sweep deletes old versions from one replica at a time, so a read that runs alongside it may see
+ * a version that some replicas have already swept. Writing that version back would resurrect it,
+ * so a value is only repaired while it is still the latest version of its cell on the replica it
+ * was read from and the stale replica has nothing as new. Sweep never deletes the latest version
+ * unless it is a delete, and resurrecting a delete is harmless. Once written, the source is checked
+ * again, and the repair is undone if a newer version has appeared there in the meantime.
+ */
+@ThreadSafe
+public final class ReadRepair {
+    private static final Logger log = LoggerFactory.getLogger(ReadRepair.class);
+
+    private final String tableName;
+    @GuardedBy("this") private final List<EndpointResult> results = Lists.newArrayList();
+    @GuardedBy("this") private boolean repairStarted = false;
+
+    public ReadRepair(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public static Predicate<Cell> cellsOfRows(Iterable<byte[]> rows) {
+        final Set<byte[]> rowSet = Sets.newTreeSet(UnsignedBytes.lexicographicalComparator());
+        Iterables.addAll(rowSet, rows);
+        return new Predicate<Cell>() {
+            @Override
+            public boolean apply(Cell cell) {
+                return rowSet.contains(cell.getRowName());
+            }
+        };
+    }
+
+    /**
+     * @param requested whether a cell was part of what <code>kvs</code> was asked for
+     */
+    public synchronized void record(KeyValueService kvs, Predicate<Cell> requested, Map<Cell, Value> result) {
+        // Results of sub-requests that complete after the repair started are ignored.
+        if (!repairStarted) {
+            results.add(new EndpointResult(kvs, requested, result));
+        }
+    }
+
+    /**
+     * Submits the repairs of the replicas that diverged among the results recorded so far.
+     */
+    public void repairInBackground(ExecutorService executor) {
+        final Map<Cell, KeyValueService> sources = Maps.newHashMap();
+        for (Map.Entry<KeyValueService, Multimap<Cell, Value>> e : getRepairs(sources).entrySet()) {
+            final KeyValueService kvs = e.getKey();
+            final Multimap<Cell, Value> repairs = e.getValue();
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        repair(kvs, repairs, sources);
+                    } catch (RuntimeException ex) {
+                        log.info("Failed to read-repair " + repairs.size() + " cells of table " + tableName, ex);
+                    }
+                }
+            });
+        }
+    }
+
+    private void repair(KeyValueService kvs, Multimap<Cell, Value> repairs, Map<Cell, KeyValueService> sources) {
+        Map<Cell, Long> latestOnTarget = getLatestTimestamps(kvs, repairs.keySet());
+        Multimap<Cell, Value> newerThanTarget = HashMultimap.create();
+        for (Map.Entry<Cell, Value> e : repairs.entries()) {
+            Long latest = latestOnTarget.get(e.getKey());
+            if (latest == null || latest < e.getValue().getTimestamp()) {
+                newerThanTarget.put(e.getKey(), e.getValue());
+            }
+        }
+        Multimap<Cell, Value> toWrite = HashMultimap.create(
+                Multimaps.filterEntries(newerThanTarget, new IsLatestOnSource(sources)));
+        if (toWrite.isEmpty()) {
+            return;
+        }
+        kvs.putWithTimestamps(tableName, toWrite);
+
+        // The target did not have these versions, so deleting them only undoes our own write.
+        Multimap<Cell, Long> overtaken = HashMultimap.create();
+        for (Map.Entry<Cell, Value> e : Multimaps.filterEntries(toWrite, Predicates.not(new IsLatestOnSource(sources))).entries()) {
+            overtaken.put(e.getKey(), e.getValue().getTimestamp());
+        }
+        if (!overtaken.isEmpty()) {
+            kvs.delete(tableName, overtaken);
+        }
+    }
+
+    private Map<Cell, Long> getLatestTimestamps(KeyValueService kvs, Iterable<Cell> cells) {
+        Map<Cell, Long> timestampByCell = Maps.newHashMap();
+        for (Cell cell : cells) {
+            timestampByCell.put(cell, Long.MAX_VALUE);
+        }
+        return kvs.getLatestTimestamps(tableName, timestampByCell);
+    }
+
+    /**
+     * Asks each source once, however many cells it is asked about.
+     */
+    private class IsLatestOnSource implements Predicate<Map.Entry<Cell, Value>> {
+        private final Map<Cell, KeyValueService> sources;
+        private final Map<KeyValueService, Map<Cell, Long>> latestOnSources = Maps.newHashMap();
+
+        IsLatestOnSource(Map<Cell, KeyValueService> sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        public boolean apply(Map.Entry<Cell, Value> e) {
+            KeyValueService source = sources.get(e.getKey());
+            if (!latestOnSources.containsKey(source)) {
+                Set<Cell> cells = Sets.newHashSet();
+                for (Map.Entry<Cell, KeyValueService> s : sources.entrySet()) {
+                    if (s.getValue() == source) {
+                        cells.add(s.getKey());
+                    }
+                }
+                latestOnSources.put(source, getLatestTimestamps(source, cells));
+            }
+            Long latest = latestOnSources.get(source).get(e.getKey());
+            return latest != null && latest == e.getValue().getTimestamp();
+        }
+    }
+
+    /**
+     * @param sources filled in with, for each cell to be repaired, an endpoint that returned its
+     *        newest value
+     */
+    private synchronized Map<KeyValueService, Multimap<Cell, Value>> getRepairs(Map<Cell, KeyValueService> sources) {
+        repairStarted = true;
+        Map<Cell, Value> newest = Maps.newHashMap();
+        for (EndpointResult result : results) {
+            MergeResults.newCellValueMapMerger(newest).apply(result.values);
+        }
+        for (EndpointResult result : results) {
+            for (Map.Entry<Cell, Value> e : result.values.entrySet()) {
+                if (e.getValue().getTimestamp() == newest.get(e.getKey()).getTimestamp()) {
+                    sources.put(e.getKey(), result.kvs);
+                }
+            }
+        }
+
+        Map<KeyValueService, Multimap<Cell, Value>> repairs = Maps.newHashMap();
+        for (EndpointResult result : results) {
+            for (Map.Entry<Cell, Value> e : newest.entrySet()) {
+                Value value = result.values.get(e.getKey());
+                if ((value == null || value.getTimestamp() < e.getValue().getTimestamp())
+                        && result.requested.apply(e.getKey())) {
+                    if (!repairs.containsKey(result.kvs)) {
+                        repairs.put(result.kvs, HashMultimap.<Cell, Value> create());
+                    }
+                    repairs.get(result.kvs).put(e.getKey(), e.getValue());
+                }
+            }
+        }
+        return repairs;
+    }
+
+    private static class EndpointResult {
+        final KeyValueService kvs;
+        final Predicate<Cell> requested;
+        final Map<Cell, Value> values;
+
+        EndpointResult(KeyValueService kvs, Predicate<Cell> requested, Map<Cell, Value> values) {
+            this.kvs = kvs;
+            this.requested = requested;
+            this.values = values;
+        }
+    }
+}
@@ -16,20 +16,15 @@
 package com.palantir.atlasdb.keyvalue.partition.util;
 
 import java.util.Iterator;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Function;
-import com.google.common.base.Functions;
 import com.google.common.base.Preconditions;
 import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
 import com.palantir.atlasdb.keyvalue.partition.exception.ClientVersionTooOldException;
 import com.palantir.atlasdb.keyvalue.partition.exception.EndpointVersionTooOldException;
-import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumTracker;
-import com.palantir.atlasdb.keyvalue.partition.util.EndpointRequestExecutor.EndpointRequestCompletionService;
 import com.palantir.common.base.Throwables;
 
 public class RequestCompletions {
@@ -37,89 +32,13 @@ public class RequestCompletions {
     private static final Logger log = LoggerFactory.getLogger(RequestCompletions.class);
 
     // These exceptions should be thrown immediately
-    private static boolean isNonInterceptableException(Throwable e) {
+    static boolean isNonInterceptableException(Throwable e) {
         return
                 e instanceof ClientVersionTooOldException ||
                 e instanceof EndpointVersionTooOldException ||
                 e instanceof KeyAlreadyExistsException;
     }
 
-    /**
-     * This will block until success or failure of the request can be concluded.
-     * In case of failure it will rethrow the last encountered exception.
-     *
-     * @param tracker
-     * @param execSvc
-     * @param mergeFunction
-     */
-    private static <TrackingUnit, FutureReturnType> void completeRequest(
-            QuorumTracker<FutureReturnType, TrackingUnit> tracker,
-            EndpointRequestCompletionService<FutureReturnType> execSvc,
-            Function<FutureReturnType, Void> mergeFunction) {
-
-        try {
-            // Wait until we can conclude success or failure
-            while (!tracker.finished()) {
-                Future<FutureReturnType> future = execSvc.take();
-                try {
-                    FutureReturnType result = future.get();
-                    mergeFunction.apply(result);
-                    tracker.handleSuccess(future);
-                } catch (ExecutionException e) {
-                    tracker.handleFailure(future);
-                    // Check if the failure is fatal
-                    Throwable cause = e.getCause();
-                    if (isNonInterceptableException(cause) || tracker.failed()) {
-                        Throwables.rewrapAndThrowUncheckedException(cause);
-                    }
-                }
-            }
-        } catch (InterruptedException e) {
-            throw Throwables.throwUncheckedException(e);
-        }
-    }
-
-    /**
-     * In case of read request we can cancel all remaining threads as soon as completeRequests
-     * returns - it means that either success or failure has been concluded.
-     *
-     * @param tracker
-     * @param execSvc
-     * @param mergeFunction
-     */
-    public static <TrackingUnit, FutureReturnType> void completeReadRequest(
-            QuorumTracker<FutureReturnType, TrackingUnit> tracker,
-            EndpointRequestCompletionService<FutureReturnType> execSvc,
-            Function<FutureReturnType, Void> mergeFunction) {
-
-        try {
-            completeRequest(tracker, execSvc, mergeFunction);
-        } finally {
-            tracker.cancel(true);
-        }
-    }
-
-    /**
-     * In case of write requests we should only cancel all the threads if a failure can be
-     * concluded.
-     * Otherwise we just return as soon as success is concluded but we leave other write
-     * tasks running in the background.
-     *
-     * @param tracker
-     * @param execSvc
-     */
-    public static <TrackingUnit> void completeWriteRequest(
-            final QuorumTracker<Void, TrackingUnit> tracker,
-            final EndpointRequestCompletionService<Void> execSvc) {
-
-        try {
-            completeRequest(tracker, execSvc, Functions.<Void> identity());
-        } catch (RuntimeException e) {
-            tracker.cancel(true);
-            throw e;
-        }
-    }
-
     /**
      * Keep applying the function <code>fun</code> to items retrieved from <code>iterator</code> until no
      * exception is thrown. Return the result if <code>fun</code>.
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.remoting;
+
+import java.util.Collection;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.atlasdb.keyvalue.api.KeyValueServiceMediaTypes;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+
+/**
+ * Asks for {@link KeyValueServiceMediaTypes#BINARY} responses wherever the contract would ask for
+ * JSON, while still accepting JSON from endpoints or servers that cannot produce the binary type.
+ */
+final class KvsBinaryAcceptInterceptor implements RequestInterceptor {
+    private static final String ACCEPT_BINARY_OR_JSON = KeyValueServiceMediaTypes.BINARY + ", " + MediaType.APPLICATION_JSON + ";q=0.5";
+
+    @Override
+    public void apply(RequestTemplate template) {
+        Collection<String> accept = template.headers().get(HttpHeaders.ACCEPT);
+        if (accept != null && ImmutableList.copyOf(accept).equals(ImmutableList.of(MediaType.APPLICATION_JSON))) {
+            template.header(HttpHeaders.ACCEPT);
+            template.header(HttpHeaders.ACCEPT, ACCEPT_BINARY_OR_JSON);
+        }
+    }
+}
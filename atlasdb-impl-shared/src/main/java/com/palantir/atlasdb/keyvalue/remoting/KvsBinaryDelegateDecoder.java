@@ -0,0 +1,64 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.remoting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import com.google.common.collect.Iterables;
+import com.palantir.atlasdb.keyvalue.api.KeyValueServiceMediaTypes;
+import com.palantir.atlasdb.keyvalue.remoting.serialization.KvsBinaryCodec;
+
+import feign.FeignException;
+import feign.codec.DecodeException;
+import feign.codec.Decoder;
+
+/**
+ * Decodes {@link KeyValueServiceMediaTypes#BINARY} responses and hands everything else to the delegate.
+ */
+final class KvsBinaryDelegateDecoder implements Decoder {
+    private static final MediaType BINARY = MediaType.valueOf(KeyValueServiceMediaTypes.BINARY);
+    private final Decoder delegate;
+
+    public KvsBinaryDelegateDecoder(Decoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(feign.Response response, Type type) throws IOException,
+            DecodeException, FeignException {
+        Collection<String> contentTypes = response.headers().get(HttpHeaders.CONTENT_TYPE);
+        if (contentTypes == null
+                || contentTypes.size() != 1
+                || !BINARY.isCompatible(MediaType.valueOf(Iterables.getOnlyElement(contentTypes)))) {
+            return delegate.decode(response, type);
+        }
+        if (response.body() == null) {
+            return null;
+        }
+        InputStream body = response.body().asInputStream();
+        try {
+            return KvsBinaryCodec.read(type, body);
+        } finally {
+            body.close();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.remoting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.core.HttpHeaders;
+
+import com.palantir.atlasdb.keyvalue.api.KeyValueServiceMediaTypes;
+import com.palantir.atlasdb.keyvalue.remoting.serialization.KvsBinaryCodec;
+
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+
+/**
+ * Sends the request bodies that {@link KvsBinaryCodec} supports as {@link KeyValueServiceMediaTypes#BINARY}
+ * and everything else through the delegate. The server must have registered {@link KvsBinaryMessageBodyProvider}.
+ */
+final class KvsBinaryDelegateEncoder implements Encoder {
+    private final Encoder delegate;
+
+    public KvsBinaryDelegateEncoder(Encoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void encode(Object object, Type bodyType, RequestTemplate template) throws EncodeException {
+        if (object == null || !KvsBinaryCodec.canWrite(object.getClass(), bodyType)) {
+            delegate.encode(object, bodyType, template);
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            KvsBinaryCodec.write(object, bodyType, bytes);
+        } catch (IOException e) {
+            throw new EncodeException("Could not encode " + bodyType, e);
+        }
+        template.header(HttpHeaders.CONTENT_TYPE);
+        template.header(HttpHeaders.CONTENT_TYPE, KeyValueServiceMediaTypes.BINARY);
+        template.body(bytes.toByteArray(), null);
+    }
+}
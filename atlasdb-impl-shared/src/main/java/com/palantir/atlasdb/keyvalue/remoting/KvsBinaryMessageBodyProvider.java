@@ -0,0 +1,88 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.remoting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.palantir.atlasdb.keyvalue.api.KeyValueServiceMediaTypes;
+import com.palantir.atlasdb.keyvalue.remoting.serialization.KvsBinaryCodec;
+
+/**
+ * Lets a server side {@link RemotingKeyValueService} read and write {@link KeyValueServiceMediaTypes#BINARY}
+ * bodies. Register it alongside the exception mappers; clients that do not ask for the binary
+ * media type keep getting JSON.
+ */
+@Provider
+@Produces(KeyValueServiceMediaTypes.BINARY)
+@Consumes(KeyValueServiceMediaTypes.BINARY)
+public final class KvsBinaryMessageBodyProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    private static final MediaType BINARY = MediaType.valueOf(KeyValueServiceMediaTypes.BINARY);
+    private static final KvsBinaryMessageBodyProvider instance = new KvsBinaryMessageBodyProvider();
+    private KvsBinaryMessageBodyProvider() { }
+
+    public static KvsBinaryMessageBodyProvider instance() {
+        return instance;
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return BINARY.isCompatible(mediaType) && KvsBinaryCodec.canRead(genericType);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type,
+                           Type genericType,
+                           Annotation[] annotations,
+                           MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders,
+                           InputStream entityStream) throws IOException, WebApplicationException {
+        return KvsBinaryCodec.read(genericType, entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return BINARY.isCompatible(mediaType) && KvsBinaryCodec.canWrite(type, genericType);
+    }
+
+    @Override
+    public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object t,
+                        Class<?> type,
+                        Type genericType,
+                        Annotation[] annotations,
+                        MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException, WebApplicationException {
+        KvsBinaryCodec.write(t, genericType, entityStream);
+    }
+}
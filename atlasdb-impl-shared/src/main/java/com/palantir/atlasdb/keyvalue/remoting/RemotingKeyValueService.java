@@ -15,9 +15,18 @@
  */
 package com.palantir.atlasdb.keyvalue.remoting;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
 import java.util.Set;
 
 import javax.annotation.Nullable;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,8 +38,10 @@ import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
+import com.google.common.reflect.TypeToken;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.KeyValueServiceMediaTypes;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.Value;
@@ -44,10 +55,12 @@ import com.palantir.atlasdb.keyvalue.remoting.outofband.OutboxShippingIntercepto
 import com.palantir.atlasdb.keyvalue.remoting.proxy.VersionCheckProxy;
 import com.palantir.atlasdb.keyvalue.remoting.serialization.BytesAsKeyDeserializer;
 import com.palantir.atlasdb.keyvalue.remoting.serialization.CellAsKeyDeserializer;
+import com.palantir.atlasdb.keyvalue.remoting.serialization.KvsBinaryCodec;
 import com.palantir.atlasdb.keyvalue.remoting.serialization.RowResultDeserializer;
 import com.palantir.atlasdb.keyvalue.remoting.serialization.RowResultSerializer;
 import com.palantir.atlasdb.keyvalue.remoting.serialization.SaneAsKeySerializer;
 import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.Throwables;
 import com.palantir.common.supplier.ExecutorInheritableServiceContext;
 import com.palantir.common.supplier.PopulateServiceContextProxy;
 import com.palantir.common.supplier.RemoteContextHolder;
@@ -56,6 +69,7 @@ import com.palantir.common.supplier.ServiceContext;
 import com.palantir.util.Pair;
 
 import feign.Feign;
+import feign.codec.Encoder;
 import feign.jackson.JacksonDecoder;
 import feign.jackson.JacksonEncoder;
 import feign.jaxrs.JAXRSContract;
@@ -77,7 +91,11 @@ public class RemotingKeyValueService extends ForwardingKeyValueService {
      * @param remoteService
      * @return
      */
-    private static KeyValueService createClientSideInternal(final KeyValueService remoteService) {
+    private static KeyValueService createClientSideInternal(final KeyValueService remoteService,
+                                                            @Nullable final StreamingRangeClient streamingClient) {
+        if (streamingClient != null) {
+            return createStreamingClientSide(remoteService, streamingClient);
+        }
         return new ForwardingKeyValueService() {
             @Override
             protected KeyValueService delegate() {
@@ -113,6 +131,64 @@ public class RemotingKeyValueService extends ForwardingKeyValueService {
         };
     }
 
+    /**
+     * Each range scan is one request whose response the server writes page by page, so the
+     * next pages are already on their way while the caller works through the current one.
+     */
+    private static KeyValueService createStreamingClientSide(final KeyValueService remoteService,
+                                                             final StreamingRangeClient streamingClient) {
+        return new ForwardingKeyValueService() {
+            @Override
+            protected KeyValueService delegate() {
+                return remoteService;
+            }
+
+            @Override
+            public ClosableIterator<RowResult<Value>> getRange(String tableName,
+                                                               RangeRequest rangeRequest,
+                                                               long timestamp) {
+                return readRowStream(streamingClient.streamRange(tableName, rangeRequest, timestamp),
+                        VALUE_PAGE_TYPE, "getRange");
+            }
+
+            @Override
+            public ClosableIterator<RowResult<Set<Value>>> getRangeWithHistory(String tableName,
+                                                                               RangeRequest rangeRequest,
+                                                                               long timestamp) {
+                return readRowStream(streamingClient.streamRangeWithHistory(tableName, rangeRequest, timestamp),
+                        HISTORY_PAGE_TYPE, "getRangeWithHistory");
+            }
+
+            @Override
+            public ClosableIterator<RowResult<Set<Long>>> getRangeOfTimestamps(String tableName,
+                                                                               RangeRequest rangeRequest,
+                                                                               long timestamp) {
+                return readRowStream(streamingClient.streamRangeOfTimestamps(tableName, rangeRequest, timestamp),
+                        TIMESTAMPS_PAGE_TYPE, "getRangeOfTimestamps");
+            }
+        };
+    }
+
+    private static <T> ClosableIterator<RowResult<T>> readRowStream(feign.Response response, Type pageType, String methodKey) {
+        // Feign hands back raw responses without running the error decoder.
+        if (response.status() != 200) {
+            Exception e = KeyValueServiceErrorDecoder.instance().decode(methodKey, response);
+            if (response.body() != null) {
+                try {
+                    response.body().close();
+                } catch (IOException ioe) {
+                    log.warn("Failed to close the response of a failed range scan", ioe);
+                }
+            }
+            throw Throwables.throwUncheckedException(e);
+        }
+        try {
+            return KvsBinaryCodec.readRowStream(pageType, response.body().asInputStream());
+        } catch (IOException e) {
+            throw Throwables.throwUncheckedException(e);
+        }
+    }
+
     public enum LONG_HOLDER implements RemoteContextType<Long> {
         PM_VERSION {
             @Override
@@ -136,24 +212,56 @@ public class RemotingKeyValueService extends ForwardingKeyValueService {
      * that supports empty byte arrays, exceptions and sends the partition map version out-of-band
      * automatically.
      *
+     * Responses are negotiated: the client asks for {@link KeyValueServiceMediaTypes#BINARY} and
+     * falls back to JSON if the server does not produce it. Request bodies are sent as JSON.
+     *
      * @param uri
      * @param localVersionSupplier The version of local partition map to be sent out-of-band.
      * @return
      */
     public static KeyValueService createClientSide(String uri, Supplier<Long> localVersionSupplier) {
+        return createClientSide(uri, localVersionSupplier, false);
+    }
+
+    /**
+     * @param useBinaryProtocol whether to also send request bodies as {@link KeyValueServiceMediaTypes#BINARY}
+     *        and to stream range scans in one request each instead of requesting them page by page;
+     *        only use this if the server has registered {@link KvsBinaryMessageBodyProvider}.
+     */
+    public static KeyValueService createClientSide(String uri,
+                                                   Supplier<Long> localVersionSupplier,
+                                                   boolean useBinaryProtocol) {
         ServiceContext<Long> outboxVersionCtx = RemoteContextHolder.OUTBOX.getProviderForKey(LONG_HOLDER.PM_VERSION);
 
+        Encoder encoder = new OctetStreamDelegateEncoder(new JacksonEncoder(kvsMapper()));
+        if (useBinaryProtocol) {
+            encoder = new KvsBinaryDelegateEncoder(encoder);
+        }
         KeyValueService remotingKvs = Feign.builder()
-                .encoder(new OctetStreamDelegateEncoder(new JacksonEncoder(kvsMapper())))
-                .decoder(new OctetStreamDelegateDecoder(new JacksonDecoder(kvsMapper())))
+                .encoder(encoder)
+                .decoder(new KvsBinaryDelegateDecoder(new OctetStreamDelegateDecoder(new JacksonDecoder(kvsMapper()))))
                 .errorDecoder(KeyValueServiceErrorDecoder.instance())
                 .contract(new JAXRSContract())
                 .requestInterceptor(new OutboxShippingInterceptor(kvsMapper()))
+                .requestInterceptor(new KvsBinaryAcceptInterceptor())
                 .target(KeyValueService.class, uri);
 
         KeyValueService versionSettingRemotingKvs = PopulateServiceContextProxy.newProxyInstance(
                 KeyValueService.class, remotingKvs, localVersionSupplier, outboxVersionCtx);
-        KeyValueService pagingIteratorsVersionSettingRemotingKvs = createClientSideInternal(versionSettingRemotingKvs);
+
+        StreamingRangeClient versionSettingStreamingClient = null;
+        if (useBinaryProtocol) {
+            StreamingRangeClient streamingClient = Feign.builder()
+                    .encoder(encoder)
+                    .errorDecoder(KeyValueServiceErrorDecoder.instance())
+                    .contract(new JAXRSContract())
+                    .requestInterceptor(new OutboxShippingInterceptor(kvsMapper()))
+                    .target(StreamingRangeClient.class, uri);
+            versionSettingStreamingClient = PopulateServiceContextProxy.newProxyInstance(
+                    StreamingRangeClient.class, streamingClient, localVersionSupplier, outboxVersionCtx);
+        }
+        KeyValueService pagingIteratorsVersionSettingRemotingKvs =
+                createClientSideInternal(versionSettingRemotingKvs, versionSettingStreamingClient);
 
         return pagingIteratorsVersionSettingRemotingKvs;
     }
@@ -218,6 +326,64 @@ public class RemotingKeyValueService extends ForwardingKeyValueService {
             });
     }
 
+    /**
+     * Streams the whole range as pages of {@link RangeRequest#getBatchHint()} rows in a single
+     * response, for clients created with the binary protocol. The connection provides the flow
+     * control: once the client stops reading, writes block until it catches up.
+     */
+    @POST
+    @Path("stream-range")
+    @Produces(KeyValueServiceMediaTypes.BINARY)
+    @Consumes(KeyValueServiceMediaTypes.BINARY)
+    public StreamingOutput streamRange(@QueryParam("tableName") String tableName,
+                                       RangeRequest rangeRequest,
+                                       @QueryParam("timestamp") long timestamp) {
+        return streamRows(super.getRange(tableName, rangeRequest, timestamp), VALUE_PAGE_TYPE, rangeRequest);
+    }
+
+    @POST
+    @Path("stream-range-with-history")
+    @Produces(KeyValueServiceMediaTypes.BINARY)
+    @Consumes(KeyValueServiceMediaTypes.BINARY)
+    public StreamingOutput streamRangeWithHistory(@QueryParam("tableName") String tableName,
+                                                  RangeRequest rangeRequest,
+                                                  @QueryParam("timestamp") long timestamp) {
+        return streamRows(super.getRangeWithHistory(tableName, rangeRequest, timestamp), HISTORY_PAGE_TYPE, rangeRequest);
+    }
+
+    @POST
+    @Path("stream-range-of-timestamps")
+    @Produces(KeyValueServiceMediaTypes.BINARY)
+    @Consumes(KeyValueServiceMediaTypes.BINARY)
+    public StreamingOutput streamRangeOfTimestamps(@QueryParam("tableName") String tableName,
+                                                   RangeRequest rangeRequest,
+                                                   @QueryParam("timestamp") long timestamp) {
+        return streamRows(super.getRangeOfTimestamps(tableName, rangeRequest, timestamp), TIMESTAMPS_PAGE_TYPE, rangeRequest);
+    }
+
+    private static StreamingOutput streamRows(final ClosableIterator<? extends RowResult<?>> rows,
+                                              final Type pageType,
+                                              RangeRequest range) {
+        final int pageSize = range.getBatchHint() != null ? range.getBatchHint() : 100;
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                try {
+                    KvsBinaryCodec.writeRowStream(rows, pageType, pageSize, output);
+                } finally {
+                    rows.close();
+                }
+            }
+        };
+    }
+
+    @SuppressWarnings("serial")
+    private static final Type VALUE_PAGE_TYPE = new TypeToken<ClosableIterator<RowResult<Value>>>() {}.getType();
+    @SuppressWarnings("serial")
+    private static final Type HISTORY_PAGE_TYPE = new TypeToken<ClosableIterator<RowResult<Set<Value>>>>() {}.getType();
+    @SuppressWarnings("serial")
+    private static final Type TIMESTAMPS_PAGE_TYPE = new TypeToken<ClosableIterator<RowResult<Set<Long>>>>() {}.getType();
+
     private static final SimpleModule kvsModule = new SimpleModule(); static {
         kvsModule.addKeyDeserializer(Cell.class, CellAsKeyDeserializer.instance());
         kvsModule.addKeyDeserializer(byte[].class, BytesAsKeyDeserializer.instance());
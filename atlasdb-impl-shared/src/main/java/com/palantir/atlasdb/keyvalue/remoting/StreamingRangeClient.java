@@ -0,0 +1,59 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.remoting;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import com.palantir.atlasdb.keyvalue.api.KeyValueServiceMediaTypes;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+
+import feign.Response;
+
+/**
+ * The client side of the streaming range endpoints of {@link RemotingKeyValueService}. The raw
+ * response is returned so that its body can be read page by page while the server is still
+ * writing it.
+ */
+@Path("/keyvalue")
+public interface StreamingRangeClient {
+    @POST
+    @Path("stream-range")
+    @Produces(KeyValueServiceMediaTypes.BINARY)
+    @Consumes(KeyValueServiceMediaTypes.BINARY)
+    Response streamRange(@QueryParam("tableName") String tableName,
+                         RangeRequest rangeRequest,
+                         @QueryParam("timestamp") long timestamp);
+
+    @POST
+    @Path("stream-range-with-history")
+    @Produces(KeyValueServiceMediaTypes.BINARY)
+    @Consumes(KeyValueServiceMediaTypes.BINARY)
+    Response streamRangeWithHistory(@QueryParam("tableName") String tableName,
+                                    RangeRequest rangeRequest,
+                                    @QueryParam("timestamp") long timestamp);
+
+    @POST
+    @Path("stream-range-of-timestamps")
+    @Produces(KeyValueServiceMediaTypes.BINARY)
+    @Consumes(KeyValueServiceMediaTypes.BINARY)
+    Response streamRangeOfTimestamps(@QueryParam("tableName") String tableName,
+                                     RangeRequest rangeRequest,
+                                     @QueryParam("timestamp") long timestamp);
+}
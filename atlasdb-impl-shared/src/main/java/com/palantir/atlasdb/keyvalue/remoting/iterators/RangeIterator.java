@@ -15,6 +15,9 @@
  */
 package com.palantir.atlasdb.keyvalue.remoting.iterators;
 
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
@@ -84,6 +87,33 @@ public abstract class RangeIterator<T> implements ClosableIterator<RowResult<T>>
         }
     }
 
+    public String getTableName() {
+        return tableName;
+    }
+
+    public RangeRequest getRange() {
+        return range;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the rows of the current page that have not been returned by {@link #next()} yet
+     */
+    @JsonIgnore
+    public List<RowResult<T>> getRemainingRowsOfPage() {
+        return page.subList(position, page.size());
+    }
+
+    /**
+     * @return whether the server has more rows after the current page
+     */
+    public boolean hasMorePages() {
+        return hasNext;
+    }
+
     protected abstract ClosableIterator<RowResult<T>> getMoreRows(KeyValueService kvs, String tableName, RangeRequest newRange, long timestamp);
 
     private void swapWithNewRows(RangeIterator<T> other) {
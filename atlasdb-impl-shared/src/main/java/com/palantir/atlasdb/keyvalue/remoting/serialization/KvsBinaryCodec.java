@@ -0,0 +1,625 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.remoting.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.common.reflect.TypeToken;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyValueServiceMediaTypes;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.remoting.iterators.HistoryRangeIterator;
+import com.palantir.atlasdb.keyvalue.remoting.iterators.RangeIterator;
+import com.palantir.atlasdb.keyvalue.remoting.iterators.TimestampsRangeIterator;
+import com.palantir.atlasdb.keyvalue.remoting.iterators.ValueRangeIterator;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.Throwables;
+
+/**
+ * Encodes the bodies of the remote key value service endpoints as {@link KeyValueServiceMediaTypes#BINARY}.
+ * <p>
+ * Byte arrays are written as a varint length followed by the raw bytes, and timestamps, counts
+ * and other numbers as varints, so nothing is base64 encoded and cells used as map keys are not
+ * escaped into strings as they are in JSON. Collections are prefixed by their size, and range
+ * pages are written row by row straight to the output stream.
+ * <p>
+ * Only the body types listed in {@link BodyType} are supported; everything else stays JSON.
+ */
+public final class KvsBinaryCodec {
+    private static final Logger log = LoggerFactory.getLogger(KvsBinaryCodec.class);
+
+    private static final int END_FRAME = 0;
+    private static final int ROWS_FRAME = 1;
+    private static final int ERROR_FRAME = 2;
+
+    private KvsBinaryCodec() { /* */ }
+
+    public static boolean canWrite(Class<?> type, Type genericType) {
+        return BodyType.forWriting(type, genericType) != null;
+    }
+
+    public static boolean canRead(Type genericType) {
+        return BodyType.forReading(genericType) != null;
+    }
+
+    public static void write(Object body, Type genericType, OutputStream os) throws IOException {
+        BodyType bodyType = BodyType.forWriting(body.getClass(), genericType);
+        if (bodyType == null) {
+            throw new IllegalArgumentException("Cannot write " + genericType + " as " + KeyValueServiceMediaTypes.BINARY);
+        }
+        CodedOutputStream out = CodedOutputStream.newInstance(os);
+        bodyType.write(body, out);
+        out.flush();
+    }
+
+    public static Object read(Type genericType, InputStream is) throws IOException {
+        BodyType bodyType = BodyType.forReading(genericType);
+        if (bodyType == null) {
+            throw new IllegalArgumentException("Cannot read " + genericType + " as " + KeyValueServiceMediaTypes.BINARY);
+        }
+        CodedInputStream in = CodedInputStream.newInstance(is);
+        // Bodies are bounded by what the endpoints accept, not by protobuf's message size limit.
+        in.setSizeLimit(Integer.MAX_VALUE);
+        return bodyType.read(in);
+    }
+
+    /**
+     * Writes the rows of a range scan as a stream of pages so the reader can start on the first
+     * page while later ones are still being read from the key value service. Each page is a
+     * {@link #ROWS_FRAME} marker, its number of rows and the rows as they are written in a range
+     * page, and is flushed to the underlying stream on its own. The stream ends with an
+     * {@link #END_FRAME}, or with an {@link #ERROR_FRAME} and a message if the scan fails after
+     * the response has been committed.
+     *
+     * @param pageType the type the endpoint returns the rows as, such as
+     *        <code>ClosableIterator&lt;RowResult&lt;Value&gt;&gt;</code>
+     */
+    public static void writeRowStream(Iterator<? extends RowResult<?>> rows,
+                                      Type pageType,
+                                      int rowsPerPage,
+                                      OutputStream os) throws IOException {
+        BodyType bodyType = getPageType(pageType);
+        CodedOutputStream out = CodedOutputStream.newInstance(os);
+        List<RowResult<?>> page = Lists.newArrayListWithCapacity(rowsPerPage);
+        try {
+            while (rows.hasNext()) {
+                page.add(rows.next());
+                if (page.size() == rowsPerPage || !rows.hasNext()) {
+                    out.writeUInt32NoTag(ROWS_FRAME);
+                    out.writeUInt32NoTag(page.size());
+                    for (RowResult<?> row : page) {
+                        bodyType.writeRow(row, out);
+                    }
+                    out.flush();
+                    os.flush();
+                    page.clear();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Range scan failed after its response was committed", e);
+            out.writeUInt32NoTag(ERROR_FRAME);
+            out.writeStringNoTag(String.valueOf(e.getMessage()));
+            out.flush();
+            return;
+        }
+        out.writeUInt32NoTag(END_FRAME);
+        out.flush();
+    }
+
+    /**
+     * Lazily reads the rows written by {@link #writeRowStream}. Closing the returned iterator
+     * closes the stream, which is how a reader that stops early tells the writer to stop.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ClosableIterator<RowResult<T>> readRowStream(Type pageType, InputStream is) {
+        return (ClosableIterator<RowResult<T>>) (ClosableIterator<?>) new RowStreamIterator(getPageType(pageType), is);
+    }
+
+    private static BodyType getPageType(Type pageType) {
+        BodyType bodyType = BodyType.forReading(pageType);
+        Preconditions.checkArgument(bodyType != null && bodyType.isPage(), "%s is not a range page type", pageType);
+        return bodyType;
+    }
+
+    private static final class RowStreamIterator extends AbstractIterator<RowResult<Object>>
+            implements ClosableIterator<RowResult<Object>> {
+        private final BodyType bodyType;
+        private final InputStream is;
+        private final CodedInputStream in;
+        private int rowsLeftInPage = 0;
+
+        RowStreamIterator(BodyType bodyType, InputStream is) {
+            this.bodyType = bodyType;
+            this.is = is;
+            this.in = CodedInputStream.newInstance(is);
+            in.setSizeLimit(Integer.MAX_VALUE);
+        }
+
+        @Override
+        protected RowResult<Object> computeNext() {
+            try {
+                while (rowsLeftInPage == 0) {
+                    // The size limit counts every byte read, so restart it for each page.
+                    in.resetSizeCounter();
+                    int frame = in.readUInt32();
+                    if (frame == END_FRAME) {
+                        close();
+                        return endOfData();
+                    } else if (frame == ERROR_FRAME) {
+                        String message = in.readString();
+                        close();
+                        throw new IllegalStateException("Remote range scan failed: " + message);
+                    }
+                    Preconditions.checkState(frame == ROWS_FRAME, "Unexpected frame %s in a row stream", frame);
+                    rowsLeftInPage = in.readUInt32();
+                }
+                rowsLeftInPage--;
+                return bodyType.readRow(in);
+            } catch (IOException e) {
+                close();
+                throw Throwables.throwUncheckedException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                is.close();
+            } catch (IOException e) {
+                log.warn("Failed to close a row stream", e);
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "serial"})
+    private enum BodyType {
+        CELL_VALUES(new TypeToken<Map<Cell, Value>>() {}) {
+            @Override
+            void write(Object body, CodedOutputStream out) throws IOException {
+                Map<Cell, Value> values = (Map<Cell, Value>) body;
+                out.writeUInt32NoTag(values.size());
+                for (Map.Entry<Cell, Value> e : values.entrySet()) {
+                    writeCell(e.getKey(), out);
+                    writeValue(e.getValue(), out);
+                }
+            }
+
+            @Override
+            Object read(CodedInputStream in) throws IOException {
+                int size = in.readUInt32();
+                Map<Cell, Value> values = Maps.newHashMapWithExpectedSize(size);
+                for (int i = 0; i < size; i++) {
+                    values.put(readCell(in), readValue(in));
+                }
+                return values;
+            }
+        },
+        CELL_TIMESTAMPS(new TypeToken<Map<Cell, Long>>() {}) {
+            @Override
+            void write(Object body, CodedOutputStream out) throws IOException {
+                Map<Cell, Long> timestamps = (Map<Cell, Long>) body;
+                out.writeUInt32NoTag(timestamps.size());
+                for (Map.Entry<Cell, Long> e : timestamps.entrySet()) {
+                    writeCell(e.getKey(), out);
+                    out.writeUInt64NoTag(e.getValue());
+                }
+            }
+
+            @Override
+            Object read(CodedInputStream in) throws IOException {
+                int size = in.readUInt32();
+                Map<Cell, Long> timestamps = Maps.newHashMapWithExpectedSize(size);
+                for (int i = 0; i < size; i++) {
+                    timestamps.put(readCell(in), in.readUInt64());
+                }
+                return timestamps;
+            }
+        },
+        CELL_CONTENTS(new TypeToken<Map<Cell, byte[]>>() {}) {
+            @Override
+            void write(Object body, CodedOutputStream out) throws IOException {
+                writeCellContents((Map<Cell, byte[]>) body, out);
+            }
+
+            @Override
+            Object read(CodedInputStream in) throws IOException {
+                return readCellContents(in);
+            }
+        },
+        TABLE_CELL_CONTENTS(new TypeToken<Map<String, ? extends Map<Cell, byte[]>>>() {}) {
+            @Override
+            void write(Object body, CodedOutputStream out) throws IOException {
+                Map<String, ? extends Map<Cell, byte[]>> valuesByTable = (Map<String, ? extends Map<Cell, byte[]>>) body;
+                out.writeUInt32NoTag(valuesByTable.size());
+                for (Map.Entry<String, ? extends Map<Cell, byte[]>> e : valuesByTable.entrySet()) {
+                    out.writeStringNoTag(e.getKey());
+                    writeCellContents(e.getValue(), out);
+                }
+            }
+
+            @Override
+            Object read(CodedInputStream in) throws IOException {
+                int size = in.readUInt32();
+                Map<String, Map<Cell, byte[]>> valuesByTable = Maps.newHashMapWithExpectedSize(size);
+                for (int i = 0; i < size; i++) {
+                    valuesByTable.put(in.readString(), readCellContents(in));
+                }
+                return valuesByTable;
+            }
+        },
+        CELL_VALUE_MULTIMAP(new TypeToken<Multimap<Cell, Value>>() {}) {
+            @Override
+            void write(Object body, CodedOutputStream out) throws IOException {
+                Multimap<Cell, Value> values = (Multimap<Cell, Value>) body;
+                out.writeUInt32NoTag(values.size());
+                for (Map.Entry<Cell, Value> e : values.entries()) {
+                    writeCell(e.getKey(), out);
+                    writeValue(e.getValue(), out);
+                }
+            }
+
+            @Override
+            Object read(CodedInputStream in) throws IOException {
+                int size = in.readUInt32();
+                Multimap<Cell, Value> values = ArrayListMultimap.create();
+                for (int i = 0; i < size; i++) {
+                    values.put(readCell(in), readValue(in));
+                }
+                return values;
+            }
+        },
+        CELL_TIMESTAMP_MULTIMAP(new TypeToken<Multimap<Cell, Long>>() {}) {
+            @Override
+            void write(Object body, CodedOutputStream out) throws IOException {
+                Multimap<Cell, Long> timestamps = (Multimap<Cell, Long>) body;
+                out.writeUInt32NoTag(timestamps.size());
+                for (Map.Entry<Cell, Long> e : timestamps.entries()) {
+                    writeCell(e.getKey(), out);
+                    out.writeUInt64NoTag(e.getValue());
+                }
+            }
+
+            @Override
+            Object read(CodedInputStream in) throws IOException {
+                int size = in.readUInt32();
+                Multimap<Cell, Long> timestamps = ArrayListMultimap.create();
+                for (int i = 0; i < size; i++) {
+                    timestamps.put(readCell(in), in.readUInt64());
+                }
+                return timestamps;
+            }
+        },
+        CELLS(new TypeToken<Set<Cell>>() {}) {
+            @Override
+            void write(Object body, CodedOutputStream out) throws IOException {
+                Set<Cell> cells = (Set<Cell>) body;
+                out.writeUInt32NoTag(cells.size());
+                for (Cell cell : cells) {
+                    writeCell(cell, out);
+                }
+            }
+
+            @Override
+            Object read(CodedInputStream in) throws IOException {
+                int size = in.readUInt32();
+                Set<Cell> cells = Sets.newHashSetWithExpectedSize(size);
+                for (int i = 0; i < size; i++) {
+                    cells.add(readCell(in));
+                }
+                return cells;
+            }
+        },
+        ROWS(new TypeToken<Iterable<byte[]>>() {}) {
+            @Override
+            void write(Object body, CodedOutputStream out) throws IOException {
+                Collection<byte[]> rows = body instanceof Collection
+                        ? (Collection<byte[]>) body
+                        : Lists.newArrayList((Iterable<byte[]>) body);
+                out.writeUInt32NoTag(rows.size());
+                for (byte[] row : rows) {
+                    out.writeByteArrayNoTag(row);
+                }
+            }
+
+            @Override
+            Object read(CodedInputStream in) throws IOException {
+                int size = in.readUInt32();
+                List<byte[]> rows = Lists.newArrayListWithCapacity(size);
+                for (int i = 0; i < size; i++) {
+                    rows.add(in.readByteArray());
+                }
+                return rows;
+            }
+        },
+        RANGE_REQUEST(TypeToken.of(RangeRequest.class)) {
+            @Override
+            void write(Object body, CodedOutputStream out) throws IOException {
+                writeRangeRequest((RangeRequest) body, out);
+            }
+
+            @Override
+            Object read(CodedInputStream in) throws IOException {
+                return readRangeRequest(in);
+            }
+        },
+        VALUE_PAGE(new TypeToken<ClosableIterator<RowResult<Value>>>() {}) {
+            @Override
+            void writeColumnValue(Object value, CodedOutputStream out) throws IOException {
+                writeValue((Value) value, out);
+            }
+
+            @Override
+            Object readColumnValue(CodedInputStream in) throws IOException {
+                return readValue(in);
+            }
+
+            @Override
+            Object newPage(String tableName, RangeRequest range, long timestamp, boolean hasMorePages, ImmutableList<?> rows) {
+                return new ValueRangeIterator(tableName, range, timestamp, hasMorePages, (ImmutableList<RowResult<Value>>) rows);
+            }
+        },
+        HISTORY_PAGE(new TypeToken<ClosableIterator<RowResult<Set<Value>>>>() {}) {
+            @Override
+            void writeColumnValue(Object value, CodedOutputStream out) throws IOException {
+                Set<Value> values = (Set<Value>) value;
+                out.writeUInt32NoTag(values.size());
+                for (Value v : values) {
+                    writeValue(v, out);
+                }
+            }
+
+            @Override
+            Object readColumnValue(CodedInputStream in) throws IOException {
+                int size = in.readUInt32();
+                ImmutableSet.Builder<Value> values = ImmutableSet.builder();
+                for (int i = 0; i < size; i++) {
+                    values.add(readValue(in));
+                }
+                return values.build();
+            }
+
+            @Override
+            Object newPage(String tableName, RangeRequest range, long timestamp, boolean hasMorePages, ImmutableList<?> rows) {
+                return new HistoryRangeIterator(tableName, range, timestamp, hasMorePages, (ImmutableList<RowResult<Set<Value>>>) rows);
+            }
+        },
+        TIMESTAMPS_PAGE(new TypeToken<ClosableIterator<RowResult<Set<Long>>>>() {}) {
+            @Override
+            void writeColumnValue(Object value, CodedOutputStream out) throws IOException {
+                Set<Long> timestamps = (Set<Long>) value;
+                out.writeUInt32NoTag(timestamps.size());
+                for (long ts : timestamps) {
+                    out.writeUInt64NoTag(ts);
+                }
+            }
+
+            @Override
+            Object readColumnValue(CodedInputStream in) throws IOException {
+                int size = in.readUInt32();
+                ImmutableSet.Builder<Long> timestamps = ImmutableSet.builder();
+                for (int i = 0; i < size; i++) {
+                    timestamps.add(in.readUInt64());
+                }
+                return timestamps.build();
+            }
+
+            @Override
+            Object newPage(String tableName, RangeRequest range, long timestamp, boolean hasMorePages, ImmutableList<?> rows) {
+                return new TimestampsRangeIterator(tableName, range, timestamp, hasMorePages, (ImmutableList<RowResult<Set<Long>>>) rows);
+            }
+        };
+
+        private final TypeToken<?> token;
+
+        private BodyType(TypeToken<?> token) {
+            this.token = token;
+        }
+
+        private boolean isPage() {
+            return token.getRawType() == ClosableIterator.class;
+        }
+
+        @Nullable
+        static BodyType forWriting(Class<?> type, Type genericType) {
+            for (BodyType bodyType : values()) {
+                // Pages can only be sent once the server side has turned them into range iterators.
+                if (bodyType.token.isAssignableFrom(genericType)
+                        && (!bodyType.isPage() || RangeIterator.class.isAssignableFrom(type))) {
+                    return bodyType;
+                }
+            }
+            return null;
+        }
+
+        @Nullable
+        static BodyType forReading(Type genericType) {
+            TypeToken<?> target = TypeToken.of(genericType);
+            if (target.getRawType() == Object.class) {
+                return null;
+            }
+            for (BodyType bodyType : values()) {
+                if (target.isAssignableFrom(bodyType.token)) {
+                    return bodyType;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Writes a page as its table name, range, timestamp and whether there are more pages,
+         * followed by the number of rows and, for each row, its name, its number of columns and
+         * each column name and value.
+         */
+        void write(Object body, CodedOutputStream out) throws IOException {
+            RangeIterator<?> page = (RangeIterator<?>) body;
+            out.writeStringNoTag(page.getTableName());
+            writeRangeRequest(page.getRange(), out);
+            out.writeUInt64NoTag(page.getTimestamp());
+            out.writeBoolNoTag(page.hasMorePages());
+            List<? extends RowResult<?>> rows = page.getRemainingRowsOfPage();
+            out.writeUInt32NoTag(rows.size());
+            for (RowResult<?> row : rows) {
+                writeRow(row, out);
+            }
+        }
+
+        void writeRow(RowResult<?> row, CodedOutputStream out) throws IOException {
+            out.writeByteArrayNoTag(row.getRowName());
+            SortedMap<byte[], ?> columns = row.getColumns();
+            out.writeUInt32NoTag(columns.size());
+            for (Map.Entry<byte[], ?> e : columns.entrySet()) {
+                out.writeByteArrayNoTag(e.getKey());
+                writeColumnValue(e.getValue(), out);
+            }
+        }
+
+        Object read(CodedInputStream in) throws IOException {
+            String tableName = in.readString();
+            RangeRequest range = readRangeRequest(in);
+            long timestamp = in.readUInt64();
+            boolean hasMorePages = in.readBool();
+            int numRows = in.readUInt32();
+            ImmutableList.Builder<RowResult<Object>> rows = ImmutableList.builder();
+            for (int i = 0; i < numRows; i++) {
+                rows.add(readRow(in));
+            }
+            return newPage(tableName, range, timestamp, hasMorePages, rows.build());
+        }
+
+        RowResult<Object> readRow(CodedInputStream in) throws IOException {
+            byte[] rowName = in.readByteArray();
+            int numColumns = in.readUInt32();
+            SortedMap<byte[], Object> columns = Maps.newTreeMap(UnsignedBytes.lexicographicalComparator());
+            for (int j = 0; j < numColumns; j++) {
+                byte[] columnName = in.readByteArray();
+                columns.put(columnName, readColumnValue(in));
+            }
+            return RowResult.create(rowName, columns);
+        }
+
+        void writeColumnValue(Object value, CodedOutputStream out) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        Object readColumnValue(CodedInputStream in) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        Object newPage(String tableName, RangeRequest range, long timestamp, boolean hasMorePages, ImmutableList<?> rows) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static void writeCell(Cell cell, CodedOutputStream out) throws IOException {
+        out.writeByteArrayNoTag(cell.getRowName());
+        out.writeByteArrayNoTag(cell.getColumnName());
+    }
+
+    private static Cell readCell(CodedInputStream in) throws IOException {
+        byte[] row = in.readByteArray();
+        return Cell.create(row, in.readByteArray());
+    }
+
+    private static void writeValue(Value value, CodedOutputStream out) throws IOException {
+        out.writeByteArrayNoTag(value.getContents());
+        out.writeUInt64NoTag(value.getTimestamp());
+    }
+
+    private static Value readValue(CodedInputStream in) throws IOException {
+        byte[] contents = in.readByteArray();
+        return Value.create(contents, in.readUInt64());
+    }
+
+    private static void writeCellContents(Map<Cell, byte[]> values, CodedOutputStream out) throws IOException {
+        out.writeUInt32NoTag(values.size());
+        for (Map.Entry<Cell, byte[]> e : values.entrySet()) {
+            writeCell(e.getKey(), out);
+            out.writeByteArrayNoTag(e.getValue());
+        }
+    }
+
+    private static Map<Cell, byte[]> readCellContents(CodedInputStream in) throws IOException {
+        int size = in.readUInt32();
+        Map<Cell, byte[]> values = Maps.newHashMapWithExpectedSize(size);
+        for (int i = 0; i < size; i++) {
+            values.put(readCell(in), in.readByteArray());
+        }
+        return values;
+    }
+
+    /**
+     * Writes a range as its start and end rows, its direction, its batch hint plus one (zero
+     * meaning no hint) and its column names.
+     */
+    private static void writeRangeRequest(RangeRequest range, CodedOutputStream out) throws IOException {
+        out.writeByteArrayNoTag(range.getStartInclusive());
+        out.writeByteArrayNoTag(range.getEndExclusive());
+        out.writeBoolNoTag(range.isReverse());
+        Integer batchHint = range.getBatchHint();
+        out.writeUInt32NoTag(batchHint == null ? 0 : batchHint + 1);
+        Set<byte[]> columns = range.getColumnNames();
+        out.writeUInt32NoTag(columns.size());
+        for (byte[] column : columns) {
+            out.writeByteArrayNoTag(column);
+        }
+    }
+
+    private static RangeRequest readRangeRequest(CodedInputStream in) throws IOException {
+        byte[] start = in.readByteArray();
+        byte[] end = in.readByteArray();
+        RangeRequest.Builder builder = RangeRequest.builder(in.readBool())
+                .startRowInclusive(start)
+                .endRowExclusive(end);
+        int batchHint = in.readUInt32();
+        if (batchHint > 0) {
+            builder.batchHint(batchHint - 1);
+        }
+        int numColumns = in.readUInt32();
+        List<byte[]> columns = Lists.newArrayListWithCapacity(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            columns.add(in.readByteArray());
+        }
+        return builder.retainColumns(columns).build();
+    }
+}
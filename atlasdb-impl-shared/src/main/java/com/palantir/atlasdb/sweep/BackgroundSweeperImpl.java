@@ -26,16 +26,20 @@ import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Functions;
 import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multimaps;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.UnsignedBytes;
 import com.palantir.atlasdb.AtlasDbConstants;
@@ -44,6 +48,7 @@ import com.palantir.atlasdb.keyvalue.api.InsufficientConsistencyException;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.SweepResults;
+import com.palantir.atlasdb.keyvalue.impl.SweepStatsKeyValueService;
 import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.SweepStrategy;
 import com.palantir.atlasdb.schema.generated.SweepPriorityTable;
 import com.palantir.atlasdb.schema.generated.SweepPriorityTable.SweepPriorityRow;
@@ -51,6 +56,9 @@ import com.palantir.atlasdb.schema.generated.SweepPriorityTable.SweepPriorityRow
 import com.palantir.atlasdb.schema.generated.SweepProgressTable;
 import com.palantir.atlasdb.schema.generated.SweepProgressTable.SweepProgressRow;
 import com.palantir.atlasdb.schema.generated.SweepProgressTable.SweepProgressRowResult;
+import com.palantir.atlasdb.schema.generated.SweepRangePriorityTable;
+import com.palantir.atlasdb.schema.generated.SweepRangePriorityTable.SweepRangePriorityRow;
+import com.palantir.atlasdb.schema.generated.SweepRangePriorityTable.SweepRangePriorityRowResult;
 import com.palantir.atlasdb.schema.generated.SweepTableFactory;
 import com.palantir.atlasdb.transaction.api.LockAwareTransactionManager;
 import com.palantir.atlasdb.transaction.api.RuntimeTransactionTask;
@@ -74,11 +82,18 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
     private final Supplier<Long> sweepPauseMillis;
     private final Supplier<Integer> sweepBatchSize;
     private final SweepTableFactory tableFactory;
+    private final SweepMetrics sweepMetrics;
     private volatile float batchSizeMultiplier = 1.0f;
     private Thread daemon;
+    // Only accessed by the sweep thread.
+    private String expectedCellsExaminedPass = null;
+    private long expectedCellsExamined = 0L;
 
     // weights one month of no sweeping with the same priority as about 100000 expected cells to sweep.
     private static final double MILLIS_SINCE_SWEEP_PRIORITY_WEIGHT = 100000.0 / TimeUnit.MILLISECONDS.convert(30, TimeUnit.DAYS);
+    // ranges are ranked by the fraction of examined cells expected to be deleted; one month
+    // of no sweeping weighs the same as a range that is entirely garbage.
+    private static final double MILLIS_SINCE_SWEEP_RANGE_PRIORITY_WEIGHT = 1.0 / TimeUnit.MILLISECONDS.convert(30, TimeUnit.DAYS);
 
 
     public BackgroundSweeperImpl(LockAwareTransactionManager txManager,
@@ -87,7 +102,8 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
                                  Supplier<Boolean> isSweepEnabled,
                                  Supplier<Long> sweepPauseMillis,
                                  Supplier<Integer> sweepBatchSize,
-                                 SweepTableFactory tableFactory) {
+                                 SweepTableFactory tableFactory,
+                                 SweepMetrics sweepMetrics) {
         this.txManager = txManager;
         this.kvs = kvs;
         this.sweepRunner = sweepRunner;
@@ -95,6 +111,7 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
         this.sweepPauseMillis = sweepPauseMillis;
         this.sweepBatchSize = sweepBatchSize;
         this.tableFactory = tableFactory;
+        this.sweepMetrics = sweepMetrics;
     }
 
     @Override
@@ -154,7 +171,8 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
         }
     }
 
-    private boolean runOnce() {
+    @VisibleForTesting
+    boolean runOnce() {
         SweepProgressRowResult progress = txManager.runTaskWithRetry(
                 new RuntimeTransactionTask<SweepProgressRowResult>() {
             @Override
@@ -173,13 +191,25 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
             return false;
         }
         int batchSize = Math.max(1, (int) (sweepBatchSize.get() * batchSizeMultiplier));
+        byte[] startRow = progress.getStartRow();
+        byte[] endRow = null;
+        if (progress.hasRange()) {
+            int range = progress.getRange().intValue();
+            if (startRow == null) {
+                startRow = SweepStatsKeyValueService.getSweepRangeStartRow(range);
+            }
+            endRow = SweepStatsKeyValueService.getSweepRangeEndRow(range);
+        }
         Stopwatch watch = Stopwatch.createStarted();
         try {
-            SweepResults results = sweepRunner.run(progress.getFullTableName(), batchSize, progress.getStartRow());
+            SweepResults results = sweepRunner.run(progress.getFullTableName(), batchSize, startRow, endRow);
+            long elapsedMillis = watch.elapsed(TimeUnit.MILLISECONDS);
             log.debug("Swept {} unique cells from {} starting at {} and performed {} deletions in {} ms.",
                     results.getCellsExamined(), progress.getFullTableName(),
-                    progress.getStartRow() == null ? "0" : PtBytes.encodeHexString(progress.getStartRow()),
-                    results.getCellsDeleted(), watch.elapsed(TimeUnit.MILLISECONDS));
+                    startRow == null ? "0" : PtBytes.encodeHexString(startRow),
+                    results.getCellsDeleted(), elapsedMillis);
+            sweepMetrics.sweptBatch(progress.getFullTableName(), results.getCellsExamined(),
+                    results.getCellsDeleted(), elapsedMillis);
             saveSweepResults(progress, results);
             return true;
         } catch (RuntimeException e) {
@@ -203,25 +233,84 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
         List<SweepPriorityRowResult> newPriorities = newPriorityTable.getAllRowsUnordered().immutableCopy();
         Map<String,SweepPriorityRowResult> newPrioritiesByTableName = Maps.uniqueIndex(newPriorities,
                 Functions.compose(SweepPriorityRow.getFullTableNameFun(), SweepPriorityRowResult.getRowNameFun()));
-        String tableName = getTableToSweep(t, allTables, oldPriorities, newPrioritiesByTableName);
+        ListMultimap<String, SweepRangePriorityRowResult> oldRangePriorities = Multimaps.index(
+                tableFactory.getSweepRangePriorityTable(t).getAllRowsUnordered().immutableCopy(),
+                Functions.compose(SweepRangePriorityRow.getFullTableNameFun(), SweepRangePriorityRowResult.getRowNameFun()));
+        String tableName = getTableToSweep(t, allTables, oldPriorities, newPrioritiesByTableName, oldRangePriorities);
         if (tableName == null) {
             return null;
         }
-        RowResult<byte[]> rawResult = RowResult.<byte[]>create(SweepProgressRow.of(0).persistToBytes(),
+        ImmutableSortedMap.Builder<byte[], byte[]> columns =
                 ImmutableSortedMap.<byte[], byte[]>orderedBy(UnsignedBytes.lexicographicalComparator())
                     .put(SweepProgressTable.SweepProgressNamedColumn.FULL_TABLE_NAME.getShortName(),
-                         SweepProgressTable.FullTableName.of(tableName).persistValue())
-                    .build());
-
-        log.debug("Now starting to sweep {}.", tableName);
+                         SweepProgressTable.FullTableName.of(tableName).persistValue());
+        SweepPriorityRowResult oldPriority = Iterables.find(oldPriorities, isPriorityFor(tableName), null);
+        Optional<Integer> range = oldPriority == null
+                ? Optional.<Integer>absent()
+                : getRangeToSweep(oldPriority, oldRangePriorities.get(tableName));
+        if (range.isPresent()) {
+            columns.put(SweepProgressTable.SweepProgressNamedColumn.RANGE.getShortName(),
+                        SweepProgressTable.Range.of((long) range.get()).persistValue());
+            log.debug("Now starting to sweep range {} of {}.", range.get(), tableName);
+        } else {
+            log.debug("Now starting to sweep {}.", tableName);
+        }
+        RowResult<byte[]> rawResult = RowResult.<byte[]>create(SweepProgressRow.of(0).persistToBytes(), columns.build());
         return SweepProgressRowResult.of(rawResult);
     }
 
+    private static Predicate<SweepPriorityRowResult> isPriorityFor(final String tableName) {
+        return new Predicate<SweepPriorityRowResult>() {
+            @Override
+            public boolean apply(SweepPriorityRowResult priority) {
+                return priority.getRowName().getFullTableName().equals(tableName);
+            }
+        };
+    }
+
+    /**
+     * Picks the row range of a previously swept table with the most reclaimable cells per cell
+     * examined, weighted by how long it has been since the range was swept. Returns absent if no
+     * range is worth sweeping on its own, in which case the whole table is swept.
+     */
+    private Optional<Integer> getRangeToSweep(SweepPriorityRowResult tablePriority,
+                                              List<SweepRangePriorityRowResult> rangePriorities) {
+        if (!tablePriority.hasLastSweepTime() || rangePriorities.isEmpty()) {
+            return Optional.absent();
+        }
+        double tableEfficacy = getPreviousEfficacy(tablePriority);
+        double maxPriority = 0.0;
+        Integer toSweep = null;
+        for (SweepRangePriorityRowResult rangePriority : rangePriorities) {
+            long writeCount = fromNullable(rangePriority.getWriteCount());
+            long cellsExamined = fromNullable(rangePriority.getCellsExamined());
+            long lastSweepTime = rangePriority.hasLastSweepTime()
+                    ? rangePriority.getLastSweepTime()
+                    : tablePriority.getLastSweepTime();
+            long millisSinceSweep = System.currentTimeMillis() - lastSweepTime;
+            if (writeCount <= 100 + cellsExamined / 100 &&
+                    TimeUnit.DAYS.convert(millisSinceSweep, TimeUnit.MILLISECONDS) < 180) {
+                // Same rule as for whole tables: not worth it if few cells are new and it was swept recently.
+                continue;
+            }
+            // Cost is proportional to the cells we have to examine, so prefer dense garbage.
+            double estimatedCellsToSweep = getEstimatedCellsToSweep(rangePriority, tableEfficacy);
+            double priority = estimatedCellsToSweep / Math.max(1, cellsExamined + writeCount)
+                    + millisSinceSweep * MILLIS_SINCE_SWEEP_RANGE_PRIORITY_WEIGHT;
+            if (priority > maxPriority) {
+                maxPriority = priority;
+                toSweep = (int) rangePriority.getRowName().getRange();
+            }
+        }
+        return Optional.fromNullable(toSweep);
+    }
+
     @Nullable
     private String getTableToSweep(SweepTransaction t,
                                    Set<String> allTables,
                                    List<SweepPriorityRowResult> oldPriorities,
-                                   Map<String, SweepPriorityRowResult> newPrioritiesByTableName) {
+                                   Map<String, SweepPriorityRowResult> newPrioritiesByTableName,
+                                   ListMultimap<String, SweepRangePriorityRowResult> oldRangePriorities) {
         Set<String> unsweptTables = Sets.difference(allTables, newPrioritiesByTableName.keySet());
         if (!unsweptTables.isEmpty()) {
             return Iterables.get(unsweptTables, 0);
@@ -229,27 +318,34 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
         double maxPriority = 0.0;
         String toSweep = null;
         Collection<SweepPriorityRow> toDelete = Lists.newArrayList();
+        Collection<SweepRangePriorityRow> rangesToDelete = Lists.newArrayList();
         for (SweepPriorityRowResult oldPriority : oldPriorities) {
             String tableName = oldPriority.getRowName().getFullTableName();
             if (allTables.contains(tableName)) {
                 SweepPriorityRowResult newPriority = newPrioritiesByTableName.get(tableName);
-                double priority = getSweepPriority(oldPriority, newPriority);
+                double priority = getSweepPriority(oldPriority, newPriority, oldRangePriorities.get(tableName));
                 if (priority > maxPriority) {
                     maxPriority = priority;
                     toSweep = tableName;
                 }
             } else {
                 toDelete.add(oldPriority.getRowName());
+                for (SweepRangePriorityRowResult rangePriority : oldRangePriorities.get(tableName)) {
+                    rangesToDelete.add(rangePriority.getRowName());
+                }
             }
         }
 
         // Clean up rows for tables that no longer exist.
         tableFactory.getSweepPriorityTable(t.delegate()).delete(toDelete);
+        tableFactory.getSweepRangePriorityTable(t.delegate()).delete(rangesToDelete);
 
         return toSweep;
     }
 
-    private double getSweepPriority(SweepPriorityRowResult oldPriority, SweepPriorityRowResult newPriority) {
+    private double getSweepPriority(SweepPriorityRowResult oldPriority,
+                                    SweepPriorityRowResult newPriority,
+                                    List<SweepRangePriorityRowResult> oldRangePriorities) {
         if (AtlasDbConstants.hiddenTables.contains(newPriority.getRowName().getFullTableName())) {
             // Never sweep hidden tables
             return 0.0;
@@ -262,11 +358,18 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
             // We just swept this, or it got truncated.
             return 0.0;
         }
-        long cellsDeleted = Math.max(1, oldPriority.getCellsDeleted());
         long cellsExamined = Math.max(1, oldPriority.getCellsExamined());
         long writeCount = Math.max(1, oldPriority.getWriteCount());
-        double previousEfficacy = 1.0 * cellsDeleted / cellsExamined;
-        double estimatedCellsToSweep = previousEfficacy * writeCount;
+        double previousEfficacy = getPreviousEfficacy(oldPriority);
+        double estimatedCellsToSweep;
+        if (oldRangePriorities.isEmpty()) {
+            estimatedCellsToSweep = previousEfficacy * writeCount;
+        } else {
+            estimatedCellsToSweep = 0.0;
+            for (SweepRangePriorityRowResult rangePriority : oldRangePriorities) {
+                estimatedCellsToSweep += getEstimatedCellsToSweep(rangePriority, previousEfficacy);
+            }
+        }
         long millisSinceSweep = System.currentTimeMillis() - oldPriority.getLastSweepTime();
 
         if (writeCount <= 100 + cellsExamined / 100 &&
@@ -280,19 +383,48 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
         return estimatedCellsToSweep + millisSinceSweep * MILLIS_SINCE_SWEEP_PRIORITY_WEIGHT;
     }
 
+    private static double getPreviousEfficacy(SweepPriorityRowResult priority) {
+        long cellsDeleted = Math.max(1, priority.getCellsDeleted());
+        long cellsExamined = Math.max(1, priority.getCellsExamined());
+        return 1.0 * cellsDeleted / cellsExamined;
+    }
+
+    /**
+     * Estimates the cells sweeping a range would delete. Every delete leaves a tombstone and an
+     * overwritten value behind, and the other writes are assumed to leave garbage at the rate the
+     * range (or failing that, the whole table) did the last time it was swept.
+     */
+    private static double getEstimatedCellsToSweep(SweepRangePriorityRowResult rangePriority, double tableEfficacy) {
+        long writeCount = fromNullable(rangePriority.getWriteCount());
+        long deleteCount = Math.min(writeCount, fromNullable(rangePriority.getDeleteCount()));
+        double efficacy = tableEfficacy;
+        if (rangePriority.hasCellsExamined()) {
+            efficacy = 1.0 * Math.max(1, fromNullable(rangePriority.getCellsDeleted()))
+                    / Math.max(1, rangePriority.getCellsExamined());
+        }
+        return efficacy * (writeCount - deleteCount) + deleteCount;
+    }
+
     private void saveSweepResults(final SweepProgressRowResult progress,
                                   final SweepResults results) {
         final long cellsDeleted = fromNullable(progress.getCellsDeleted()) + results.getCellsDeleted();
         final long cellsExamined = fromNullable(progress.getCellsExamined()) + results.getCellsExamined();
         if (results.getNextStartRow().isPresent()) {
             saveIntermediateSweepResults(progress, results.getNextStartRow().get(), cellsDeleted, cellsExamined);
+            sweepMetrics.updateCurrentPass(progress.getFullTableName(), cellsExamined, getExpectedCellsExamined(progress));
             return;
         }
 
         saveFinalSweepResults(progress, cellsDeleted, cellsExamined);
+        sweepMetrics.clearCurrentPass();
 
-        log.debug("Finished sweeping {}, examined {} unique cells, deleted {} cells.",
-                progress.getFullTableName(), cellsExamined, cellsDeleted);
+        if (progress.hasRange()) {
+            log.debug("Finished sweeping range {} of {}, examined {} unique cells, deleted {} cells.",
+                    progress.getRange(), progress.getFullTableName(), cellsExamined, cellsDeleted);
+        } else {
+            log.debug("Finished sweeping {}, examined {} unique cells, deleted {} cells.",
+                    progress.getFullTableName(), cellsExamined, cellsDeleted);
+        }
 
         if (cellsDeleted > 0) {
             Stopwatch watch = Stopwatch.createStarted();
@@ -319,10 +451,12 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
                 progressTable.putStartRow(row, nextStartRow);
                 progressTable.putCellsDeleted(row, cellsDeleted);
                 progressTable.putCellsExamined(row, cellsExamined);
+                if (progress.hasRange()) {
+                    progressTable.putRange(row, progress.getRange());
+                }
                 if (!progress.hasStartRow()) {
                     // This is the first set of results being written for this table.
-                    tableFactory.getSweepPriorityTable(t).putWriteCount(
-                            SweepPriorityRow.of(progress.getFullTableName()), 0L);
+                    resetWriteCounts(t, progress);
                 }
                 return null;
             }
@@ -335,20 +469,101 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
         txManager.runTaskWithRetry(new TxTask() {
             @Override
             public Void execute(Transaction t) {
-                SweepPriorityTable priorityTable = tableFactory.getSweepPriorityTable(t);
-                SweepPriorityRow row = SweepPriorityRow.of(progress.getFullTableName());
-                priorityTable.putCellsDeleted(row, cellsDeleted);
-                priorityTable.putCellsExamined(row, cellsExamined);
-                priorityTable.putLastSweepTime(row, System.currentTimeMillis());
                 if (!progress.hasStartRow()) {
                     // This is the first (and only) set of results being written for this table.
-                    priorityTable.putWriteCount(row, 0L);
+                    resetWriteCounts(t, progress);
+                }
+                long now = System.currentTimeMillis();
+                SweepPriorityTable priorityTable = tableFactory.getSweepPriorityTable(t);
+                SweepRangePriorityTable rangePriorityTable = tableFactory.getSweepRangePriorityTable(t);
+                SweepPriorityRow row = SweepPriorityRow.of(progress.getFullTableName());
+                if (progress.hasRange()) {
+                    SweepRangePriorityRow rangeRow = SweepRangePriorityRow.of(progress.getFullTableName(), progress.getRange());
+                    rangePriorityTable.putCellsDeleted(rangeRow, cellsDeleted);
+                    rangePriorityTable.putCellsExamined(rangeRow, cellsExamined);
+                    rangePriorityTable.putLastSweepTime(rangeRow, now);
+                    // The table as a whole is only as recently swept as its least recently swept range.
+                    Long tableLastSweepTime = priorityTable.getLastSweepTimes(ImmutableList.of(row)).get(row);
+                    long oldestSweepTime = now;
+                    for (SweepRangePriorityRowResult rangePriority : rangePriorityTable.getRows(getRangeRows(progress.getFullTableName()))) {
+                        if (!rangePriority.getRowName().equals(rangeRow)) {
+                            long rangeLastSweepTime = rangePriority.hasLastSweepTime()
+                                    ? rangePriority.getLastSweepTime()
+                                    : fromNullable(tableLastSweepTime);
+                            oldestSweepTime = Math.min(oldestSweepTime, rangeLastSweepTime);
+                        }
+                    }
+                    priorityTable.putLastSweepTime(row, oldestSweepTime);
+                } else {
+                    priorityTable.putCellsDeleted(row, cellsDeleted);
+                    priorityTable.putCellsExamined(row, cellsExamined);
+                    priorityTable.putLastSweepTime(row, now);
+                    for (SweepRangePriorityRowResult rangePriority : rangePriorityTable.getRows(getRangeRows(progress.getFullTableName()))) {
+                        rangePriorityTable.putLastSweepTime(rangePriority.getRowName(), now);
+                    }
                 }
                 return null;
             }
         });
     }
 
+    /**
+     * Returns the number of cells examined the last time the table (or range) being swept was
+     * swept, or zero if unknown. This is only read once per pass.
+     */
+    private long getExpectedCellsExamined(final SweepProgressRowResult progress) {
+        String pass = progress.getFullTableName() + (progress.hasRange() ? "/" + progress.getRange() : "");
+        if (!pass.equals(expectedCellsExaminedPass)) {
+            expectedCellsExamined = txManager.runTaskReadOnly(new RuntimeTransactionTask<Long>() {
+                @Override
+                public Long execute(Transaction t) {
+                    if (progress.hasRange()) {
+                        SweepRangePriorityRow row = SweepRangePriorityRow.of(progress.getFullTableName(), progress.getRange());
+                        return fromNullable(tableFactory.getSweepRangePriorityTable(t)
+                                .getCellsExamineds(ImmutableList.of(row)).get(row));
+                    }
+                    SweepPriorityRow row = SweepPriorityRow.of(progress.getFullTableName());
+                    return fromNullable(tableFactory.getSweepPriorityTable(t)
+                            .getCellsExamineds(ImmutableList.of(row)).get(row));
+                }
+            });
+            expectedCellsExaminedPass = pass;
+        }
+        return expectedCellsExamined;
+    }
+
+    /**
+     * Resets the write counts of whatever is about to be swept, so that writes made while
+     * sweeping are counted towards the next sweep.
+     */
+    private void resetWriteCounts(Transaction t, SweepProgressRowResult progress) {
+        SweepPriorityTable priorityTable = tableFactory.getSweepPriorityTable(t);
+        SweepRangePriorityTable rangePriorityTable = tableFactory.getSweepRangePriorityTable(t);
+        SweepPriorityRow row = SweepPriorityRow.of(progress.getFullTableName());
+        if (progress.hasRange()) {
+            SweepRangePriorityRow rangeRow = SweepRangePriorityRow.of(progress.getFullTableName(), progress.getRange());
+            long rangeWriteCount = fromNullable(rangePriorityTable.getWriteCounts(ImmutableList.of(rangeRow)).get(rangeRow));
+            long tableWriteCount = fromNullable(priorityTable.getWriteCounts(ImmutableList.of(row)).get(row));
+            priorityTable.putWriteCount(row, Math.max(0L, tableWriteCount - rangeWriteCount));
+            rangePriorityTable.putWriteCount(rangeRow, 0L);
+            rangePriorityTable.putDeleteCount(rangeRow, 0L);
+        } else {
+            priorityTable.putWriteCount(row, 0L);
+            for (SweepRangePriorityRowResult rangePriority : rangePriorityTable.getRows(getRangeRows(progress.getFullTableName()))) {
+                rangePriorityTable.putWriteCount(rangePriority.getRowName(), 0L);
+                rangePriorityTable.putDeleteCount(rangePriority.getRowName(), 0L);
+            }
+        }
+    }
+
+    private static List<SweepRangePriorityRow> getRangeRows(String tableName) {
+        List<SweepRangePriorityRow> rows = Lists.newArrayListWithCapacity(SweepStatsKeyValueService.NUM_SWEEP_RANGES);
+        for (int range = 0; range < SweepStatsKeyValueService.NUM_SWEEP_RANGES; range++) {
+            rows.add(SweepRangePriorityRow.of(tableName, range));
+        }
+        return rows;
+    }
+
     /**
      * Check whether the table being swept was dropped. If so, stop sweeping it and move on.
      * @return Whether the table being swept was dropped.
@@ -374,7 +589,7 @@ public class BackgroundSweeperImpl implements BackgroundSweeper {
         }
     }
 
-    private long fromNullable(Long num) {
+    private static long fromNullable(Long num) {
         return num == null ? 0L : num.longValue();
     }
 
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.sweep;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of millisecond latencies with power of two buckets.
+ */
+final class LatencyHistogram {
+    private static final int NUM_BUCKETS = 40;
+
+    // bucket i holds latencies in [2^(i-1), 2^i), and bucket 0 holds zero.
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+    void record(long millis) {
+        int bucket = millis <= 0 ? 0 : Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+        buckets.incrementAndGet(bucket);
+    }
+
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given quantile, or 0 if nothing was recorded.
+     */
+    long getQuantile(double quantile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return getUpperBound(i);
+            }
+        }
+        return getUpperBound(NUM_BUCKETS - 1);
+    }
+
+    long getMax() {
+        for (int i = NUM_BUCKETS - 1; i >= 0; i--) {
+            if (buckets.get(i) > 0) {
+                return getUpperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    private static long getUpperBound(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+}
@@ -25,6 +25,11 @@ public class NoOpSweepTaskRunner implements SweepTaskRunner {
         return new SweepResults(null, 0, 0);
     }
 
+    @Override
+    public SweepResults run(String tableName, int batchSize, byte[] startRow, byte[] endRow) {
+        return new SweepResults(null, 0, 0);
+    }
+
     @Override
     public long getSweepTimestamp(SweepStrategy sweepStrategy) {
         return 0;
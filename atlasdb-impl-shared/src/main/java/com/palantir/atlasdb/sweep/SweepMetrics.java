@@ -0,0 +1,319 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.sweep;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.SweepStrategy;
+import com.palantir.util.JMXUtils;
+
+/**
+ * Collects the progress of the background sweeper and scrubber and exposes it over JMX as
+ * {@link SweepMetricsMBean}. Every event is also passed on to the listeners added with
+ * {@link #addListener(SweepMetricsListener)}, which is the hook for external metrics registries.
+ */
+public class SweepMetrics implements SweepMetricsMBean, SweepMetricsListener {
+    private static final Logger log = LoggerFactory.getLogger(SweepMetrics.class);
+    private static final String OBJECT_NAME = "com.palantir.atlasdb:type=SweepMetrics";
+
+    // Weight of the latest batch in the smoothed rates.
+    private static final double RATE_SMOOTHING = 0.2;
+    // Counting the scrub queue scans it, so a monitor polling the depth only causes a scan this often.
+    private static final long SCRUB_QUEUE_DEPTH_CACHE_SECONDS = 60;
+
+    public static SweepMetrics create() {
+        return new SweepMetrics();
+    }
+
+    /**
+     * Creates the metrics and registers them with the platform MBean server.
+     */
+    public static SweepMetrics createAndRegister() {
+        SweepMetrics metrics = create();
+        JMXUtils.registerMBeanCatchAndLogExceptions(metrics, OBJECT_NAME);
+        return metrics;
+    }
+
+    private final List<SweepMetricsListener> listeners = new CopyOnWriteArrayList<SweepMetricsListener>();
+    private final AtomicLong cellsExamined = new AtomicLong();
+    private final AtomicLong cellsDeleted = new AtomicLong();
+    private final AtomicLong cellsScrubbed = new AtomicLong();
+    private final Rate examineRate = new Rate();
+    private final Rate deleteRate = new Rate();
+    private final Rate scrubRate = new Rate();
+    private final ConcurrentMap<String, Rate> examineRateByTable = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, Rate> deleteRateByTable = Maps.newConcurrentMap();
+    private final LatencyHistogram sweepBatchLatencies = new LatencyHistogram();
+    private final LatencyHistogram scrubBatchLatencies = new LatencyHistogram();
+    private volatile Pass currentPass = null;
+    private volatile SweepTaskRunner sweepRunner = null;
+    private volatile Supplier<Long> unreadableTimestampSupplier = null;
+    private volatile Supplier<Long> immutableTimestampSupplier = null;
+    private volatile Supplier<Long> scrubQueueDepthSupplier = null;
+
+    private SweepMetrics() {
+        // use the static factories
+    }
+
+    public void addListener(SweepMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Sets where the watermark timestamps are read from. Until this is called they are reported as -1.
+     */
+    public void setTimestampSuppliers(SweepTaskRunner sweepRunner,
+                                      Supplier<Long> unreadableTimestampSupplier,
+                                      Supplier<Long> immutableTimestampSupplier) {
+        this.sweepRunner = sweepRunner;
+        this.unreadableTimestampSupplier = unreadableTimestampSupplier;
+        this.immutableTimestampSupplier = immutableTimestampSupplier;
+    }
+
+    /**
+     * Sets how the scrub queue depth is counted. It is only counted when read, at most once a
+     * minute, and is reported as -1 until this is called.
+     */
+    public void setScrubQueueDepthSupplier(Supplier<Long> scrubQueueDepthSupplier) {
+        this.scrubQueueDepthSupplier = Suppliers.memoizeWithExpiration(
+                scrubQueueDepthSupplier, SCRUB_QUEUE_DEPTH_CACHE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Records how far the sweep of a table (or one of its ranges) has got, for estimating the time
+     * until it completes. expectedCellsExamined should be zero if unknown.
+     */
+    public void updateCurrentPass(String tableName, long cellsExaminedSoFar, long expectedCellsExamined) {
+        currentPass = new Pass(tableName, cellsExaminedSoFar, expectedCellsExamined);
+    }
+
+    public void clearCurrentPass() {
+        currentPass = null;
+    }
+
+    @Override
+    public void sweptBatch(String tableName, long batchCellsExamined, long batchCellsDeleted, long elapsedMillis) {
+        cellsExamined.addAndGet(batchCellsExamined);
+        cellsDeleted.addAndGet(batchCellsDeleted);
+        examineRate.update(batchCellsExamined, elapsedMillis);
+        deleteRate.update(batchCellsDeleted, elapsedMillis);
+        getRate(examineRateByTable, tableName).update(batchCellsExamined, elapsedMillis);
+        getRate(deleteRateByTable, tableName).update(batchCellsDeleted, elapsedMillis);
+        sweepBatchLatencies.record(elapsedMillis);
+        for (SweepMetricsListener listener : listeners) {
+            try {
+                listener.sweptBatch(tableName, batchCellsExamined, batchCellsDeleted, elapsedMillis);
+            } catch (RuntimeException e) {
+                log.warn("Sweep metrics listener " + listener + " failed.", e);
+            }
+        }
+    }
+
+    @Override
+    public void scrubbedBatch(long batchCellsScrubbed, long elapsedMillis) {
+        cellsScrubbed.addAndGet(batchCellsScrubbed);
+        scrubRate.update(batchCellsScrubbed, elapsedMillis);
+        scrubBatchLatencies.record(elapsedMillis);
+        for (SweepMetricsListener listener : listeners) {
+            try {
+                listener.scrubbedBatch(batchCellsScrubbed, elapsedMillis);
+            } catch (RuntimeException e) {
+                log.warn("Sweep metrics listener " + listener + " failed.", e);
+            }
+        }
+    }
+
+    @Override
+    public long getCellsExamined() {
+        return cellsExamined.get();
+    }
+
+    @Override
+    public long getCellsDeleted() {
+        return cellsDeleted.get();
+    }
+
+    @Override
+    public double getCellsExaminedPerSecond() {
+        return examineRate.get();
+    }
+
+    @Override
+    public double getCellsDeletedPerSecond() {
+        return deleteRate.get();
+    }
+
+    @Override
+    public Map<String, Double> getCellsExaminedPerSecondByTable() {
+        return getRates(examineRateByTable);
+    }
+
+    @Override
+    public Map<String, Double> getCellsDeletedPerSecondByTable() {
+        return getRates(deleteRateByTable);
+    }
+
+    @Override
+    public long getSweepBatchCount() {
+        return sweepBatchLatencies.getCount();
+    }
+
+    @Override
+    public long getSweepBatchMillisP50() {
+        return sweepBatchLatencies.getQuantile(0.5);
+    }
+
+    @Override
+    public long getSweepBatchMillisP95() {
+        return sweepBatchLatencies.getQuantile(0.95);
+    }
+
+    @Override
+    public long getSweepBatchMillisP99() {
+        return sweepBatchLatencies.getQuantile(0.99);
+    }
+
+    @Override
+    public long getSweepBatchMillisMax() {
+        return sweepBatchLatencies.getMax();
+    }
+
+    @Override
+    public String getCurrentTable() {
+        Pass pass = currentPass;
+        return pass == null ? "" : pass.tableName;
+    }
+
+    @Override
+    public long getEstimatedMillisToCompletePass() {
+        Pass pass = currentPass;
+        if (pass == null || pass.expectedCellsExamined <= 0) {
+            return -1L;
+        }
+        Rate rate = examineRateByTable.get(pass.tableName);
+        double cellsPerSecond = rate == null ? 0.0 : rate.get();
+        if (cellsPerSecond <= 0.0) {
+            return -1L;
+        }
+        long remainingCells = Math.max(0L, pass.expectedCellsExamined - pass.cellsExaminedSoFar);
+        return (long) (1000.0 * remainingCells / cellsPerSecond);
+    }
+
+    @Override
+    public long getConservativeSweepTimestamp() {
+        SweepTaskRunner runner = sweepRunner;
+        return runner == null ? -1L : runner.getSweepTimestamp(SweepStrategy.CONSERVATIVE);
+    }
+
+    @Override
+    public long getThoroughSweepTimestamp() {
+        SweepTaskRunner runner = sweepRunner;
+        return runner == null ? -1L : runner.getSweepTimestamp(SweepStrategy.THOROUGH);
+    }
+
+    @Override
+    public long getUnreadableTimestamp() {
+        return getOrDefault(unreadableTimestampSupplier);
+    }
+
+    @Override
+    public long getImmutableTimestamp() {
+        return getOrDefault(immutableTimestampSupplier);
+    }
+
+    @Override
+    public long getCellsScrubbed() {
+        return cellsScrubbed.get();
+    }
+
+    @Override
+    public double getCellsScrubbedPerSecond() {
+        return scrubRate.get();
+    }
+
+    @Override
+    public long getScrubBatchMillisP99() {
+        return scrubBatchLatencies.getQuantile(0.99);
+    }
+
+    @Override
+    public long getScrubQueueDepth() {
+        return getOrDefault(scrubQueueDepthSupplier);
+    }
+
+    private static long getOrDefault(@Nullable Supplier<Long> supplier) {
+        return supplier == null ? -1L : supplier.get();
+    }
+
+    private static Rate getRate(ConcurrentMap<String, Rate> rates, String tableName) {
+        Rate rate = rates.get(tableName);
+        if (rate == null) {
+            rates.putIfAbsent(tableName, new Rate());
+            rate = rates.get(tableName);
+        }
+        return rate;
+    }
+
+    private static Map<String, Double> getRates(Map<String, Rate> rates) {
+        ImmutableMap.Builder<String, Double> builder = ImmutableMap.builder();
+        for (Map.Entry<String, Rate> entry : rates.entrySet()) {
+            builder.put(entry.getKey(), entry.getValue().get());
+        }
+        return builder.build();
+    }
+
+    private static final class Rate {
+        @GuardedBy("this") private double perSecond = 0.0;
+        @GuardedBy("this") private boolean isEmpty = true;
+
+        synchronized void update(long count, long elapsedMillis) {
+            double latest = 1000.0 * count / Math.max(1L, elapsedMillis);
+            perSecond = isEmpty ? latest : perSecond + RATE_SMOOTHING * (latest - perSecond);
+            isEmpty = false;
+        }
+
+        synchronized double get() {
+            return perSecond;
+        }
+    }
+
+    private static final class Pass {
+        final String tableName;
+        final long cellsExaminedSoFar;
+        final long expectedCellsExamined;
+
+        Pass(String tableName, long cellsExaminedSoFar, long expectedCellsExamined) {
+            this.tableName = tableName;
+            this.cellsExaminedSoFar = cellsExaminedSoFar;
+            this.expectedCellsExamined = expectedCellsExamined;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.sweep;
+
+/**
+ * Receives the progress of sweep and scrub as it happens. Implement this to forward the numbers
+ * to a metrics registry, and add it to {@link SweepMetrics#addListener(SweepMetricsListener)}.
+ * <p>
+ * Callbacks run on the sweep and scrub threads and should return quickly.
+ */
+public interface SweepMetricsListener {
+    void sweptBatch(String tableName, long cellsExamined, long cellsDeleted, long elapsedMillis);
+
+    void scrubbedBatch(long cellsScrubbed, long elapsedMillis);
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.sweep;
+
+import java.util.Map;
+
+import javax.management.MXBean;
+
+/**
+ * Sweep and scrub progress. Rates are smoothed over recent batches and only measure the time
+ * spent sweeping or scrubbing, not the pauses between batches. Latencies are in milliseconds
+ * and percentiles are accurate to within a factor of two.
+ */
+@MXBean
+public interface SweepMetricsMBean {
+    long getCellsExamined();
+
+    long getCellsDeleted();
+
+    double getCellsExaminedPerSecond();
+
+    double getCellsDeletedPerSecond();
+
+    Map<String, Double> getCellsExaminedPerSecondByTable();
+
+    Map<String, Double> getCellsDeletedPerSecondByTable();
+
+    long getSweepBatchCount();
+
+    long getSweepBatchMillisP50();
+
+    long getSweepBatchMillisP95();
+
+    long getSweepBatchMillisP99();
+
+    long getSweepBatchMillisMax();
+
+    /**
+     * The table currently being swept, or the empty string if none is.
+     */
+    String getCurrentTable();
+
+    /**
+     * Estimated from the size of the table (or range) the last time it was swept and the current
+     * examine rate, or -1 if there is no estimate.
+     */
+    long getEstimatedMillisToCompletePass();
+
+    long getConservativeSweepTimestamp();
+
+    long getThoroughSweepTimestamp();
+
+    long getUnreadableTimestamp();
+
+    long getImmutableTimestamp();
+
+    long getCellsScrubbed();
+
+    double getCellsScrubbedPerSecond();
+
+    long getScrubBatchMillisP99();
+
+    /**
+     * The number of cells waiting to be scrubbed, counted up to 100,000. Counting scans the scrub
+     * queue, so the result is cached for a minute.
+     */
+    long getScrubQueueDepth();
+}
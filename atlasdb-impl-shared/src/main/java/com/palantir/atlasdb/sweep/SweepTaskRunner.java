@@ -22,5 +22,11 @@ import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.SweepStrat
 
 public interface SweepTaskRunner {
     public SweepResults run(String tableName, int batchSize, @Nullable byte[] startRow);
+
+    /**
+     * Sweeps a single batch of rows, stopping at endRow (exclusive). A null or empty endRow means
+     * sweeping up to the end of the table. The next start row is absent once endRow is reached.
+     */
+    public SweepResults run(String tableName, int batchSize, @Nullable byte[] startRow, @Nullable byte[] endRow);
     public long getSweepTimestamp(SweepStrategy sweepStrategy);
 }
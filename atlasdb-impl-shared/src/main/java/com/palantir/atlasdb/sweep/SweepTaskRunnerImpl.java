@@ -22,6 +22,7 @@ import java.util.Set;
 import java.util.SortedSet;
 
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 import org.apache.commons.lang.Validate;
 import org.slf4j.Logger;
@@ -34,6 +35,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
@@ -55,7 +58,6 @@ import com.palantir.atlasdb.transaction.api.TransactionManager;
 import com.palantir.atlasdb.transaction.impl.SweepStrategyManager;
 import com.palantir.atlasdb.transaction.impl.TransactionConstants;
 import com.palantir.atlasdb.transaction.service.TransactionService;
-import com.palantir.common.annotation.Modified;
 import com.palantir.common.annotation.Output;
 import com.palantir.common.base.ClosableIterator;
 import com.palantir.common.base.ClosableIterators;
@@ -68,6 +70,8 @@ import com.palantir.common.base.ClosableIterators;
 public class SweepTaskRunnerImpl implements SweepTaskRunner {
     private static final Logger log = LoggerFactory.getLogger(SweepTaskRunnerImpl.class);
     private static final Set<Long> invalidTimestamps = ImmutableSet.of(Value.INVALID_VALUE_TIMESTAMP);
+    // Roughly ten megabytes; bulk loads tend to write many cells under few start timestamps.
+    private static final int MAX_COMMIT_TS_CACHE_SIZE = 100000;
 
     private final TransactionManager txManager;
     private final KeyValueService keyValueService;
@@ -76,6 +80,8 @@ public class SweepTaskRunnerImpl implements SweepTaskRunner {
     private final TransactionService transactionService;
     private final SweepStrategyManager sweepStrategyManager;
     private final Collection<Follower> followers;
+    // Commit timestamps never change once set, so they can be cached across sweep batches.
+    @GuardedBy("this") private final Map<Long, Long> commitTsCache = Maps.newHashMap();
 
     public SweepTaskRunnerImpl(TransactionManager txManager,
                            KeyValueService keyValueService,
@@ -95,6 +101,11 @@ public class SweepTaskRunnerImpl implements SweepTaskRunner {
 
     @Override
     public SweepResults run(String tableName, int batchSize, @Nullable byte[] startRow) {
+        return run(tableName, batchSize, startRow, null);
+    }
+
+    @Override
+    public SweepResults run(String tableName, int batchSize, @Nullable byte[] startRow, @Nullable byte[] endRow) {
         Preconditions.checkNotNull(tableName);
         Preconditions.checkState(!AtlasDbConstants.hiddenTables.contains(tableName));
 
@@ -131,7 +142,11 @@ public class SweepTaskRunnerImpl implements SweepTaskRunner {
         if (startRow == null) {
             startRow = new byte[0];
         }
-        RangeRequest rangeRequest = RangeRequest.builder().startRowInclusive(startRow).batchHint(batchSize).build();
+        RangeRequest.Builder rangeRequestBuilder = RangeRequest.builder().startRowInclusive(startRow).batchHint(batchSize);
+        if (endRow != null && endRow.length > 0) {
+            rangeRequestBuilder.endRowExclusive(endRow);
+        }
+        RangeRequest rangeRequest = rangeRequestBuilder.build();
 
         long sweepTimestamp = getSweepTimestamp(sweepStrategy);
         ClosableIterator<RowResult<Value>> valueResults;
@@ -153,6 +168,10 @@ public class SweepTaskRunnerImpl implements SweepTaskRunner {
             sweepCells(tableName, cellTsPairsToSweep, sentinelsToAdd);
             byte[] nextRow = rowResultTimestamps.size() < batchSize ? null :
                 RangeRequests.getNextStartRow(false, Iterables.getLast(rowResultTimestamps).getRowName());
+            if (nextRow != null && endRow != null && endRow.length > 0
+                    && UnsignedBytes.lexicographicalComparator().compare(nextRow, endRow) >= 0) {
+                nextRow = null;
+            }
             return new SweepResults(nextRow, rowResultTimestamps.size(), cellTsPairsToSweep.size());
         } finally {
             rowResults.close();
@@ -191,7 +210,7 @@ public class SweepTaskRunnerImpl implements SweepTaskRunner {
                                                        @Output Set<Cell> sentinelsToAdd) {
         Multimap<Cell, Long> cellTsMappingsToSweep = HashMultimap.create();
 
-        Map<Long, Long> startTsToCommitTs = transactionService.get(cellTsMappings.values());
+        Map<Long, Long> startTsToCommitTs = getCommitTimestamps(ImmutableSet.copyOf(cellTsMappings.values()));
         for (Map.Entry<Cell, Collection<Long>> entry : cellTsMappings.asMap().entrySet()) {
             Cell cell = entry.getKey();
             Collection<Long> timestamps = entry.getValue();
@@ -227,7 +246,7 @@ public class SweepTaskRunnerImpl implements SweepTaskRunner {
 
     private Set<Long> getTimestampsToSweep(Cell cell,
                                            Collection<Long> timestamps /* start timestamps */,
-                                           @Modified Map<Long, Long> startTsToCommitTs,
+                                           Map<Long, Long> startTsToCommitTs,
                                            @Output Set<Cell> sentinelsToAdd,
                                            long sweepTimestamp,
                                            boolean sweepLastCommitted,
@@ -237,7 +256,7 @@ public class SweepTaskRunnerImpl implements SweepTaskRunner {
         long maxStartTs = TransactionConstants.FAILED_COMMIT_TS;
         boolean maxStartTsIsCommitted = false;
         for (long startTs : timestamps) {
-            long commitTs = ensureCommitTimestampExists(startTs, startTsToCommitTs);
+            long commitTs = startTsToCommitTs.get(startTs);
 
             if (startTs > maxStartTs && commitTs < sweepTimestamp) {
                 maxStartTs = startTs;
@@ -272,25 +291,79 @@ public class SweepTaskRunnerImpl implements SweepTaskRunner {
                 committedTimestampsToSweep.subSet(0L, committedTimestampsToSweep.last()));
     }
 
-    private long ensureCommitTimestampExists(Long startTs, @Modified Map<Long, Long> startTsToCommitTs) {
-        Long commitTs = startTsToCommitTs.get(startTs);
-        if (commitTs == null) {
-            // Roll back this transaction (note that rolling back arbitrary transactions
-            // can never cause correctness issues, only liveness issues)
+    /**
+     * Looks up the commit timestamps of the given start timestamps, first in the cache and then
+     * in the transaction service. Transactions with no commit timestamp are rolled back in a
+     * single batch (note that rolling back arbitrary transactions can never cause correctness
+     * issues, only liveness issues).
+     */
+    private Map<Long, Long> getCommitTimestamps(Set<Long> startTimestamps) {
+        Map<Long, Long> startTsToCommitTs = Maps.newHashMapWithExpectedSize(startTimestamps.size());
+        List<Long> uncachedStartTimestamps = Lists.newArrayList();
+        synchronized (this) {
+            for (Long startTs : startTimestamps) {
+                Long commitTs = commitTsCache.get(startTs);
+                if (commitTs != null) {
+                    startTsToCommitTs.put(startTs, commitTs);
+                } else {
+                    uncachedStartTimestamps.add(startTs);
+                }
+            }
+        }
+        if (uncachedStartTimestamps.isEmpty()) {
+            return startTsToCommitTs;
+        }
+
+        Map<Long, Long> loadedCommitTimestamps = Maps.newHashMap(transactionService.get(uncachedStartTimestamps));
+        Map<Long, Long> rollbacks = Maps.newHashMap();
+        for (Long startTs : uncachedStartTimestamps) {
+            if (!loadedCommitTimestamps.containsKey(startTs)) {
+                rollbacks.put(startTs, TransactionConstants.FAILED_COMMIT_TS);
+            }
+        }
+        if (!rollbacks.isEmpty()) {
             try {
-                // TODO: carrino: use the batched version of putUnlessExists when it is available.
-                transactionService.putUnlessExists(startTs, TransactionConstants.FAILED_COMMIT_TS);
+                transactionService.putUnlessExists(rollbacks);
             } catch (KeyAlreadyExistsException e) {
-                String msg = "Could not roll back transaction with start timestamp " + startTs + "; either" +
-                        " it was already rolled back (by a different transaction), or it committed successfully" +
-                        " before we could roll it back.";
+                String msg = "Could not roll back all of the transactions with start timestamps " +
+                        rollbacks.keySet() + "; either some were already rolled back (by a different" +
+                        " transaction), or they committed successfully before we could roll them back.";
                 log.error("This isn't a bug but it should be very infrequent. " + msg,
                         new TransactionFailedRetriableException(msg, e));
             }
-            commitTs = transactionService.get(startTs);
-            Validate.notNull(commitTs);
-            startTsToCommitTs.put(startTs, commitTs);
+            Map<Long, Long> rolledBackCommitTimestamps = Maps.newHashMap(transactionService.get(rollbacks.keySet()));
+            for (Long startTs : rollbacks.keySet()) {
+                if (!rolledBackCommitTimestamps.containsKey(startTs)) {
+                    // A failed batch may have stopped before getting to this one.
+                    rolledBackCommitTimestamps.put(startTs, rollBack(startTs));
+                }
+            }
+            loadedCommitTimestamps.putAll(rolledBackCommitTimestamps);
+        }
+
+        synchronized (this) {
+            if (commitTsCache.size() + loadedCommitTimestamps.size() > MAX_COMMIT_TS_CACHE_SIZE) {
+                commitTsCache.clear();
+            }
+            boolean shouldCache = loadedCommitTimestamps.size() <= MAX_COMMIT_TS_CACHE_SIZE;
+            for (Map.Entry<Long, Long> entry : loadedCommitTimestamps.entrySet()) {
+                startTsToCommitTs.put(entry.getKey(), entry.getValue());
+                if (shouldCache) {
+                    commitTsCache.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return startTsToCommitTs;
+    }
+
+    private long rollBack(long startTs) {
+        try {
+            transactionService.putUnlessExists(startTs, TransactionConstants.FAILED_COMMIT_TS);
+        } catch (KeyAlreadyExistsException e) {
+            // Either way, the transaction service now has its commit timestamp.
         }
+        Long commitTs = transactionService.get(startTs);
+        Validate.notNull(commitTs);
         return commitTs;
     }
 
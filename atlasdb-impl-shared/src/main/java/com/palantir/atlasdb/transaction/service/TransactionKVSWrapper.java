@@ -77,15 +77,24 @@ public class TransactionKVSWrapper {
         keyValueService.putUnlessExists(TransactionConstants.TRANSACTION_TABLE, ImmutableMap.of(key, value));
     }
 
+    // It works only if key-value store supports putUnlessExists.
+    public void putUnlessExists(Map<Long, Long> timestampMap) throws KeyAlreadyExistsException {
+        keyValueService.putUnlessExists(TransactionConstants.TRANSACTION_TABLE, toCells(timestampMap));
+    }
+
     public void putAll(Map<Long, Long> timestampMap) throws KeyAlreadyExistsException {
+        Map<Cell, byte[]> kvMap = toCells(timestampMap);
+        keyValueService.put(TransactionConstants.TRANSACTION_TABLE, kvMap, 0); // This can throw unchecked exceptions
+    }
+
+    private static Map<Cell, byte[]> toCells(Map<Long, Long> timestampMap) {
         Map<Cell, byte[]> kvMap = new HashMap<Cell, byte[]> ();
         for (Map.Entry<Long, Long> entry: timestampMap.entrySet()) {
             kvMap.put(
                     getTransactionCell(entry.getKey()),
                     TransactionConstants.getValueForTimestamp(entry.getValue()));
         }
-
-        keyValueService.put(TransactionConstants.TRANSACTION_TABLE, kvMap, 0); // This can throw unchecked exceptions
+        return kvMap;
     }
 
 }
@@ -78,8 +78,8 @@ public class DynamicPartitionMapManager {
         return null;
     }
 
-    public void addEndpoint(String kvsUri, String pmsUri, final byte[] key, String rack, Scanner scanner) {
-        final SimpleKeyValueEndpoint skve = SimpleKeyValueEndpoint.create(kvsUri, pmsUri, rack);
+    public void addEndpoint(String kvsUri, String pmsUri, final byte[] key, String rack, boolean binary, Scanner scanner) {
+        final SimpleKeyValueEndpoint skve = SimpleKeyValueEndpoint.create(kvsUri, pmsUri, rack, binary);
 
         runRetryableTask(new Callable<Void>() {
             @Override
@@ -180,14 +180,16 @@ public class DynamicPartitionMapManager {
         System.out.print("Enter rack name: ");
         String rack = scanner.nextLine();
 
-        System.out.println("Adding " + SimpleKeyValueEndpoint.create(kvsUri, pmsUri, rack) + " at key " + Arrays.toString(key));
+        boolean binary = readBinary(scanner);
+
+        System.out.println("Adding " + SimpleKeyValueEndpoint.create(kvsUri, pmsUri, rack, binary) + " at key " + Arrays.toString(key));
         System.out.print("y/n? ");
         if (!scanner.nextLine().equals("y")) {
             System.out.println("Aborting.");
             return;
         }
 
-        addEndpoint(kvsUri, pmsUri, key, rack, scanner);
+        addEndpoint(kvsUri, pmsUri, key, rack, binary, scanner);
     }
 
     public void removeEndpointInteractive(Scanner scanner) {
@@ -222,6 +224,11 @@ public class DynamicPartitionMapManager {
         return key;
     }
 
+    private static boolean readBinary(Scanner scanner) {
+        System.out.print("Use the binary protocol (server must support it)? (y/n): ");
+        return scanner.nextLine().trim().equalsIgnoreCase("y");
+    }
+
     public void updateLocalMapInteractive(Scanner scanner) {
         System.out.println("Updating local map");
         System.out.println("Enter PMS Uri to download new map: ");
@@ -282,7 +289,8 @@ public class DynamicPartitionMapManager {
                     System.out.print("rack: ");
                     String rack = scanner.nextLine();
                     byte[] key = readKey(scanner);
-                    SimpleKeyValueEndpoint kve = SimpleKeyValueEndpoint.create(kvsUri, pmsUri, rack);
+                    boolean binary = readBinary(scanner);
+                    SimpleKeyValueEndpoint kve = SimpleKeyValueEndpoint.create(kvsUri, pmsUri, rack, binary);
                     initialRing.put(key, kve);
                 }
 
@@ -92,6 +92,18 @@ public interface AtlasDbService {
     void delete(@PathParam("token") TransactionToken token,
                 TableCell cells);
 
+    /**
+     * Runs the operations of the batch in order and returns all of their results at once.
+     * See {@link BatchRequest} for how the batch is committed.
+     */
+    @Idempotent
+    @POST
+    @Path("batch/{token}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    BatchResult batch(@PathParam("token") TransactionToken token,
+                      BatchRequest batch);
+
     @Idempotent
     @POST
     @Path("commit/{token}")
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.api;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * One operation of a {@link BatchRequest}. The arguments are those of the {@link AtlasDbService}
+ * method of the same name.
+ * <pre>
+ * {
+ *   "op": "getRows" | "getCells" | "getRange" | "put" | "delete",
+ *   "args": &lt;arguments>
+ * }
+ * </pre>
+ */
+public class BatchOperation {
+    public enum Type {
+        GET_ROWS("getRows", TableRowSelection.class, TableRowResult.class),
+        GET_CELLS("getCells", TableCell.class, TableCellVal.class),
+        GET_RANGE("getRange", TableRange.class, RangeToken.class),
+        PUT("put", TableCellVal.class, null),
+        DELETE("delete", TableCell.class, null);
+
+        private final String name;
+        private final Class<?> argumentClass;
+        private final @Nullable Class<?> resultClass;
+
+        private Type(String name, Class<?> argumentClass, @Nullable Class<?> resultClass) {
+            this.name = name;
+            this.argumentClass = argumentClass;
+            this.resultClass = resultClass;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class<?> getArgumentClass() {
+            return argumentClass;
+        }
+
+        /**
+         * @return the class of the result of this operation, or null if it has none
+         */
+        public @Nullable Class<?> getResultClass() {
+            return resultClass;
+        }
+
+        public static Type fromName(String name) {
+            for (Type type : values()) {
+                if (type.name.equals(name)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown batch operation " + name);
+        }
+    }
+
+    private final Type type;
+    private final Object argument;
+
+    public BatchOperation(Type type, Object argument) {
+        this.type = Preconditions.checkNotNull(type);
+        this.argument = Preconditions.checkNotNull(argument);
+        Preconditions.checkArgument(type.getArgumentClass().isInstance(argument),
+                "The %s operation takes a %s.", type.getName(), type.getArgumentClass().getSimpleName());
+    }
+
+    public static BatchOperation getRows(TableRowSelection rows) {
+        return new BatchOperation(Type.GET_ROWS, rows);
+    }
+
+    public static BatchOperation getCells(TableCell cells) {
+        return new BatchOperation(Type.GET_CELLS, cells);
+    }
+
+    public static BatchOperation getRange(TableRange range) {
+        return new BatchOperation(Type.GET_RANGE, range);
+    }
+
+    public static BatchOperation put(TableCellVal data) {
+        return new BatchOperation(Type.PUT, data);
+    }
+
+    public static BatchOperation delete(TableCell cells) {
+        return new BatchOperation(Type.DELETE, cells);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Object getArgument() {
+        return argument;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchOperation [type=" + type + ", argument=" + argument + "]";
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.api;
+
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Operations to run in order in one transaction, so that a client only makes one request for
+ * all of them.
+ * <pre>
+ * {
+ *   "ops": [&lt;operation>, ...],
+ *   "commit": true | false
+ * }
+ * </pre>
+ * With an auto-commit token the whole batch is a single transaction that is committed before
+ * the response is sent, and "commit" is ignored. With the token of an open transaction the
+ * operations run in that transaction, which is only committed afterwards if "commit" is true.
+ */
+public class BatchRequest {
+    private final List<BatchOperation> operations;
+    private final boolean commit;
+
+    public BatchRequest(List<BatchOperation> operations, boolean commit) {
+        this.operations = ImmutableList.copyOf(operations);
+        this.commit = commit;
+        Preconditions.checkArgument(!this.operations.isEmpty(), "A batch needs at least one operation.");
+    }
+
+    public List<BatchOperation> getOperations() {
+        return operations;
+    }
+
+    public boolean shouldCommit() {
+        return commit;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchRequest [operations=" + operations + ", commit=" + commit + "]";
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The results of a {@link BatchRequest}, one for each operation and in the same order.
+ * Operations without a result (put and delete) have no "data".
+ * <pre>
+ * [
+ *   {
+ *     "op": &lt;operation name>,
+ *     "data": &lt;result>
+ *   },
+ *   ...
+ * ]
+ * </pre>
+ */
+public class BatchResult {
+    private final List<BatchOperation.Type> types;
+    private final List<Object> results;
+
+    public BatchResult(List<BatchOperation.Type> types, List<?> results) {
+        Preconditions.checkArgument(types.size() == results.size(), "There must be one result for each operation.");
+        this.types = ImmutableList.copyOf(types);
+        this.results = Collections.unmodifiableList(new ArrayList<Object>(results));
+    }
+
+    public List<BatchOperation.Type> getTypes() {
+        return types;
+    }
+
+    public List<Object> getResults() {
+        return results;
+    }
+
+    /**
+     * Returns the result of the operation at the given index, or null if that operation has none.
+     */
+    public @Nullable <T> T getResult(int index, Class<T> resultClass) {
+        return resultClass.cast(results.get(index));
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult [types=" + types + ", results=" + results + "]";
+    }
+}
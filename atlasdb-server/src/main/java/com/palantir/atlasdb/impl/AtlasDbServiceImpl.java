@@ -15,6 +15,8 @@
  */
 package com.palantir.atlasdb.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -22,11 +24,19 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.palantir.atlasdb.api.AtlasDbService;
+import com.palantir.atlasdb.api.BatchOperation;
+import com.palantir.atlasdb.api.BatchRequest;
+import com.palantir.atlasdb.api.BatchResult;
 import com.palantir.atlasdb.api.RangeToken;
 import com.palantir.atlasdb.api.TableCell;
 import com.palantir.atlasdb.api.TableCellVal;
@@ -34,6 +44,7 @@ import com.palantir.atlasdb.api.TableRange;
 import com.palantir.atlasdb.api.TableRowResult;
 import com.palantir.atlasdb.api.TableRowSelection;
 import com.palantir.atlasdb.api.TransactionToken;
+import com.palantir.atlasdb.jackson.AtlasSerializers;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
@@ -49,9 +60,11 @@ import com.palantir.atlasdb.table.description.ValueType;
 import com.palantir.atlasdb.transaction.api.ConflictHandler;
 import com.palantir.atlasdb.transaction.api.RuntimeTransactionTask;
 import com.palantir.atlasdb.transaction.api.Transaction;
+import com.palantir.atlasdb.transaction.api.TransactionTask;
 import com.palantir.atlasdb.transaction.impl.RawTransaction;
 import com.palantir.atlasdb.transaction.impl.SerializableTransactionManager;
 import com.palantir.atlasdb.transaction.impl.TxTask;
+import com.palantir.common.base.AbortingVisitor;
 import com.palantir.common.base.BatchingVisitable;
 import com.palantir.common.base.BatchingVisitables;
 import com.palantir.lock.LockRefreshToken;
@@ -63,6 +76,7 @@ public class AtlasDbServiceImpl implements AtlasDbService {
             NameMetadataDescription.create(ImmutableList.of(new NameComponentDescription("row", ValueType.STRING))),
             new ColumnMetadataDescription(new DynamicColumnDescription(NameMetadataDescription.create(ImmutableList.of(new NameComponentDescription("col", ValueType.STRING))), ColumnValueDescription.forType(ValueType.STRING))),
             ConflictHandler.SERIALIZABLE);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
     private final KeyValueService kvs;
     private final SerializableTransactionManager txManager;
@@ -100,48 +114,122 @@ public class AtlasDbServiceImpl implements AtlasDbService {
         return runReadOnly(token, new RuntimeTransactionTask<TableRowResult>() {
             @Override
             public TableRowResult execute(Transaction t) {
-                Collection<RowResult<byte[]>> values = t.getRows(
-                        rows.getTableName(), rows.getRows(), rows.getColumnSelection()).values();
-                return new TableRowResult(rows.getTableName(), values);
+                return getRows(t, rows);
             }
         });
     }
 
+    private static TableRowResult getRows(Transaction t, TableRowSelection rows) {
+        Collection<RowResult<byte[]>> values = t.getRows(
+                rows.getTableName(), rows.getRows(), rows.getColumnSelection()).values();
+        return new TableRowResult(rows.getTableName(), values);
+    }
+
     @Override
     public TableCellVal getCells(TransactionToken token,
                                  final TableCell cells) {
         return runReadOnly(token, new RuntimeTransactionTask<TableCellVal>() {
             @Override
             public TableCellVal execute(Transaction t) {
-                Map<Cell, byte[]> values = t.get(cells.getTableName(), ImmutableSet.copyOf(cells.getCells()));
-                return new TableCellVal(cells.getTableName(), values);
+                return getCells(t, cells);
             }
         });
     }
 
+    private static TableCellVal getCells(Transaction t, TableCell cells) {
+        Map<Cell, byte[]> values = t.get(cells.getTableName(), ImmutableSet.copyOf(cells.getCells()));
+        return new TableCellVal(cells.getTableName(), values);
+    }
+
     @Override
     public RangeToken getRange(TransactionToken token,
                                final TableRange range) {
         return runReadOnly(token, new RuntimeTransactionTask<RangeToken>() {
             @Override
             public RangeToken execute(Transaction t) {
-                int limit = range.getBatchSize();
-                RangeRequest request = RangeRequest.builder()
-                    .startRowInclusive(range.getStartRow())
-                    .endRowExclusive(range.getEndRow())
-                    .batchHint(limit)
-                    .retainColumns(range.getColumns())
-                    .build();
-                BatchingVisitable<RowResult<byte[]>> visitable = t.getRange(range.getTableName(), request);
-                List<RowResult<byte[]>> results = BatchingVisitables.limit(visitable, limit).immutableCopy();
-                TableRowResult data = new TableRowResult(range.getTableName(), results);
-                if (results.size() == limit) {
-                    RowResult<byte[]> lastResult = results.get(limit - 1);
-                    TableRange nextRange = range.withStartRow(RangeRequests.nextLexicographicName(lastResult.getRowName()));
-                    return new RangeToken(data, nextRange);
+                return getRange(t, range);
+            }
+        });
+    }
+
+    private static RangeToken getRange(Transaction t, TableRange range) {
+        int limit = range.getBatchSize();
+        BatchingVisitable<RowResult<byte[]>> visitable = t.getRange(range.getTableName(), toRangeRequest(range));
+        List<RowResult<byte[]>> results = BatchingVisitables.limit(visitable, limit).immutableCopy();
+        TableRowResult data = new TableRowResult(range.getTableName(), results);
+        if (results.size() == limit) {
+            RowResult<byte[]> lastResult = results.get(limit - 1);
+            TableRange nextRange = range.withStartRow(RangeRequests.nextLexicographicName(lastResult.getRowName()));
+            return new RangeToken(data, nextRange);
+        } else {
+            return new RangeToken(data, null);
+        }
+    }
+
+    private static RangeRequest toRangeRequest(TableRange range) {
+        return RangeRequest.builder()
+            .startRowInclusive(range.getStartRow())
+            .endRowExclusive(range.getEndRow())
+            .batchHint(range.getBatchSize())
+            .retainColumns(range.getColumns())
+            .build();
+    }
+
+    /**
+     * Writes every row of the range as one {@link TableRowResult}, reading and sending them a
+     * batch of {@link TableRange#getBatchSize()} rows at a time. Served by
+     * {@link AtlasDbStreamingResource}.
+     */
+    public StreamingOutput streamRange(final TransactionToken token,
+                                       final TableRange range) {
+        final TableMetadata metadata = metadataCache.getMetadata(range.getTableName());
+        Preconditions.checkNotNull(metadata, "Unknown table %s", range.getTableName());
+        if (!token.shouldAutoCommit()) {
+            Preconditions.checkNotNull(transactions.getIfPresent(token), "The given transaction does not exist.");
+        }
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                final JsonGenerator jgen = JSON_FACTORY.createGenerator(output);
+                jgen.writeStartObject();
+                jgen.writeStringField("table", range.getTableName());
+                jgen.writeArrayFieldStart("data");
+                TransactionTask<Void, IOException> task = new TransactionTask<Void, IOException>() {
+                    @Override
+                    public Void execute(Transaction t) throws IOException {
+                        streamRange(t, range, metadata, jgen);
+                        return null;
+                    }
+                };
+                if (token.shouldAutoCommit()) {
+                    // Nothing is written, so there is nothing to retry or conflict on.
+                    txManager.runTaskReadOnly(task);
                 } else {
-                    return new RangeToken(data, null);
+                    RawTransaction tx = transactions.getIfPresent(token);
+                    Preconditions.checkNotNull(tx, "The given transaction does not exist.");
+                    task.execute(tx);
                 }
+                jgen.writeEndArray();
+                jgen.writeEndObject();
+                jgen.flush();
+            }
+        };
+    }
+
+    private static void streamRange(Transaction t,
+                                    TableRange range,
+                                    final TableMetadata metadata,
+                                    final JsonGenerator jgen) throws IOException {
+        BatchingVisitable<RowResult<byte[]>> visitable = t.getRange(range.getTableName(), toRangeRequest(range));
+        visitable.batchAccept(range.getBatchSize(), new AbortingVisitor<List<RowResult<byte[]>>, IOException>() {
+            @Override
+            public boolean visit(List<RowResult<byte[]>> batch) throws IOException {
+                for (RowResult<byte[]> result : batch) {
+                    AtlasSerializers.serializeRowResult(jgen, metadata, result);
+                }
+                // Sends the batch as its own chunk; this blocks while the client is not reading.
+                jgen.flush();
+                return true;
             }
         });
     }
@@ -152,24 +240,83 @@ public class AtlasDbServiceImpl implements AtlasDbService {
         runWithRetry(token, new TxTask() {
             @Override
             public Void execute(Transaction t) {
-                t.put(data.getTableName(), data.getResults());
+                put(t, data);
                 return null;
             }
         });
     }
 
+    private static void put(Transaction t, TableCellVal data) {
+        t.put(data.getTableName(), data.getResults());
+    }
+
     @Override
     public void delete(TransactionToken token,
                        final TableCell cells) {
         runWithRetry(token, new TxTask() {
             @Override
             public Void execute(Transaction t) {
-                t.delete(cells.getTableName(), ImmutableSet.copyOf(cells.getCells()));
+                delete(t, cells);
                 return null;
             }
         });
     }
 
+    private static void delete(Transaction t, TableCell cells) {
+        t.delete(cells.getTableName(), ImmutableSet.copyOf(cells.getCells()));
+    }
+
+    @Override
+    public BatchResult batch(TransactionToken token,
+                             final BatchRequest batch) {
+        RuntimeTransactionTask<BatchResult> task = new RuntimeTransactionTask<BatchResult>() {
+            @Override
+            public BatchResult execute(Transaction t) {
+                return runBatch(t, batch.getOperations());
+            }
+        };
+        if (token.shouldAutoCommit()) {
+            // The whole batch is one transaction, retried as a whole on conflict.
+            return txManager.runTaskWithRetry(task);
+        }
+        BatchResult result = runWithRetry(token, task);
+        if (batch.shouldCommit()) {
+            commit(token);
+        }
+        return result;
+    }
+
+    private static BatchResult runBatch(Transaction t, List<BatchOperation> operations) {
+        List<BatchOperation.Type> types = Lists.newArrayListWithCapacity(operations.size());
+        List<Object> results = Lists.newArrayListWithCapacity(operations.size());
+        for (BatchOperation operation : operations) {
+            Object argument = operation.getArgument();
+            switch (operation.getType()) {
+            case GET_ROWS:
+                results.add(getRows(t, (TableRowSelection) argument));
+                break;
+            case GET_CELLS:
+                results.add(getCells(t, (TableCell) argument));
+                break;
+            case GET_RANGE:
+                results.add(getRange(t, (TableRange) argument));
+                break;
+            case PUT:
+                put(t, (TableCellVal) argument);
+                results.add(null);
+                break;
+            case DELETE:
+                delete(t, (TableCell) argument);
+                results.add(null);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown batch operation " + operation.getType());
+            }
+            types.add(operation.getType());
+        }
+        return new BatchResult(types, results);
+    }
+
     private <T> T runReadOnly(TransactionToken token, RuntimeTransactionTask<T> task) {
         if (token.shouldAutoCommit()) {
             return txManager.runTaskWithRetry(task);
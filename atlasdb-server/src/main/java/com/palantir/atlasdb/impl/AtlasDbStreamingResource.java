@@ -0,0 +1,61 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.impl;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.palantir.atlasdb.api.AtlasDbService;
+import com.palantir.atlasdb.api.TableRange;
+import com.palantir.atlasdb.api.TableRowResult;
+import com.palantir.atlasdb.api.TransactionToken;
+import com.palantir.common.annotation.Idempotent;
+
+/**
+ * Endpoints that live next to {@link AtlasDbService} but are not part of it, because a Feign
+ * client built from that interface could not decode their responses. Clients read the raw
+ * response body instead.
+ */
+@Path("/atlasdb")
+public class AtlasDbStreamingResource {
+    private final AtlasDbServiceImpl service;
+
+    public AtlasDbStreamingResource(AtlasDbServiceImpl service) {
+        this.service = service;
+    }
+
+    /**
+     * Writes every row of the range as one {@link TableRowResult}, reading and sending them a
+     * batch of {@link TableRange#getBatchSize()} rows at a time instead of returning only the
+     * first batch. The response is chunked, and writes block while the client is not reading.
+     * If the scan fails after the first batch was sent, the response ends without closing the
+     * JSON document.
+     */
+    @Idempotent
+    @POST
+    @Path("stream-range/{token}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public StreamingOutput streamRange(@PathParam("token") TransactionToken token,
+                                       TableRange rangeRequest) {
+        return service.streamRange(token, rangeRequest);
+    }
+}
@@ -16,7 +16,9 @@
 package com.palantir.atlasdb.jackson;
 
 import java.io.IOException;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SortedMap;
 
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -25,6 +27,7 @@ import com.google.common.primitives.UnsignedBytes;
 import com.google.protobuf.Message;
 import com.googlecode.protobuf.format.JsonFormat;
 import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.ptobject.EncodingUtils;
 import com.palantir.atlasdb.table.description.ColumnMetadataDescription;
 import com.palantir.atlasdb.table.description.ColumnValueDescription;
@@ -33,6 +36,7 @@ import com.palantir.atlasdb.table.description.DynamicColumnDescription;
 import com.palantir.atlasdb.table.description.NameComponentDescription;
 import com.palantir.atlasdb.table.description.NameMetadataDescription;
 import com.palantir.atlasdb.table.description.NamedColumnDescription;
+import com.palantir.atlasdb.table.description.TableMetadata;
 import com.palantir.util.Pair;
 
 public class AtlasSerializers {
@@ -126,4 +130,38 @@ public class AtlasSerializers {
             throw new EnumConstantNotPresentException(Format.class, description.getFormat().name());
         }
     }
+
+    public static void serializeRowResult(JsonGenerator jgen,
+                                          TableMetadata metadata,
+                                          RowResult<byte[]> result) throws IOException, JsonGenerationException {
+        jgen.writeStartObject(); {
+            serializeRow(jgen, metadata.getRowMetadata(), result.getRowName());
+
+            ColumnMetadataDescription columns = metadata.getColumns();
+            if (columns.hasDynamicColumns()) {
+                jgen.writeArrayFieldStart("cols"); {
+                    for (Entry<byte[], byte[]> colVal : result.getColumns().entrySet()) {
+                        jgen.writeStartObject(); {
+                            byte[] col = colVal.getKey();
+                            byte[] val = colVal.getValue();
+                            DynamicColumnDescription dynamicColumn = columns.getDynamicColumn();
+                            serializeDynamicColumn(jgen, dynamicColumn, col);
+                            jgen.writeFieldName("val");
+                            serializeVal(jgen, dynamicColumn.getValue(), val);
+                        } jgen.writeEndObject();
+                    }
+                } jgen.writeEndArray();
+            } else {
+                SortedMap<byte[], byte[]> columnValues = result.getColumns();
+                Set<NamedColumnDescription> namedColumns = columns.getNamedColumns();
+                for (NamedColumnDescription description : namedColumns) {
+                    byte[] col = PtBytes.toCachedBytes(description.getShortName());
+                    byte[] val = columnValues.get(col);
+                    if (val != null) {
+                        serializeNamedCol(jgen, description, val);
+                    }
+                }
+            }
+        } jgen.writeEndObject();
+    }
 }
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.jackson;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.google.common.collect.Lists;
+import com.palantir.atlasdb.api.BatchOperation;
+import com.palantir.atlasdb.api.BatchRequest;
+
+public class BatchRequestDeserializer extends StdDeserializer<BatchRequest> {
+    private static final long serialVersionUID = 1L;
+
+    protected BatchRequestDeserializer() {
+        super(BatchRequest.class);
+    }
+
+    @Override
+    public BatchRequest deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException, JsonProcessingException {
+        ObjectCodec codec = jp.getCodec();
+        JsonNode node = jp.readValueAsTree();
+        List<BatchOperation> operations = Lists.newArrayList();
+        for (JsonNode operation : node.get("ops")) {
+            BatchOperation.Type type = BatchOperation.Type.fromName(operation.get("op").textValue());
+            Object argument = codec.treeToValue(operation.get("args"), type.getArgumentClass());
+            operations.add(new BatchOperation(type, argument));
+        }
+        boolean commit = node.has("commit") && node.get("commit").booleanValue();
+        return new BatchRequest(operations, commit);
+    }
+}
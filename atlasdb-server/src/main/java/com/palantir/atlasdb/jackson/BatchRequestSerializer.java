@@ -0,0 +1,50 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.jackson;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.palantir.atlasdb.api.BatchOperation;
+import com.palantir.atlasdb.api.BatchRequest;
+
+public class BatchRequestSerializer extends StdSerializer<BatchRequest> {
+    private static final long serialVersionUID = 1L;
+
+    public BatchRequestSerializer() {
+        super(BatchRequest.class);
+    }
+
+    @Override
+    public void serialize(BatchRequest value,
+                          JsonGenerator jgen,
+                          SerializerProvider provider) throws IOException, JsonGenerationException {
+        jgen.writeStartObject(); {
+            jgen.writeArrayFieldStart("ops"); {
+                for (BatchOperation operation : value.getOperations()) {
+                    jgen.writeStartObject(); {
+                        jgen.writeStringField("op", operation.getType().getName());
+                        jgen.writeObjectField("args", operation.getArgument());
+                    } jgen.writeEndObject();
+                }
+            } jgen.writeEndArray();
+            jgen.writeBooleanField("commit", value.shouldCommit());
+        } jgen.writeEndObject();
+    }
+}
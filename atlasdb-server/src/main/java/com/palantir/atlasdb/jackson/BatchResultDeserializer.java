@@ -0,0 +1,55 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.jackson;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.google.common.collect.Lists;
+import com.palantir.atlasdb.api.BatchOperation;
+import com.palantir.atlasdb.api.BatchResult;
+
+public class BatchResultDeserializer extends StdDeserializer<BatchResult> {
+    private static final long serialVersionUID = 1L;
+
+    protected BatchResultDeserializer() {
+        super(BatchResult.class);
+    }
+
+    @Override
+    public BatchResult deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException, JsonProcessingException {
+        ObjectCodec codec = jp.getCodec();
+        JsonNode node = jp.readValueAsTree();
+        List<BatchOperation.Type> types = Lists.newArrayList();
+        List<Object> results = Lists.newArrayList();
+        for (JsonNode result : node) {
+            BatchOperation.Type type = BatchOperation.Type.fromName(result.get("op").textValue());
+            types.add(type);
+            if (type.getResultClass() != null && result.has("data")) {
+                results.add(codec.treeToValue(result.get("data"), type.getResultClass()));
+            } else {
+                results.add(null);
+            }
+        }
+        return new BatchResult(types, results);
+    }
+}
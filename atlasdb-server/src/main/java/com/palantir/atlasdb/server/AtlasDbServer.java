@@ -21,6 +21,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSet;
 import com.palantir.atlasdb.factory.TransactionManagers;
 import com.palantir.atlasdb.impl.AtlasDbServiceImpl;
+import com.palantir.atlasdb.impl.AtlasDbStreamingResource;
 import com.palantir.atlasdb.impl.TableMetadataCache;
 import com.palantir.atlasdb.jackson.AtlasJacksonModule;
 import com.palantir.atlasdb.table.description.Schema;
@@ -47,7 +48,9 @@ public class AtlasDbServer extends Application<AtlasDbServerConfiguration> {
 
         TableMetadataCache cache = new TableMetadataCache(tm.getKeyValueService());
 
-        environment.jersey().register(new AtlasDbServiceImpl(tm.getKeyValueService(), tm, cache));
+        AtlasDbServiceImpl service = new AtlasDbServiceImpl(tm.getKeyValueService(), tm, cache);
+        environment.jersey().register(service);
+        environment.jersey().register(new AtlasDbStreamingResource(service));
         environment.getObjectMapper().registerModule(new AtlasJacksonModule(cache).createModule());
     }
 
@@ -0,0 +1,282 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.transaction.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.remoting.ServiceNotAvailableException;
+import com.palantir.paxos.PaxosLearner;
+import com.palantir.paxos.PaxosProposer;
+import com.palantir.paxos.PaxosRoundFailureException;
+import com.palantir.paxos.PaxosValue;
+
+/**
+ * A paxos backed transaction service that agrees on batches of commits rather than on one commit
+ * at a time. Concurrent calls to #putUnlessExists queue their pairs, and whichever caller next
+ * gets the batch lock proposes everything queued as one value on the next sequence number of a
+ * paxos log, so the number of paxos rounds grows with the number of batches, not of commits.
+ * <p>
+ * Every learned batch is applied to the transaction table with putUnlessExists before the next
+ * sequence number is proposed, so a start timestamp that appears in more than one batch is always
+ * decided by the earliest of them. Callers are answered from the transaction table once their
+ * batch has been applied.
+ * <p>
+ * The paxos log sequence numbers used here are unrelated to start timestamps, so the acceptors
+ * and learners must not be shared with a {@link PaxosTransactionService}.
+ */
+public class BatchingPaxosTransactionService implements TransactionService {
+    private static final Logger log = LoggerFactory.getLogger(BatchingPaxosTransactionService.class);
+
+    private final PaxosProposer proposer;
+    private final TransactionKVSWrapper kvStore;
+    private final ConcurrentLinkedQueue<PendingCommit> pendingCommits = new ConcurrentLinkedQueue<PendingCommit>();
+    private final ReentrantLock batchLock = new ReentrantLock();
+    @GuardedBy("batchLock") private long nextSeq;
+
+    public static TransactionService create(PaxosProposer proposer,
+                                            PaxosLearner localLearner,
+                                            TransactionKVSWrapper kvStore) {
+        PaxosValue greatestLearned = localLearner.getGreatestLearnedValue();
+        long nextSeq = greatestLearned == null ? 0L : greatestLearned.getRound() + 1;
+        return new BatchingPaxosTransactionService(proposer, kvStore, nextSeq);
+    }
+
+    private BatchingPaxosTransactionService(PaxosProposer proposer, TransactionKVSWrapper kvStore, long nextSeq) {
+        this.proposer = proposer;
+        this.kvStore = kvStore;
+        this.nextSeq = nextSeq;
+    }
+
+    @Override
+    public Long get(long startTimestamp) {
+        return kvStore.get(startTimestamp);
+    }
+
+    @Override
+    public Map<Long, Long> get(Iterable<Long> startTimestamps) {
+        return kvStore.get(startTimestamps);
+    }
+
+    @Override
+    public void putUnlessExists(long startTimestamp, long commitTimestamp) throws KeyAlreadyExistsException {
+        Map<Long, Long> committed = commit(ImmutableMap.of(startTimestamp, commitTimestamp));
+        long finalCommitTs = committed.get(startTimestamp);
+        if (commitTimestamp != finalCommitTs) {
+            throw new KeyAlreadyExistsException("Key " + startTimestamp + " already exists and is mapped to " + finalCommitTs);
+        }
+    }
+
+    @Override
+    public void putUnlessExists(Map<Long, Long> startTimestampToCommitTimestamp) throws KeyAlreadyExistsException {
+        Map<Long, Long> committed = commit(startTimestampToCommitTimestamp);
+        List<Long> existingStartTimestamps = Lists.newArrayList();
+        for (Map.Entry<Long, Long> entry : startTimestampToCommitTimestamp.entrySet()) {
+            if (!entry.getValue().equals(committed.get(entry.getKey()))) {
+                existingStartTimestamps.add(entry.getKey());
+            }
+        }
+        if (!existingStartTimestamps.isEmpty()) {
+            throw new KeyAlreadyExistsException("Keys " + existingStartTimestamps + " already exist");
+        }
+    }
+
+    /**
+     * @return the commit timestamp decided for each of the given start timestamps
+     */
+    private Map<Long, Long> commit(Map<Long, Long> startTimestampToCommitTimestamp) {
+        PendingCommit request = new PendingCommit(startTimestampToCommitTimestamp);
+        pendingCommits.add(request);
+        batchLock.lock();
+        try {
+            // Whoever held the lock before us may already have proposed our pairs.
+            if (!request.isDone()) {
+                proposeQueuedCommits();
+            }
+        } finally {
+            batchLock.unlock();
+        }
+        return request.getResult();
+    }
+
+    @GuardedBy("batchLock")
+    private void proposeQueuedCommits() {
+        List<PendingCommit> batch = Lists.newArrayList();
+        SortedMap<Long, Long> toPropose = Maps.newTreeMap();
+        for (PendingCommit request = pendingCommits.poll(); request != null; request = pendingCommits.poll()) {
+            batch.add(request);
+            for (Map.Entry<Long, Long> entry : request.startTimestampToCommitTimestamp.entrySet()) {
+                // The first request in the batch wins; the others will see its commit timestamp.
+                if (!toPropose.containsKey(entry.getKey())) {
+                    toPropose.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        try {
+            List<Long> startTimestamps = Lists.newArrayList(toPropose.keySet());
+            while (!toPropose.isEmpty()) {
+                byte[] learned = proposer.propose(nextSeq, encodeBatch(toPropose));
+                nextSeq++;
+                Map<Long, Long> learnedBatch = decodeBatch(learned);
+                applyBatch(learnedBatch);
+                // If another proposer's batch won this sequence number, propose ours again on the next one.
+                toPropose.keySet().removeAll(learnedBatch.keySet());
+            }
+            Map<Long, Long> committed = kvStore.get(startTimestamps);
+            for (PendingCommit request : batch) {
+                request.succeed(committed);
+            }
+        } catch (PaxosRoundFailureException e) {
+            log.warn("Failed to reach consensus on a batch of " + batch.size() + " commits", e);
+            for (PendingCommit request : batch) {
+                request.fail(new ServiceNotAvailableException("Could not store transactions", e));
+            }
+        } catch (RuntimeException e) {
+            for (PendingCommit request : batch) {
+                request.fail(e);
+            }
+        } finally {
+            // Anything else thrown above (an Error, say) goes to our own caller, but the other
+            // callers in this batch are only waiting on their requests and must still get an answer.
+            for (PendingCommit request : batch) {
+                if (!request.isDone()) {
+                    request.fail(new ServiceNotAvailableException("The batch of commits was abandoned before it was decided"));
+                }
+            }
+        }
+    }
+
+    private void applyBatch(Map<Long, Long> learnedBatch) {
+        if (learnedBatch.isEmpty()) {
+            return;
+        }
+        try {
+            kvStore.putUnlessExists(learnedBatch);
+        } catch (KeyAlreadyExistsException e) {
+            // Some of these start timestamps were decided by an earlier batch, or we are applying
+            // this batch a second time; write the rest one at a time.
+            for (Map.Entry<Long, Long> entry : learnedBatch.entrySet()) {
+                try {
+                    kvStore.putUnlessExists(entry.getKey(), entry.getValue());
+                } catch (KeyAlreadyExistsException e1) {
+                    // this case isn't worrisome
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes a batch as the number of pairs followed by, for each pair in start timestamp order,
+     * the start timestamp as a delta from the previous one and the commit timestamp as a signed
+     * delta from its start timestamp, all as varints.
+     */
+    static byte[] encodeBatch(SortedMap<Long, Long> startTimestampToCommitTimestamp) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        try {
+            out.writeUInt32NoTag(startTimestampToCommitTimestamp.size());
+            long previousStartTs = 0L;
+            for (Map.Entry<Long, Long> entry : startTimestampToCommitTimestamp.entrySet()) {
+                out.writeUInt64NoTag(entry.getKey() - previousStartTs);
+                out.writeSInt64NoTag(entry.getValue() - entry.getKey());
+                previousStartTs = entry.getKey();
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw Throwables.throwUncheckedException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Map<Long, Long> decodeBatch(@Nullable byte[] encoded) {
+        Map<Long, Long> batch = Maps.newHashMap();
+        if (encoded == null) {
+            return batch;
+        }
+        CodedInputStream in = CodedInputStream.newInstance(encoded);
+        try {
+            int size = in.readUInt32();
+            long startTs = 0L;
+            for (int i = 0; i < size; i++) {
+                startTs += in.readUInt64();
+                batch.put(startTs, startTs + in.readSInt64());
+            }
+        } catch (IOException e) {
+            throw Throwables.throwUncheckedException(e);
+        }
+        return batch;
+    }
+
+    private static class PendingCommit {
+        final Map<Long, Long> startTimestampToCommitTimestamp;
+        // Only written under the batch lock, and only read after the waiting caller has taken it.
+        private volatile Map<Long, Long> result;
+        private volatile RuntimeException failure;
+
+        PendingCommit(Map<Long, Long> startTimestampToCommitTimestamp) {
+            this.startTimestampToCommitTimestamp = startTimestampToCommitTimestamp;
+        }
+
+        boolean isDone() {
+            return result != null || failure != null;
+        }
+
+        void succeed(Map<Long, Long> committed) {
+            Map<Long, Long> ours = Maps.newHashMap();
+            for (Long startTs : startTimestampToCommitTimestamp.keySet()) {
+                Long commitTs = committed.get(startTs);
+                if (commitTs == null) {
+                    fail(new ServiceNotAvailableException("Commit for " + startTs + " was not found after it was learned"));
+                    return;
+                }
+                ours.put(startTs, commitTs);
+            }
+            result = ours;
+        }
+
+        void fail(RuntimeException e) {
+            failure = e;
+        }
+
+        Map<Long, Long> getResult() {
+            if (failure != null) {
+                throw failure;
+            }
+            if (result == null) {
+                throw new IllegalStateException("Commit of " + startTimestampToCommitTimestamp.keySet() + " was never decided");
+            }
+            return result;
+        }
+    }
+}
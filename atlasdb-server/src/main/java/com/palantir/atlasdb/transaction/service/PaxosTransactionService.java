@@ -15,13 +15,21 @@
  */
 package com.palantir.atlasdb.transaction.service;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
 import com.palantir.common.remoting.ServiceNotAvailableException;
+import com.palantir.leader.PingableLeader;
+import com.palantir.paxos.PaxosAcceptor;
+import com.palantir.paxos.PaxosLearner;
 import com.palantir.paxos.PaxosProposer;
+import com.palantir.paxos.PaxosProposerImpl;
 import com.palantir.paxos.PaxosRoundFailureException;
 
 public class PaxosTransactionService implements TransactionService {
@@ -32,6 +40,43 @@ public class PaxosTransactionService implements TransactionService {
         return new PaxosTransactionService(proposer, kvStore);
     }
 
+    /**
+     * Creates a transaction service that agrees on batches of concurrent commits rather than
+     * running a paxos round per start timestamp. See {@link BatchingPaxosTransactionService}.
+     * <p>
+     * The two modes number their paxos logs differently, so the acceptors and learners behind
+     * {@code proposer} must only ever be used in one of them.
+     *
+     * @param localLearner the learner of this node's log, used to find the next free sequence number
+     */
+    public static TransactionService createBatching(PaxosProposer proposer,
+                                                    PaxosLearner localLearner,
+                                                    TransactionKVSWrapper kvStore) {
+        return BatchingPaxosTransactionService.create(proposer, localLearner, kvStore);
+    }
+
+    /**
+     * Creates a batching transaction service whose proposer skips the prepare phase for
+     * consecutive batches while the local leader is leading, as batches are always proposed on
+     * increasing sequence numbers. Only the leader should commit through it, or proposers on
+     * different nodes will keep interrupting each other.
+     * <p>
+     * The acceptors and learners must be for a log of their own, not the leader election log.
+     *
+     * @param localLeader the leader election service of this node
+     */
+    public static TransactionService createBatching(PaxosLearner localLearner,
+                                                    ImmutableList<PaxosAcceptor> acceptors,
+                                                    ImmutableList<PaxosLearner> learners,
+                                                    int quorumSize,
+                                                    ExecutorService executor,
+                                                    PingableLeader localLeader,
+                                                    TransactionKVSWrapper kvStore) {
+        PaxosProposer proposer = PaxosProposerImpl.newMultiPaxosProposer(
+                localLearner, acceptors, learners, quorumSize, executor, localLeader);
+        return BatchingPaxosTransactionService.create(proposer, localLearner, kvStore);
+    }
+
     private PaxosTransactionService(PaxosProposer proposer, TransactionKVSWrapper kvStore) {
         this.proposer = proposer;
         this.kvStore = kvStore;
@@ -66,4 +111,19 @@ public class PaxosTransactionService implements TransactionService {
         }
     }
 
+    @Override
+    public void putUnlessExists(Map<Long, Long> startTimestampToCommitTimestamp) throws KeyAlreadyExistsException {
+        List<Long> existingStartTimestamps = Lists.newArrayList();
+        for (Map.Entry<Long, Long> entry : startTimestampToCommitTimestamp.entrySet()) {
+            try {
+                putUnlessExists(entry.getKey(), entry.getValue());
+            } catch (KeyAlreadyExistsException e) {
+                existingStartTimestamps.add(entry.getKey());
+            }
+        }
+        if (!existingStartTimestamps.isEmpty()) {
+            throw new KeyAlreadyExistsException("Keys " + existingStartTimestamps + " already exist");
+        }
+    }
+
 }
@@ -0,0 +1,379 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.transaction.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.common.remoting.ServiceNotAvailableException;
+import com.palantir.leader.PingableLeader;
+import com.palantir.paxos.PaxosAcceptor;
+import com.palantir.paxos.PaxosAcceptorImpl;
+import com.palantir.paxos.PaxosLearner;
+import com.palantir.paxos.PaxosLearnerImpl;
+import com.palantir.paxos.PaxosRoundFailureException;
+import com.palantir.paxos.PaxosValue;
+
+public class BatchingPaxosTransactionServiceTest {
+    private static final String LOG_DIR = "batching-paxos-test/";
+
+    private final ExecutorService executor = PTExecutors.newCachedThreadPool();
+    private final TransactionKVSWrapper kvStore = new TransactionKVSWrapper(new InMemoryKeyValueService(true));
+
+    @After
+    public void teardown() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        FileUtils.deleteDirectory(new File(LOG_DIR));
+    }
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        SortedMap<Long, Long> batch = ImmutableSortedMap.of(
+                1L, 5L,
+                // commit timestamps before their start timestamps encode as negative deltas
+                100L, 90L,
+                101L, 101L,
+                Long.MAX_VALUE - 1, 0L);
+        assertEquals(batch, BatchingPaxosTransactionService.decodeBatch(BatchingPaxosTransactionService.encodeBatch(batch)));
+        assertEquals(ImmutableMap.of(), BatchingPaxosTransactionService.decodeBatch(
+                BatchingPaxosTransactionService.encodeBatch(ImmutableSortedMap.<Long, Long>of())));
+        assertEquals(ImmutableMap.of(), BatchingPaxosTransactionService.decodeBatch(null));
+    }
+
+    @Test
+    public void testCommitsAreStoredAndReadBack() {
+        InMemoryPaxosProposer proposer = new InMemoryPaxosProposer();
+        TransactionService service = BatchingPaxosTransactionService.create(proposer, learnerAt(null), kvStore);
+        service.putUnlessExists(1L, 2L);
+        service.putUnlessExists(ImmutableMap.of(3L, 4L, 5L, 6L));
+        assertEquals(ImmutableMap.of(1L, 2L, 3L, 4L, 5L, 6L), service.get(ImmutableList.of(1L, 3L, 5L)));
+        assertEquals(ImmutableList.of(0L, 1L), proposer.proposedSeqs);
+        assertEquals(ImmutableMap.of(3L, 4L, 5L, 6L), BatchingPaxosTransactionService.decodeBatch(proposer.decided.get(1L)));
+    }
+
+    @Test
+    public void testResumesAfterGreatestLearnedSequence() {
+        InMemoryPaxosProposer proposer = new InMemoryPaxosProposer();
+        TransactionService service = BatchingPaxosTransactionService.create(proposer, learnerAt(41L), kvStore);
+        service.putUnlessExists(1L, 2L);
+        assertEquals(ImmutableList.of(42L), proposer.proposedSeqs);
+    }
+
+    @Test
+    public void testConcurrentCommitsShareABatch() throws Exception {
+        final CountDownLatch firstRoundStarted = new CountDownLatch(1);
+        final CountDownLatch finishFirstRound = new CountDownLatch(1);
+        InMemoryPaxosProposer proposer = new InMemoryPaxosProposer() {
+            @Override
+            public byte[] propose(long seq, byte[] proposalValue) throws PaxosRoundFailureException {
+                if (seq == 0) {
+                    firstRoundStarted.countDown();
+                    try {
+                        finishFirstRound.await();
+                    } catch (InterruptedException e) {
+                        throw new PaxosRoundFailureException("interrupted", e);
+                    }
+                }
+                return super.propose(seq, proposalValue);
+            }
+        };
+        final TransactionService service = BatchingPaxosTransactionService.create(proposer, learnerAt(null), kvStore);
+
+        List<Thread> queuedThreads = new CopyOnWriteArrayList<Thread>();
+        Future<?> first = executor.submit(putTask(service, 1L, 2L, new CopyOnWriteArrayList<Thread>()));
+        firstRoundStarted.await();
+        // These queue up behind the batch lock while the first round is in flight.
+        List<Future<?>> queued = Lists.newArrayList();
+        for (long startTs = 10; startTs < 20; startTs++) {
+            queued.add(executor.submit(putTask(service, startTs, startTs + 1, queuedThreads)));
+        }
+        while (!allWaiting(queuedThreads, queued.size())) {
+            Thread.sleep(10);
+        }
+        finishFirstRound.countDown();
+        first.get();
+        for (Future<?> future : queued) {
+            future.get();
+        }
+
+        assertEquals(ImmutableList.of(0L, 1L), proposer.proposedSeqs);
+        Map<Long, Long> secondBatch = BatchingPaxosTransactionService.decodeBatch(proposer.decided.get(1L));
+        assertEquals(10, secondBatch.size());
+        for (long startTs = 10; startTs < 20; startTs++) {
+            assertEquals(startTs + 1, secondBatch.get(startTs).longValue());
+            assertEquals(startTs + 1, service.get(startTs).longValue());
+        }
+    }
+
+    @Test
+    public void testReproposesWhenAnotherBatchWins() {
+        InMemoryPaxosProposer proposer = new InMemoryPaxosProposer();
+        // Another node's batch is chosen for the first sequence number.
+        proposer.decided.put(0L, BatchingPaxosTransactionService.encodeBatch(ImmutableSortedMap.of(5L, 6L)));
+        TransactionService service = BatchingPaxosTransactionService.create(proposer, learnerAt(null), kvStore);
+
+        service.putUnlessExists(10L, 11L);
+
+        assertEquals(ImmutableList.of(0L, 1L), proposer.proposedSeqs);
+        assertEquals(ImmutableMap.of(5L, 6L, 10L, 11L), service.get(ImmutableList.of(5L, 10L)));
+    }
+
+    @Test
+    public void testEarlierBatchDecidesStartTimestamp() {
+        InMemoryPaxosProposer proposer = new InMemoryPaxosProposer();
+        proposer.decided.put(0L, BatchingPaxosTransactionService.encodeBatch(ImmutableSortedMap.of(10L, 12L)));
+        TransactionService service = BatchingPaxosTransactionService.create(proposer, learnerAt(null), kvStore);
+
+        try {
+            service.putUnlessExists(10L, 11L);
+            fail();
+        } catch (KeyAlreadyExistsException e) {
+            assertTrue(e.getMessage().contains("12"));
+        }
+        // Nothing is left to propose once the other batch has decided our only start timestamp.
+        assertEquals(ImmutableList.of(0L), proposer.proposedSeqs);
+        assertEquals(12L, service.get(10L).longValue());
+    }
+
+    @Test
+    public void testBatchedPutReportsOnlyExistingKeys() {
+        InMemoryPaxosProposer proposer = new InMemoryPaxosProposer();
+        proposer.decided.put(0L, BatchingPaxosTransactionService.encodeBatch(ImmutableSortedMap.of(1L, 2L)));
+        TransactionService service = BatchingPaxosTransactionService.create(proposer, learnerAt(null), kvStore);
+
+        try {
+            service.putUnlessExists(ImmutableMap.of(1L, 3L, 4L, 5L));
+            fail();
+        } catch (KeyAlreadyExistsException e) {
+            assertTrue(e.getMessage().contains("[1]"));
+        }
+        assertEquals(ImmutableMap.of(1L, 2L, 4L, 5L), service.get(ImmutableList.of(1L, 4L)));
+    }
+
+    @Test
+    public void testFailedRoundIsNotAvailable() {
+        InMemoryPaxosProposer proposer = new InMemoryPaxosProposer();
+        TransactionService service = BatchingPaxosTransactionService.create(proposer, learnerAt(null), kvStore);
+        proposer.failRounds = true;
+        try {
+            service.putUnlessExists(1L, 2L);
+            fail();
+        } catch (ServiceNotAvailableException e) {
+            // expected
+        }
+        assertNull(service.get(1L));
+
+        // The sequence number is not used up by a failed round.
+        proposer.failRounds = false;
+        service.putUnlessExists(1L, 2L);
+        assertEquals(ImmutableList.of(0L, 0L), proposer.proposedSeqs);
+    }
+
+    @Test
+    public void testErrorInBatchFailsEveryWaiter() throws Exception {
+        final CountDownLatch firstRoundStarted = new CountDownLatch(1);
+        final CountDownLatch finishFirstRound = new CountDownLatch(1);
+        InMemoryPaxosProposer proposer = new InMemoryPaxosProposer() {
+            @Override
+            public byte[] propose(long seq, byte[] proposalValue) throws PaxosRoundFailureException {
+                if (seq == 0) {
+                    firstRoundStarted.countDown();
+                    try {
+                        finishFirstRound.await();
+                    } catch (InterruptedException e) {
+                        throw new PaxosRoundFailureException("interrupted", e);
+                    }
+                    return super.propose(seq, proposalValue);
+                }
+                throw new AssertionError("proposer blew up");
+            }
+        };
+        final TransactionService service = BatchingPaxosTransactionService.create(proposer, learnerAt(null), kvStore);
+
+        List<Thread> queuedThreads = new CopyOnWriteArrayList<Thread>();
+        Future<?> first = executor.submit(putTask(service, 1L, 2L, new CopyOnWriteArrayList<Thread>()));
+        firstRoundStarted.await();
+        List<Future<?>> queued = Lists.newArrayList();
+        for (long startTs = 10; startTs < 13; startTs++) {
+            queued.add(executor.submit(putTask(service, startTs, startTs + 1, queuedThreads)));
+        }
+        while (!allWaiting(queuedThreads, queued.size())) {
+            Thread.sleep(10);
+        }
+        finishFirstRound.countDown();
+        first.get();
+
+        // Whichever queued caller proposed the second batch sees the error; the others must
+        // fail too rather than hang or be handed a null result.
+        int errors = 0;
+        int unavailable = 0;
+        for (Future<?> future : queued) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof AssertionError) {
+                    errors++;
+                } else {
+                    assertTrue(e.getCause() instanceof ServiceNotAvailableException);
+                    unavailable++;
+                }
+            }
+        }
+        assertEquals(1, errors);
+        assertEquals(queued.size() - 1, unavailable);
+    }
+
+    @Test
+    public void testLeaderCommitsWithoutPreparingEachBatch() {
+        final AtomicInteger prepareCount = new AtomicInteger();
+        List<PaxosAcceptor> acceptors = Lists.newArrayList();
+        List<PaxosLearner> learners = Lists.newArrayList();
+        for (int i = 0; i < 3; i++) {
+            acceptors.add(countingPrepares(PaxosAcceptorImpl.newAcceptor(LOG_DIR + "acceptor/" + i), prepareCount));
+            learners.add(PaxosLearnerImpl.newLearner(LOG_DIR + "learner/" + i));
+        }
+        PingableLeader leader = new PingableLeader() {
+            @Override
+            public boolean ping() {
+                return true;
+            }
+
+            @Override
+            public String getUUID() {
+                return "leader";
+            }
+        };
+        TransactionService service = PaxosTransactionService.createBatching(learners.get(0),
+                ImmutableList.copyOf(acceptors), ImmutableList.copyOf(learners), 2, executor, leader, kvStore);
+        for (long startTs = 1; startTs <= 10; startTs++) {
+            service.putUnlessExists(startTs, startTs + 100);
+        }
+        for (long startTs = 1; startTs <= 10; startTs++) {
+            assertEquals(Long.valueOf(startTs + 100), service.get(startTs));
+        }
+        // The range prepared for the first batch covers every later one.
+        assertEquals(0, prepareCount.get());
+        assertEquals(9L, learners.get(0).getGreatestLearnedValue().getRound());
+    }
+
+    private static PaxosAcceptor countingPrepares(final PaxosAcceptor delegate, final AtomicInteger prepareCount) {
+        return (PaxosAcceptor) Proxy.newProxyInstance(
+                PaxosAcceptor.class.getClassLoader(),
+                new Class<?>[] { PaxosAcceptor.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("prepare")) {
+                            prepareCount.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(delegate, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    private static Callable<Void> putTask(final TransactionService service,
+                                          final long startTs,
+                                          final long commitTs,
+                                          final List<Thread> threads) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() {
+                threads.add(Thread.currentThread());
+                service.putUnlessExists(startTs, commitTs);
+                return null;
+            }
+        };
+    }
+
+    private static boolean allWaiting(List<Thread> threads, int expected) {
+        if (threads.size() < expected) {
+            return false;
+        }
+        for (Thread thread : threads) {
+            if (thread.getState() != Thread.State.WAITING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static PaxosLearner learnerAt(final Long greatestLearnedSeq) {
+        return new PaxosLearner() {
+            @Override
+            public void learn(long seq, PaxosValue val) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public PaxosValue getLearnedValue(long seq) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public PaxosValue getGreatestLearnedValue() {
+                return greatestLearnedSeq == null ? null : new PaxosValue("other", greatestLearnedSeq, null);
+            }
+
+            @Override
+            public Collection<PaxosValue> getLearnedValuesSince(long seq) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public byte[] getLearnedValuesBatch(long seq, int maxBytes) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
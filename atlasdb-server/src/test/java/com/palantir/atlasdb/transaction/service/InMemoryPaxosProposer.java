@@ -0,0 +1,54 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.transaction.service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.collect.Maps;
+import com.palantir.paxos.PaxosProposer;
+import com.palantir.paxos.PaxosRoundFailureException;
+
+/**
+ * A proposer for a single node log where the first value proposed for each sequence number is
+ * chosen. Values can be decided ahead of time to stand in for other proposers.
+ */
+class InMemoryPaxosProposer implements PaxosProposer {
+    final ConcurrentMap<Long, byte[]> decided = Maps.newConcurrentMap();
+    final List<Long> proposedSeqs = new CopyOnWriteArrayList<Long>();
+    volatile boolean failRounds = false;
+
+    @Override
+    public byte[] propose(long seq, byte[] proposalValue) throws PaxosRoundFailureException {
+        proposedSeqs.add(seq);
+        if (failRounds) {
+            throw new PaxosRoundFailureException("no quorum");
+        }
+        decided.putIfAbsent(seq, proposalValue);
+        return decided.get(seq);
+    }
+
+    @Override
+    public int getQuorumSize() {
+        return 1;
+    }
+
+    @Override
+    public String getUUID() {
+        return "in-memory";
+    }
+}
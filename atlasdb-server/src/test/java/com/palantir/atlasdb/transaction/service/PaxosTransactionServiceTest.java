@@ -0,0 +1,57 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.transaction.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.common.remoting.ServiceNotAvailableException;
+
+public class PaxosTransactionServiceTest {
+    private final InMemoryPaxosProposer proposer = new InMemoryPaxosProposer();
+    private final TransactionService service = PaxosTransactionService.create(
+            proposer,
+            new TransactionKVSWrapper(new InMemoryKeyValueService(true)));
+
+    @Test
+    public void testBatchedPutUnlessExistsWithNewAndExistingKeys() {
+        service.putUnlessExists(ImmutableMap.of(1L, 2L, 3L, 4L));
+        assertEquals(ImmutableMap.of(1L, 2L, 3L, 4L), service.get(ImmutableList.of(1L, 3L)));
+
+        // Another proposer already decided 5.
+        proposer.decided.put(5L, PtBytes.toBytes(9L));
+        try {
+            service.putUnlessExists(ImmutableMap.of(3L, 6L, 5L, 7L, 8L, 9L));
+            fail();
+        } catch (KeyAlreadyExistsException e) {
+            // expected
+        }
+        assertEquals(ImmutableMap.of(3L, 4L, 5L, 9L, 8L, 9L), service.get(ImmutableList.of(3L, 5L, 8L)));
+    }
+
+    @Test(expected = ServiceNotAvailableException.class)
+    public void testFailedRoundIsNotAvailable() {
+        proposer.failRounds = true;
+        service.putUnlessExists(ImmutableMap.of(1L, 2L));
+    }
+}
@@ -15,13 +15,17 @@
  */
 package com.palantir.server;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.UUID;
 
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.Files;
 import com.palantir.atlasdb.http.TextDelegateDecoder;
 import com.palantir.leader.PingableLeader;
 import com.palantir.paxos.PaxosAcceptor;
@@ -39,6 +43,9 @@ import feign.jaxrs.JAXRSContract;
 import io.dropwizard.testing.junit.DropwizardClientRule;
 
 public class LeaderRemotingTest {
+    // The paxos logs write into their directories, so keep them out of the working directory.
+    private static final File LOG_DIR = Files.createTempDir();
+
     @ClassRule
     public final static DropwizardClientRule pingable = new DropwizardClientRule(new PingableLeader() {
         @Override
@@ -53,10 +60,15 @@ public class LeaderRemotingTest {
     });
 
     @ClassRule
-    public final static DropwizardClientRule learner = new DropwizardClientRule(PaxosLearnerImpl.newLearner("learner-log"));
+    public final static DropwizardClientRule learner = new DropwizardClientRule(PaxosLearnerImpl.newLearner(new File(LOG_DIR, "learner-log").getPath()));
 
     @ClassRule
-    public final static DropwizardClientRule acceptor = new DropwizardClientRule(PaxosAcceptorImpl.newAcceptor("acceptor-log"));
+    public final static DropwizardClientRule acceptor = new DropwizardClientRule(PaxosAcceptorImpl.newAcceptor(new File(LOG_DIR, "acceptor-log").getPath()));
+
+    @AfterClass
+    public static void deleteLogs() throws IOException {
+        FileUtils.deleteDirectory(LOG_DIR);
+    }
 
     @Test
     public void testPing() {
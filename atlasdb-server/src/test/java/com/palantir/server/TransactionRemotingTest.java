@@ -15,11 +15,19 @@
  */
 package com.palantir.server;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -33,7 +41,11 @@ import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.palantir.atlasdb.api.AtlasDbService;
+import com.palantir.atlasdb.api.BatchOperation;
+import com.palantir.atlasdb.api.BatchRequest;
+import com.palantir.atlasdb.api.BatchResult;
 import com.palantir.atlasdb.api.RangeToken;
 import com.palantir.atlasdb.api.TableCell;
 import com.palantir.atlasdb.api.TableCellVal;
@@ -42,6 +54,7 @@ import com.palantir.atlasdb.api.TableRowResult;
 import com.palantir.atlasdb.api.TableRowSelection;
 import com.palantir.atlasdb.api.TransactionToken;
 import com.palantir.atlasdb.impl.AtlasDbServiceImpl;
+import com.palantir.atlasdb.impl.AtlasDbStreamingResource;
 import com.palantir.atlasdb.impl.TableMetadataCache;
 import com.palantir.atlasdb.jackson.AtlasJacksonModule;
 import com.palantir.atlasdb.keyvalue.api.Cell;
@@ -59,6 +72,7 @@ import com.palantir.atlasdb.table.description.TableMetadata;
 import com.palantir.atlasdb.transaction.impl.SerializableTransactionManager;
 
 import feign.Feign;
+import feign.Response;
 import feign.jackson.JacksonDecoder;
 import feign.jackson.JacksonEncoder;
 import feign.jaxrs.JAXRSContract;
@@ -72,8 +86,21 @@ public class TransactionRemotingTest {
     public final KeyValueService kvs = txMgr.getKeyValueService();
     public final TableMetadataCache cache = new TableMetadataCache(kvs);
     public final ObjectMapper mapper = new ObjectMapper(); { mapper.registerModule(new AtlasJacksonModule(cache).createModule()); }
-    public final @Rule DropwizardClientRule dropwizard = new DropwizardClientRule(new AtlasDbServiceImpl(kvs, txMgr, cache));
+    public final AtlasDbServiceImpl serviceImpl = new AtlasDbServiceImpl(kvs, txMgr, cache);
+    public final @Rule DropwizardClientRule dropwizard = new DropwizardClientRule(
+            serviceImpl, new AtlasDbStreamingResource(serviceImpl));
     public AtlasDbService service;
+    public StreamingClient streamingService;
+
+    @Path("/atlasdb")
+    public interface StreamingClient {
+        @POST
+        @Path("stream-range/{token}")
+        @Produces(MediaType.APPLICATION_JSON)
+        @Consumes(MediaType.APPLICATION_JSON)
+        Response streamRange(@PathParam("token") TransactionToken token,
+                             TableRange rangeRequest);
+    }
 
     @SuppressWarnings("unchecked")
     @Before
@@ -94,6 +121,10 @@ public class TransactionRemotingTest {
                 .encoder(new JacksonEncoder(mapper))
                 .contract(new JAXRSContract())
                 .target(AtlasDbService.class, uri);
+        streamingService = Feign.builder()
+                .encoder(new JacksonEncoder(mapper))
+                .contract(new JAXRSContract())
+                .target(StreamingClient.class, uri);
     }
 
     @Test
@@ -225,6 +256,86 @@ public class TransactionRemotingTest {
         Assert.assertNull(range.getNextRange());
     }
 
+    @Test
+    public void testStreamRange() throws IOException {
+        // Enough rows that the response does not fit in the server's buffer and goes out chunked.
+        Map<Cell, byte[]> contents = Maps.newHashMap();
+        for (int i = 0; i < 2000; i++) {
+            byte[] row = SweepPriorityRow.of("foo" + i).persistToBytes();
+            CellsExamined status = CellsExamined.of((long) i);
+            contents.put(Cell.create(row, status.persistColumnName()), status.persistValue());
+        }
+        TransactionToken txId = service.startTransaction();
+        service.put(txId, new TableCellVal("sweep.priority", contents));
+        TableRange range = new TableRange(
+                "sweep.priority",
+                new byte[0],
+                new byte[0],
+                ImmutableList.<byte[]>of(),
+                100);
+
+        // An open transaction sees its own writes.
+        Assert.assertEquals(2000, Iterables.size(readStreamedRange(txId, range).getResults()));
+        service.commit(txId);
+
+        Response response = streamingService.streamRange(TransactionToken.autoCommit(), range);
+        try {
+            Assert.assertEquals(200, response.status());
+            Assert.assertTrue(response.headers().get("Transfer-Encoding").contains("chunked"));
+            TableRowResult results = mapper.readValue(response.body().asInputStream(), TableRowResult.class);
+            Assert.assertEquals(2000, Iterables.size(results.getResults()));
+        } finally {
+            response.close();
+        }
+    }
+
+    private TableRowResult readStreamedRange(TransactionToken token, TableRange range) throws IOException {
+        Response response = streamingService.streamRange(token, range);
+        try {
+            return mapper.readValue(response.body().asInputStream(), TableRowResult.class);
+        } finally {
+            response.close();
+        }
+    }
+
+    @Test
+    public void testBatchAutoCommit() {
+        Map<Cell, byte[]> contents = getSweepPriorityTableContents();
+        TableCell cells = new TableCell("sweep.priority", contents.keySet());
+        BatchResult result = service.batch(TransactionToken.autoCommit(), new BatchRequest(ImmutableList.of(
+                BatchOperation.getCells(cells),
+                BatchOperation.put(new TableCellVal("sweep.priority", contents)),
+                BatchOperation.getCells(cells)), false));
+        Assert.assertEquals(3, result.getResults().size());
+        Assert.assertTrue(result.getResult(0, TableCellVal.class).getResults().isEmpty());
+        Assert.assertNull(result.getResults().get(1));
+        Assert.assertEquals(contents.keySet(), result.getResult(2, TableCellVal.class).getResults().keySet());
+
+        TableCellVal committed = service.getCells(TransactionToken.autoCommit(), cells);
+        Assert.assertEquals(contents.keySet(), committed.getResults().keySet());
+    }
+
+    @Test
+    public void testBatchCommitsOpenTransaction() {
+        setupFooStatus1("sweep.priority");
+        Map<Cell, byte[]> contents = getSweepPriorityTableContents();
+        TransactionToken txId = service.startTransaction();
+        BatchResult result = service.batch(txId, new BatchRequest(ImmutableList.of(
+                BatchOperation.delete(new TableCell("sweep.priority", contents.keySet())),
+                BatchOperation.getRange(new TableRange(
+                        "sweep.priority",
+                        new byte[0],
+                        new byte[0],
+                        ImmutableList.<byte[]>of(),
+                        10))), true));
+        Assert.assertTrue(Iterables.isEmpty(result.getResult(1, RangeToken.class).getResults().getResults()));
+
+        TableCellVal committed = service.getCells(TransactionToken.autoCommit(), new TableCell(
+                "sweep.priority",
+                contents.keySet()));
+        Assert.assertTrue(committed.getResults().isEmpty());
+    }
+
     @Test
     public void testRaw() throws JsonProcessingException {
         String tableName = "ns.my_table";
@@ -27,6 +27,7 @@ import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.SweepResults;
 import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.impl.SweepStatsKeyValueService;
 import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.SweepStrategy;
 import com.palantir.atlasdb.sweep.SweepTaskRunner;
 import com.palantir.atlasdb.table.description.TableDefinition;
@@ -235,6 +236,25 @@ public abstract class AbstractSweeperTest {
         Assert.assertEquals(ImmutableSet.of(50L, 75L, 100L, 125L, 150L), getAllTs("foo"));
     }
 
+    @Test
+    public void testSweepRangeStopsAtEndRow() {
+        createTable(SweepStrategy.CONSERVATIVE);
+        put("foo", "bar", 50);
+        put("foo", "baz", 100);
+        put("zoo", "bar", 60);
+        put("zoo", "baz", 110);
+        int range = SweepStatsKeyValueService.getSweepRange("foo".getBytes());
+        sweepTimestamp.set(175);
+        SweepResults results = sweepRunner.run(TABLE_NAME, 1000,
+                SweepStatsKeyValueService.getSweepRangeStartRow(range),
+                SweepStatsKeyValueService.getSweepRangeEndRow(range));
+        Assert.assertFalse(results.getNextStartRow().isPresent());
+        Assert.assertEquals(1, results.getCellsDeleted());
+        Assert.assertEquals(1, results.getCellsExamined());
+        Assert.assertEquals(ImmutableSet.of(-1L, 100L), getAllTs("foo"));
+        Assert.assertEquals(ImmutableSet.of(60L, 110L), getAllTs("zoo"));
+    }
+
     private SweepResults sweep(long ts) {
         sweepTimestamp.set(ts);
         SweepResults results = sweepRunner.run(TABLE_NAME, 1000, new byte[0]);
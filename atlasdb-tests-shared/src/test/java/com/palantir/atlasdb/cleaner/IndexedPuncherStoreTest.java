@@ -0,0 +1,64 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.cleaner;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+
+public class IndexedPuncherStoreTest {
+    private final InMemoryKeyValueService kvs = new InMemoryKeyValueService(false);
+    private final KeyValueServicePuncherStore kvsPuncherStore = KeyValueServicePuncherStore.create(kvs);
+
+    @After
+    public void shutdownKvs() {
+        kvs.close();
+    }
+
+    @Test
+    public void testLoadsExistingAndNewPunchesFromStore() {
+        kvsPuncherStore.put(10L, 1000L);
+        IndexedPuncherStore indexedStore = IndexedPuncherStore.create(kvsPuncherStore, 0L);
+        assertEquals(Long.MIN_VALUE, (long) indexedStore.get(999L));
+        assertEquals(10L, (long) indexedStore.get(1000L));
+
+        // A punch written by another client is picked up once we look past the newest indexed punch.
+        kvsPuncherStore.put(20L, 2000L);
+        assertEquals(10L, (long) indexedStore.get(1999L));
+        assertEquals(20L, (long) indexedStore.get(2500L));
+    }
+
+    @Test
+    public void testCompactionThinsOldPunches() {
+        IndexedPuncherStore indexedStore = IndexedPuncherStore.create(kvsPuncherStore, 0L, 10000L, 1000L);
+        for (long time = 0; time <= 20000; time += 100) {
+            indexedStore.put(time, time);
+        }
+        // Punches before 10000 are thinned to the last one in each 1000 milli interval.
+        assertEquals(90, indexedStore.compact());
+        assertEquals(8900L, (long) indexedStore.get(9500L));
+        assertEquals(9900L, (long) indexedStore.get(9999L));
+        assertEquals(15000L, (long) indexedStore.get(15050L));
+        assertEquals(0, indexedStore.compact());
+
+        // The underlying store agrees with the index, including for a freshly loaded index.
+        assertEquals(8900L, (long) kvsPuncherStore.get(9500L));
+        assertEquals(8900L, (long) IndexedPuncherStore.create(kvsPuncherStore, 0L).get(9500L));
+    }
+}
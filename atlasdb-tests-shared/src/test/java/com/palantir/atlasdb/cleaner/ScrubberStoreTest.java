@@ -0,0 +1,208 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.cleaner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.common.base.BatchingVisitableView;
+
+@RunWith(Parameterized.class)
+public class ScrubberStoreTest {
+    private static final int BATCH_SIZE = 10;
+    private static final long BUCKET_SIZE = 100;
+
+    @Parameters
+    public static Collection<Object[]> parameters() {
+        Object[][] parameters = new Object[][] { { false }, { true } };
+        return ImmutableList.copyOf(parameters);
+    }
+
+    private final KeyValueService kvs = new InMemoryKeyValueService(false);
+    private final ScrubberStore scrubberStore;
+
+    public ScrubberStoreTest(boolean bucketed) {
+        this.scrubberStore = bucketed
+                ? BucketedKeyValueServiceScrubberStore.create(kvs, BUCKET_SIZE)
+                : KeyValueServiceScrubberStore.create(kvs);
+    }
+
+    @After
+    public void shutdownKvs() {
+        kvs.close();
+    }
+
+    @Test
+    public void testOnlyReadsEntriesOlderThanMaxScrubTimestamp() {
+        Cell cell1 = cell("row1", "col1");
+        Cell cell2 = cell("row2", "col1");
+        scrubberStore.queueCellsForScrubbing(ImmutableMultimap.of(cell1, "table1", cell1, "table2"), 10L, BATCH_SIZE);
+        scrubberStore.queueCellsForScrubbing(ImmutableMultimap.of(cell2, "table1"), 250L, BATCH_SIZE);
+
+        SortedMap<Long, Multimap<String, Cell>> queue = readQueue(200L);
+        assertEquals(1, queue.size());
+        assertEquals(ImmutableMultimap.of("table1", cell1, "table2", cell1), ImmutableMultimap.copyOf(queue.get(10L)));
+
+        queue = readQueue(251L);
+        assertEquals(2, queue.size());
+        assertEquals(ImmutableMultimap.of("table1", cell2), ImmutableMultimap.copyOf(queue.get(250L)));
+    }
+
+    @Test
+    public void testMarkCellsAsScrubbed() {
+        Cell cell1 = cell("row1", "col1");
+        Cell cell2 = cell("row2", "col2");
+        scrubberStore.queueCellsForScrubbing(ImmutableMultimap.of(cell1, "table1", cell2, "table1"), 10L, BATCH_SIZE);
+        assertEquals(2, scrubberStore.getNumberRemainingScrubCells(100));
+
+        Multimap<String, Cell> scrubbed = ImmutableMultimap.of("table1", cell1, "table1", cell2);
+        scrubberStore.markCellsAsScrubbed(ImmutableMap.of(10L, scrubbed), BATCH_SIZE);
+        assertEquals(0, scrubberStore.getNumberRemainingScrubCells(100));
+        assertTrue(readQueue(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testRangeBoundariesCoverQueueExactlyOnce() {
+        Multimap<Long, Cell> expected = HashMultimap.create();
+        for (long ts = 1; ts < 2000; ts += 37) {
+            Cell cell = cell("row" + ts, "col");
+            scrubberStore.queueCellsForScrubbing(ImmutableMultimap.of(cell, "table"), ts, BATCH_SIZE);
+            if (ts < 1500) {
+                expected.put(ts, cell);
+            }
+        }
+
+        List<byte[]> boundaries = scrubberStore.getScrubQueueRangeBoundaries(4, 1500L);
+        Multimap<Long, Cell> actual = HashMultimap.create();
+        for (int i = 0; i < boundaries.size() - 1; i++) {
+            SortedMap<Long, Multimap<String, Cell>> queue = readQueue(1500L, boundaries.get(i), boundaries.get(i + 1));
+            for (Map.Entry<Long, Multimap<String, Cell>> entry : queue.entrySet()) {
+                for (Cell cell : entry.getValue().get("table")) {
+                    assertTrue("cell read twice: " + cell, actual.put(entry.getKey(), cell));
+                }
+            }
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testMigrateLegacyScrubQueue() {
+        if (!(scrubberStore instanceof BucketedKeyValueServiceScrubberStore)) {
+            return;
+        }
+        ScrubberStore legacyStore = KeyValueServiceScrubberStore.create(kvs);
+        Cell cell1 = cell("row1", "col1");
+        Cell cell2 = cell("row2", "col1");
+        legacyStore.queueCellsForScrubbing(ImmutableMultimap.of(cell1, "table1", cell1, "table2"), 10L, BATCH_SIZE);
+        legacyStore.queueCellsForScrubbing(ImmutableMultimap.of(cell2, "table1"), 20L, BATCH_SIZE);
+
+        assertEquals(2, ((BucketedKeyValueServiceScrubberStore) scrubberStore).migrateLegacyScrubQueue(BATCH_SIZE));
+        assertEquals(0, legacyStore.getNumberRemainingScrubCells(100));
+
+        SortedMap<Long, Multimap<String, Cell>> queue = readQueue(Long.MAX_VALUE);
+        assertEquals(ImmutableMultimap.of("table1", cell1, "table2", cell1), ImmutableMultimap.copyOf(queue.get(10L)));
+        assertEquals(ImmutableMultimap.of("table1", cell2), ImmutableMultimap.copyOf(queue.get(20L)));
+    }
+
+    @Test
+    public void testReadsLegacyScrubQueueUntilDrained() {
+        if (!(scrubberStore instanceof BucketedKeyValueServiceScrubberStore)) {
+            return;
+        }
+        ScrubberStore legacyStore = KeyValueServiceScrubberStore.create(kvs);
+        Cell cell1 = cell("row1", "col1");
+        Cell cell2 = cell("row2", "col1");
+        Cell cell3 = cell("row3", "col1");
+        legacyStore.queueCellsForScrubbing(ImmutableMultimap.of(cell1, "table1", cell1, "table2"), 10L, BATCH_SIZE);
+        legacyStore.queueCellsForScrubbing(ImmutableMultimap.of(cell2, "table1"), 250L, BATCH_SIZE);
+
+        // Switching to the bucketed queue leaves the legacy entries where they are.
+        ScrubberStore store = BucketedKeyValueServiceScrubberStore.create(kvs, BUCKET_SIZE);
+        store.queueCellsForScrubbing(ImmutableMultimap.of(cell3, "table1"), 20L, BATCH_SIZE);
+        assertEquals(3, store.getNumberRemainingScrubCells(100));
+        assertEquals(2, legacyStore.getNumberRemainingScrubCells(100));
+
+        SortedMap<Long, Multimap<String, Cell>> queue = readQueue(store, 200L, PtBytes.EMPTY_BYTE_ARRAY, PtBytes.EMPTY_BYTE_ARRAY);
+        assertEquals(ImmutableMultimap.of("table1", cell1, "table2", cell1), ImmutableMultimap.copyOf(queue.get(10L)));
+        assertEquals(ImmutableMultimap.of("table1", cell3), ImmutableMultimap.copyOf(queue.get(20L)));
+        assertEquals(2, queue.size());
+        // Only the first range reads the legacy queue.
+        List<byte[]> boundaries = store.getScrubQueueRangeBoundaries(2, 200L);
+        assertTrue(readQueue(store, 200L, boundaries.get(1), boundaries.get(2)).isEmpty());
+
+        store.markCellsAsScrubbed(queue, BATCH_SIZE);
+        assertEquals(1, legacyStore.getNumberRemainingScrubCells(100));
+        queue = readQueue(store, 251L, PtBytes.EMPTY_BYTE_ARRAY, PtBytes.EMPTY_BYTE_ARRAY);
+        assertEquals(ImmutableMultimap.of("table1", cell2), ImmutableMultimap.copyOf(queue.get(250L)));
+
+        store.markCellsAsScrubbed(queue, BATCH_SIZE);
+        assertEquals(0, legacyStore.getNumberRemainingScrubCells(100));
+        assertEquals(0, store.getNumberRemainingScrubCells(100));
+        assertTrue(readQueue(store, Long.MAX_VALUE, PtBytes.EMPTY_BYTE_ARRAY, PtBytes.EMPTY_BYTE_ARRAY).isEmpty());
+    }
+
+    private SortedMap<Long, Multimap<String, Cell>> readQueue(long maxScrubTimestamp) {
+        return readQueue(maxScrubTimestamp, PtBytes.EMPTY_BYTE_ARRAY, PtBytes.EMPTY_BYTE_ARRAY);
+    }
+
+    private SortedMap<Long, Multimap<String, Cell>> readQueue(long maxScrubTimestamp, byte[] startRow, byte[] endRow) {
+        return readQueue(scrubberStore, maxScrubTimestamp, startRow, endRow);
+    }
+
+    private static SortedMap<Long, Multimap<String, Cell>> readQueue(ScrubberStore store,
+                                                                     long maxScrubTimestamp,
+                                                                     byte[] startRow,
+                                                                     byte[] endRow) {
+        SortedMap<Long, Multimap<String, Cell>> result = Maps.newTreeMap();
+        List<SortedMap<Long, Multimap<String, Cell>>> batches = BatchingVisitableView.of(
+                store.getBatchingVisitableScrubQueue(BATCH_SIZE, maxScrubTimestamp, startRow, endRow))
+                .immutableCopy();
+        for (SortedMap<Long, Multimap<String, Cell>> batch : batches) {
+            for (Map.Entry<Long, Multimap<String, Cell>> entry : batch.entrySet()) {
+                if (!result.containsKey(entry.getKey())) {
+                    result.put(entry.getKey(), HashMultimap.<String, Cell>create());
+                }
+                result.get(entry.getKey()).putAll(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static Cell cell(String row, String col) {
+        return Cell.create(PtBytes.toBytes(row), PtBytes.toBytes(col));
+    }
+}
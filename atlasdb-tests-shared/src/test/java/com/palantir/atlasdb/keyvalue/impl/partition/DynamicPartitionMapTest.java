@@ -15,19 +15,34 @@
  */
 package com.palantir.atlasdb.keyvalue.impl.partition;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.impl.ForwardingKeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.keyvalue.partition.PartitionedKeyValueService;
 import com.palantir.atlasdb.keyvalue.partition.api.PartitionMap;
+import com.palantir.atlasdb.keyvalue.partition.endpoint.InMemoryKeyValueEndpoint;
 import com.palantir.atlasdb.keyvalue.partition.endpoint.KeyValueEndpoint;
 import com.palantir.atlasdb.keyvalue.partition.map.DynamicPartitionMapImpl;
+import com.palantir.atlasdb.keyvalue.partition.map.InMemoryPartitionMapService;
+import com.palantir.atlasdb.keyvalue.partition.map.PartitionMapService;
 import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumParameters;
 import com.palantir.common.concurrent.PTExecutors;
 
@@ -138,4 +153,53 @@ public class DynamicPartitionMapTest extends AbstractPartitionMapTest {
         dpm.pushMapToEndpoints();
     }
 
+    @Test
+    public void testBackfillResumesAfterFailure() {
+        PartitionedKeyValueService pkvs = PartitionedKeyValueService.create(
+                qp, ImmutableList.<PartitionMapService> of(InMemoryPartitionMapService.create(dpm)));
+        pkvs.createTable(TABLE1, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        Map<Cell, byte[]> values = Maps.newHashMap();
+        for (int row = 0; row < 32; ++row) {
+            values.put(Cell.create(newByteArray(0, row), newByteArray(0)), newByteArray(row));
+        }
+        pkvs.put(TABLE1, values, 1L);
+
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final KeyValueService delegate = new InMemoryKeyValueService(false);
+        KeyValueService failingOnce = new ForwardingKeyValueService() {
+            @Override
+            protected KeyValueService delegate() {
+                return delegate;
+            }
+
+            @Override
+            public void putWithTimestamps(String tableName, Multimap<Cell, Value> cellValues) {
+                if (failed.compareAndSet(false, true)) {
+                    throw new RuntimeException("Failing the first batch");
+                }
+                super.putWithTimestamps(tableName, cellValues);
+            }
+        };
+
+        byte[] key = newByteArray(0, 4);
+        assertEquals(true, dpm.addEndpoint(key, InMemoryKeyValueEndpoint.create(failingOnce, InMemoryPartitionMapService.createEmpty())));
+        try {
+            dpm.backfillAddedEndpoint(key);
+            fail();
+        } catch (RuntimeException e) {
+            // expected
+        }
+        dpm.backfillAddedEndpoint(key);
+        dpm.promoteAddedEndpoint(key);
+
+        Map<Cell, Long> timestampByCell = Maps.newHashMap();
+        for (Cell cell : values.keySet()) {
+            timestampByCell.put(cell, 2L);
+        }
+        Map<Cell, Value> result = pkvs.get(TABLE1, timestampByCell);
+        assertEquals(values.size(), result.size());
+        for (Map.Entry<Cell, byte[]> e : values.entrySet()) {
+            assertArrayEquals(e.getValue(), result.get(e.getKey()).getContents());
+        }
+    }
 }
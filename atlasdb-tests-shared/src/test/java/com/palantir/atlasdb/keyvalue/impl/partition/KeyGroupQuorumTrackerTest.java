@@ -0,0 +1,104 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.impl.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.palantir.atlasdb.keyvalue.partition.quorum.KeyGroupQuorumTracker;
+import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumParameters;
+import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumParameters.QuorumRequestParameters;
+
+public class KeyGroupQuorumTrackerTest {
+    // Read quorum of 2 out of 3, so 2 failures make a key fail.
+    private static final QuorumRequestParameters PARAMETERS = new QuorumParameters(3, 2, 2).getReadRequestParameters();
+
+    /**
+     * Keys "a" and "b" are on requests 0, 1 and 2, and key "c" on requests 1, 2 and 3.
+     */
+    private static KeyGroupQuorumTracker createTracker() {
+        KeyGroupQuorumTracker.Builder<String> builder = KeyGroupQuorumTracker.builder();
+        builder.addRequest(ImmutableList.of("a", "b"));
+        builder.addRequest(ImmutableList.of("a", "b", "c"));
+        builder.addRequest(ImmutableList.of("a", "b", "c"));
+        builder.addRequest(ImmutableList.of("c"));
+        return builder.build(Functions.constant(PARAMETERS));
+    }
+
+    @Test
+    public void testSucceedsOnceEveryGroupHasQuorum() {
+        KeyGroupQuorumTracker tracker = createTracker();
+        tracker.handleSuccess(0);
+        tracker.handleSuccess(3);
+        assertFalse(tracker.finished());
+        tracker.handleSuccess(1);
+        assertTrue(tracker.succeeded());
+    }
+
+    @Test
+    public void testFailsWhenSomeGroupCannotReachQuorum() {
+        KeyGroupQuorumTracker tracker = createTracker();
+        tracker.handleFailure(3);
+        tracker.handleSuccess(0);
+        assertFalse(tracker.finished());
+        tracker.handleFailure(1);
+        assertTrue(tracker.failed());
+    }
+
+    @Test
+    public void testIgnoresFailuresOfGroupsWithQuorum() {
+        KeyGroupQuorumTracker tracker = createTracker();
+        tracker.handleSuccess(0);
+        tracker.handleSuccess(1);
+        tracker.handleFailure(2);
+        assertFalse(tracker.finished());
+        tracker.handleSuccess(3);
+        assertTrue(tracker.succeeded());
+    }
+
+    @Test
+    public void testEmptyRequestSucceeds() {
+        KeyGroupQuorumTracker.Builder<String> builder = KeyGroupQuorumTracker.builder();
+        assertTrue(builder.build(Functions.constant(PARAMETERS)).succeeded());
+    }
+
+    @Test
+    public void testPicksPreferredRequestsForQuorum() {
+        KeyGroupQuorumTracker tracker = createTracker();
+        // Requests 1 and 2 cover both groups; request 0 only adds to a group that is already covered.
+        assertEquals(bitSet(1, 2), tracker.getRequestsForQuorum(ImmutableList.of(1, 2, 0, 3)));
+        // Preferring 3 and 0 still needs one of the requests shared by both groups.
+        assertEquals(bitSet(0, 1, 3), tracker.getRequestsForQuorum(ImmutableList.of(3, 0, 1, 2)));
+
+        tracker.handleSuccess(1);
+        assertEquals(bitSet(0, 3), tracker.getRequestsForQuorum(ImmutableList.of(0, 3, 2)));
+    }
+
+    private static BitSet bitSet(int... bits) {
+        BitSet bitSet = new BitSet();
+        for (int bit : bits) {
+            bitSet.set(bit);
+        }
+        return bitSet;
+    }
+}
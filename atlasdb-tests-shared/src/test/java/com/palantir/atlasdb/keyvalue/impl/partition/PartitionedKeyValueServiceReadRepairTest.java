@@ -0,0 +1,172 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.impl.partition;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.impl.ForwardingKeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.keyvalue.partition.PartitionedKeyValueService;
+import com.palantir.atlasdb.keyvalue.partition.endpoint.InMemoryKeyValueEndpoint;
+import com.palantir.atlasdb.keyvalue.partition.endpoint.KeyValueEndpoint;
+import com.palantir.atlasdb.keyvalue.partition.map.DynamicPartitionMapImpl;
+import com.palantir.atlasdb.keyvalue.partition.map.InMemoryPartitionMapService;
+import com.palantir.atlasdb.keyvalue.partition.map.PartitionMapService;
+import com.palantir.atlasdb.keyvalue.partition.quorum.QuorumParameters;
+import com.palantir.atlasdb.keyvalue.partition.util.ReadRepair;
+import com.palantir.common.concurrent.PTExecutors;
+
+public class PartitionedKeyValueServiceReadRepairTest {
+    private static final String TABLE = "table";
+    private static final QuorumParameters QUORUM_PARAMETERS = new QuorumParameters(3, 2, 2);
+    private static final Cell CELL = Cell.create(new byte[] {0, 3}, new byte[] {0});
+
+    private final List<KeyValueService> services = Lists.newArrayList();
+    private PartitionedKeyValueService pkvs;
+
+    @Before
+    public void setUp() {
+        NavigableMap<byte[], KeyValueEndpoint> ring = Maps.newTreeMap(UnsignedBytes.lexicographicalComparator());
+        for (int i = 0; i < 5; ++i) {
+            KeyValueService kvs = new InMemoryKeyValueService(false);
+            services.add(kvs);
+            ring.put(new byte[] {0, (byte) (2 * i)}, InMemoryKeyValueEndpoint.create(kvs, InMemoryPartitionMapService.createEmpty()));
+        }
+        DynamicPartitionMapImpl map = DynamicPartitionMapImpl.create(QUORUM_PARAMETERS, ring, PTExecutors.newCachedThreadPool());
+        pkvs = PartitionedKeyValueService.create(
+                QUORUM_PARAMETERS, ImmutableList.<PartitionMapService> of(InMemoryPartitionMapService.create(map)), true);
+        pkvs.createTable(TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+    }
+
+    @Test
+    public void testReadsRepairStaleReplica() throws InterruptedException {
+        pkvs.put(TABLE, ImmutableMap.of(CELL, new byte[] {1}), 1L);
+        List<KeyValueService> replicas = Lists.newArrayList();
+        for (KeyValueService kvs : services) {
+            if (!kvs.get(TABLE, ImmutableMap.of(CELL, 2L)).isEmpty()) {
+                replicas.add(kvs);
+            }
+        }
+        assertEquals(QUORUM_PARAMETERS.getReplicationFactor(), replicas.size());
+
+        // A write that only reached a write quorum.
+        KeyValueService staleReplica = replicas.get(0);
+        for (KeyValueService kvs : replicas.subList(1, replicas.size())) {
+            kvs.putWithTimestamps(TABLE, ImmutableMultimap.of(CELL, Value.create(new byte[] {2}, 5L)));
+        }
+
+        // Reads only repair the replicas that answered before quorum was reached.
+        for (int i = 0; i < 100 && getLatest(staleReplica).getTimestamp() != 5L; ++i) {
+            assertArrayEquals(new byte[] {2}, pkvs.get(TABLE, ImmutableMap.of(CELL, 10L)).get(CELL).getContents());
+            Thread.sleep(10);
+        }
+        assertArrayEquals(new byte[] {2}, getLatest(staleReplica).getContents());
+    }
+
+    @Test
+    public void testRepairDoesNotResurrectVersionSweptFromAnotherReplica() {
+        KeyValueService a = newReplica();
+        KeyValueService b = newReplica();
+        KeyValueService c = newReplica();
+        for (KeyValueService kvs : ImmutableList.of(a, b, c)) {
+            kvs.put(TABLE, ImmutableMap.of(CELL, new byte[] {1}), 1L);
+            kvs.put(TABLE, ImmutableMap.of(CELL, new byte[] {2}), 5L);
+        }
+
+        // Sweep has reached c but not yet a and b when a read at 3 asks all of them.
+        c.delete(TABLE, ImmutableMultimap.of(CELL, 1L));
+        ReadRepair readRepair = new ReadRepair(TABLE);
+        for (KeyValueService kvs : ImmutableList.of(a, b, c)) {
+            readRepair.record(kvs, Predicates.<Cell> alwaysTrue(), kvs.get(TABLE, ImmutableMap.of(CELL, 3L)));
+        }
+        readRepair.repairInBackground(MoreExecutors.newDirectExecutorService());
+        a.delete(TABLE, ImmutableMultimap.of(CELL, 1L));
+        b.delete(TABLE, ImmutableMultimap.of(CELL, 1L));
+
+        for (KeyValueService kvs : ImmutableList.of(a, b, c)) {
+            assertTrue(kvs.get(TABLE, ImmutableMap.of(CELL, 3L)).isEmpty());
+        }
+    }
+
+    @Test
+    public void testRepairIsUndoneIfSourceMovesOnWhileWriting() {
+        final KeyValueService a = newReplica();
+        final KeyValueService b = newReplica();
+        final KeyValueService staleReplica = newReplica();
+        for (KeyValueService kvs : ImmutableList.of(a, b)) {
+            kvs.put(TABLE, ImmutableMap.of(CELL, new byte[] {1}), 1L);
+        }
+        // A newer version is written, and the old one swept, while the repair is being written.
+        KeyValueService c = new ForwardingKeyValueService() {
+            @Override
+            protected KeyValueService delegate() {
+                return staleReplica;
+            }
+
+            @Override
+            public void putWithTimestamps(String tableName, Multimap<Cell, Value> values) {
+                super.putWithTimestamps(tableName, values);
+                for (KeyValueService kvs : ImmutableList.of(a, b, staleReplica)) {
+                    kvs.put(TABLE, ImmutableMap.of(CELL, new byte[] {2}), 5L);
+                }
+                a.delete(TABLE, ImmutableMultimap.of(CELL, 1L));
+                b.delete(TABLE, ImmutableMultimap.of(CELL, 1L));
+            }
+        };
+
+        ReadRepair readRepair = new ReadRepair(TABLE);
+        for (KeyValueService kvs : ImmutableList.of(a, b, c)) {
+            readRepair.record(kvs, Predicates.<Cell> alwaysTrue(), kvs.get(TABLE, ImmutableMap.of(CELL, 3L)));
+        }
+        readRepair.repairInBackground(MoreExecutors.newDirectExecutorService());
+
+        assertTrue(staleReplica.get(TABLE, ImmutableMap.of(CELL, 3L)).isEmpty());
+        assertArrayEquals(new byte[] {2}, getLatest(staleReplica).getContents());
+    }
+
+    private static KeyValueService newReplica() {
+        KeyValueService kvs = new InMemoryKeyValueService(false);
+        kvs.createTable(TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        return kvs;
+    }
+
+    private static Value getLatest(KeyValueService kvs) {
+        Map<Cell, Value> result = kvs.get(TABLE, ImmutableMap.of(CELL, 10L));
+        return result.get(CELL);
+    }
+}
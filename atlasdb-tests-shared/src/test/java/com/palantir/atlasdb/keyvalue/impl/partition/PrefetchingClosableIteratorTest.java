@@ -0,0 +1,149 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.impl.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.palantir.atlasdb.keyvalue.partition.util.PrefetchingClosableIterator;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.ClosableIterators;
+import com.palantir.common.concurrent.PTExecutors;
+
+public class PrefetchingClosableIteratorTest {
+    private final ExecutorService executor = PTExecutors.newCachedThreadPool();
+
+    @After
+    public void teardown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testReadsAllElementsInOrder() {
+        final ImmutableList<Integer> elements = ImmutableList.of(1, 2, 3, 4, 5, 6, 7);
+        PrefetchingClosableIterator<Integer> it = PrefetchingClosableIterator.start(
+                new Callable<ClosableIterator<Integer>>() {
+                    @Override
+                    public ClosableIterator<Integer> call() {
+                        return ClosableIterators.wrap(elements.iterator());
+                    }
+                }, 2, executor);
+        assertEquals(elements, Lists.newArrayList(it));
+        it.close();
+    }
+
+    @Test
+    public void testFailureIsRethrownAfterEarlierElements() {
+        PrefetchingClosableIterator<Integer> it = PrefetchingClosableIterator.start(
+                new Callable<ClosableIterator<Integer>>() {
+                    @Override
+                    public ClosableIterator<Integer> call() {
+                        return ClosableIterators.wrap(new AbstractIterator<Integer>() {
+                            private int next = 0;
+
+                            @Override
+                            protected Integer computeNext() {
+                                if (next == 2) {
+                                    throw new IllegalStateException("endpoint failed");
+                                }
+                                return next++;
+                            }
+                        });
+                    }
+                }, 4, executor);
+        assertEquals(0, (int) it.next());
+        assertEquals(1, (int) it.next());
+        try {
+            it.hasNext();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        it.close();
+    }
+
+    @Test
+    public void testCloseStopsProducerAndClosesDelegate() throws InterruptedException {
+        final CountDownLatch closed = new CountDownLatch(1);
+        final Iterator<Integer> endless = new AbstractIterator<Integer>() {
+            @Override
+            protected Integer computeNext() {
+                return 0;
+            }
+        };
+        PrefetchingClosableIterator<Integer> it = PrefetchingClosableIterator.start(
+                new Callable<ClosableIterator<Integer>>() {
+                    @Override
+                    public ClosableIterator<Integer> call() {
+                        return ClosableIterators.wrap(endless, new Closeable() {
+                            @Override
+                            public void close() {
+                                closed.countDown();
+                            }
+                        });
+                    }
+                }, 1, executor);
+        assertTrue(it.hasNext());
+        it.close();
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCloseBeforeStartNeverOpens() throws InterruptedException {
+        ExecutorService blockedExecutor = PTExecutors.newSingleThreadExecutor();
+        final CountDownLatch blocker = new CountDownLatch(1);
+        blockedExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        final CountDownLatch opened = new CountDownLatch(1);
+        PrefetchingClosableIterator<Integer> it = PrefetchingClosableIterator.start(
+                new Callable<ClosableIterator<Integer>>() {
+                    @Override
+                    public ClosableIterator<Integer> call() {
+                        opened.countDown();
+                        return ClosableIterators.emptyImmutableClosableIterator();
+                    }
+                }, 1, blockedExecutor);
+        it.close();
+        blocker.countDown();
+        blockedExecutor.shutdown();
+        assertTrue(blockedExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertFalse(opened.await(0, TimeUnit.SECONDS));
+    }
+}
@@ -16,14 +16,24 @@
 package com.palantir.atlasdb.schema.stream;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.io.ByteStreams;
 import com.palantir.atlasdb.AtlasDbTestCase;
 import com.palantir.atlasdb.encoding.PtBytes;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.schema.stream.generated.StreamTestCompressedStreamMetadataTable.StreamTestCompressedStreamMetadataRow;
+import com.palantir.atlasdb.schema.stream.generated.StreamTestCompressedStreamStore;
+import com.palantir.atlasdb.schema.stream.generated.StreamTestCompressedStreamValueTable.StreamTestCompressedStreamValueRow;
 import com.palantir.atlasdb.schema.stream.generated.StreamTestStreamStore;
 import com.palantir.atlasdb.schema.stream.generated.StreamTestTableFactory;
 import com.palantir.atlasdb.schema.stream.generated.StreamTestWithHashStreamIdxTable.StreamTestWithHashStreamIdxRow;
@@ -33,6 +43,7 @@ import com.palantir.atlasdb.stream.PersistentStreamStore;
 import com.palantir.atlasdb.table.description.Schemas;
 import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.TransactionTask;
+import com.palantir.util.Pair;
 import com.palantir.util.crypto.Sha256Hash;
 
 public class StreamTest extends AtlasDbTestCase {
@@ -72,6 +83,151 @@ public class StreamTest extends AtlasDbTestCase {
         });
     }
 
+    @Test
+    public void testStoreStreamSpanningManyBlockGroups() throws Exception {
+        final byte[] data = new byte[20 * StreamTestStreamStore.BLOCK_SIZE_IN_BYTES + 17];
+        new Random(0).nextBytes(data);
+        final PersistentStreamStore store = StreamTestStreamStore.of(txManager, StreamTestTableFactory.of());
+        final Pair<Long, Sha256Hash> idAndHash = store.storeStream(new ByteArrayInputStream(data));
+        Assert.assertEquals(Sha256Hash.computeHash(data), idAndHash.rhSide);
+
+        byte[] loaded = txManager.runTaskWithRetry(new TransactionTask<byte[], Exception>() {
+            @Override
+            public byte[] execute(Transaction t) throws Exception {
+                InputStream stream = store.loadStream(t, idAndHash.lhSide);
+                try {
+                    return ByteStreams.toByteArray(stream);
+                } finally {
+                    stream.close();
+                }
+            }
+        });
+        Assert.assertArrayEquals(data, loaded);
+    }
+
+    @Test
+    public void testLoadStreamReadAfterTransactionFinishes() throws Exception {
+        final byte[] data = new byte[3 * StreamTestStreamStore.BLOCK_SIZE_IN_BYTES + 5];
+        new Random(1).nextBytes(data);
+        final PersistentStreamStore store = StreamTestStreamStore.of(txManager, StreamTestTableFactory.of());
+        final long streamId = store.storeStream(new ByteArrayInputStream(data)).lhSide;
+
+        InputStream stream = txManager.runTaskWithRetry(new TransactionTask<InputStream, Exception>() {
+            @Override
+            public InputStream execute(Transaction t) throws Exception {
+                return store.loadStream(t, streamId);
+            }
+        });
+        try {
+            Assert.assertArrayEquals(data, ByteStreams.toByteArray(stream));
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testLoadStreamRange() throws Exception {
+        final int blockSize = StreamTestStreamStore.BLOCK_SIZE_IN_BYTES;
+        final byte[] data = new byte[3 * blockSize + 5];
+        new Random(2).nextBytes(data);
+        final PersistentStreamStore store = StreamTestStreamStore.of(txManager, StreamTestTableFactory.of());
+        final long streamId = store.storeStream(new ByteArrayInputStream(data)).lhSide;
+
+        txManager.runTaskWithRetry(new TransactionTask<Void, Exception>() {
+            @Override
+            public Void execute(Transaction t) throws Exception {
+                assertRangeEquals(data, store, t, streamId, 10, 100);
+                assertRangeEquals(data, store, t, streamId, blockSize - 10, 20);
+                assertRangeEquals(data, store, t, streamId, blockSize, 2 * blockSize);
+                assertRangeEquals(data, store, t, streamId, 3 * blockSize, Long.MAX_VALUE);
+                assertRangeEquals(data, store, t, streamId, data.length, 10);
+                return null;
+            }
+        });
+    }
+
+    private static void assertRangeEquals(byte[] data, PersistentStreamStore store, Transaction t, long streamId, long offset, long length) throws Exception {
+        int end = (int) Math.min(data.length, offset + Math.min(length, data.length));
+        InputStream stream = store.loadStreamRange(t, streamId, offset, length);
+        try {
+            Assert.assertArrayEquals(Arrays.copyOfRange(data, (int) offset, end), ByteStreams.toByteArray(stream));
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testLoadStreamAsChannel() throws Exception {
+        final int blockSize = StreamTestStreamStore.BLOCK_SIZE_IN_BYTES;
+        final byte[] data = new byte[3 * blockSize + 5];
+        new Random(3).nextBytes(data);
+        final PersistentStreamStore store = StreamTestStreamStore.of(txManager, StreamTestTableFactory.of());
+        final long streamId = store.storeStream(new ByteArrayInputStream(data)).lhSide;
+
+        txManager.runTaskWithRetry(new TransactionTask<Void, Exception>() {
+            @Override
+            public Void execute(Transaction t) throws Exception {
+                SeekableByteChannel channel = store.loadStreamAsChannel(t, streamId);
+                try {
+                    Assert.assertEquals(data.length, channel.size());
+                    ByteBuffer buffer = ByteBuffer.allocate(30);
+                    channel.position(2 * blockSize - 10);
+                    Assert.assertEquals(30, channel.read(buffer));
+                    Assert.assertArrayEquals(Arrays.copyOfRange(data, 2 * blockSize - 10, 2 * blockSize + 20), buffer.array());
+
+                    buffer.clear();
+                    channel.position(data.length - 5);
+                    Assert.assertEquals(5, channel.read(buffer));
+                    Assert.assertEquals(-1, channel.read(buffer));
+
+                    buffer.clear();
+                    channel.position(3);
+                    Assert.assertEquals(30, channel.read(buffer));
+                    Assert.assertArrayEquals(Arrays.copyOfRange(data, 3, 33), buffer.array());
+                } finally {
+                    channel.close();
+                }
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testCompressedStreamStore() throws Exception {
+        final int blockSize = StreamTestCompressedStreamStore.BLOCK_SIZE_IN_BYTES;
+        final byte[] compressible = new byte[2 * blockSize + 100];
+        for (int i = 0; i < compressible.length; i++) {
+            compressible[i] = (byte) (i % 7);
+        }
+        final byte[] incompressible = new byte[blockSize + 100];
+        new Random(4).nextBytes(incompressible);
+        final byte[] small = PtBytes.toBytes("small and small and small and small");
+
+        final PersistentStreamStore store = StreamTestCompressedStreamStore.of(txManager, StreamTestTableFactory.of());
+        final long compressibleId = store.storeStream(new ByteArrayInputStream(compressible)).lhSide;
+        final long incompressibleId = store.storeStream(new ByteArrayInputStream(incompressible)).lhSide;
+        final long smallId = store.storeStream(new ByteArrayInputStream(small)).lhSide;
+
+        txManager.runTaskWithRetry(new TransactionTask<Void, Exception>() {
+            @Override
+            public Void execute(Transaction t) throws Exception {
+                Assert.assertTrue(StreamTestTableFactory.of().getStreamTestCompressedStreamMetadataTable(t)
+                        .getMetadatas(ImmutableSet.of(StreamTestCompressedStreamMetadataRow.of(compressibleId)))
+                        .values().iterator().next().getBlocksCompressed());
+                StreamTestCompressedStreamValueRow firstBlock = StreamTestCompressedStreamValueRow.of(compressibleId, 0);
+                byte[] storedBlock = StreamTestTableFactory.of().getStreamTestCompressedStreamValueTable(t)
+                        .getValues(ImmutableSet.of(firstBlock)).get(firstBlock);
+                Assert.assertTrue(storedBlock.length < blockSize / 10);
+
+                Assert.assertArrayEquals(compressible, ByteStreams.toByteArray(store.loadStream(t, compressibleId)));
+                Assert.assertArrayEquals(incompressible, ByteStreams.toByteArray(store.loadStream(t, incompressibleId)));
+                Assert.assertArrayEquals(small, ByteStreams.toByteArray(store.loadStream(t, smallId)));
+                assertRangeEquals(compressible, store, t, compressibleId, blockSize - 3, 10);
+                return null;
+            }
+        });
+    }
+
     @Test
     public void testStreamStoreWithHashValueRowPersistToBytesAndHydrateSucceeds() {
         StreamTestWithHashStreamValueRow row = StreamTestWithHashStreamValueRow.of(5L, 5L);
@@ -0,0 +1,730 @@
+package com.palantir.atlasdb.schema.stream.generated;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Generated;
+
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.palantir.atlasdb.compress.CompressionUtils;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.Prefix;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.impl.Cells;
+import com.palantir.atlasdb.ptobject.EncodingUtils;
+import com.palantir.atlasdb.schema.Namespace;
+import com.palantir.atlasdb.table.api.AtlasDbDynamicMutableExpiringTable;
+import com.palantir.atlasdb.table.api.AtlasDbDynamicMutablePersistentTable;
+import com.palantir.atlasdb.table.api.AtlasDbMutableExpiringTable;
+import com.palantir.atlasdb.table.api.AtlasDbMutablePersistentTable;
+import com.palantir.atlasdb.table.api.AtlasDbNamedExpiringSet;
+import com.palantir.atlasdb.table.api.AtlasDbNamedMutableTable;
+import com.palantir.atlasdb.table.api.AtlasDbNamedPersistentSet;
+import com.palantir.atlasdb.table.api.ColumnValue;
+import com.palantir.atlasdb.table.api.TypedRowResult;
+import com.palantir.atlasdb.table.description.ColumnValueDescription.Compression;
+import com.palantir.atlasdb.table.description.ValueType;
+import com.palantir.atlasdb.table.generation.ColumnValues;
+import com.palantir.atlasdb.table.generation.Descending;
+import com.palantir.atlasdb.table.generation.NamedColumnValue;
+import com.palantir.atlasdb.transaction.api.AtlasDbConstraintCheckingMode;
+import com.palantir.atlasdb.transaction.api.ConstraintCheckingTransaction;
+import com.palantir.atlasdb.transaction.api.Transaction;
+import com.palantir.common.base.AbortingVisitor;
+import com.palantir.common.base.AbortingVisitors;
+import com.palantir.common.base.BatchingVisitable;
+import com.palantir.common.base.BatchingVisitableView;
+import com.palantir.common.base.BatchingVisitables;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.collect.IterableView;
+import com.palantir.common.persist.Persistable;
+import com.palantir.common.persist.Persistable.Hydrator;
+import com.palantir.common.persist.Persistables;
+import com.palantir.common.proxy.AsyncProxy;
+import com.palantir.util.AssertUtils;
+import com.palantir.util.crypto.Sha256Hash;
+
+
+@Generated("com.palantir.atlasdb.table.description.render.TableRenderer")
+public final class StreamTestCompressedStreamHashAidxTable implements
+        AtlasDbDynamicMutablePersistentTable<StreamTestCompressedStreamHashAidxTable.StreamTestCompressedStreamHashAidxRow,
+                                                StreamTestCompressedStreamHashAidxTable.StreamTestCompressedStreamHashAidxColumn,
+                                                StreamTestCompressedStreamHashAidxTable.StreamTestCompressedStreamHashAidxColumnValue,
+                                                StreamTestCompressedStreamHashAidxTable.StreamTestCompressedStreamHashAidxRowResult> {
+    private final Transaction t;
+    private final List<StreamTestCompressedStreamHashAidxTrigger> triggers;
+    private final static String rawTableName = "stream_test_compressed_stream_hash_aidx";
+    private final String tableName;
+    private final Namespace namespace;
+
+    static StreamTestCompressedStreamHashAidxTable of(Transaction t, Namespace namespace) {
+        return new StreamTestCompressedStreamHashAidxTable(t, namespace, ImmutableList.<StreamTestCompressedStreamHashAidxTrigger>of());
+    }
+
+    static StreamTestCompressedStreamHashAidxTable of(Transaction t, Namespace namespace, StreamTestCompressedStreamHashAidxTrigger trigger, StreamTestCompressedStreamHashAidxTrigger... triggers) {
+        return new StreamTestCompressedStreamHashAidxTable(t, namespace, ImmutableList.<StreamTestCompressedStreamHashAidxTrigger>builder().add(trigger).add(triggers).build());
+    }
+
+    static StreamTestCompressedStreamHashAidxTable of(Transaction t, Namespace namespace, List<StreamTestCompressedStreamHashAidxTrigger> triggers) {
+        return new StreamTestCompressedStreamHashAidxTable(t, namespace, triggers);
+    }
+
+    private StreamTestCompressedStreamHashAidxTable(Transaction t, Namespace namespace, List<StreamTestCompressedStreamHashAidxTrigger> triggers) {
+        this.t = t;
+        this.tableName = namespace.getName().isEmpty() ? rawTableName : namespace.getName() + "." + rawTableName;
+        this.triggers = triggers;
+        this.namespace = namespace;
+    }
+
+    public static String getRawTableName() {
+        return rawTableName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Namespace getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * <pre>
+     * StreamTestCompressedStreamHashAidxRow {
+     *   {@literal Sha256Hash hash};
+     * }
+     * </pre>
+     */
+    public static final class StreamTestCompressedStreamHashAidxRow implements Persistable, Comparable<StreamTestCompressedStreamHashAidxRow> {
+        private final Sha256Hash hash;
+
+        public static StreamTestCompressedStreamHashAidxRow of(Sha256Hash hash) {
+            return new StreamTestCompressedStreamHashAidxRow(hash);
+        }
+
+        private StreamTestCompressedStreamHashAidxRow(Sha256Hash hash) {
+            this.hash = hash;
+        }
+
+        public Sha256Hash getHash() {
+            return hash;
+        }
+
+        public static Function<StreamTestCompressedStreamHashAidxRow, Sha256Hash> getHashFun() {
+            return new Function<StreamTestCompressedStreamHashAidxRow, Sha256Hash>() {
+                @Override
+                public Sha256Hash apply(StreamTestCompressedStreamHashAidxRow row) {
+                    return row.hash;
+                }
+            };
+        }
+
+        public static Function<Sha256Hash, StreamTestCompressedStreamHashAidxRow> fromHashFun() {
+            return new Function<Sha256Hash, StreamTestCompressedStreamHashAidxRow>() {
+                @Override
+                public StreamTestCompressedStreamHashAidxRow apply(Sha256Hash row) {
+                    return StreamTestCompressedStreamHashAidxRow.of(row);
+                }
+            };
+        }
+
+        @Override
+        public byte[] persistToBytes() {
+            byte[] hashBytes = hash.getBytes();
+            return EncodingUtils.add(hashBytes);
+        }
+
+        public static final Hydrator<StreamTestCompressedStreamHashAidxRow> BYTES_HYDRATOR = new Hydrator<StreamTestCompressedStreamHashAidxRow>() {
+            @Override
+            public StreamTestCompressedStreamHashAidxRow hydrateFromBytes(byte[] __input) {
+                int __index = 0;
+                Sha256Hash hash = new Sha256Hash(EncodingUtils.get32Bytes(__input, __index));
+                __index += 32;
+                return new StreamTestCompressedStreamHashAidxRow(hash);
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("hash", hash)
+                .toString();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            StreamTestCompressedStreamHashAidxRow other = (StreamTestCompressedStreamHashAidxRow) obj;
+            return Objects.equal(hash, other.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(hash);
+        }
+
+        @Override
+        public int compareTo(StreamTestCompressedStreamHashAidxRow o) {
+            return ComparisonChain.start()
+                .compare(this.hash, o.hash)
+                .result();
+        }
+    }
+
+    /**
+     * <pre>
+     * StreamTestCompressedStreamHashAidxColumn {
+     *   {@literal Long streamId};
+     * }
+     * </pre>
+     */
+    public static final class StreamTestCompressedStreamHashAidxColumn implements Persistable, Comparable<StreamTestCompressedStreamHashAidxColumn> {
+        private final long streamId;
+
+        public static StreamTestCompressedStreamHashAidxColumn of(long streamId) {
+            return new StreamTestCompressedStreamHashAidxColumn(streamId);
+        }
+
+        private StreamTestCompressedStreamHashAidxColumn(long streamId) {
+            this.streamId = streamId;
+        }
+
+        public long getStreamId() {
+            return streamId;
+        }
+
+        public static Function<StreamTestCompressedStreamHashAidxColumn, Long> getStreamIdFun() {
+            return new Function<StreamTestCompressedStreamHashAidxColumn, Long>() {
+                @Override
+                public Long apply(StreamTestCompressedStreamHashAidxColumn row) {
+                    return row.streamId;
+                }
+            };
+        }
+
+        public static Function<Long, StreamTestCompressedStreamHashAidxColumn> fromStreamIdFun() {
+            return new Function<Long, StreamTestCompressedStreamHashAidxColumn>() {
+                @Override
+                public StreamTestCompressedStreamHashAidxColumn apply(Long row) {
+                    return StreamTestCompressedStreamHashAidxColumn.of(row);
+                }
+            };
+        }
+
+        @Override
+        public byte[] persistToBytes() {
+            byte[] streamIdBytes = EncodingUtils.encodeUnsignedVarLong(streamId);
+            return EncodingUtils.add(streamIdBytes);
+        }
+
+        public static final Hydrator<StreamTestCompressedStreamHashAidxColumn> BYTES_HYDRATOR = new Hydrator<StreamTestCompressedStreamHashAidxColumn>() {
+            @Override
+            public StreamTestCompressedStreamHashAidxColumn hydrateFromBytes(byte[] __input) {
+                int __index = 0;
+                Long streamId = EncodingUtils.decodeUnsignedVarLong(__input, __index);
+                __index += EncodingUtils.sizeOfUnsignedVarLong(streamId);
+                return new StreamTestCompressedStreamHashAidxColumn(streamId);
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("streamId", streamId)
+                .toString();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            StreamTestCompressedStreamHashAidxColumn other = (StreamTestCompressedStreamHashAidxColumn) obj;
+            return Objects.equal(streamId, other.streamId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(streamId);
+        }
+
+        @Override
+        public int compareTo(StreamTestCompressedStreamHashAidxColumn o) {
+            return ComparisonChain.start()
+                .compare(this.streamId, o.streamId)
+                .result();
+        }
+    }
+
+    public interface StreamTestCompressedStreamHashAidxTrigger {
+        public void putStreamTestCompressedStreamHashAidx(Multimap<StreamTestCompressedStreamHashAidxRow, ? extends StreamTestCompressedStreamHashAidxColumnValue> newRows);
+    }
+
+    /**
+     * <pre>
+     * Column name description {
+     *   {@literal Long streamId};
+     * }
+     * Column value description {
+     *   type: Long;
+     * }
+     * </pre>
+     */
+    public static final class StreamTestCompressedStreamHashAidxColumnValue implements ColumnValue<Long> {
+        private final StreamTestCompressedStreamHashAidxColumn columnName;
+        private final Long value;
+
+        public static StreamTestCompressedStreamHashAidxColumnValue of(StreamTestCompressedStreamHashAidxColumn columnName, Long value) {
+            return new StreamTestCompressedStreamHashAidxColumnValue(columnName, value);
+        }
+
+        private StreamTestCompressedStreamHashAidxColumnValue(StreamTestCompressedStreamHashAidxColumn columnName, Long value) {
+            this.columnName = columnName;
+            this.value = value;
+        }
+
+        public StreamTestCompressedStreamHashAidxColumn getColumnName() {
+            return columnName;
+        }
+
+        @Override
+        public Long getValue() {
+            return value;
+        }
+
+        @Override
+        public byte[] persistColumnName() {
+            return columnName.persistToBytes();
+        }
+
+        @Override
+        public byte[] persistValue() {
+            byte[] bytes = EncodingUtils.encodeUnsignedVarLong(value);
+            return CompressionUtils.compress(bytes, Compression.NONE);
+        }
+
+        public static Long hydrateValue(byte[] bytes) {
+            bytes = CompressionUtils.decompress(bytes, Compression.NONE);
+            return EncodingUtils.decodeUnsignedVarLong(bytes, 0);
+        }
+
+        public static Function<StreamTestCompressedStreamHashAidxColumnValue, StreamTestCompressedStreamHashAidxColumn> getColumnNameFun() {
+            return new Function<StreamTestCompressedStreamHashAidxColumnValue, StreamTestCompressedStreamHashAidxColumn>() {
+                @Override
+                public StreamTestCompressedStreamHashAidxColumn apply(StreamTestCompressedStreamHashAidxColumnValue columnValue) {
+                    return columnValue.getColumnName();
+                }
+            };
+        }
+
+        public static Function<StreamTestCompressedStreamHashAidxColumnValue, Long> getValueFun() {
+            return new Function<StreamTestCompressedStreamHashAidxColumnValue, Long>() {
+                @Override
+                public Long apply(StreamTestCompressedStreamHashAidxColumnValue columnValue) {
+                    return columnValue.getValue();
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("ColumnName", this.columnName)
+                .add("Value", this.value)
+                .toString();
+        }
+    }
+
+    public static final class StreamTestCompressedStreamHashAidxRowResult implements TypedRowResult {
+        private final StreamTestCompressedStreamHashAidxRow rowName;
+        private final ImmutableSet<StreamTestCompressedStreamHashAidxColumnValue> columnValues;
+
+        public static StreamTestCompressedStreamHashAidxRowResult of(RowResult<byte[]> rowResult) {
+            StreamTestCompressedStreamHashAidxRow rowName = StreamTestCompressedStreamHashAidxRow.BYTES_HYDRATOR.hydrateFromBytes(rowResult.getRowName());
+            Set<StreamTestCompressedStreamHashAidxColumnValue> columnValues = Sets.newHashSetWithExpectedSize(rowResult.getColumns().size());
+            for (Entry<byte[], byte[]> e : rowResult.getColumns().entrySet()) {
+                StreamTestCompressedStreamHashAidxColumn col = StreamTestCompressedStreamHashAidxColumn.BYTES_HYDRATOR.hydrateFromBytes(e.getKey());
+                Long value = StreamTestCompressedStreamHashAidxColumnValue.hydrateValue(e.getValue());
+                columnValues.add(StreamTestCompressedStreamHashAidxColumnValue.of(col, value));
+            }
+            return new StreamTestCompressedStreamHashAidxRowResult(rowName, ImmutableSet.copyOf(columnValues));
+        }
+
+        private StreamTestCompressedStreamHashAidxRowResult(StreamTestCompressedStreamHashAidxRow rowName, ImmutableSet<StreamTestCompressedStreamHashAidxColumnValue> columnValues) {
+            this.rowName = rowName;
+            this.columnValues = columnValues;
+        }
+
+        @Override
+        public StreamTestCompressedStreamHashAidxRow getRowName() {
+            return rowName;
+        }
+
+        public Set<StreamTestCompressedStreamHashAidxColumnValue> getColumnValues() {
+            return columnValues;
+        }
+
+        public static Function<StreamTestCompressedStreamHashAidxRowResult, StreamTestCompressedStreamHashAidxRow> getRowNameFun() {
+            return new Function<StreamTestCompressedStreamHashAidxRowResult, StreamTestCompressedStreamHashAidxRow>() {
+                @Override
+                public StreamTestCompressedStreamHashAidxRow apply(StreamTestCompressedStreamHashAidxRowResult rowResult) {
+                    return rowResult.rowName;
+                }
+            };
+        }
+
+        public static Function<StreamTestCompressedStreamHashAidxRowResult, ImmutableSet<StreamTestCompressedStreamHashAidxColumnValue>> getColumnValuesFun() {
+            return new Function<StreamTestCompressedStreamHashAidxRowResult, ImmutableSet<StreamTestCompressedStreamHashAidxColumnValue>>() {
+                @Override
+                public ImmutableSet<StreamTestCompressedStreamHashAidxColumnValue> apply(StreamTestCompressedStreamHashAidxRowResult rowResult) {
+                    return rowResult.columnValues;
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("RowName", getRowName())
+                .add("ColumnValues", getColumnValues())
+                .toString();
+        }
+    }
+
+    @Override
+    public void delete(StreamTestCompressedStreamHashAidxRow row, StreamTestCompressedStreamHashAidxColumn column) {
+        delete(ImmutableMultimap.of(row, column));
+    }
+
+    @Override
+    public void delete(Iterable<StreamTestCompressedStreamHashAidxRow> rows) {
+        Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumn> toRemove = HashMultimap.create();
+        Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> result = getRowsMultimap(rows);
+        for (Entry<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> e : result.entries()) {
+            toRemove.put(e.getKey(), e.getValue().getColumnName());
+        }
+        delete(toRemove);
+    }
+
+    @Override
+    public void delete(Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumn> values) {
+        t.delete(tableName, ColumnValues.toCells(values));
+    }
+
+    @Override
+    public void put(StreamTestCompressedStreamHashAidxRow rowName, Iterable<StreamTestCompressedStreamHashAidxColumnValue> values) {
+        put(ImmutableMultimap.<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue>builder().putAll(rowName, values).build());
+    }
+
+    @Override
+    public void put(StreamTestCompressedStreamHashAidxRow rowName, StreamTestCompressedStreamHashAidxColumnValue... values) {
+        put(ImmutableMultimap.<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue>builder().putAll(rowName, values).build());
+    }
+
+    @Override
+    public void put(Multimap<StreamTestCompressedStreamHashAidxRow, ? extends StreamTestCompressedStreamHashAidxColumnValue> values) {
+        t.useTable(tableName, this);
+        t.put(tableName, ColumnValues.toCellValues(values));
+        for (StreamTestCompressedStreamHashAidxTrigger trigger : triggers) {
+            trigger.putStreamTestCompressedStreamHashAidx(values);
+        }
+    }
+
+    @Override
+    public void putUnlessExists(StreamTestCompressedStreamHashAidxRow rowName, Iterable<StreamTestCompressedStreamHashAidxColumnValue> values) {
+        putUnlessExists(ImmutableMultimap.<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue>builder().putAll(rowName, values).build());
+    }
+
+    @Override
+    public void putUnlessExists(StreamTestCompressedStreamHashAidxRow rowName, StreamTestCompressedStreamHashAidxColumnValue... values) {
+        putUnlessExists(ImmutableMultimap.<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue>builder().putAll(rowName, values).build());
+    }
+
+    @Override
+    public void putUnlessExists(Multimap<StreamTestCompressedStreamHashAidxRow, ? extends StreamTestCompressedStreamHashAidxColumnValue> rows) {
+        Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumn> toGet = Multimaps.transformValues(rows, StreamTestCompressedStreamHashAidxColumnValue.getColumnNameFun());
+        Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> existing = get(toGet);
+        Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> toPut = HashMultimap.create();
+        for (Entry<StreamTestCompressedStreamHashAidxRow, ? extends StreamTestCompressedStreamHashAidxColumnValue> entry : rows.entries()) {
+            if (!existing.containsEntry(entry.getKey(), entry.getValue())) {
+                toPut.put(entry.getKey(), entry.getValue());
+            }
+        }
+        put(toPut);
+    }
+
+    @Override
+    public void touch(Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumn> values) {
+        Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> currentValues = get(values);
+        put(currentValues);
+        Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumn> toDelete = HashMultimap.create(values);
+        for (Map.Entry<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> e : currentValues.entries()) {
+            toDelete.remove(e.getKey(), e.getValue().getColumnName());
+        }
+        delete(toDelete);
+    }
+
+    public static ColumnSelection getColumnSelection(Collection<StreamTestCompressedStreamHashAidxColumn> cols) {
+        return ColumnSelection.create(Collections2.transform(cols, Persistables.persistToBytesFunction()));
+    }
+
+    public static ColumnSelection getColumnSelection(StreamTestCompressedStreamHashAidxColumn... cols) {
+        return getColumnSelection(Arrays.asList(cols));
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> get(Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumn> cells) {
+        Set<Cell> rawCells = ColumnValues.toCells(cells);
+        Map<Cell, byte[]> rawResults = t.get(tableName, rawCells);
+        Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> rowMap = HashMultimap.create();
+        for (Entry<Cell, byte[]> e : rawResults.entrySet()) {
+            if (e.getValue().length > 0) {
+                StreamTestCompressedStreamHashAidxRow row = StreamTestCompressedStreamHashAidxRow.BYTES_HYDRATOR.hydrateFromBytes(e.getKey().getRowName());
+                StreamTestCompressedStreamHashAidxColumn col = StreamTestCompressedStreamHashAidxColumn.BYTES_HYDRATOR.hydrateFromBytes(e.getKey().getColumnName());
+                Long val = StreamTestCompressedStreamHashAidxColumnValue.hydrateValue(e.getValue());
+                rowMap.put(row, StreamTestCompressedStreamHashAidxColumnValue.of(col, val));
+            }
+        }
+        return rowMap;
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> getAsync(final Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumn> cells, ExecutorService exec) {
+        Callable<Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue>> c =
+                new Callable<Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue>>() {
+            @Override
+            public Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> call() {
+                return get(cells);
+            }
+        };
+        return AsyncProxy.create(exec.submit(c), Multimap.class);
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamHashAidxColumnValue> getRowColumns(StreamTestCompressedStreamHashAidxRow row) {
+        return getRowColumns(row, ColumnSelection.all());
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamHashAidxColumnValue> getRowColumns(StreamTestCompressedStreamHashAidxRow row, ColumnSelection columns) {
+        byte[] bytes = row.persistToBytes();
+        RowResult<byte[]> rowResult = t.getRows(tableName, ImmutableSet.of(bytes), columns).get(bytes);
+        if (rowResult == null) {
+            return ImmutableList.of();
+        } else {
+            List<StreamTestCompressedStreamHashAidxColumnValue> ret = Lists.newArrayListWithCapacity(rowResult.getColumns().size());
+            for (Entry<byte[], byte[]> e : rowResult.getColumns().entrySet()) {
+                StreamTestCompressedStreamHashAidxColumn col = StreamTestCompressedStreamHashAidxColumn.BYTES_HYDRATOR.hydrateFromBytes(e.getKey());
+                Long val = StreamTestCompressedStreamHashAidxColumnValue.hydrateValue(e.getValue());
+                ret.add(StreamTestCompressedStreamHashAidxColumnValue.of(col, val));
+            }
+            return ret;
+        }
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> getRowsMultimap(Iterable<StreamTestCompressedStreamHashAidxRow> rows) {
+        return getRowsMultimapInternal(rows, ColumnSelection.all());
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> getRowsMultimap(Iterable<StreamTestCompressedStreamHashAidxRow> rows, ColumnSelection columns) {
+        return getRowsMultimapInternal(rows, columns);
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> getAsyncRowsMultimap(Iterable<StreamTestCompressedStreamHashAidxRow> rows, ExecutorService exec) {
+        return getAsyncRowsMultimap(rows, ColumnSelection.all(), exec);
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> getAsyncRowsMultimap(final Iterable<StreamTestCompressedStreamHashAidxRow> rows, final ColumnSelection columns, ExecutorService exec) {
+        Callable<Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue>> c =
+                new Callable<Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue>>() {
+            @Override
+            public Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> call() {
+                return getRowsMultimapInternal(rows, columns);
+            }
+        };
+        return AsyncProxy.create(exec.submit(c), Multimap.class);
+    }
+
+    private Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> getRowsMultimapInternal(Iterable<StreamTestCompressedStreamHashAidxRow> rows, ColumnSelection columns) {
+        SortedMap<byte[], RowResult<byte[]>> results = t.getRows(tableName, Persistables.persistAll(rows), columns);
+        return getRowMapFromRowResults(results.values());
+    }
+
+    private static Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> getRowMapFromRowResults(Collection<RowResult<byte[]>> rowResults) {
+        Multimap<StreamTestCompressedStreamHashAidxRow, StreamTestCompressedStreamHashAidxColumnValue> rowMap = HashMultimap.create();
+        for (RowResult<byte[]> result : rowResults) {
+            StreamTestCompressedStreamHashAidxRow row = StreamTestCompressedStreamHashAidxRow.BYTES_HYDRATOR.hydrateFromBytes(result.getRowName());
+            for (Entry<byte[], byte[]> e : result.getColumns().entrySet()) {
+                StreamTestCompressedStreamHashAidxColumn col = StreamTestCompressedStreamHashAidxColumn.BYTES_HYDRATOR.hydrateFromBytes(e.getKey());
+                Long val = StreamTestCompressedStreamHashAidxColumnValue.hydrateValue(e.getValue());
+                rowMap.put(row, StreamTestCompressedStreamHashAidxColumnValue.of(col, val));
+            }
+        }
+        return rowMap;
+    }
+
+    public BatchingVisitableView<StreamTestCompressedStreamHashAidxRowResult> getAllRowsUnordered() {
+        return getAllRowsUnordered(ColumnSelection.all());
+    }
+
+    public BatchingVisitableView<StreamTestCompressedStreamHashAidxRowResult> getAllRowsUnordered(ColumnSelection columns) {
+        return BatchingVisitables.transform(t.getRange(tableName, RangeRequest.builder().retainColumns(columns).build()),
+                new Function<RowResult<byte[]>, StreamTestCompressedStreamHashAidxRowResult>() {
+            @Override
+            public StreamTestCompressedStreamHashAidxRowResult apply(RowResult<byte[]> input) {
+                return StreamTestCompressedStreamHashAidxRowResult.of(input);
+            }
+        });
+    }
+
+    @Override
+    public List<String> findConstraintFailures(Map<Cell, byte[]> writes,
+                                               ConstraintCheckingTransaction transaction,
+                                               AtlasDbConstraintCheckingMode constraintCheckingMode) {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public List<String> findConstraintFailuresNoRead(Map<Cell, byte[]> writes,
+                                                     AtlasDbConstraintCheckingMode constraintCheckingMode) {
+        return ImmutableList.of();
+    }
+
+    /**
+     * This exists to avoid unused import warnings
+     * {@link AbortingVisitor}
+     * {@link AbortingVisitors}
+     * {@link ArrayListMultimap}
+     * {@link Arrays}
+     * {@link AssertUtils}
+     * {@link AsyncProxy}
+     * {@link AtlasDbConstraintCheckingMode}
+     * {@link AtlasDbDynamicMutableExpiringTable}
+     * {@link AtlasDbDynamicMutablePersistentTable}
+     * {@link AtlasDbMutableExpiringTable}
+     * {@link AtlasDbMutablePersistentTable}
+     * {@link AtlasDbNamedExpiringSet}
+     * {@link AtlasDbNamedMutableTable}
+     * {@link AtlasDbNamedPersistentSet}
+     * {@link BatchingVisitable}
+     * {@link BatchingVisitableView}
+     * {@link BatchingVisitables}
+     * {@link Bytes}
+     * {@link Callable}
+     * {@link Cell}
+     * {@link Cells}
+     * {@link Collection}
+     * {@link Collections2}
+     * {@link ColumnSelection}
+     * {@link ColumnValue}
+     * {@link ColumnValues}
+     * {@link ComparisonChain}
+     * {@link Compression}
+     * {@link CompressionUtils}
+     * {@link ConstraintCheckingTransaction}
+     * {@link Descending}
+     * {@link EncodingUtils}
+     * {@link Entry}
+     * {@link EnumSet}
+     * {@link ExecutorService}
+     * {@link Function}
+     * {@link Generated}
+     * {@link HashMultimap}
+     * {@link HashSet}
+     * {@link Hashing}
+     * {@link Hydrator}
+     * {@link ImmutableList}
+     * {@link ImmutableMap}
+     * {@link ImmutableMultimap}
+     * {@link ImmutableSet}
+     * {@link InvalidProtocolBufferException}
+     * {@link IterableView}
+     * {@link Iterables}
+     * {@link Iterator}
+     * {@link Joiner}
+     * {@link List}
+     * {@link Lists}
+     * {@link Map}
+     * {@link Maps}
+     * {@link MoreObjects}
+     * {@link Multimap}
+     * {@link Multimaps}
+     * {@link NamedColumnValue}
+     * {@link Namespace}
+     * {@link Objects}
+     * {@link Optional}
+     * {@link Persistable}
+     * {@link Persistables}
+     * {@link Prefix}
+     * {@link PtBytes}
+     * {@link RangeRequest}
+     * {@link RowResult}
+     * {@link Set}
+     * {@link Sets}
+     * {@link Sha256Hash}
+     * {@link SortedMap}
+     * {@link Supplier}
+     * {@link Throwables}
+     * {@link TimeUnit}
+     * {@link Transaction}
+     * {@link TypedRowResult}
+     * {@link UnsignedBytes}
+     * {@link ValueType}
+     */
+    static String __CLASS_HASH = "+QHux5brAtU2KNEKW0og2A==";
+}
@@ -0,0 +1,717 @@
+package com.palantir.atlasdb.schema.stream.generated;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Generated;
+
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.palantir.atlasdb.compress.CompressionUtils;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.Prefix;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.impl.Cells;
+import com.palantir.atlasdb.ptobject.EncodingUtils;
+import com.palantir.atlasdb.schema.Namespace;
+import com.palantir.atlasdb.table.api.AtlasDbDynamicMutableExpiringTable;
+import com.palantir.atlasdb.table.api.AtlasDbDynamicMutablePersistentTable;
+import com.palantir.atlasdb.table.api.AtlasDbMutableExpiringTable;
+import com.palantir.atlasdb.table.api.AtlasDbMutablePersistentTable;
+import com.palantir.atlasdb.table.api.AtlasDbNamedExpiringSet;
+import com.palantir.atlasdb.table.api.AtlasDbNamedMutableTable;
+import com.palantir.atlasdb.table.api.AtlasDbNamedPersistentSet;
+import com.palantir.atlasdb.table.api.ColumnValue;
+import com.palantir.atlasdb.table.api.TypedRowResult;
+import com.palantir.atlasdb.table.description.ColumnValueDescription.Compression;
+import com.palantir.atlasdb.table.description.ValueType;
+import com.palantir.atlasdb.table.generation.ColumnValues;
+import com.palantir.atlasdb.table.generation.Descending;
+import com.palantir.atlasdb.table.generation.NamedColumnValue;
+import com.palantir.atlasdb.transaction.api.AtlasDbConstraintCheckingMode;
+import com.palantir.atlasdb.transaction.api.ConstraintCheckingTransaction;
+import com.palantir.atlasdb.transaction.api.Transaction;
+import com.palantir.common.base.AbortingVisitor;
+import com.palantir.common.base.AbortingVisitors;
+import com.palantir.common.base.BatchingVisitable;
+import com.palantir.common.base.BatchingVisitableView;
+import com.palantir.common.base.BatchingVisitables;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.collect.IterableView;
+import com.palantir.common.persist.Persistable;
+import com.palantir.common.persist.Persistable.Hydrator;
+import com.palantir.common.persist.Persistables;
+import com.palantir.common.proxy.AsyncProxy;
+import com.palantir.util.AssertUtils;
+import com.palantir.util.crypto.Sha256Hash;
+
+
+@Generated("com.palantir.atlasdb.table.description.render.TableRenderer")
+public final class StreamTestCompressedStreamMetadataTable implements
+        AtlasDbMutablePersistentTable<StreamTestCompressedStreamMetadataTable.StreamTestCompressedStreamMetadataRow,
+                                         StreamTestCompressedStreamMetadataTable.StreamTestCompressedStreamMetadataNamedColumnValue<?>,
+                                         StreamTestCompressedStreamMetadataTable.StreamTestCompressedStreamMetadataRowResult>,
+        AtlasDbNamedMutableTable<StreamTestCompressedStreamMetadataTable.StreamTestCompressedStreamMetadataRow,
+                                    StreamTestCompressedStreamMetadataTable.StreamTestCompressedStreamMetadataNamedColumnValue<?>,
+                                    StreamTestCompressedStreamMetadataTable.StreamTestCompressedStreamMetadataRowResult> {
+    private final Transaction t;
+    private final List<StreamTestCompressedStreamMetadataTrigger> triggers;
+    private final static String rawTableName = "stream_test_compressed_stream_metadata";
+    private final String tableName;
+    private final Namespace namespace;
+
+    static StreamTestCompressedStreamMetadataTable of(Transaction t, Namespace namespace) {
+        return new StreamTestCompressedStreamMetadataTable(t, namespace, ImmutableList.<StreamTestCompressedStreamMetadataTrigger>of());
+    }
+
+    static StreamTestCompressedStreamMetadataTable of(Transaction t, Namespace namespace, StreamTestCompressedStreamMetadataTrigger trigger, StreamTestCompressedStreamMetadataTrigger... triggers) {
+        return new StreamTestCompressedStreamMetadataTable(t, namespace, ImmutableList.<StreamTestCompressedStreamMetadataTrigger>builder().add(trigger).add(triggers).build());
+    }
+
+    static StreamTestCompressedStreamMetadataTable of(Transaction t, Namespace namespace, List<StreamTestCompressedStreamMetadataTrigger> triggers) {
+        return new StreamTestCompressedStreamMetadataTable(t, namespace, triggers);
+    }
+
+    private StreamTestCompressedStreamMetadataTable(Transaction t, Namespace namespace, List<StreamTestCompressedStreamMetadataTrigger> triggers) {
+        this.t = t;
+        this.tableName = namespace.getName().isEmpty() ? rawTableName : namespace.getName() + "." + rawTableName;
+        this.triggers = triggers;
+        this.namespace = namespace;
+    }
+
+    public static String getRawTableName() {
+        return rawTableName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Namespace getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * <pre>
+     * StreamTestCompressedStreamMetadataRow {
+     *   {@literal Long id};
+     * }
+     * </pre>
+     */
+    public static final class StreamTestCompressedStreamMetadataRow implements Persistable, Comparable<StreamTestCompressedStreamMetadataRow> {
+        private final long id;
+
+        public static StreamTestCompressedStreamMetadataRow of(long id) {
+            return new StreamTestCompressedStreamMetadataRow(id);
+        }
+
+        private StreamTestCompressedStreamMetadataRow(long id) {
+            this.id = id;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public static Function<StreamTestCompressedStreamMetadataRow, Long> getIdFun() {
+            return new Function<StreamTestCompressedStreamMetadataRow, Long>() {
+                @Override
+                public Long apply(StreamTestCompressedStreamMetadataRow row) {
+                    return row.id;
+                }
+            };
+        }
+
+        public static Function<Long, StreamTestCompressedStreamMetadataRow> fromIdFun() {
+            return new Function<Long, StreamTestCompressedStreamMetadataRow>() {
+                @Override
+                public StreamTestCompressedStreamMetadataRow apply(Long row) {
+                    return StreamTestCompressedStreamMetadataRow.of(row);
+                }
+            };
+        }
+
+        @Override
+        public byte[] persistToBytes() {
+            byte[] idBytes = EncodingUtils.encodeUnsignedVarLong(id);
+            return EncodingUtils.add(idBytes);
+        }
+
+        public static final Hydrator<StreamTestCompressedStreamMetadataRow> BYTES_HYDRATOR = new Hydrator<StreamTestCompressedStreamMetadataRow>() {
+            @Override
+            public StreamTestCompressedStreamMetadataRow hydrateFromBytes(byte[] __input) {
+                int __index = 0;
+                Long id = EncodingUtils.decodeUnsignedVarLong(__input, __index);
+                __index += EncodingUtils.sizeOfUnsignedVarLong(id);
+                return new StreamTestCompressedStreamMetadataRow(id);
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("id", id)
+                .toString();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            StreamTestCompressedStreamMetadataRow other = (StreamTestCompressedStreamMetadataRow) obj;
+            return Objects.equal(id, other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(id);
+        }
+
+        @Override
+        public int compareTo(StreamTestCompressedStreamMetadataRow o) {
+            return ComparisonChain.start()
+                .compare(this.id, o.id)
+                .result();
+        }
+    }
+
+    public interface StreamTestCompressedStreamMetadataNamedColumnValue<T> extends NamedColumnValue<T> { /* */ }
+
+    /**
+     * <pre>
+     * Column value description {
+     *   type: com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata;
+     *   name: "StreamMetadata"
+     *   field {
+     *     name: "status"
+     *     number: 1
+     *     label: LABEL_REQUIRED
+     *     type: TYPE_ENUM
+     *     type_name: ".com.palantir.atlasdb.protos.generated.Status"
+     *   }
+     *   field {
+     *     name: "length"
+     *     number: 2
+     *     label: LABEL_REQUIRED
+     *     type: TYPE_INT64
+     *   }
+     *   field {
+     *     name: "hash"
+     *     number: 3
+     *     label: LABEL_REQUIRED
+     *     type: TYPE_BYTES
+     *   }
+     *   field {
+     *     name: "blocksCompressed"
+     *     number: 4
+     *     label: LABEL_OPTIONAL
+     *     type: TYPE_BOOL
+     *   }
+     * }
+     * </pre>
+     */
+    public static final class Metadata implements StreamTestCompressedStreamMetadataNamedColumnValue<com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata> {
+        private final com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata value;
+
+        public static Metadata of(com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata value) {
+            return new Metadata(value);
+        }
+
+        private Metadata(com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getColumnName() {
+            return "metadata";
+        }
+
+        @Override
+        public String getShortColumnName() {
+            return "md";
+        }
+
+        @Override
+        public com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata getValue() {
+            return value;
+        }
+
+        @Override
+        public byte[] persistValue() {
+            byte[] bytes = value.toByteArray();
+            return CompressionUtils.compress(bytes, Compression.NONE);
+        }
+
+        @Override
+        public byte[] persistColumnName() {
+            return PtBytes.toCachedBytes("md");
+        }
+
+        public static final Hydrator<Metadata> BYTES_HYDRATOR = new Hydrator<Metadata>() {
+            @Override
+            public Metadata hydrateFromBytes(byte[] bytes) {
+                bytes = CompressionUtils.decompress(bytes, Compression.NONE);
+                try {
+                    return of(com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata.parseFrom(bytes));
+                } catch (InvalidProtocolBufferException e) {
+                    throw Throwables.throwUncheckedException(e);
+                }
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("Value", this.value)
+                .toString();
+        }
+    }
+
+    public interface StreamTestCompressedStreamMetadataTrigger {
+        public void putStreamTestCompressedStreamMetadata(Multimap<StreamTestCompressedStreamMetadataRow, ? extends StreamTestCompressedStreamMetadataNamedColumnValue<?>> newRows);
+    }
+
+    public static final class StreamTestCompressedStreamMetadataRowResult implements TypedRowResult {
+        private final RowResult<byte[]> row;
+
+        public static StreamTestCompressedStreamMetadataRowResult of(RowResult<byte[]> row) {
+            return new StreamTestCompressedStreamMetadataRowResult(row);
+        }
+
+        private StreamTestCompressedStreamMetadataRowResult(RowResult<byte[]> row) {
+            this.row = row;
+        }
+
+        @Override
+        public StreamTestCompressedStreamMetadataRow getRowName() {
+            return StreamTestCompressedStreamMetadataRow.BYTES_HYDRATOR.hydrateFromBytes(row.getRowName());
+        }
+
+        public static Function<StreamTestCompressedStreamMetadataRowResult, StreamTestCompressedStreamMetadataRow> getRowNameFun() {
+            return new Function<StreamTestCompressedStreamMetadataRowResult, StreamTestCompressedStreamMetadataRow>() {
+                @Override
+                public StreamTestCompressedStreamMetadataRow apply(StreamTestCompressedStreamMetadataRowResult rowResult) {
+                    return rowResult.getRowName();
+                }
+            };
+        }
+
+        public static Function<RowResult<byte[]>, StreamTestCompressedStreamMetadataRowResult> fromRawRowResultFun() {
+            return new Function<RowResult<byte[]>, StreamTestCompressedStreamMetadataRowResult>() {
+                @Override
+                public StreamTestCompressedStreamMetadataRowResult apply(RowResult<byte[]> rowResult) {
+                    return new StreamTestCompressedStreamMetadataRowResult(rowResult);
+                }
+            };
+        }
+
+        public boolean hasMetadata() {
+            return row.getColumns().containsKey(PtBytes.toCachedBytes("md"));
+        }
+
+        public com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata getMetadata() {
+            byte[] bytes = row.getColumns().get(PtBytes.toCachedBytes("md"));
+            if (bytes == null) {
+                return null;
+            }
+            Metadata value = Metadata.BYTES_HYDRATOR.hydrateFromBytes(bytes);
+            return value.getValue();
+        }
+
+        public static Function<StreamTestCompressedStreamMetadataRowResult, com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata> getMetadataFun() {
+            return new Function<StreamTestCompressedStreamMetadataRowResult, com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata>() {
+                @Override
+                public com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata apply(StreamTestCompressedStreamMetadataRowResult rowResult) {
+                    return rowResult.getMetadata();
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("RowName", getRowName())
+                .add("Metadata", getMetadata())
+                .toString();
+        }
+    }
+
+    public enum StreamTestCompressedStreamMetadataNamedColumn {
+        METADATA {
+            @Override
+            public byte[] getShortName() {
+                return PtBytes.toCachedBytes("md");
+            }
+        };
+
+        public abstract byte[] getShortName();
+
+        public static Function<StreamTestCompressedStreamMetadataNamedColumn, byte[]> toShortName() {
+            return new Function<StreamTestCompressedStreamMetadataNamedColumn, byte[]>() {
+                @Override
+                public byte[] apply(StreamTestCompressedStreamMetadataNamedColumn namedColumn) {
+                    return namedColumn.getShortName();
+                }
+            };
+        }
+    }
+
+    public static ColumnSelection getColumnSelection(Collection<StreamTestCompressedStreamMetadataNamedColumn> cols) {
+        return ColumnSelection.create(Collections2.transform(cols, StreamTestCompressedStreamMetadataNamedColumn.toShortName()));
+    }
+
+    public static ColumnSelection getColumnSelection(StreamTestCompressedStreamMetadataNamedColumn... cols) {
+        return getColumnSelection(Arrays.asList(cols));
+    }
+
+    private static final Map<String, Hydrator<? extends StreamTestCompressedStreamMetadataNamedColumnValue<?>>> shortNameToHydrator =
+            ImmutableMap.<String, Hydrator<? extends StreamTestCompressedStreamMetadataNamedColumnValue<?>>>builder()
+                .put("md", Metadata.BYTES_HYDRATOR)
+                .build();
+
+    public Map<StreamTestCompressedStreamMetadataRow, com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata> getMetadatas(Collection<StreamTestCompressedStreamMetadataRow> rows) {
+        Map<Cell, StreamTestCompressedStreamMetadataRow> cells = Maps.newHashMapWithExpectedSize(rows.size());
+        for (StreamTestCompressedStreamMetadataRow row : rows) {
+            cells.put(Cell.create(row.persistToBytes(), PtBytes.toCachedBytes("md")), row);
+        }
+        Map<Cell, byte[]> results = t.get(tableName, cells.keySet());
+        Map<StreamTestCompressedStreamMetadataRow, com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata> ret = Maps.newHashMapWithExpectedSize(results.size());
+        for (Entry<Cell, byte[]> e : results.entrySet()) {
+            com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata val = Metadata.BYTES_HYDRATOR.hydrateFromBytes(e.getValue()).getValue();
+            ret.put(cells.get(e.getKey()), val);
+        }
+        return ret;
+    }
+
+    public void putMetadata(StreamTestCompressedStreamMetadataRow row, com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata value) {
+        put(ImmutableMultimap.of(row, Metadata.of(value)));
+    }
+
+    public void putMetadata(Map<StreamTestCompressedStreamMetadataRow, com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata> map) {
+        Map<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<StreamTestCompressedStreamMetadataRow, com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata> e : map.entrySet()) {
+            toPut.put(e.getKey(), Metadata.of(e.getValue()));
+        }
+        put(Multimaps.forMap(toPut));
+    }
+
+    public void putMetadataUnlessExists(StreamTestCompressedStreamMetadataRow row, com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata value) {
+        putUnlessExists(ImmutableMultimap.of(row, Metadata.of(value)));
+    }
+
+    public void putMetadataUnlessExists(Map<StreamTestCompressedStreamMetadataRow, com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata> map) {
+        Map<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<StreamTestCompressedStreamMetadataRow, com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata> e : map.entrySet()) {
+            toPut.put(e.getKey(), Metadata.of(e.getValue()));
+        }
+        putUnlessExists(Multimaps.forMap(toPut));
+    }
+
+    @Override
+    public void put(Multimap<StreamTestCompressedStreamMetadataRow, ? extends StreamTestCompressedStreamMetadataNamedColumnValue<?>> rows) {
+        t.useTable(tableName, this);
+        t.put(tableName, ColumnValues.toCellValues(rows));
+        for (StreamTestCompressedStreamMetadataTrigger trigger : triggers) {
+            trigger.putStreamTestCompressedStreamMetadata(rows);
+        }
+    }
+
+    @Override
+    public void putUnlessExists(Multimap<StreamTestCompressedStreamMetadataRow, ? extends StreamTestCompressedStreamMetadataNamedColumnValue<?>> rows) {
+        Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> existing = getRowsMultimap(rows.keySet());
+        Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> toPut = HashMultimap.create();
+        for (Entry<StreamTestCompressedStreamMetadataRow, ? extends StreamTestCompressedStreamMetadataNamedColumnValue<?>> entry : rows.entries()) {
+            if (!existing.containsEntry(entry.getKey(), entry.getValue())) {
+                toPut.put(entry.getKey(), entry.getValue());
+            }
+        }
+        put(toPut);
+    }
+
+    public void deleteMetadata(StreamTestCompressedStreamMetadataRow row) {
+        deleteMetadata(ImmutableSet.of(row));
+    }
+
+    public void deleteMetadata(Iterable<StreamTestCompressedStreamMetadataRow> rows) {
+        byte[] col = PtBytes.toCachedBytes("md");
+        Set<Cell> cells = Cells.cellsWithConstantColumn(Persistables.persistAll(rows), col);
+        t.delete(tableName, cells);
+    }
+
+    @Override
+    public void delete(StreamTestCompressedStreamMetadataRow row) {
+        delete(ImmutableSet.of(row));
+    }
+
+    @Override
+    public void delete(Iterable<StreamTestCompressedStreamMetadataRow> rows) {
+        List<byte[]> rowBytes = Persistables.persistAll(rows);
+        Set<Cell> cells = Sets.newHashSetWithExpectedSize(rowBytes.size());
+        cells.addAll(Cells.cellsWithConstantColumn(rowBytes, PtBytes.toCachedBytes("md")));
+        t.delete(tableName, cells);
+    }
+
+    @Override
+    public Optional<StreamTestCompressedStreamMetadataRowResult> getRow(StreamTestCompressedStreamMetadataRow row) {
+        return getRow(row, ColumnSelection.all());
+    }
+
+    @Override
+    public Optional<StreamTestCompressedStreamMetadataRowResult> getRow(StreamTestCompressedStreamMetadataRow row, ColumnSelection columns) {
+        byte[] bytes = row.persistToBytes();
+        RowResult<byte[]> rowResult = t.getRows(tableName, ImmutableSet.of(bytes), columns).get(bytes);
+        if (rowResult == null) {
+            return Optional.absent();
+        } else {
+            return Optional.of(StreamTestCompressedStreamMetadataRowResult.of(rowResult));
+        }
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamMetadataRowResult> getRows(Iterable<StreamTestCompressedStreamMetadataRow> rows) {
+        return getRows(rows, ColumnSelection.all());
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamMetadataRowResult> getRows(Iterable<StreamTestCompressedStreamMetadataRow> rows, ColumnSelection columns) {
+        SortedMap<byte[], RowResult<byte[]>> results = t.getRows(tableName, Persistables.persistAll(rows), columns);
+        List<StreamTestCompressedStreamMetadataRowResult> rowResults = Lists.newArrayListWithCapacity(results.size());
+        for (RowResult<byte[]> row : results.values()) {
+            rowResults.add(StreamTestCompressedStreamMetadataRowResult.of(row));
+        }
+        return rowResults;
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamMetadataRowResult> getAsyncRows(Iterable<StreamTestCompressedStreamMetadataRow> rows, ExecutorService exec) {
+        return getAsyncRows(rows, ColumnSelection.all(), exec);
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamMetadataRowResult> getAsyncRows(final Iterable<StreamTestCompressedStreamMetadataRow> rows, final ColumnSelection columns, ExecutorService exec) {
+        Callable<List<StreamTestCompressedStreamMetadataRowResult>> c =
+                new Callable<List<StreamTestCompressedStreamMetadataRowResult>>() {
+            @Override
+            public List<StreamTestCompressedStreamMetadataRowResult> call() {
+                return getRows(rows, columns);
+            }
+        };
+        return AsyncProxy.create(exec.submit(c), List.class);
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamMetadataNamedColumnValue<?>> getRowColumns(StreamTestCompressedStreamMetadataRow row) {
+        return getRowColumns(row, ColumnSelection.all());
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamMetadataNamedColumnValue<?>> getRowColumns(StreamTestCompressedStreamMetadataRow row, ColumnSelection columns) {
+        byte[] bytes = row.persistToBytes();
+        RowResult<byte[]> rowResult = t.getRows(tableName, ImmutableSet.of(bytes), columns).get(bytes);
+        if (rowResult == null) {
+            return ImmutableList.of();
+        } else {
+            List<StreamTestCompressedStreamMetadataNamedColumnValue<?>> ret = Lists.newArrayListWithCapacity(rowResult.getColumns().size());
+            for (Entry<byte[], byte[]> e : rowResult.getColumns().entrySet()) {
+                ret.add(shortNameToHydrator.get(PtBytes.toString(e.getKey())).hydrateFromBytes(e.getValue()));
+            }
+            return ret;
+        }
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> getRowsMultimap(Iterable<StreamTestCompressedStreamMetadataRow> rows) {
+        return getRowsMultimapInternal(rows, ColumnSelection.all());
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> getRowsMultimap(Iterable<StreamTestCompressedStreamMetadataRow> rows, ColumnSelection columns) {
+        return getRowsMultimapInternal(rows, columns);
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> getAsyncRowsMultimap(Iterable<StreamTestCompressedStreamMetadataRow> rows, ExecutorService exec) {
+        return getAsyncRowsMultimap(rows, ColumnSelection.all(), exec);
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> getAsyncRowsMultimap(final Iterable<StreamTestCompressedStreamMetadataRow> rows, final ColumnSelection columns, ExecutorService exec) {
+        Callable<Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>>> c =
+                new Callable<Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>>>() {
+            @Override
+            public Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> call() {
+                return getRowsMultimapInternal(rows, columns);
+            }
+        };
+        return AsyncProxy.create(exec.submit(c), Multimap.class);
+    }
+
+    private Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> getRowsMultimapInternal(Iterable<StreamTestCompressedStreamMetadataRow> rows, ColumnSelection columns) {
+        SortedMap<byte[], RowResult<byte[]>> results = t.getRows(tableName, Persistables.persistAll(rows), columns);
+        return getRowMapFromRowResults(results.values());
+    }
+
+    private static Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> getRowMapFromRowResults(Collection<RowResult<byte[]>> rowResults) {
+        Multimap<StreamTestCompressedStreamMetadataRow, StreamTestCompressedStreamMetadataNamedColumnValue<?>> rowMap = HashMultimap.create();
+        for (RowResult<byte[]> result : rowResults) {
+            StreamTestCompressedStreamMetadataRow row = StreamTestCompressedStreamMetadataRow.BYTES_HYDRATOR.hydrateFromBytes(result.getRowName());
+            for (Entry<byte[], byte[]> e : result.getColumns().entrySet()) {
+                rowMap.put(row, shortNameToHydrator.get(PtBytes.toString(e.getKey())).hydrateFromBytes(e.getValue()));
+            }
+        }
+        return rowMap;
+    }
+
+    public BatchingVisitableView<StreamTestCompressedStreamMetadataRowResult> getAllRowsUnordered() {
+        return getAllRowsUnordered(ColumnSelection.all());
+    }
+
+    public BatchingVisitableView<StreamTestCompressedStreamMetadataRowResult> getAllRowsUnordered(ColumnSelection columns) {
+        return BatchingVisitables.transform(t.getRange(tableName, RangeRequest.builder().retainColumns(columns).build()),
+                new Function<RowResult<byte[]>, StreamTestCompressedStreamMetadataRowResult>() {
+            @Override
+            public StreamTestCompressedStreamMetadataRowResult apply(RowResult<byte[]> input) {
+                return StreamTestCompressedStreamMetadataRowResult.of(input);
+            }
+        });
+    }
+
+    @Override
+    public List<String> findConstraintFailures(Map<Cell, byte[]> writes,
+                                               ConstraintCheckingTransaction transaction,
+                                               AtlasDbConstraintCheckingMode constraintCheckingMode) {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public List<String> findConstraintFailuresNoRead(Map<Cell, byte[]> writes,
+                                                     AtlasDbConstraintCheckingMode constraintCheckingMode) {
+        return ImmutableList.of();
+    }
+
+    /**
+     * This exists to avoid unused import warnings
+     * {@link AbortingVisitor}
+     * {@link AbortingVisitors}
+     * {@link ArrayListMultimap}
+     * {@link Arrays}
+     * {@link AssertUtils}
+     * {@link AsyncProxy}
+     * {@link AtlasDbConstraintCheckingMode}
+     * {@link AtlasDbDynamicMutableExpiringTable}
+     * {@link AtlasDbDynamicMutablePersistentTable}
+     * {@link AtlasDbMutableExpiringTable}
+     * {@link AtlasDbMutablePersistentTable}
+     * {@link AtlasDbNamedExpiringSet}
+     * {@link AtlasDbNamedMutableTable}
+     * {@link AtlasDbNamedPersistentSet}
+     * {@link BatchingVisitable}
+     * {@link BatchingVisitableView}
+     * {@link BatchingVisitables}
+     * {@link Bytes}
+     * {@link Callable}
+     * {@link Cell}
+     * {@link Cells}
+     * {@link Collection}
+     * {@link Collections2}
+     * {@link ColumnSelection}
+     * {@link ColumnValue}
+     * {@link ColumnValues}
+     * {@link ComparisonChain}
+     * {@link Compression}
+     * {@link CompressionUtils}
+     * {@link ConstraintCheckingTransaction}
+     * {@link Descending}
+     * {@link EncodingUtils}
+     * {@link Entry}
+     * {@link EnumSet}
+     * {@link ExecutorService}
+     * {@link Function}
+     * {@link Generated}
+     * {@link HashMultimap}
+     * {@link HashSet}
+     * {@link Hashing}
+     * {@link Hydrator}
+     * {@link ImmutableList}
+     * {@link ImmutableMap}
+     * {@link ImmutableMultimap}
+     * {@link ImmutableSet}
+     * {@link InvalidProtocolBufferException}
+     * {@link IterableView}
+     * {@link Iterables}
+     * {@link Iterator}
+     * {@link Joiner}
+     * {@link List}
+     * {@link Lists}
+     * {@link Map}
+     * {@link Maps}
+     * {@link MoreObjects}
+     * {@link Multimap}
+     * {@link Multimaps}
+     * {@link NamedColumnValue}
+     * {@link Namespace}
+     * {@link Objects}
+     * {@link Optional}
+     * {@link Persistable}
+     * {@link Persistables}
+     * {@link Prefix}
+     * {@link PtBytes}
+     * {@link RangeRequest}
+     * {@link RowResult}
+     * {@link Set}
+     * {@link Sets}
+     * {@link Sha256Hash}
+     * {@link SortedMap}
+     * {@link Supplier}
+     * {@link Throwables}
+     * {@link TimeUnit}
+     * {@link Transaction}
+     * {@link TypedRowResult}
+     * {@link UnsignedBytes}
+     * {@link ValueType}
+     */
+    static String __CLASS_HASH = "pYMNFZ5BMshhQCuLeX78cg==";
+}
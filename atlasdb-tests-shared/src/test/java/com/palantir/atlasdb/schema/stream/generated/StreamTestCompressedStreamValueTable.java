@@ -0,0 +1,699 @@
+package com.palantir.atlasdb.schema.stream.generated;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Generated;
+
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.palantir.atlasdb.compress.CompressionUtils;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.Prefix;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.impl.Cells;
+import com.palantir.atlasdb.ptobject.EncodingUtils;
+import com.palantir.atlasdb.schema.Namespace;
+import com.palantir.atlasdb.table.api.AtlasDbDynamicMutableExpiringTable;
+import com.palantir.atlasdb.table.api.AtlasDbDynamicMutablePersistentTable;
+import com.palantir.atlasdb.table.api.AtlasDbMutableExpiringTable;
+import com.palantir.atlasdb.table.api.AtlasDbMutablePersistentTable;
+import com.palantir.atlasdb.table.api.AtlasDbNamedExpiringSet;
+import com.palantir.atlasdb.table.api.AtlasDbNamedMutableTable;
+import com.palantir.atlasdb.table.api.AtlasDbNamedPersistentSet;
+import com.palantir.atlasdb.table.api.ColumnValue;
+import com.palantir.atlasdb.table.api.TypedRowResult;
+import com.palantir.atlasdb.table.description.ColumnValueDescription.Compression;
+import com.palantir.atlasdb.table.description.ValueType;
+import com.palantir.atlasdb.table.generation.ColumnValues;
+import com.palantir.atlasdb.table.generation.Descending;
+import com.palantir.atlasdb.table.generation.NamedColumnValue;
+import com.palantir.atlasdb.transaction.api.AtlasDbConstraintCheckingMode;
+import com.palantir.atlasdb.transaction.api.ConstraintCheckingTransaction;
+import com.palantir.atlasdb.transaction.api.Transaction;
+import com.palantir.common.base.AbortingVisitor;
+import com.palantir.common.base.AbortingVisitors;
+import com.palantir.common.base.BatchingVisitable;
+import com.palantir.common.base.BatchingVisitableView;
+import com.palantir.common.base.BatchingVisitables;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.collect.IterableView;
+import com.palantir.common.persist.Persistable;
+import com.palantir.common.persist.Persistable.Hydrator;
+import com.palantir.common.persist.Persistables;
+import com.palantir.common.proxy.AsyncProxy;
+import com.palantir.util.AssertUtils;
+import com.palantir.util.crypto.Sha256Hash;
+
+
+@Generated("com.palantir.atlasdb.table.description.render.TableRenderer")
+public final class StreamTestCompressedStreamValueTable implements
+        AtlasDbMutablePersistentTable<StreamTestCompressedStreamValueTable.StreamTestCompressedStreamValueRow,
+                                         StreamTestCompressedStreamValueTable.StreamTestCompressedStreamValueNamedColumnValue<?>,
+                                         StreamTestCompressedStreamValueTable.StreamTestCompressedStreamValueRowResult>,
+        AtlasDbNamedMutableTable<StreamTestCompressedStreamValueTable.StreamTestCompressedStreamValueRow,
+                                    StreamTestCompressedStreamValueTable.StreamTestCompressedStreamValueNamedColumnValue<?>,
+                                    StreamTestCompressedStreamValueTable.StreamTestCompressedStreamValueRowResult> {
+    private final Transaction t;
+    private final List<StreamTestCompressedStreamValueTrigger> triggers;
+    private final static String rawTableName = "stream_test_compressed_stream_value";
+    private final String tableName;
+    private final Namespace namespace;
+
+    static StreamTestCompressedStreamValueTable of(Transaction t, Namespace namespace) {
+        return new StreamTestCompressedStreamValueTable(t, namespace, ImmutableList.<StreamTestCompressedStreamValueTrigger>of());
+    }
+
+    static StreamTestCompressedStreamValueTable of(Transaction t, Namespace namespace, StreamTestCompressedStreamValueTrigger trigger, StreamTestCompressedStreamValueTrigger... triggers) {
+        return new StreamTestCompressedStreamValueTable(t, namespace, ImmutableList.<StreamTestCompressedStreamValueTrigger>builder().add(trigger).add(triggers).build());
+    }
+
+    static StreamTestCompressedStreamValueTable of(Transaction t, Namespace namespace, List<StreamTestCompressedStreamValueTrigger> triggers) {
+        return new StreamTestCompressedStreamValueTable(t, namespace, triggers);
+    }
+
+    private StreamTestCompressedStreamValueTable(Transaction t, Namespace namespace, List<StreamTestCompressedStreamValueTrigger> triggers) {
+        this.t = t;
+        this.tableName = namespace.getName().isEmpty() ? rawTableName : namespace.getName() + "." + rawTableName;
+        this.triggers = triggers;
+        this.namespace = namespace;
+    }
+
+    public static String getRawTableName() {
+        return rawTableName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Namespace getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * <pre>
+     * StreamTestCompressedStreamValueRow {
+     *   {@literal Long id};
+     *   {@literal Long blockId};
+     * }
+     * </pre>
+     */
+    public static final class StreamTestCompressedStreamValueRow implements Persistable, Comparable<StreamTestCompressedStreamValueRow> {
+        private final long id;
+        private final long blockId;
+
+        public static StreamTestCompressedStreamValueRow of(long id, long blockId) {
+            return new StreamTestCompressedStreamValueRow(id, blockId);
+        }
+
+        private StreamTestCompressedStreamValueRow(long id, long blockId) {
+            this.id = id;
+            this.blockId = blockId;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getBlockId() {
+            return blockId;
+        }
+
+        public static Function<StreamTestCompressedStreamValueRow, Long> getIdFun() {
+            return new Function<StreamTestCompressedStreamValueRow, Long>() {
+                @Override
+                public Long apply(StreamTestCompressedStreamValueRow row) {
+                    return row.id;
+                }
+            };
+        }
+
+        public static Function<StreamTestCompressedStreamValueRow, Long> getBlockIdFun() {
+            return new Function<StreamTestCompressedStreamValueRow, Long>() {
+                @Override
+                public Long apply(StreamTestCompressedStreamValueRow row) {
+                    return row.blockId;
+                }
+            };
+        }
+
+        @Override
+        public byte[] persistToBytes() {
+            byte[] idBytes = EncodingUtils.encodeUnsignedVarLong(id);
+            byte[] blockIdBytes = EncodingUtils.encodeUnsignedVarLong(blockId);
+            return EncodingUtils.add(idBytes, blockIdBytes);
+        }
+
+        public static final Hydrator<StreamTestCompressedStreamValueRow> BYTES_HYDRATOR = new Hydrator<StreamTestCompressedStreamValueRow>() {
+            @Override
+            public StreamTestCompressedStreamValueRow hydrateFromBytes(byte[] __input) {
+                int __index = 0;
+                Long id = EncodingUtils.decodeUnsignedVarLong(__input, __index);
+                __index += EncodingUtils.sizeOfUnsignedVarLong(id);
+                Long blockId = EncodingUtils.decodeUnsignedVarLong(__input, __index);
+                __index += EncodingUtils.sizeOfUnsignedVarLong(blockId);
+                return new StreamTestCompressedStreamValueRow(id, blockId);
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("id", id)
+                .add("blockId", blockId)
+                .toString();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            StreamTestCompressedStreamValueRow other = (StreamTestCompressedStreamValueRow) obj;
+            return Objects.equal(id, other.id) && Objects.equal(blockId, other.blockId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(id, blockId);
+        }
+
+        @Override
+        public int compareTo(StreamTestCompressedStreamValueRow o) {
+            return ComparisonChain.start()
+                .compare(this.id, o.id)
+                .compare(this.blockId, o.blockId)
+                .result();
+        }
+    }
+
+    public interface StreamTestCompressedStreamValueNamedColumnValue<T> extends NamedColumnValue<T> { /* */ }
+
+    /**
+     * <pre>
+     * Column value description {
+     *   type: byte[];
+     * }
+     * </pre>
+     */
+    public static final class Value implements StreamTestCompressedStreamValueNamedColumnValue<byte[]> {
+        private final byte[] value;
+
+        public static Value of(byte[] value) {
+            return new Value(value);
+        }
+
+        private Value(byte[] value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getColumnName() {
+            return "value";
+        }
+
+        @Override
+        public String getShortColumnName() {
+            return "v";
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public byte[] persistValue() {
+            byte[] bytes = value;
+            return CompressionUtils.compress(bytes, Compression.NONE);
+        }
+
+        @Override
+        public byte[] persistColumnName() {
+            return PtBytes.toCachedBytes("v");
+        }
+
+        public static final Hydrator<Value> BYTES_HYDRATOR = new Hydrator<Value>() {
+            @Override
+            public Value hydrateFromBytes(byte[] bytes) {
+                bytes = CompressionUtils.decompress(bytes, Compression.NONE);
+                return of(EncodingUtils.getBytesFromOffsetToEnd(bytes, 0));
+            }
+        };
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("Value", this.value)
+                .toString();
+        }
+    }
+
+    public interface StreamTestCompressedStreamValueTrigger {
+        public void putStreamTestCompressedStreamValue(Multimap<StreamTestCompressedStreamValueRow, ? extends StreamTestCompressedStreamValueNamedColumnValue<?>> newRows);
+    }
+
+    public static final class StreamTestCompressedStreamValueRowResult implements TypedRowResult {
+        private final RowResult<byte[]> row;
+
+        public static StreamTestCompressedStreamValueRowResult of(RowResult<byte[]> row) {
+            return new StreamTestCompressedStreamValueRowResult(row);
+        }
+
+        private StreamTestCompressedStreamValueRowResult(RowResult<byte[]> row) {
+            this.row = row;
+        }
+
+        @Override
+        public StreamTestCompressedStreamValueRow getRowName() {
+            return StreamTestCompressedStreamValueRow.BYTES_HYDRATOR.hydrateFromBytes(row.getRowName());
+        }
+
+        public static Function<StreamTestCompressedStreamValueRowResult, StreamTestCompressedStreamValueRow> getRowNameFun() {
+            return new Function<StreamTestCompressedStreamValueRowResult, StreamTestCompressedStreamValueRow>() {
+                @Override
+                public StreamTestCompressedStreamValueRow apply(StreamTestCompressedStreamValueRowResult rowResult) {
+                    return rowResult.getRowName();
+                }
+            };
+        }
+
+        public static Function<RowResult<byte[]>, StreamTestCompressedStreamValueRowResult> fromRawRowResultFun() {
+            return new Function<RowResult<byte[]>, StreamTestCompressedStreamValueRowResult>() {
+                @Override
+                public StreamTestCompressedStreamValueRowResult apply(RowResult<byte[]> rowResult) {
+                    return new StreamTestCompressedStreamValueRowResult(rowResult);
+                }
+            };
+        }
+
+        public boolean hasValue() {
+            return row.getColumns().containsKey(PtBytes.toCachedBytes("v"));
+        }
+
+        public byte[] getValue() {
+            byte[] bytes = row.getColumns().get(PtBytes.toCachedBytes("v"));
+            if (bytes == null) {
+                return null;
+            }
+            Value value = Value.BYTES_HYDRATOR.hydrateFromBytes(bytes);
+            return value.getValue();
+        }
+
+        public static Function<StreamTestCompressedStreamValueRowResult, byte[]> getValueFun() {
+            return new Function<StreamTestCompressedStreamValueRowResult, byte[]>() {
+                @Override
+                public byte[] apply(StreamTestCompressedStreamValueRowResult rowResult) {
+                    return rowResult.getValue();
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass().getSimpleName())
+                .add("RowName", getRowName())
+                .add("Value", getValue())
+                .toString();
+        }
+    }
+
+    public enum StreamTestCompressedStreamValueNamedColumn {
+        VALUE {
+            @Override
+            public byte[] getShortName() {
+                return PtBytes.toCachedBytes("v");
+            }
+        };
+
+        public abstract byte[] getShortName();
+
+        public static Function<StreamTestCompressedStreamValueNamedColumn, byte[]> toShortName() {
+            return new Function<StreamTestCompressedStreamValueNamedColumn, byte[]>() {
+                @Override
+                public byte[] apply(StreamTestCompressedStreamValueNamedColumn namedColumn) {
+                    return namedColumn.getShortName();
+                }
+            };
+        }
+    }
+
+    public static ColumnSelection getColumnSelection(Collection<StreamTestCompressedStreamValueNamedColumn> cols) {
+        return ColumnSelection.create(Collections2.transform(cols, StreamTestCompressedStreamValueNamedColumn.toShortName()));
+    }
+
+    public static ColumnSelection getColumnSelection(StreamTestCompressedStreamValueNamedColumn... cols) {
+        return getColumnSelection(Arrays.asList(cols));
+    }
+
+    private static final Map<String, Hydrator<? extends StreamTestCompressedStreamValueNamedColumnValue<?>>> shortNameToHydrator =
+            ImmutableMap.<String, Hydrator<? extends StreamTestCompressedStreamValueNamedColumnValue<?>>>builder()
+                .put("v", Value.BYTES_HYDRATOR)
+                .build();
+
+    public Map<StreamTestCompressedStreamValueRow, byte[]> getValues(Collection<StreamTestCompressedStreamValueRow> rows) {
+        Map<Cell, StreamTestCompressedStreamValueRow> cells = Maps.newHashMapWithExpectedSize(rows.size());
+        for (StreamTestCompressedStreamValueRow row : rows) {
+            cells.put(Cell.create(row.persistToBytes(), PtBytes.toCachedBytes("v")), row);
+        }
+        Map<Cell, byte[]> results = t.get(tableName, cells.keySet());
+        Map<StreamTestCompressedStreamValueRow, byte[]> ret = Maps.newHashMapWithExpectedSize(results.size());
+        for (Entry<Cell, byte[]> e : results.entrySet()) {
+            byte[] val = Value.BYTES_HYDRATOR.hydrateFromBytes(e.getValue()).getValue();
+            ret.put(cells.get(e.getKey()), val);
+        }
+        return ret;
+    }
+
+    public void putValue(StreamTestCompressedStreamValueRow row, byte[] value) {
+        put(ImmutableMultimap.of(row, Value.of(value)));
+    }
+
+    public void putValue(Map<StreamTestCompressedStreamValueRow, byte[]> map) {
+        Map<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<StreamTestCompressedStreamValueRow, byte[]> e : map.entrySet()) {
+            toPut.put(e.getKey(), Value.of(e.getValue()));
+        }
+        put(Multimaps.forMap(toPut));
+    }
+
+    public void putValueUnlessExists(StreamTestCompressedStreamValueRow row, byte[] value) {
+        putUnlessExists(ImmutableMultimap.of(row, Value.of(value)));
+    }
+
+    public void putValueUnlessExists(Map<StreamTestCompressedStreamValueRow, byte[]> map) {
+        Map<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> toPut = Maps.newHashMapWithExpectedSize(map.size());
+        for (Entry<StreamTestCompressedStreamValueRow, byte[]> e : map.entrySet()) {
+            toPut.put(e.getKey(), Value.of(e.getValue()));
+        }
+        putUnlessExists(Multimaps.forMap(toPut));
+    }
+
+    @Override
+    public void put(Multimap<StreamTestCompressedStreamValueRow, ? extends StreamTestCompressedStreamValueNamedColumnValue<?>> rows) {
+        t.useTable(tableName, this);
+        t.put(tableName, ColumnValues.toCellValues(rows));
+        for (StreamTestCompressedStreamValueTrigger trigger : triggers) {
+            trigger.putStreamTestCompressedStreamValue(rows);
+        }
+    }
+
+    @Override
+    public void putUnlessExists(Multimap<StreamTestCompressedStreamValueRow, ? extends StreamTestCompressedStreamValueNamedColumnValue<?>> rows) {
+        Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> existing = getRowsMultimap(rows.keySet());
+        Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> toPut = HashMultimap.create();
+        for (Entry<StreamTestCompressedStreamValueRow, ? extends StreamTestCompressedStreamValueNamedColumnValue<?>> entry : rows.entries()) {
+            if (!existing.containsEntry(entry.getKey(), entry.getValue())) {
+                toPut.put(entry.getKey(), entry.getValue());
+            }
+        }
+        put(toPut);
+    }
+
+    public void deleteValue(StreamTestCompressedStreamValueRow row) {
+        deleteValue(ImmutableSet.of(row));
+    }
+
+    public void deleteValue(Iterable<StreamTestCompressedStreamValueRow> rows) {
+        byte[] col = PtBytes.toCachedBytes("v");
+        Set<Cell> cells = Cells.cellsWithConstantColumn(Persistables.persistAll(rows), col);
+        t.delete(tableName, cells);
+    }
+
+    @Override
+    public void delete(StreamTestCompressedStreamValueRow row) {
+        delete(ImmutableSet.of(row));
+    }
+
+    @Override
+    public void delete(Iterable<StreamTestCompressedStreamValueRow> rows) {
+        List<byte[]> rowBytes = Persistables.persistAll(rows);
+        Set<Cell> cells = Sets.newHashSetWithExpectedSize(rowBytes.size());
+        cells.addAll(Cells.cellsWithConstantColumn(rowBytes, PtBytes.toCachedBytes("v")));
+        t.delete(tableName, cells);
+    }
+
+    @Override
+    public Optional<StreamTestCompressedStreamValueRowResult> getRow(StreamTestCompressedStreamValueRow row) {
+        return getRow(row, ColumnSelection.all());
+    }
+
+    @Override
+    public Optional<StreamTestCompressedStreamValueRowResult> getRow(StreamTestCompressedStreamValueRow row, ColumnSelection columns) {
+        byte[] bytes = row.persistToBytes();
+        RowResult<byte[]> rowResult = t.getRows(tableName, ImmutableSet.of(bytes), columns).get(bytes);
+        if (rowResult == null) {
+            return Optional.absent();
+        } else {
+            return Optional.of(StreamTestCompressedStreamValueRowResult.of(rowResult));
+        }
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamValueRowResult> getRows(Iterable<StreamTestCompressedStreamValueRow> rows) {
+        return getRows(rows, ColumnSelection.all());
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamValueRowResult> getRows(Iterable<StreamTestCompressedStreamValueRow> rows, ColumnSelection columns) {
+        SortedMap<byte[], RowResult<byte[]>> results = t.getRows(tableName, Persistables.persistAll(rows), columns);
+        List<StreamTestCompressedStreamValueRowResult> rowResults = Lists.newArrayListWithCapacity(results.size());
+        for (RowResult<byte[]> row : results.values()) {
+            rowResults.add(StreamTestCompressedStreamValueRowResult.of(row));
+        }
+        return rowResults;
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamValueRowResult> getAsyncRows(Iterable<StreamTestCompressedStreamValueRow> rows, ExecutorService exec) {
+        return getAsyncRows(rows, ColumnSelection.all(), exec);
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamValueRowResult> getAsyncRows(final Iterable<StreamTestCompressedStreamValueRow> rows, final ColumnSelection columns, ExecutorService exec) {
+        Callable<List<StreamTestCompressedStreamValueRowResult>> c =
+                new Callable<List<StreamTestCompressedStreamValueRowResult>>() {
+            @Override
+            public List<StreamTestCompressedStreamValueRowResult> call() {
+                return getRows(rows, columns);
+            }
+        };
+        return AsyncProxy.create(exec.submit(c), List.class);
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamValueNamedColumnValue<?>> getRowColumns(StreamTestCompressedStreamValueRow row) {
+        return getRowColumns(row, ColumnSelection.all());
+    }
+
+    @Override
+    public List<StreamTestCompressedStreamValueNamedColumnValue<?>> getRowColumns(StreamTestCompressedStreamValueRow row, ColumnSelection columns) {
+        byte[] bytes = row.persistToBytes();
+        RowResult<byte[]> rowResult = t.getRows(tableName, ImmutableSet.of(bytes), columns).get(bytes);
+        if (rowResult == null) {
+            return ImmutableList.of();
+        } else {
+            List<StreamTestCompressedStreamValueNamedColumnValue<?>> ret = Lists.newArrayListWithCapacity(rowResult.getColumns().size());
+            for (Entry<byte[], byte[]> e : rowResult.getColumns().entrySet()) {
+                ret.add(shortNameToHydrator.get(PtBytes.toString(e.getKey())).hydrateFromBytes(e.getValue()));
+            }
+            return ret;
+        }
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> getRowsMultimap(Iterable<StreamTestCompressedStreamValueRow> rows) {
+        return getRowsMultimapInternal(rows, ColumnSelection.all());
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> getRowsMultimap(Iterable<StreamTestCompressedStreamValueRow> rows, ColumnSelection columns) {
+        return getRowsMultimapInternal(rows, columns);
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> getAsyncRowsMultimap(Iterable<StreamTestCompressedStreamValueRow> rows, ExecutorService exec) {
+        return getAsyncRowsMultimap(rows, ColumnSelection.all(), exec);
+    }
+
+    @Override
+    public Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> getAsyncRowsMultimap(final Iterable<StreamTestCompressedStreamValueRow> rows, final ColumnSelection columns, ExecutorService exec) {
+        Callable<Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>>> c =
+                new Callable<Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>>>() {
+            @Override
+            public Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> call() {
+                return getRowsMultimapInternal(rows, columns);
+            }
+        };
+        return AsyncProxy.create(exec.submit(c), Multimap.class);
+    }
+
+    private Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> getRowsMultimapInternal(Iterable<StreamTestCompressedStreamValueRow> rows, ColumnSelection columns) {
+        SortedMap<byte[], RowResult<byte[]>> results = t.getRows(tableName, Persistables.persistAll(rows), columns);
+        return getRowMapFromRowResults(results.values());
+    }
+
+    private static Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> getRowMapFromRowResults(Collection<RowResult<byte[]>> rowResults) {
+        Multimap<StreamTestCompressedStreamValueRow, StreamTestCompressedStreamValueNamedColumnValue<?>> rowMap = HashMultimap.create();
+        for (RowResult<byte[]> result : rowResults) {
+            StreamTestCompressedStreamValueRow row = StreamTestCompressedStreamValueRow.BYTES_HYDRATOR.hydrateFromBytes(result.getRowName());
+            for (Entry<byte[], byte[]> e : result.getColumns().entrySet()) {
+                rowMap.put(row, shortNameToHydrator.get(PtBytes.toString(e.getKey())).hydrateFromBytes(e.getValue()));
+            }
+        }
+        return rowMap;
+    }
+
+    public BatchingVisitableView<StreamTestCompressedStreamValueRowResult> getAllRowsUnordered() {
+        return getAllRowsUnordered(ColumnSelection.all());
+    }
+
+    public BatchingVisitableView<StreamTestCompressedStreamValueRowResult> getAllRowsUnordered(ColumnSelection columns) {
+        return BatchingVisitables.transform(t.getRange(tableName, RangeRequest.builder().retainColumns(columns).build()),
+                new Function<RowResult<byte[]>, StreamTestCompressedStreamValueRowResult>() {
+            @Override
+            public StreamTestCompressedStreamValueRowResult apply(RowResult<byte[]> input) {
+                return StreamTestCompressedStreamValueRowResult.of(input);
+            }
+        });
+    }
+
+    @Override
+    public List<String> findConstraintFailures(Map<Cell, byte[]> writes,
+                                               ConstraintCheckingTransaction transaction,
+                                               AtlasDbConstraintCheckingMode constraintCheckingMode) {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public List<String> findConstraintFailuresNoRead(Map<Cell, byte[]> writes,
+                                                     AtlasDbConstraintCheckingMode constraintCheckingMode) {
+        return ImmutableList.of();
+    }
+
+    /**
+     * This exists to avoid unused import warnings
+     * {@link AbortingVisitor}
+     * {@link AbortingVisitors}
+     * {@link ArrayListMultimap}
+     * {@link Arrays}
+     * {@link AssertUtils}
+     * {@link AsyncProxy}
+     * {@link AtlasDbConstraintCheckingMode}
+     * {@link AtlasDbDynamicMutableExpiringTable}
+     * {@link AtlasDbDynamicMutablePersistentTable}
+     * {@link AtlasDbMutableExpiringTable}
+     * {@link AtlasDbMutablePersistentTable}
+     * {@link AtlasDbNamedExpiringSet}
+     * {@link AtlasDbNamedMutableTable}
+     * {@link AtlasDbNamedPersistentSet}
+     * {@link BatchingVisitable}
+     * {@link BatchingVisitableView}
+     * {@link BatchingVisitables}
+     * {@link Bytes}
+     * {@link Callable}
+     * {@link Cell}
+     * {@link Cells}
+     * {@link Collection}
+     * {@link Collections2}
+     * {@link ColumnSelection}
+     * {@link ColumnValue}
+     * {@link ColumnValues}
+     * {@link ComparisonChain}
+     * {@link Compression}
+     * {@link CompressionUtils}
+     * {@link ConstraintCheckingTransaction}
+     * {@link Descending}
+     * {@link EncodingUtils}
+     * {@link Entry}
+     * {@link EnumSet}
+     * {@link ExecutorService}
+     * {@link Function}
+     * {@link Generated}
+     * {@link HashMultimap}
+     * {@link HashSet}
+     * {@link Hashing}
+     * {@link Hydrator}
+     * {@link ImmutableList}
+     * {@link ImmutableMap}
+     * {@link ImmutableMultimap}
+     * {@link ImmutableSet}
+     * {@link InvalidProtocolBufferException}
+     * {@link IterableView}
+     * {@link Iterables}
+     * {@link Iterator}
+     * {@link Joiner}
+     * {@link List}
+     * {@link Lists}
+     * {@link Map}
+     * {@link Maps}
+     * {@link MoreObjects}
+     * {@link Multimap}
+     * {@link Multimaps}
+     * {@link NamedColumnValue}
+     * {@link Namespace}
+     * {@link Objects}
+     * {@link Optional}
+     * {@link Persistable}
+     * {@link Persistables}
+     * {@link Prefix}
+     * {@link PtBytes}
+     * {@link RangeRequest}
+     * {@link RowResult}
+     * {@link Set}
+     * {@link Sets}
+     * {@link Sha256Hash}
+     * {@link SortedMap}
+     * {@link Supplier}
+     * {@link Throwables}
+     * {@link TimeUnit}
+     * {@link Transaction}
+     * {@link TypedRowResult}
+     * {@link UnsignedBytes}
+     * {@link ValueType}
+     */
+    static String __CLASS_HASH = "+2A1QcLJMWg1mbKeBJENfg==";
+}
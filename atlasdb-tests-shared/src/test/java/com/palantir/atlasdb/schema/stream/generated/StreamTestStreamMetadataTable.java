@@ -244,6 +244,12 @@ public final class StreamTestStreamMetadataTable implements
      *     label: LABEL_REQUIRED
      *     type: TYPE_BYTES
      *   }
+     *   field {
+     *     name: "blocksCompressed"
+     *     number: 4
+     *     label: LABEL_OPTIONAL
+     *     type: TYPE_BOOL
+     *   }
      * }
      * </pre>
      */
@@ -707,5 +713,5 @@ public final class StreamTestStreamMetadataTable implements
      * {@link UnsignedBytes}
      * {@link ValueType}
      */
-    static String __CLASS_HASH = "nfeT1YhZbqEf8rndZT7uUA==";
+    static String __CLASS_HASH = "1xszxmvj2A5ebAR+qVjK8w==";
 }
@@ -108,7 +108,8 @@ public final class StreamTestStreamStore extends AbstractPersistentStreamStore {
         }
     }
 
-    private void touchMetadataWhileStoringForConflicts(Transaction t, Long id, long blockNumber) {
+    @Override
+    protected void touchMetadataWhileStoringForConflicts(Transaction t, Long id, long blockNumber) {
         StreamTestStreamMetadataTable metaTable = tables.getStreamTestStreamMetadataTable(t);
         StreamTestStreamMetadataTable.StreamTestStreamMetadataRow row = StreamTestStreamMetadataTable.StreamTestStreamMetadataRow.of(id);
         StreamMetadata metadata = metaTable.getMetadatas(ImmutableSet.of(row)).values().iterator().next();
@@ -118,6 +119,12 @@ public final class StreamTestStreamStore extends AbstractPersistentStreamStore {
         metaTable.putMetadata(row, builder.build());
     }
 
+    @Override
+    protected void storeBlockWithoutTouchingMetadata(Transaction t, long id, long blockNumber, byte[] block) {
+        Preconditions.checkArgument(block.length <= BLOCK_SIZE_IN_BYTES, "Block to store in DB must be less than BLOCK_SIZE_IN_BYTES");
+        tables.getStreamTestStreamValueTable(t).putValue(StreamTestStreamValueTable.StreamTestStreamValueRow.of(id, blockNumber), block);
+    }
+
     @Override
     protected void putMetadataAndHashIndexTask(Transaction t, Map<Long, StreamMetadata> streamIdsToMetadata) {
         StreamTestStreamMetadataTable mdTable = tables.getStreamTestStreamMetadataTable(t);
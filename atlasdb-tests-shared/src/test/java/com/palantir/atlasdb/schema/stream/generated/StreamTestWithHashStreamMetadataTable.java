@@ -253,6 +253,12 @@ public final class StreamTestWithHashStreamMetadataTable implements
      *     label: LABEL_REQUIRED
      *     type: TYPE_BYTES
      *   }
+     *   field {
+     *     name: "blocksCompressed"
+     *     number: 4
+     *     label: LABEL_OPTIONAL
+     *     type: TYPE_BOOL
+     *   }
      * }
      * </pre>
      */
@@ -716,5 +722,5 @@ public final class StreamTestWithHashStreamMetadataTable implements
      * {@link UnsignedBytes}
      * {@link ValueType}
      */
-    static String __CLASS_HASH = "a1P3II1PNyGgUokMLv0hWA==";
+    static String __CLASS_HASH = "4EIFnM3kfqyM1YWIBxGXxg==";
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.stream;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class PrefetchingBlockInputStreamTest {
+    private static final int BLOCK_SIZE = 4;
+
+    // Loads run inline, so every block the stream asks for is counted as soon as it is submitted.
+    private final ExecutorService executor = MoreExecutors.sameThreadExecutor();
+
+    private static class CountingBlockLoader implements PrefetchingBlockInputStream.BlockLoader {
+        final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public byte[] loadBlock(long blockId) {
+            loads.incrementAndGet();
+            byte[] block = new byte[BLOCK_SIZE];
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                block[i] = (byte) (blockId * BLOCK_SIZE + i);
+            }
+            return block;
+        }
+    }
+
+    @Test
+    public void testHoldsAtMostPrefetchPlusOneBlocks() throws IOException {
+        CountingBlockLoader loader = new CountingBlockLoader();
+        PrefetchingBlockInputStream stream = new PrefetchingBlockInputStream(loader, 0, 10, 3, executor);
+
+        assertEquals(0, stream.read());
+        assertEquals(4, loader.loads.get());
+
+        // Moving into the next block loads exactly one more.
+        for (int i = 1; i <= BLOCK_SIZE; i++) {
+            assertEquals(i, stream.read());
+        }
+        assertEquals(5, loader.loads.get());
+        stream.close();
+    }
+
+    @Test
+    public void testNoPrefetchLoadsOneBlockAtATime() throws IOException {
+        CountingBlockLoader loader = new CountingBlockLoader();
+        PrefetchingBlockInputStream stream = new PrefetchingBlockInputStream(loader, 0, 3, 0, executor);
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            assertEquals(i, stream.read());
+            assertEquals(1, loader.loads.get());
+        }
+        assertEquals(BLOCK_SIZE, stream.read());
+        assertEquals(2, loader.loads.get());
+        stream.close();
+    }
+
+    @Test
+    public void testReadsEveryBlockOnce() throws IOException {
+        CountingBlockLoader loader = new CountingBlockLoader();
+        PrefetchingBlockInputStream stream = new PrefetchingBlockInputStream(loader, 2, 1, 5, 2, executor);
+
+        for (int i = 2 * BLOCK_SIZE + 1; i < 5 * BLOCK_SIZE; i++) {
+            assertEquals(i, stream.read());
+        }
+        assertEquals(-1, stream.read());
+        assertEquals(3, loader.loads.get());
+        stream.close();
+    }
+}
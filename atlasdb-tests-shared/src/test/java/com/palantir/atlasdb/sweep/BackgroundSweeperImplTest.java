@@ -0,0 +1,341 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.sweep;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.cleaner.NoOpCleaner;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.SweepResults;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.SweepStatsKeyValueService;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.SweepStrategy;
+import com.palantir.atlasdb.schema.SweepSchema;
+import com.palantir.atlasdb.schema.generated.SweepPriorityTable;
+import com.palantir.atlasdb.schema.generated.SweepPriorityTable.SweepPriorityRow;
+import com.palantir.atlasdb.schema.generated.SweepPriorityTable.SweepPriorityRowResult;
+import com.palantir.atlasdb.schema.generated.SweepRangePriorityTable;
+import com.palantir.atlasdb.schema.generated.SweepRangePriorityTable.SweepRangePriorityRow;
+import com.palantir.atlasdb.schema.generated.SweepRangePriorityTable.SweepRangePriorityRowResult;
+import com.palantir.atlasdb.schema.generated.SweepTableFactory;
+import com.palantir.atlasdb.table.description.Schemas;
+import com.palantir.atlasdb.table.description.TableDefinition;
+import com.palantir.atlasdb.table.description.ValueType;
+import com.palantir.atlasdb.transaction.api.AtlasDbConstraintCheckingMode;
+import com.palantir.atlasdb.transaction.api.ConflictHandler;
+import com.palantir.atlasdb.transaction.api.RuntimeTransactionTask;
+import com.palantir.atlasdb.transaction.api.Transaction;
+import com.palantir.atlasdb.transaction.impl.ConflictDetectionManagers;
+import com.palantir.atlasdb.transaction.impl.SerializableTransactionManager;
+import com.palantir.atlasdb.transaction.impl.SweepStrategyManagers;
+import com.palantir.atlasdb.transaction.impl.TxTask;
+import com.palantir.atlasdb.transaction.service.TransactionServices;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.lock.LockClient;
+import com.palantir.lock.LockServerOptions;
+import com.palantir.lock.impl.LockServiceImpl;
+import com.palantir.timestamp.InMemoryTimestampService;
+
+public class BackgroundSweeperImplTest {
+    private static final String TABLE_NAME = "table";
+    private static final long ONE_DAY = TimeUnit.MILLISECONDS.convert(1, TimeUnit.DAYS);
+
+    private final SweepTableFactory tableFactory = SweepTableFactory.of();
+    private ExecutorService exec;
+    private LockServiceImpl lockService;
+    private KeyValueService kvs;
+    private SerializableTransactionManager txManager;
+    private RecordingSweepTaskRunner sweepRunner;
+    private BackgroundSweeperImpl sweeper;
+
+    @Before
+    @SuppressWarnings("serial")
+    public void setup() {
+        exec = PTExecutors.newCachedThreadPool();
+        kvs = new InMemoryKeyValueService(true, exec);
+        lockService = LockServiceImpl.create(new LockServerOptions() { @Override public boolean isStandaloneServer() { return false; }});
+        InMemoryTimestampService tsService = new InMemoryTimestampService();
+        txManager = new SerializableTransactionManager(
+                kvs,
+                tsService,
+                LockClient.of("sweep client"),
+                lockService,
+                TransactionServices.createTransactionService(kvs),
+                Suppliers.ofInstance(AtlasDbConstraintCheckingMode.NO_CONSTRAINT_CHECKING),
+                ConflictDetectionManagers.createDefault(kvs),
+                SweepStrategyManagers.createDefault(kvs),
+                new NoOpCleaner(),
+                false);
+        Schemas.createTablesAndIndexes(SweepSchema.INSTANCE.getLatestSchema(), kvs);
+        kvs.createTable(TABLE_NAME,
+                new TableDefinition() {{
+                    rowName();
+                    rowComponent("row", ValueType.BLOB);
+                    columns();
+                    column("col", "c", ValueType.BLOB);
+                    conflictHandler(ConflictHandler.IGNORE_ALL);
+                    sweepStrategy(SweepStrategy.CONSERVATIVE);
+                }}.toTableMetadata().persistToBytes()
+        );
+        sweepRunner = new RecordingSweepTaskRunner(tsService);
+        sweeper = new BackgroundSweeperImpl(
+                txManager,
+                kvs,
+                sweepRunner,
+                Suppliers.ofInstance(true),
+                Suppliers.ofInstance(0L),
+                Suppliers.ofInstance(1000),
+                tableFactory,
+                SweepMetrics.create());
+        markOtherTablesSwept();
+    }
+
+    @After
+    public void teardown() {
+        lockService.close();
+        exec.shutdown();
+    }
+
+    @Test
+    public void testSweepsRangeWithDensestGarbage() {
+        final long now = System.currentTimeMillis();
+        txManager.runTaskWithRetry(new TxTask() {
+            @Override
+            public Void execute(Transaction t) {
+                SweepPriorityTable priorityTable = tableFactory.getSweepPriorityTable(t);
+                SweepPriorityRow row = SweepPriorityRow.of(TABLE_NAME);
+                priorityTable.putLastSweepTime(row, now - ONE_DAY);
+                priorityTable.putWriteCount(row, 10000L);
+                priorityTable.putCellsExamined(row, 1000L);
+                priorityTable.putCellsDeleted(row, 100L);
+                SweepRangePriorityTable rangePriorityTable = tableFactory.getSweepRangePriorityTable(t);
+                // Mostly deletes, so nearly every write leaves garbage behind.
+                rangePriorityTable.putWriteCount(rangeRow(3), 1000L);
+                rangePriorityTable.putDeleteCount(rangeRow(3), 500L);
+                // As many writes, but at the table's low efficacy.
+                rangePriorityTable.putWriteCount(rangeRow(7), 1000L);
+                rangePriorityTable.putDeleteCount(rangeRow(7), 10L);
+                // No new writes and swept recently, so not worth sweeping on its own.
+                rangePriorityTable.putWriteCount(rangeRow(5), 0L);
+                rangePriorityTable.putLastSweepTime(rangeRow(5), now - 10 * ONE_DAY);
+                return null;
+            }
+        });
+
+        sweepRunner.results = new SweepResults(null, 800L, 400L);
+        assertTrue(sweeper.runOnce());
+
+        assertEquals(ImmutableList.of(TABLE_NAME), sweepRunner.tableNames);
+        assertArrayEquals(SweepStatsKeyValueService.getSweepRangeStartRow(3), sweepRunner.startRows.get(0));
+        assertArrayEquals(SweepStatsKeyValueService.getSweepRangeEndRow(3), sweepRunner.endRows.get(0));
+
+        SweepPriorityRowResult tablePriority = getTablePriority();
+        // Only the writes made to the swept range are subtracted from the table.
+        assertEquals(9000L, tablePriority.getWriteCount().longValue());
+        // The table is only as recently swept as its least recently swept range.
+        assertEquals(now - 10 * ONE_DAY, tablePriority.getLastSweepTime().longValue());
+        // The table's own sweep stats are left for whole-table sweeps.
+        assertEquals(1000L, tablePriority.getCellsExamined().longValue());
+        assertEquals(100L, tablePriority.getCellsDeleted().longValue());
+
+        Map<Long, SweepRangePriorityRowResult> ranges = getRangePriorities();
+        SweepRangePriorityRowResult swept = ranges.get(3L);
+        assertEquals(0L, swept.getWriteCount().longValue());
+        assertEquals(0L, swept.getDeleteCount().longValue());
+        assertEquals(800L, swept.getCellsExamined().longValue());
+        assertEquals(400L, swept.getCellsDeleted().longValue());
+        assertTrue(swept.getLastSweepTime() >= now);
+        assertEquals(1000L, ranges.get(7L).getWriteCount().longValue());
+        assertEquals(10L, ranges.get(7L).getDeleteCount().longValue());
+        assertNull(ranges.get(7L).getLastSweepTime());
+    }
+
+    @Test
+    public void testRangeEfficacyOverridesTableEfficacy() {
+        final long now = System.currentTimeMillis();
+        txManager.runTaskWithRetry(new TxTask() {
+            @Override
+            public Void execute(Transaction t) {
+                SweepPriorityTable priorityTable = tableFactory.getSweepPriorityTable(t);
+                SweepPriorityRow row = SweepPriorityRow.of(TABLE_NAME);
+                priorityTable.putLastSweepTime(row, now - ONE_DAY);
+                priorityTable.putWriteCount(row, 3000L);
+                priorityTable.putCellsExamined(row, 1000L);
+                priorityTable.putCellsDeleted(row, 100L);
+                SweepRangePriorityTable rangePriorityTable = tableFactory.getSweepRangePriorityTable(t);
+                // Almost everything examined here was garbage the last time it was swept.
+                rangePriorityTable.putWriteCount(rangeRow(2), 1000L);
+                rangePriorityTable.putCellsExamined(rangeRow(2), 1000L);
+                rangePriorityTable.putCellsDeleted(rangeRow(2), 900L);
+                rangePriorityTable.putLastSweepTime(rangeRow(2), now - ONE_DAY);
+                // Falls back to the table's efficacy, which is much lower.
+                rangePriorityTable.putWriteCount(rangeRow(9), 2000L);
+                return null;
+            }
+        });
+
+        assertTrue(sweeper.runOnce());
+
+        assertArrayEquals(SweepStatsKeyValueService.getSweepRangeStartRow(2), sweepRunner.startRows.get(0));
+        assertArrayEquals(SweepStatsKeyValueService.getSweepRangeEndRow(2), sweepRunner.endRows.get(0));
+        assertEquals(2000L, getTablePriority().getWriteCount().longValue());
+        assertEquals(2000L, getRangePriorities().get(9L).getWriteCount().longValue());
+    }
+
+    @Test
+    public void testNeverSweptTableIsSweptWhole() {
+        txManager.runTaskWithRetry(new TxTask() {
+            @Override
+            public Void execute(Transaction t) {
+                SweepRangePriorityTable rangePriorityTable = tableFactory.getSweepRangePriorityTable(t);
+                rangePriorityTable.putWriteCount(rangeRow(1), 500L);
+                rangePriorityTable.putDeleteCount(rangeRow(1), 5L);
+                rangePriorityTable.putWriteCount(rangeRow(14), 700L);
+                return null;
+            }
+        });
+
+        final long before = System.currentTimeMillis();
+        sweepRunner.results = new SweepResults(null, 1200L, 30L);
+        assertTrue(sweeper.runOnce());
+
+        assertEquals(ImmutableList.of(TABLE_NAME), sweepRunner.tableNames);
+        assertNull(sweepRunner.startRows.get(0));
+        assertNull(sweepRunner.endRows.get(0));
+
+        SweepPriorityRowResult tablePriority = getTablePriority();
+        assertEquals(0L, tablePriority.getWriteCount().longValue());
+        assertEquals(1200L, tablePriority.getCellsExamined().longValue());
+        assertEquals(30L, tablePriority.getCellsDeleted().longValue());
+        assertTrue(tablePriority.getLastSweepTime() >= before);
+        Map<Long, SweepRangePriorityRowResult> ranges = getRangePriorities();
+        assertEquals(Sets.newHashSet(1L, 14L), ranges.keySet());
+        for (SweepRangePriorityRowResult range : ranges.values()) {
+            assertEquals(0L, range.getWriteCount().longValue());
+            assertEquals(0L, range.getDeleteCount().longValue());
+            assertTrue(range.getLastSweepTime() >= before);
+        }
+    }
+
+    @Test
+    public void testNothingToSweep() {
+        markSwept(TABLE_NAME);
+        assertFalse(sweeper.runOnce());
+        assertTrue(sweepRunner.tableNames.isEmpty());
+    }
+
+    private void markOtherTablesSwept() {
+        Set<String> tableNames = Sets.difference(kvs.getAllTableNames(), AtlasDbConstants.hiddenTables);
+        for (String tableName : tableNames) {
+            if (!tableName.equals(TABLE_NAME)) {
+                markSwept(tableName);
+            }
+        }
+    }
+
+    private void markSwept(final String tableName) {
+        txManager.runTaskWithRetry(new TxTask() {
+            @Override
+            public Void execute(Transaction t) {
+                SweepPriorityTable priorityTable = tableFactory.getSweepPriorityTable(t);
+                SweepPriorityRow row = SweepPriorityRow.of(tableName);
+                priorityTable.putLastSweepTime(row, System.currentTimeMillis());
+                priorityTable.putWriteCount(row, 0L);
+                priorityTable.putCellsExamined(row, 0L);
+                priorityTable.putCellsDeleted(row, 0L);
+                return null;
+            }
+        });
+    }
+
+    private SweepPriorityRowResult getTablePriority() {
+        return txManager.runTaskReadOnly(new RuntimeTransactionTask<SweepPriorityRowResult>() {
+            @Override
+            public SweepPriorityRowResult execute(Transaction t) {
+                return tableFactory.getSweepPriorityTable(t).getRow(SweepPriorityRow.of(TABLE_NAME)).get();
+            }
+        });
+    }
+
+    private Map<Long, SweepRangePriorityRowResult> getRangePriorities() {
+        return txManager.runTaskReadOnly(new RuntimeTransactionTask<Map<Long, SweepRangePriorityRowResult>>() {
+            @Override
+            public Map<Long, SweepRangePriorityRowResult> execute(Transaction t) {
+                Map<Long, SweepRangePriorityRowResult> ranges = Maps.newHashMap();
+                for (SweepRangePriorityRowResult range : tableFactory.getSweepRangePriorityTable(t).getAllRowsUnordered().immutableCopy()) {
+                    if (range.getRowName().getFullTableName().equals(TABLE_NAME)) {
+                        ranges.put(range.getRowName().getRange(), range);
+                    }
+                }
+                return ranges;
+            }
+        });
+    }
+
+    private static SweepRangePriorityRow rangeRow(int range) {
+        return SweepRangePriorityRow.of(TABLE_NAME, range);
+    }
+
+    private static class RecordingSweepTaskRunner implements SweepTaskRunner {
+        private final InMemoryTimestampService tsService;
+        final List<String> tableNames = Lists.newArrayList();
+        final List<byte[]> startRows = Lists.newArrayList();
+        final List<byte[]> endRows = Lists.newArrayList();
+        SweepResults results = new SweepResults(null, 0L, 0L);
+
+        RecordingSweepTaskRunner(InMemoryTimestampService tsService) {
+            this.tsService = tsService;
+        }
+
+        @Override
+        public SweepResults run(String tableName, int batchSize, byte[] startRow) {
+            return run(tableName, batchSize, startRow, null);
+        }
+
+        @Override
+        public SweepResults run(String tableName, int batchSize, byte[] startRow, byte[] endRow) {
+            tableNames.add(tableName);
+            startRows.add(startRow);
+            endRows.add(endRow);
+            return results;
+        }
+
+        @Override
+        public long getSweepTimestamp(SweepStrategy sweepStrategy) {
+            return tsService.getFreshTimestamp();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.sweep;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.google.common.base.Supplier;
+
+public class SweepMetricsTest {
+    private final SweepMetrics metrics = SweepMetrics.create();
+
+    @Test
+    public void testRatesAndTotals() {
+        metrics.sweptBatch("table1", 1000, 100, 500);
+        metrics.sweptBatch("table2", 10, 0, 1000);
+        assertEquals(1010, metrics.getCellsExamined());
+        assertEquals(100, metrics.getCellsDeleted());
+        assertEquals(2000.0, metrics.getCellsExaminedPerSecondByTable().get("table1"), 0.001);
+        assertEquals(200.0, metrics.getCellsDeletedPerSecondByTable().get("table1"), 0.001);
+        assertEquals(10.0, metrics.getCellsExaminedPerSecondByTable().get("table2"), 0.001);
+        assertEquals(2, metrics.getSweepBatchCount());
+        assertEquals(511, metrics.getSweepBatchMillisP50());
+        assertEquals(1023, metrics.getSweepBatchMillisMax());
+    }
+
+    @Test
+    public void testEstimatedTimeToCompletePass() {
+        assertEquals(-1L, metrics.getEstimatedMillisToCompletePass());
+        metrics.sweptBatch("table", 1000, 0, 1000);
+        metrics.updateCurrentPass("table", 1000, 0);
+        assertEquals(-1L, metrics.getEstimatedMillisToCompletePass());
+        metrics.updateCurrentPass("table", 1000, 5000);
+        assertEquals("table", metrics.getCurrentTable());
+        assertEquals(4000L, metrics.getEstimatedMillisToCompletePass());
+        metrics.clearCurrentPass();
+        assertEquals("", metrics.getCurrentTable());
+        assertEquals(-1L, metrics.getEstimatedMillisToCompletePass());
+    }
+
+    @Test
+    public void testForwardsToListeners() {
+        final AtomicLong examined = new AtomicLong();
+        final AtomicLong scrubbed = new AtomicLong();
+        metrics.addListener(new NoOpSweepMetricsListener() {
+            @Override
+            public void sweptBatch(String tableName, long cellsExamined, long cellsDeleted, long elapsedMillis) {
+                examined.addAndGet(cellsExamined);
+            }
+
+            @Override
+            public void scrubbedBatch(long cellsScrubbed, long elapsedMillis) {
+                scrubbed.addAndGet(cellsScrubbed);
+            }
+        });
+        metrics.sweptBatch("table", 7, 1, 10);
+        metrics.scrubbedBatch(3, 10);
+        assertEquals(7, examined.get());
+        assertEquals(3, scrubbed.get());
+        assertEquals(3, metrics.getCellsScrubbed());
+        assertEquals(-1L, metrics.getImmutableTimestamp());
+    }
+
+    @Test
+    public void testScrubQueueDepthIsCountedLazilyAndCached() {
+        assertEquals(-1L, metrics.getScrubQueueDepth());
+
+        final AtomicLong counts = new AtomicLong();
+        metrics.setScrubQueueDepthSupplier(new Supplier<Long>() {
+            @Override
+            public Long get() {
+                counts.incrementAndGet();
+                return 42L;
+            }
+        });
+        assertEquals(0, counts.get());
+        assertEquals(42, metrics.getScrubQueueDepth());
+        assertEquals(42, metrics.getScrubQueueDepth());
+        assertEquals(1, counts.get());
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.sweep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+import com.palantir.atlasdb.cleaner.Follower;
+import com.palantir.atlasdb.cleaner.NoOpCleaner;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.SweepResults;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.SweepStrategy;
+import com.palantir.atlasdb.table.description.TableDefinition;
+import com.palantir.atlasdb.table.description.ValueType;
+import com.palantir.atlasdb.transaction.api.AtlasDbConstraintCheckingMode;
+import com.palantir.atlasdb.transaction.api.ConflictHandler;
+import com.palantir.atlasdb.transaction.impl.ConflictDetectionManagers;
+import com.palantir.atlasdb.transaction.impl.SerializableTransactionManager;
+import com.palantir.atlasdb.transaction.impl.SweepStrategyManager;
+import com.palantir.atlasdb.transaction.impl.SweepStrategyManagers;
+import com.palantir.atlasdb.transaction.impl.TransactionConstants;
+import com.palantir.atlasdb.transaction.service.TransactionService;
+import com.palantir.atlasdb.transaction.service.TransactionServices;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.lock.LockClient;
+import com.palantir.lock.LockServerOptions;
+import com.palantir.lock.impl.LockServiceImpl;
+import com.palantir.timestamp.InMemoryTimestampService;
+
+public class SweepTaskRunnerImplTest {
+    private static final String TABLE_NAME = "table";
+    private static final String COL = "c";
+
+    private final AtomicLong sweepTimestamp = new AtomicLong();
+    private ExecutorService exec;
+    private LockServiceImpl lockService;
+    private KeyValueService kvs;
+    private TransactionService txService;
+    private RecordingTransactionService sweepTxService;
+    private SweepTaskRunner sweepRunner;
+
+    @Before
+    @SuppressWarnings("serial")
+    public void setup() {
+        exec = PTExecutors.newCachedThreadPool();
+        kvs = new InMemoryKeyValueService(true, exec);
+        lockService = LockServiceImpl.create(new LockServerOptions() { @Override public boolean isStandaloneServer() { return false; }});
+        txService = TransactionServices.createTransactionService(kvs);
+        sweepTxService = new RecordingTransactionService(txService);
+        SweepStrategyManager ssm = SweepStrategyManagers.createDefault(kvs);
+        SerializableTransactionManager txManager = new SerializableTransactionManager(
+                kvs,
+                new InMemoryTimestampService(),
+                LockClient.of("sweep client"),
+                lockService,
+                txService,
+                Suppliers.ofInstance(AtlasDbConstraintCheckingMode.NO_CONSTRAINT_CHECKING),
+                ConflictDetectionManagers.createDefault(kvs),
+                ssm,
+                new NoOpCleaner(),
+                false);
+        Supplier<Long> tsSupplier = new Supplier<Long>() { @Override public Long get() { return sweepTimestamp.get(); }};
+        sweepRunner = new SweepTaskRunnerImpl(txManager, kvs, tsSupplier, tsSupplier, sweepTxService, ssm, ImmutableList.<Follower>of());
+        createTable();
+    }
+
+    @After
+    public void teardown() {
+        lockService.close();
+        exec.shutdown();
+    }
+
+    @Test
+    public void testCommitTimestampsAreCachedAcrossBatches() {
+        for (String row : ImmutableList.of("a", "b", "c", "d")) {
+            put(row, "bar", 50);
+            put(row, "baz", 100);
+        }
+        sweepTimestamp.set(175);
+        byte[] startRow = new byte[0];
+        int batches = 0;
+        while (startRow != null) {
+            SweepResults results = sweepRunner.run(TABLE_NAME, 1, startRow);
+            startRow = results.getNextStartRow().orNull();
+            batches++;
+        }
+        assertEquals(5, batches);
+        assertEquals(1, sweepTxService.lookedUp.count(50L));
+        assertEquals(1, sweepTxService.lookedUp.count(100L));
+        assertEquals(0, sweepTxService.batchedPuts.size());
+    }
+
+    @Test
+    public void testUncommittedTransactionsAreRolledBackInOneBatch() {
+        put("a", "bar", 50);
+        putUncommitted("a", "bad", 75);
+        put("b", "bar", 50);
+        putUncommitted("b", "bad", 80);
+        SweepResults results = sweep(175);
+        assertEquals(2, results.getCellsDeleted());
+        assertEquals(ImmutableList.<Map<Long, Long>>of(ImmutableMap.of(
+                75L, TransactionConstants.FAILED_COMMIT_TS,
+                80L, TransactionConstants.FAILED_COMMIT_TS)),
+                sweepTxService.batchedPuts);
+        assertEquals(0, sweepTxService.singlePuts.size());
+        assertEquals(TransactionConstants.FAILED_COMMIT_TS, (long) txService.get(75L));
+        assertEquals(TransactionConstants.FAILED_COMMIT_TS, (long) txService.get(80L));
+    }
+
+    @Test
+    public void testBatchedRollbackToleratesTransactionsCommittedMeanwhile() {
+        put("a", "bar", 50);
+        putUncommitted("a", "good", 75);
+        put("b", "bar", 50);
+        putUncommitted("b", "bad", 80);
+        // Transaction 75 commits between sweep reading its commit timestamp and rolling it back.
+        sweepTxService.beforeBatchedPut = new Runnable() {
+            @Override
+            public void run() {
+                txService.putUnlessExists(75L, 90L);
+            }
+        };
+        SweepResults results = sweep(175);
+        assertEquals(2, results.getCellsDeleted());
+        assertEquals(90L, (long) txService.get(75L));
+        assertEquals(TransactionConstants.FAILED_COMMIT_TS, (long) txService.get(80L));
+        assertEquals("good", get("a", 150));
+        assertEquals("bar", get("b", 150));
+    }
+
+    @Test
+    public void testRollbackFallsBackToSingleWritesWhenBatchStopsPartway() {
+        put("a", "bar", 50);
+        putUncommitted("a", "bad", 75);
+        put("b", "bar", 50);
+        putUncommitted("b", "bad", 80);
+        sweepTxService.failBatchedPutsAfterFirst = true;
+        SweepResults results = sweep(175);
+        assertEquals(2, results.getCellsDeleted());
+        assertEquals(1, sweepTxService.singlePuts.size());
+        assertEquals(TransactionConstants.FAILED_COMMIT_TS, (long) txService.get(75L));
+        assertEquals(TransactionConstants.FAILED_COMMIT_TS, (long) txService.get(80L));
+
+        // Rolled back transactions are cached like committed ones.
+        sweepTxService.lookedUp.clear();
+        putUncommitted("c", "bad", 75);
+        sweep(175);
+        assertEquals(0, sweepTxService.lookedUp.count(75L));
+    }
+
+    private SweepResults sweep(long ts) {
+        sweepTimestamp.set(ts);
+        SweepResults results = sweepRunner.run(TABLE_NAME, 1000, new byte[0]);
+        assertFalse(results.getNextStartRow().isPresent());
+        return results;
+    }
+
+    private String get(String row, long ts) {
+        Cell cell = Cell.create(row.getBytes(), COL.getBytes());
+        return new String(kvs.get(TABLE_NAME, ImmutableMap.of(cell, ts)).get(cell).getContents());
+    }
+
+    private void put(String row, String val, long ts) {
+        putUncommitted(row, val, ts);
+        if (txService.get(ts) == null) {
+            txService.putUnlessExists(ts, ts);
+        }
+    }
+
+    private void putUncommitted(String row, String val, long ts) {
+        Cell cell = Cell.create(row.getBytes(), COL.getBytes());
+        kvs.put(TABLE_NAME, ImmutableMap.of(cell, val.getBytes()), ts);
+    }
+
+    private void createTable() {
+        kvs.createTable(TABLE_NAME,
+                new TableDefinition() {{
+                    rowName();
+                    rowComponent("row", ValueType.BLOB);
+                    columns();
+                    column("col", COL, ValueType.BLOB);
+                    conflictHandler(ConflictHandler.IGNORE_ALL);
+                    sweepStrategy(SweepStrategy.CONSERVATIVE);
+                }}.toTableMetadata().persistToBytes()
+        );
+    }
+
+    private static class RecordingTransactionService implements TransactionService {
+        private final TransactionService delegate;
+        final Multiset<Long> lookedUp = HashMultiset.create();
+        final List<Map<Long, Long>> batchedPuts = Lists.newArrayList();
+        final List<Long> singlePuts = Lists.newArrayList();
+        Runnable beforeBatchedPut = null;
+        boolean failBatchedPutsAfterFirst = false;
+
+        RecordingTransactionService(TransactionService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Long get(long startTimestamp) {
+            return delegate.get(startTimestamp);
+        }
+
+        @Override
+        public Map<Long, Long> get(Iterable<Long> startTimestamps) {
+            Iterables.addAll(lookedUp, startTimestamps);
+            return delegate.get(startTimestamps);
+        }
+
+        @Override
+        public void putUnlessExists(long startTimestamp, long commitTimestamp) {
+            singlePuts.add(startTimestamp);
+            delegate.putUnlessExists(startTimestamp, commitTimestamp);
+        }
+
+        @Override
+        public void putUnlessExists(Map<Long, Long> startTimestampToCommitTimestamp) {
+            batchedPuts.add(ImmutableMap.copyOf(startTimestampToCommitTimestamp));
+            if (beforeBatchedPut != null) {
+                beforeBatchedPut.run();
+            }
+            if (failBatchedPutsAfterFirst) {
+                Map.Entry<Long, Long> first = startTimestampToCommitTimestamp.entrySet().iterator().next();
+                delegate.putUnlessExists(first.getKey(), first.getValue());
+                throw new KeyAlreadyExistsException("Failed after the first value");
+            }
+            delegate.putUnlessExists(startTimestampToCommitTimestamp);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.transaction.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+
+public class TransactionServicesTest {
+
+    @Test
+    public void testBatchedPutUnlessExists() {
+        TransactionService service = TransactionServices.createTransactionService(new InMemoryKeyValueService(true));
+        service.putUnlessExists(ImmutableMap.of(1L, 2L, 3L, 4L));
+        assertEquals(ImmutableMap.of(1L, 2L, 3L, 4L), service.get(ImmutableList.of(1L, 3L, 5L)));
+
+        try {
+            service.putUnlessExists(ImmutableMap.of(3L, 6L, 5L, 7L));
+            fail();
+        } catch (KeyAlreadyExistsException e) {
+            // expected
+        }
+        assertEquals(4L, (long) service.get(3L));
+    }
+
+    @Test
+    public void testKvsWrapperBatchedPutUnlessExists() {
+        TransactionKVSWrapper kvsWrapper = new TransactionKVSWrapper(new InMemoryKeyValueService(true));
+        kvsWrapper.putUnlessExists(ImmutableMap.of(1L, 2L, 3L, -1L));
+        assertEquals(ImmutableMap.of(1L, 2L, 3L, -1L), kvsWrapper.get(ImmutableList.of(1L, 3L)));
+        assertNull(kvsWrapper.get(5L));
+
+        try {
+            kvsWrapper.putUnlessExists(ImmutableMap.of(1L, 6L, 5L, 7L));
+            fail();
+        } catch (KeyAlreadyExistsException e) {
+            // expected
+        }
+        assertEquals(2L, (long) kvsWrapper.get(1L));
+    }
+}
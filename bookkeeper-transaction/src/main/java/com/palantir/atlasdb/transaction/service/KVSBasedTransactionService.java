@@ -41,4 +41,9 @@ public class KVSBasedTransactionService implements TransactionService {
     public void putUnlessExists(long startTimestamp, long commitTimestamp) throws KeyAlreadyExistsException {
         kvsWrapper.putUnlessExists(startTimestamp, commitTimestamp);
     }
+
+    @Override
+    public void putUnlessExists(Map<Long, Long> startTimestampToCommitTimestamp) throws KeyAlreadyExistsException {
+        kvsWrapper.putUnlessExists(startTimestampToCommitTimestamp);
+    }
 }
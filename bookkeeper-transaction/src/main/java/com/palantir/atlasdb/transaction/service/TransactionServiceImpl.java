@@ -184,6 +184,22 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
 
+    @Override
+    public void putUnlessExists(Map<Long, Long> startTimestampToCommitTimestamp)
+            throws KeyAlreadyExistsException {
+        List<Long> existingStartTimestamps = Lists.newArrayList();
+        for (Map.Entry<Long, Long> entry : startTimestampToCommitTimestamp.entrySet()) {
+            try {
+                putUnlessExists(entry.getKey(), entry.getValue());
+            } catch (KeyAlreadyExistsException e) {
+                existingStartTimestamps.add(entry.getKey());
+            }
+        }
+        if (!existingStartTimestamps.isEmpty()) {
+            throw new KeyAlreadyExistsException("Keys " + existingStartTimestamps + " already exist");
+        }
+    }
+
     public void flush() {
         flushLock.lock();
         try {
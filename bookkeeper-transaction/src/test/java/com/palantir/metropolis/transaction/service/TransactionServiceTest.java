@@ -26,10 +26,13 @@ import java.util.concurrent.Future;
 
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
 import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
 import com.palantir.atlasdb.transaction.service.InMemoryMetadataStorageService;
+import com.palantir.atlasdb.transaction.service.KVSBasedTransactionService;
 import com.palantir.atlasdb.transaction.service.InMemoryWriteAheadLog;
 import com.palantir.atlasdb.transaction.service.MetadataStorageService;
 import com.palantir.atlasdb.transaction.service.TransactionKVSWrapper;
@@ -133,6 +136,43 @@ public class TransactionServiceTest {
         }
     }
 
+    @Test
+    public void testBatchedPutUnlessExists() {
+        WriteAheadLogManager manager = new InMemoryWriteAheadLog.InMemoryWriteAheadLogManager();
+        MetadataStorageService metadataStorageService = new InMemoryMetadataStorageService();
+        TransactionKVSWrapper kvsWrapper = new TransactionKVSWrapper(new InMemoryKeyValueService(true));
+        TransactionService service = TransactionServiceImpl.create(manager, kvsWrapper, metadataStorageService, FLUSH_PERIOD);
+        service.putUnlessExists(ImmutableMap.of(0L, 1L, 1L, 2L));
+        assert(service.get(0) == 1);
+        assert(service.get(1) == 2);
+
+        // Every new key is set even though one of them already existed.
+        try {
+            service.putUnlessExists(ImmutableMap.of(1L, 3L, 2L, 4L, 3L, 5L));
+            assert(false);
+        } catch (KeyAlreadyExistsException e) {
+            // expected
+        }
+        assert(service.get(1) == 2);
+        assert(service.get(2) == 4);
+        assert(service.get(3) == 5);
+    }
+
+    @Test
+    public void testKvsBasedBatchedPutUnlessExists() {
+        TransactionService service = new KVSBasedTransactionService(new InMemoryKeyValueService(true));
+        service.putUnlessExists(ImmutableMap.of(0L, 1L, 1L, 2L));
+        assert(service.get(ImmutableList.of(0L, 1L)).equals(ImmutableMap.of(0L, 1L, 1L, 2L)));
+
+        try {
+            service.putUnlessExists(ImmutableMap.of(1L, 3L, 2L, 4L));
+            assert(false);
+        } catch (KeyAlreadyExistsException e) {
+            // expected
+        }
+        assert(service.get(1) == 2);
+    }
+
     private static boolean randomTask(TransactionService service, long index, long randomSeed) {
         Random r = new Random(randomSeed);
         if (r.nextBoolean()) {
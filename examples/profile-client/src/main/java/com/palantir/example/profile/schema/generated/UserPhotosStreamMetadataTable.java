@@ -245,6 +245,12 @@ public final class UserPhotosStreamMetadataTable implements
      *     label: LABEL_REQUIRED
      *     type: TYPE_BYTES
      *   }
+     *   field {
+     *     name: "blocksCompressed"
+     *     number: 4
+     *     label: LABEL_OPTIONAL
+     *     type: TYPE_BOOL
+     *   }
      * }
      * </pre>
      */
@@ -708,5 +714,5 @@ public final class UserPhotosStreamMetadataTable implements
      * {@link UnsignedBytes}
      * {@link ValueType}
      */
-    static String __CLASS_HASH = "LE7y5Ed2NAOlknDiZp7UaQ==";
+    static String __CLASS_HASH = "2qU4icytWetNrVptHWi3Cw==";
 }
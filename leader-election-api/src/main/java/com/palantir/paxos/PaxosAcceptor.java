@@ -20,6 +20,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 
 @Path("/acceptor")
@@ -40,6 +41,22 @@ public interface PaxosAcceptor {
     @Consumes(MediaType.APPLICATION_JSON)
     public PaxosPromise prepare(@PathParam("seq") long seq, PaxosProposalId pid);
 
+    /**
+     * The acceptor prepares for a given proposal for every instance of paxos from fromSeq onwards,
+     * so that a stable leader can skip phase one for those instances. The promise is only made if
+     * this acceptor has not yet prepared or accepted any round at or after fromSeq.
+     *
+     * @param fromSeq the first instance of paxos the promise covers
+     * @param pid the proposal to prepare for
+     * @return a paxos promise not to accept lower numbered proposals for any round at or after
+     *         fromSeq; an acknowledged promise never carries an accepted value
+     */
+    @POST
+    @Path("prepare-range/{seq}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public PaxosPromise prepareRange(@PathParam("seq") long fromSeq, PaxosProposalId pid);
+
     /**
      * The acceptor decides whether to accept or reject a given proposal.
      *
@@ -53,6 +70,24 @@ public interface PaxosAcceptor {
     @Consumes(MediaType.APPLICATION_JSON)
     public BooleanPaxosResponse accept(@PathParam("seq") long seq, PaxosProposal proposal);
 
+    /**
+     * Grants the leader that won a given round a lease: until it expires, this acceptor will not
+     * prepare or accept any later round for another proposer. The lease is refused if a later
+     * round has already been prepared or accepted, if another leader's lease has not expired yet,
+     * or if it is longer than this acceptor allows.
+     *
+     * @param seq the instance of paxos the leader won
+     * @param leaderUUID the UUID of the leader's proposer
+     * @param leaseMs how long the lease lasts, measured on this acceptor's clock from when it is granted
+     * @return a paxos message indicating if the lease was granted or refused
+     */
+    @POST
+    @Path("grant-lease/{seq}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public BooleanPaxosResponse grantLease(@PathParam("seq") long seq,
+                                           @QueryParam("leaderUUID") String leaderUUID,
+                                           @QueryParam("leaseMs") long leaseMs);
+
     /**
      * Gets the sequence number of the acceptor's most recent known round.
      *
@@ -25,6 +25,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 
 import com.palantir.common.annotation.Inclusive;
@@ -73,4 +74,20 @@ public interface PaxosLearner {
     @Produces(MediaType.APPLICATION_JSON)
     Collection<PaxosValue> getLearnedValuesSince(@PathParam("seq") @Inclusive long seq);
 
+    /**
+     * Returns learned values for rounds since the seq-th round (inclusive) in round order, encoded
+     * with {@link PaxosValues#toFrames(Iterable)}. The batch stops before the value that would take
+     * it past maxBytes, but always holds at least one value if any are known, so callers page
+     * through a long range by asking again from one past the last round returned.
+     *
+     * @param seq lower round cutoff for returned values
+     * @param maxBytes the size the batch should stay within
+     * @return frames of learned values, or an empty array if none are known since seq
+     */
+    @Nonnull
+    @GET
+    @Path("learned-values-batch/{seq:.+}")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    byte[] getLearnedValuesBatch(@PathParam("seq") @Inclusive long seq, @QueryParam("maxBytes") int maxBytes);
+
 }
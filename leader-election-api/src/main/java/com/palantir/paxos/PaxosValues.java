@@ -0,0 +1,72 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.palantir.common.base.Throwables;
+
+/**
+ * Encodes learned values for bulk transfer between learners as a sequence of frames, each a
+ * varint length followed by that many bytes of a persisted {@link PaxosValue}.
+ */
+public final class PaxosValues {
+
+    private PaxosValues() {
+        // Private constructor. Disallow instantiation.
+    }
+
+    /**
+     * @return the size of the frame that {@link #toFrames(Iterable)} writes for the given value
+     */
+    public static int getFrameSize(byte[] persistedValue) {
+        return CodedOutputStream.computeRawVarint32Size(persistedValue.length) + persistedValue.length;
+    }
+
+    public static byte[] toFrames(Iterable<byte[]> persistedValues) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        try {
+            for (byte[] persistedValue : persistedValues) {
+                out.writeRawVarint32(persistedValue.length);
+                out.writeRawBytes(persistedValue);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw Throwables.throwUncheckedException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static List<PaxosValue> fromFrames(byte[] frames) {
+        List<PaxosValue> values = Lists.newArrayList();
+        CodedInputStream in = CodedInputStream.newInstance(frames);
+        try {
+            while (!in.isAtEnd()) {
+                byte[] persistedValue = in.readRawBytes(in.readRawVarint32());
+                values.add(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(persistedValue));
+            }
+        } catch (IOException e) {
+            throw Throwables.throwUncheckedException(e);
+        }
+        return values;
+    }
+}
@@ -17,6 +17,7 @@ package com.palantir.leader;
 
 import java.util.AbstractMap;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -29,6 +30,9 @@ import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.Nullable;
@@ -40,7 +44,6 @@ import com.google.common.base.Defaults;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -51,14 +54,20 @@ import com.palantir.paxos.PaxosLearner;
 import com.palantir.paxos.PaxosProposer;
 import com.palantir.paxos.PaxosQuorumChecker;
 import com.palantir.paxos.PaxosResponse;
-import com.palantir.paxos.PaxosResponseImpl;
 import com.palantir.paxos.PaxosRoundFailureException;
-import com.palantir.paxos.PaxosUpdate;
 import com.palantir.paxos.PaxosValue;
+import com.palantir.paxos.PaxosValues;
 
 /**
  * Implementation of a paxos member than can be a designated proposer (leader) and designated
  * learner (informer).
+ * <p>
+ * If a leader lease is configured, each quorum check also asks the acceptors for a lease of
+ * leaderLeaseMs. An acceptor that grants one nacks every later round proposed by anyone else until
+ * the lease has expired on its own clock, so once a quorum has granted it no other node can become
+ * leader in the meantime. #isStillLeading then answers locally until leaderLeaseMs minus
+ * maxClockDriftMs after the check started, and the lease is renewed in the background once half of
+ * it has passed. Acceptors only grant leases if they were created with a long enough maxLeaseMs.
  *
  * @author rullman
  */
@@ -66,6 +75,11 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
     private static final Logger log = LoggerFactory.getLogger(PaxosLeaderElectionService.class);
     private static final Logger leaderLog = LoggerFactory.getLogger("leadership");
 
+    /**
+     * The size of each batch of learned values asked for when catching up from a peer.
+     */
+    private static final int CATCH_UP_BATCH_BYTES = 1024 * 1024;
+
     private final ReentrantLock lock;
 
     final PaxosProposer proposer;
@@ -78,9 +92,14 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
     final long updatePollingRateInMs;
     final long randomWaitBeforeProposingLeadership;
     final long leaderPingResponseWaitMs;
+    final long leaderLeaseMs;
+    final long maxClockDriftMs;
 
     final ExecutorService executor;
 
+    private final AtomicReference<LeaderLease> lease = new AtomicReference<LeaderLease>();
+    private final AtomicBoolean renewingLease = new AtomicBoolean(false);
+
     final ConcurrentMap<String, PingableLeader> uuidToServiceCache = Maps.newConcurrentMap();
 
     public PaxosLeaderElectionService(PaxosProposer proposer,
@@ -92,6 +111,37 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
                                       long updatePollingWaitInMs,
                                       long randomWaitBeforeProposingLeadership,
                                       long leaderPingResponseWaitMs) {
+        this(proposer,
+                knowledge,
+                potentialLeadersToHosts,
+                acceptors,
+                learners,
+                executor,
+                updatePollingWaitInMs,
+                randomWaitBeforeProposingLeadership,
+                leaderPingResponseWaitMs,
+                0L,
+                0L);
+    }
+
+    /**
+     * @param leaderLeaseMs how long a lease granted by a quorum of acceptors lets this node answer
+     *        #isStillLeading without contacting them, or 0 to always contact them
+     * @param maxClockDriftMs the most that the clocks of two nodes may drift apart over one lease
+     */
+    public PaxosLeaderElectionService(PaxosProposer proposer,
+                                      PaxosLearner knowledge,
+                                      Map<PingableLeader, HostAndPort> potentialLeadersToHosts,
+                                      ImmutableList<PaxosAcceptor> acceptors,
+                                      ImmutableList<PaxosLearner> learners,
+                                      ExecutorService executor,
+                                      long updatePollingWaitInMs,
+                                      long randomWaitBeforeProposingLeadership,
+                                      long leaderPingResponseWaitMs,
+                                      long leaderLeaseMs,
+                                      long maxClockDriftMs) {
+        Preconditions.checkArgument(leaderLeaseMs == 0 || leaderLeaseMs > maxClockDriftMs,
+                "the leader lease must be longer than the maximum clock drift");
         this.proposer = proposer;
         this.knowledge = knowledge;
         // XXX This map uses something that may be proxied as a key! Be very careful if making a new map from this.
@@ -102,6 +152,8 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
         this.updatePollingRateInMs = updatePollingWaitInMs;
         this.randomWaitBeforeProposingLeadership = randomWaitBeforeProposingLeadership;
         this.leaderPingResponseWaitMs = leaderPingResponseWaitMs;
+        this.leaderLeaseMs = leaderLeaseMs;
+        this.maxClockDriftMs = maxClockDriftMs;
         lock = new ReentrantLock();
     }
 
@@ -376,6 +428,9 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
 
     @Override
     public StillLeadingStatus isStillLeading(LeadershipToken token) {
+        if (isLeaseValid(token)) {
+            return StillLeadingStatus.LEADING;
+        }
         while (true) {
             StillLeadingCallBatch callBatch = getStillLeadingCallBatch(token);
 
@@ -441,6 +496,78 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
         return new StillLeadingCallBatch(installedNewBatch, batch);
     }
 
+    private static class LeaderLease {
+        final LeadershipToken token;
+        final long startNanos;
+        final long expiryNanos;
+
+        LeaderLease(LeadershipToken token, long startNanos, long expiryNanos) {
+            this.token = token;
+            this.startNanos = startNanos;
+            this.expiryNanos = expiryNanos;
+        }
+    }
+
+    private boolean isLeaseValid(final LeadershipToken token) {
+        LeaderLease currentLease = lease.get();
+        if (currentLease == null || !currentLease.token.sameAs(token)) {
+            return false;
+        }
+        // Anything this node has learned since the lease was taken out ends it early.
+        PaxosValue greatestLearned = knowledge.getGreatestLearnedValue();
+        if (!isLastConfirmedLeader(greatestLearned) || !genTokenFromValue(greatestLearned).sameAs(token)) {
+            lease.compareAndSet(currentLease, null);
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - currentLease.expiryNanos >= 0) {
+            return false;
+        }
+        if (now - currentLease.startNanos >= (currentLease.expiryNanos - currentLease.startNanos) / 2
+                && renewingLease.compareAndSet(false, true)) {
+            renewLeaseInBackground(token);
+        }
+        return true;
+    }
+
+    private void renewLeaseInBackground(final LeadershipToken token) {
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        isStillLeadingInternal(token);
+                    } catch (Throwable t) {
+                        log.warn("Failed to renew the leader lease", t);
+                    } finally {
+                        renewingLease.set(false);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            renewingLease.set(false);
+            log.warn("Failed to schedule a leader lease renewal", e);
+        }
+    }
+
+    /**
+     * Takes out a lease once a quorum of acceptors has granted one. A lease that could not be
+     * renewed is kept until it expires, since the acceptors that granted it are still bound by it.
+     */
+    private void updateLease(LeadershipToken token, long checkStartNanos, List<LeaderConfirmation> responses) {
+        int leasesGranted = 0;
+        for (LeaderConfirmation response : responses) {
+            if (response != null && response.leaseGranted) {
+                leasesGranted++;
+            }
+        }
+        if (leasesGranted >= proposer.getQuorumSize()) {
+            // The lease runs from before we asked the acceptors, never from when they answered.
+            long expiryNanos = checkStartNanos + TimeUnit.MILLISECONDS.toNanos(leaderLeaseMs - maxClockDriftMs);
+            lease.set(new LeaderLease(token, checkStartNanos, expiryNanos));
+        }
+    }
+
     private void populateStillLeadingCall(StillLeadingCall batch, LeadershipToken token) {
         try {
             StillLeadingStatus status = isStillLeadingInternal(token);
@@ -449,11 +576,13 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
             log.error("Something went wrong while checking leadership", t);
             batch.failed = true;
         } finally {
-            batch.populationLatch.countDown();
             /* Close only the current batch. If someone else has replaced this batch
              * already, don't close them prematurely; let them close themselves.
+             * It must be closed before it is released, or callers arriving in between would
+             * join a batch whose check started before they called.
              */
             currentIsStillLeadingCall.remove(token, batch);
+            batch.populationLatch.countDown();
         }
     }
 
@@ -476,12 +605,13 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
         }
 
         // check if node still has quorum
-        List<PaxosResponse> responses = PaxosQuorumChecker.<PaxosAcceptor, PaxosResponse> collectQuorumResponses(
+        long checkStartNanos = System.nanoTime();
+        List<LeaderConfirmation> responses = PaxosQuorumChecker.<PaxosAcceptor, LeaderConfirmation> collectQuorumResponses(
                 acceptors,
-                new Function<PaxosAcceptor, PaxosResponse>() {
+                new Function<PaxosAcceptor, LeaderConfirmation>() {
                     @Override
                     @Nullable
-                    public PaxosResponse apply(@Nullable PaxosAcceptor acceptor) {
+                    public LeaderConfirmation apply(@Nullable PaxosAcceptor acceptor) {
                         return confirmLeader(acceptor, seq);
                     }
                 },
@@ -491,6 +621,7 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
                 true);
         if (PaxosQuorumChecker.hasQuorum(responses, proposer.getQuorumSize())) {
             // If we have a quorum we are good to go
+            updateLease(token, checkStartNanos, responses);
             return StillLeadingStatus.LEADING;
         }
 
@@ -498,6 +629,7 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
             if (paxosResponse != null && !paxosResponse.isSuccessful()) {
                 // If we have a nack then someone has prepared or accepted a new seq.
                 // In this case we are most likely not the leader
+                lease.set(null);
                 return StillLeadingStatus.NOT_LEADING;
             }
         }
@@ -505,14 +637,49 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
     }
 
     /**
-     * Confirms if a given sequence is still the newest according to a given acceptor
+     * Confirms if a given sequence is still the newest according to a given acceptor, and asks it
+     * for a lease if leases are enabled
      *
      * @param acceptor the acceptor to check against
      * @param seq the instance of paxos in question
      * @return a paxos response that either confirms the leader or nacks
      */
-    private PaxosResponse confirmLeader(PaxosAcceptor acceptor, long seq) {
-        return new PaxosResponseImpl(seq >= acceptor.getLatestSequencePreparedOrAccepted());
+    private LeaderConfirmation confirmLeader(PaxosAcceptor acceptor, long seq) {
+        if (leaderLeaseMs > 0 && grantLease(acceptor, seq)) {
+            // Leases are only granted while no later sequence has been prepared or accepted.
+            return new LeaderConfirmation(true, true);
+        }
+        return new LeaderConfirmation(seq >= acceptor.getLatestSequencePreparedOrAccepted(), false);
+    }
+
+    /**
+     * An acceptor on a server from before leases were added has no grant-lease endpoint; it is
+     * treated as refusing the lease, and still confirms the leader the old way.
+     */
+    private boolean grantLease(PaxosAcceptor acceptor, long seq) {
+        try {
+            return acceptor.grantLease(seq, proposer.getUUID(), leaderLeaseMs).isSuccessful();
+        } catch (RuntimeException e) {
+            log.debug("Acceptor could not grant a lease on round " + seq, e);
+            return false;
+        }
+    }
+
+    private static class LeaderConfirmation implements PaxosResponse {
+        private static final long serialVersionUID = 1L;
+
+        final boolean confirmed;
+        final boolean leaseGranted;
+
+        LeaderConfirmation(boolean confirmed, boolean leaseGranted) {
+            this.confirmed = confirmed;
+            this.leaseGranted = leaseGranted;
+        }
+
+        @Override
+        public boolean isSuccessful() {
+            return confirmed;
+        }
     }
 
     public ImmutableList<PaxosAcceptor> getAcceptors() {
@@ -524,40 +691,145 @@ public class PaxosLeaderElectionService implements PingableLeader, LeaderElectio
     }
 
     /**
-     * Queries all other learners for unknown learned values
+     * Queries a quorum of learners for how far they have learned, then catches up from the one
+     * furthest ahead, falling back to the others if it fails part way.
      *
-     * @param numPeersToQuery number of peer learners to query for updates
      * @returns true if new state was learned, otherwise false
      */
     public boolean updateLearnedStateFromPeers(PaxosValue greatestLearned) {
         final long nextToLearnSeq = greatestLearned != null ? greatestLearned.getRound() + 1 : Defaults.defaultValue(long.class);
-        List<PaxosUpdate> updates = PaxosQuorumChecker.<PaxosLearner, PaxosUpdate> collectQuorumResponses(
+        List<LearnerProgress> peers = PaxosQuorumChecker.<PaxosLearner, LearnerProgress> collectQuorumResponses(
                 learners,
-                new Function<PaxosLearner, PaxosUpdate>() {
+                new Function<PaxosLearner, LearnerProgress>() {
                     @Override
                     @Nullable
-                    public PaxosUpdate apply(@Nullable PaxosLearner learner) {
-                        return new PaxosUpdate(
-                                ImmutableList.copyOf(learner.getLearnedValuesSince(nextToLearnSeq)));
+                    public LearnerProgress apply(@Nullable PaxosLearner learner) {
+                        return new LearnerProgress(learner, learner.getGreatestLearnedValue());
                     }
                 },
                 proposer.getQuorumSize(),
                 executor,
                 PaxosQuorumChecker.DEFAULT_REMOTE_REQUESTS_TIMEOUT_IN_SECONDS);
+        peers = Lists.newArrayList(peers);
+        Collections.sort(peers, LearnerProgress.FURTHEST_FIRST);
 
-        // learn the state accumulated from peers
         boolean learned = false;
-        for (PaxosUpdate update : updates) {
-            ImmutableCollection<PaxosValue> values = update.getValues();
-            for (PaxosValue value : values) {
-                PaxosValue currentLearnedValue = knowledge.getLearnedValue(value.getRound());
-                if (currentLearnedValue == null) {
-                    knowledge.learn(value.getRound(), value);
-                    learned = true;
+        long nextSeq = nextToLearnSeq;
+        for (LearnerProgress peer : peers) {
+            if (peer.greatestSeq < nextSeq) {
+                break;
+            }
+            long caughtUpTo = catchUpFrom(peer.learner, nextSeq, peer.greatestSeq);
+            if (caughtUpTo >= nextSeq) {
+                learned = true;
+                nextSeq = caughtUpTo + 1;
+            }
+            if (caughtUpTo >= peer.greatestSeq || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+        }
+        return learned;
+    }
+
+    /**
+     * Pages learned values in from the given learner in bulk, requesting the next batch before
+     * learning the current one so that the transfer overlaps with our own log writes. At most one
+     * batch is ever in flight, and the peer bounds the size of each.
+     *
+     * @return the greatest round caught up to, or fromSeq - 1 if nothing was
+     */
+    private long catchUpFrom(PaxosLearner learner, long fromSeq, long targetSeq) {
+        long caughtUpTo = fromSeq - 1;
+        Future<byte[]> nextBatch = fetchLearnedValues(learner, fromSeq);
+        try {
+            while (nextBatch != null) {
+                List<PaxosValue> values = PaxosValues.fromFrames(nextBatch.get(
+                        PaxosQuorumChecker.DEFAULT_REMOTE_REQUESTS_TIMEOUT_IN_SECONDS,
+                        TimeUnit.SECONDS));
+                if (values.isEmpty()) {
+                    nextBatch = null;
+                    break;
                 }
+                long lastSeq = values.get(values.size() - 1).getRound();
+                nextBatch = lastSeq < targetSeq ? fetchLearnedValues(learner, lastSeq + 1) : null;
+                learnAll(values);
+                caughtUpTo = lastSeq;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (caughtUpTo < fromSeq) {
+                // The peer may not support bulk transfer yet.
+                log.warn("bulk catch up failed; learning values one request at a time", e.getCause());
+                return learnSince(learner, fromSeq);
+            }
+            log.warn("bulk catch up failed after learning up to round " + caughtUpTo, e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("bulk catch up timed out after learning up to round " + caughtUpTo);
+        } catch (RuntimeException e) {
+            log.warn("bulk catch up failed after learning up to round " + caughtUpTo, e);
+        } finally {
+            if (nextBatch != null) {
+                // Interrupting the request could close the peer's log files if it is in process.
+                nextBatch.cancel(false);
             }
         }
+        return caughtUpTo;
+    }
 
-        return learned;
+    private Future<byte[]> fetchLearnedValues(final PaxosLearner learner, final long seq) {
+        return executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return learner.getLearnedValuesBatch(seq, CATCH_UP_BATCH_BYTES);
+            }
+        });
+    }
+
+    private long learnSince(PaxosLearner learner, long fromSeq) {
+        long caughtUpTo = fromSeq - 1;
+        try {
+            List<PaxosValue> values = Lists.newArrayList(learner.getLearnedValuesSince(fromSeq));
+            learnAll(values);
+            for (PaxosValue value : values) {
+                caughtUpTo = Math.max(caughtUpTo, value.getRound());
+            }
+        } catch (RuntimeException e) {
+            log.warn("catch up failed", e);
+        }
+        return caughtUpTo;
+    }
+
+    private void learnAll(Iterable<PaxosValue> values) {
+        for (PaxosValue value : values) {
+            PaxosValue currentLearnedValue = knowledge.getLearnedValue(value.getRound());
+            if (currentLearnedValue == null) {
+                knowledge.learn(value.getRound(), value);
+            }
+        }
+    }
+
+    private static class LearnerProgress implements PaxosResponse {
+        private static final long serialVersionUID = 1L;
+
+        static final Comparator<LearnerProgress> FURTHEST_FIRST = new Comparator<LearnerProgress>() {
+            @Override
+            public int compare(LearnerProgress o1, LearnerProgress o2) {
+                return Long.compare(o2.greatestSeq, o1.greatestSeq);
+            }
+        };
+
+        final transient PaxosLearner learner;
+        final long greatestSeq;
+
+        LearnerProgress(PaxosLearner learner, @Nullable PaxosValue greatestLearned) {
+            this.learner = learner;
+            this.greatestSeq = greatestLearned != null ? greatestLearned.getRound() : PaxosAcceptor.NO_LOG_ENTRY;
+        }
+
+        @Override
+        public boolean isSuccessful() {
+            return true;
+        }
     }
 }
@@ -15,42 +15,157 @@
  */
 package com.palantir.paxos;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.concurrent.GuardedBy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
+
 public class PaxosAcceptorImpl implements PaxosAcceptor {
     private static final Logger logger = LoggerFactory.getLogger(PaxosAcceptorImpl.class);
 
+    private static final String RANGE_PROMISE_LOG_DIR = "range-promise";
+    private static final long RANGE_PROMISE_SEQ = 0L;
+    private static final String LEASE_GRANT_LOG_DIR = "lease-grant";
+    private static final long LEASE_GRANT_SEQ = 0L;
+
+    /**
+     * The number of rounds below the latest prepared or accepted round that are kept in memory;
+     * older rounds are read back from the log when a request for them arrives.
+     */
+    static final long IN_MEMORY_ROUNDS = 1024L;
+
     /**
      * @param logDir string path for directory to place durable logs
      * @param type the type of the objects accepted by the acceptor
      * @return a new acceptor
      */
     public static PaxosAcceptor newAcceptor(String logDir) {
-        PaxosStateLog<PaxosAcceptorState> log = new PaxosStateLogImpl<PaxosAcceptorState>(logDir);
+        return newAcceptor(logDir, 0L);
+    }
+
+    /**
+     * @param logDir string path for directory to place durable logs
+     * @param retainedRounds how many rounds below the latest prepared or accepted round to keep in
+     *        the log, or 0 to never truncate it. Requests for truncated rounds are always nacked.
+     * @return a new acceptor
+     */
+    public static PaxosAcceptor newAcceptor(String logDir, long retainedRounds) {
+        return newAcceptor(logDir, retainedRounds, 0L);
+    }
+
+    /**
+     * @param logDir string path for directory to place durable logs
+     * @param retainedRounds how many rounds below the latest prepared or accepted round to keep in
+     *        the log, or 0 to never truncate it. Requests for truncated rounds are always nacked.
+     * @param maxLeaseMs the longest leader lease this acceptor grants, or 0 to refuse leases. Only
+     *        the holder of the last lease granted is logged, so if one was granted before a
+     *        restart the new acceptor nacks other proposers' rounds until maxLeaseMs has passed.
+     * @return a new acceptor
+     */
+    public static PaxosAcceptor newAcceptor(String logDir, long retainedRounds, long maxLeaseMs) {
+        PaxosStateLog<PaxosAcceptorState> log = new SegmentedPaxosStateLog<PaxosAcceptorState>(logDir);
+        PaxosStateLog<PaxosRangePromise> rangePromiseLog = new SegmentedPaxosStateLog<PaxosRangePromise>(
+                new File(logDir, RANGE_PROMISE_LOG_DIR).getPath());
+        PaxosRangePromise rangePromise = null;
+        try {
+            byte[] bytes = rangePromiseLog.readRound(RANGE_PROMISE_SEQ);
+            if (bytes != null) {
+                rangePromise = PaxosRangePromise.BYTES_HYDRATOR.hydrateFromBytes(bytes);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("unable to read the range promise in " + logDir, e);
+        }
+        PaxosStateLog<PaxosLeaseGrant> leaseGrantLog = new SegmentedPaxosStateLog<PaxosLeaseGrant>(
+                new File(logDir, LEASE_GRANT_LOG_DIR).getPath());
+        PaxosLeaseGrant leaseGrant = null;
+        try {
+            byte[] bytes = leaseGrantLog.readRound(LEASE_GRANT_SEQ);
+            if (bytes != null) {
+                leaseGrant = PaxosLeaseGrant.BYTES_HYDRATOR.hydrateFromBytes(bytes);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("unable to read the lease grant in " + logDir, e);
+        }
         return new PaxosAcceptorImpl(
                 new ConcurrentSkipListMap<Long, PaxosAcceptorState>(),
                 log,
-                log.getGreatestLogEntry());
+                log.getGreatestLogEntry(),
+                rangePromiseLog,
+                rangePromise,
+                leaseGrantLog,
+                leaseGrant,
+                retainedRounds,
+                maxLeaseMs);
     }
 
     final ConcurrentSkipListMap<Long, PaxosAcceptorState> state;
     final PaxosStateLog<PaxosAcceptorState> log;
     final long greatestInLogAtStartup;
+    final PaxosStateLog<PaxosRangePromise> rangePromiseLog;
+    volatile PaxosRangePromise rangePromise;
+    final long retainedRounds;
+    final PaxosStateLog<PaxosLeaseGrant> leaseGrantLog;
+    final long maxLeaseMs;
+    // Only replaced under the write lock, so that no round is being prepared or accepted meanwhile.
+    private volatile LeaderLease lease;
+    @GuardedBy("rangePromiseLock") private PaxosLeaseGrant leaseGrant;
+    private final AtomicLong lastTruncatedAt = new AtomicLong(PaxosAcceptor.NO_LOG_ENTRY);
+
+    // Single round requests hold the read lock so that a range promise is never made while one of
+    // them is between checking the range promise and recording its own state. Compaction also
+    // takes the write lock, so a round is never evicted between being read and being replaced.
+    private final ReadWriteLock rangePromiseLock = new ReentrantReadWriteLock();
 
     private PaxosAcceptorImpl(ConcurrentSkipListMap<Long, PaxosAcceptorState> state,
                               PaxosStateLog<PaxosAcceptorState> log,
-                              long greatestInLogAtStartup) {
+                              long greatestInLogAtStartup,
+                              PaxosStateLog<PaxosRangePromise> rangePromiseLog,
+                              PaxosRangePromise rangePromise,
+                              PaxosStateLog<PaxosLeaseGrant> leaseGrantLog,
+                              PaxosLeaseGrant leaseGrant,
+                              long retainedRounds,
+                              long maxLeaseMs) {
+        Preconditions.checkArgument(retainedRounds >= 0, "retainedRounds must not be negative");
+        Preconditions.checkArgument(maxLeaseMs >= 0, "maxLeaseMs must not be negative");
         this.state = state;
         this.log = log;
         this.greatestInLogAtStartup = greatestInLogAtStartup;
+        this.rangePromiseLog = rangePromiseLog;
+        this.rangePromise = rangePromise;
+        this.retainedRounds = retainedRounds;
+        this.maxLeaseMs = maxLeaseMs;
+        this.leaseGrantLog = leaseGrantLog;
+        this.leaseGrant = leaseGrant;
+        if (leaseGrant != null && maxLeaseMs > 0) {
+            // We do not know when the lease was granted, so it may still have up to maxLeaseMs to run.
+            this.lease = new LeaderLease(leaseGrant.seq, leaseGrant.leaderUUID,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLeaseMs));
+        }
     }
 
     @Override
     public PaxosPromise prepare(long seq, PaxosProposalId pid) {
+        rangePromiseLock.readLock().lock();
+        try {
+            return prepareInternal(seq, pid);
+        } finally {
+            rangePromiseLock.readLock().unlock();
+            compactIfNeeded();
+        }
+    }
+
+    private PaxosPromise prepareInternal(long seq, PaxosProposalId pid) {
         try {
             checkLogIfNeeded(seq);
         } catch (Exception e) {
@@ -58,12 +173,17 @@ public class PaxosAcceptorImpl implements PaxosAcceptor {
             return new PaxosPromise(pid); // nack
         }
 
+        if (isLeasedToAnother(seq, pid)) {
+            return new PaxosPromise(pid); // nack
+        }
+
         for (;;) {
             PaxosAcceptorState oldState = state.get(seq);
 
             // nack
-            if (oldState != null && pid.compareTo(oldState.lastPromisedId) < 0) {
-                return new PaxosPromise(oldState.lastPromisedId);
+            PaxosProposalId promisedId = getPromisedId(seq, oldState);
+            if (promisedId != null && pid.compareTo(promisedId) < 0) {
+                return new PaxosPromise(promisedId);
             }
 
             // allow for the same propose to be repeated and return the same result.
@@ -89,8 +209,49 @@ public class PaxosAcceptorImpl implements PaxosAcceptor {
         }
     }
 
+    @Override
+    public PaxosPromise prepareRange(long fromSeq, PaxosProposalId pid) {
+        rangePromiseLock.writeLock().lock();
+        try {
+            PaxosRangePromise oldPromise = rangePromise;
+
+            // nack
+            if (oldPromise != null && pid.compareTo(oldPromise.promisedId) < 0) {
+                return new PaxosPromise(oldPromise.promisedId);
+            }
+            // The range covers every round after any leased one.
+            if (isLeasedToAnother(Long.MAX_VALUE, pid)) {
+                return new PaxosPromise(pid);
+            }
+            if (getLatestSequencePreparedOrAccepted() >= fromSeq) {
+                // We may have accepted a value in this range, so the proposer must run full paxos.
+                return new PaxosPromise(oldPromise != null ? oldPromise.promisedId : pid);
+            }
+
+            // ack
+            PaxosRangePromise newPromise = oldPromise != null
+                    ? oldPromise.withPromise(fromSeq, pid)
+                    : new PaxosRangePromise(fromSeq, pid, 0L);
+            rangePromiseLog.writeRound(RANGE_PROMISE_SEQ, newPromise);
+            rangePromise = newPromise;
+            return new PaxosPromise(pid, null, null);
+        } finally {
+            rangePromiseLock.writeLock().unlock();
+        }
+    }
+
     @Override
     public BooleanPaxosResponse accept(long seq, PaxosProposal proposal) {
+        rangePromiseLock.readLock().lock();
+        try {
+            return acceptInternal(seq, proposal);
+        } finally {
+            rangePromiseLock.readLock().unlock();
+            compactIfNeeded();
+        }
+    }
+
+    private BooleanPaxosResponse acceptInternal(long seq, PaxosProposal proposal) {
         try {
             checkLogIfNeeded(seq);
         } catch (Exception e) {
@@ -98,18 +259,23 @@ public class PaxosAcceptorImpl implements PaxosAcceptor {
             return new BooleanPaxosResponse(false); // nack
         }
 
+        if (isLeasedToAnother(seq, proposal.id)) {
+            return new BooleanPaxosResponse(false); // nack
+        }
+
         for (;;) {
             PaxosAcceptorState oldState = state.get(seq);
 
             // nack
-            if (oldState != null && proposal.id.compareTo(oldState.lastPromisedId) < 0) {
+            PaxosProposalId promisedId = getPromisedId(seq, oldState);
+            if (promisedId != null && proposal.id.compareTo(promisedId) < 0) {
                 return new BooleanPaxosResponse(false);
             }
 
-            // ack
+            // ack; a stable leader sends accept requests for rounds it never prepared individually
             PaxosAcceptorState newState = oldState != null
                     ? oldState.withState(proposal.id, proposal.id, proposal.val)
-                    : PaxosAcceptorState.newState(proposal.id);
+                    : PaxosAcceptorState.newState(proposal.id).withState(proposal.id, proposal.id, proposal.val);
             if ((oldState == null && state.putIfAbsent(seq, newState) == null)
                     || (oldState != null && state.replace(seq, oldState, newState))) {
                 log.writeRound(seq, newState);
@@ -118,6 +284,51 @@ public class PaxosAcceptorImpl implements PaxosAcceptor {
         }
     }
 
+    @Override
+    public BooleanPaxosResponse grantLease(long seq, String leaderUUID, long leaseMs) {
+        rangePromiseLock.writeLock().lock();
+        try {
+            if (leaseMs <= 0 || leaseMs > maxLeaseMs || getLatestSequencePreparedOrAccepted() > seq) {
+                return new BooleanPaxosResponse(false);
+            }
+            long now = System.nanoTime();
+            LeaderLease currentLease = lease;
+            if (currentLease != null && !currentLease.leaderUUID.equals(leaderUUID) && currentLease.isValidAt(now)) {
+                return new BooleanPaxosResponse(false);
+            }
+            // Renewals by the same leader need not be logged; a restarted acceptor that restores an
+            // older round for the lease only nacks more of the other proposers' rounds.
+            PaxosLeaseGrant oldGrant = leaseGrant;
+            if (oldGrant == null || !oldGrant.leaderUUID.equals(leaderUUID)) {
+                PaxosLeaseGrant newGrant = new PaxosLeaseGrant(seq, leaderUUID, oldGrant != null ? oldGrant.version + 1 : 0L);
+                leaseGrantLog.writeRound(LEASE_GRANT_SEQ, newGrant);
+                leaseGrant = newGrant;
+            }
+            lease = new LeaderLease(seq, leaderUUID, now + TimeUnit.MILLISECONDS.toNanos(leaseMs));
+            return new BooleanPaxosResponse(true);
+        } finally {
+            rangePromiseLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Must be called while holding the range promise lock.
+     *
+     * @return true if the given round must be nacked for the given proposer, because a lease on an
+     *         earlier round is held by another leader
+     */
+    private boolean isLeasedToAnother(long seq, PaxosProposalId pid) {
+        if (maxLeaseMs <= 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        LeaderLease currentLease = lease;
+        return currentLease != null
+                && seq > currentLease.seq
+                && !currentLease.leaderUUID.equals(pid.getProposerUUID())
+                && currentLease.isValidAt(now);
+    }
+
     @Override
     public long getLatestSequencePreparedOrAccepted() {
         if (state.isEmpty()) {
@@ -127,6 +338,48 @@ public class PaxosAcceptorImpl implements PaxosAcceptor {
         }
     }
 
+    /**
+     * Drops rounds that have fallen out of the in-memory window, and truncates the log once
+     * another retainedRounds rounds have been prepared or accepted since it was last truncated.
+     * Skipped if another request holds the lock; the next request will try again.
+     */
+    private void compactIfNeeded() {
+        long latestSeq = getLatestSequencePreparedOrAccepted();
+        Map.Entry<Long, PaxosAcceptorState> oldest = state.firstEntry();
+        boolean shouldEvict = oldest != null && oldest.getKey() < latestSeq - IN_MEMORY_ROUNDS;
+        boolean shouldTruncate = retainedRounds > 0
+                && latestSeq - lastTruncatedAt.get() >= retainedRounds
+                && latestSeq > retainedRounds;
+        if (!(shouldEvict || shouldTruncate) || !rangePromiseLock.writeLock().tryLock()) {
+            return;
+        }
+        try {
+            if (shouldTruncate) {
+                log.truncate(latestSeq - retainedRounds - 1);
+                lastTruncatedAt.set(latestSeq);
+                // Truncated rounds must be nacked from now on, as they would be after a restart.
+                state.headMap(log.getLeastLogEntry()).clear();
+            }
+            state.headMap(latestSeq - IN_MEMORY_ROUNDS).clear();
+        } finally {
+            rangePromiseLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the greatest proposal id this acceptor has promised for the given round, either for
+     *         the round itself or through a range promise, or null if it has made no promise
+     */
+    private PaxosProposalId getPromisedId(long seq, PaxosAcceptorState oldState) {
+        PaxosProposalId promisedId = oldState != null ? oldState.lastPromisedId : null;
+        PaxosRangePromise currentRangePromise = rangePromise;
+        if (currentRangePromise != null && currentRangePromise.covers(seq)
+                && (promisedId == null || currentRangePromise.promisedId.compareTo(promisedId) > 0)) {
+            promisedId = currentRangePromise.promisedId;
+        }
+        return promisedId;
+    }
+
     private void checkLogIfNeeded(long seq) throws TruncatedStateLogException, IOException {
         if (state.containsKey(seq)) {
             return;
@@ -145,4 +398,19 @@ public class PaxosAcceptorImpl implements PaxosAcceptor {
         }
     }
 
+    private static class LeaderLease {
+        final long seq;
+        final String leaderUUID;
+        final long expiryNanos;
+
+        LeaderLease(long seq, String leaderUUID, long expiryNanos) {
+            this.seq = seq;
+            this.leaderUUID = leaderUUID;
+            this.expiryNanos = expiryNanos;
+        }
+
+        boolean isValidAt(long nanos) {
+            return nanos - expiryNanos < 0;
+        }
+    }
 }
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of the latencies of requests to one paxos remote, in microseconds with
+ * power of two buckets. Requests that failed or were cancelled after quorum are only counted.
+ */
+public final class PaxosLatencyHistogram {
+    private static final int NUM_BUCKETS = 40;
+
+    // bucket i holds latencies in [2^(i-1), 2^i), and bucket 0 holds zero.
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong cancellations = new AtomicLong();
+
+    void record(long micros) {
+        int bucket = micros <= 0 ? 0 : Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+    }
+
+    void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    void recordCancellation() {
+        cancellations.incrementAndGet();
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return the number of requests abandoned because quorum was decided without them
+     */
+    public long getCancellationCount() {
+        return cancellations.get();
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given quantile, or 0 if nothing was recorded.
+     */
+    public long getQuantileMicros(double quantile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return getUpperBound(i);
+            }
+        }
+        return getUpperBound(NUM_BUCKETS - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "PaxosLatencyHistogram [count=" + getCount()
+                + ", p50Micros=" + getQuantileMicros(0.5)
+                + ", p99Micros=" + getQuantileMicros(0.99)
+                + ", failures=" + getFailureCount()
+                + ", cancellations=" + getCancellationCount() + "]";
+    }
+
+    private static long getUpperBound(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+}
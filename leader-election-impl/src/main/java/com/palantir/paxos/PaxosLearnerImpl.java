@@ -18,23 +18,51 @@ package com.palantir.paxos;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.SortedMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
 public class PaxosLearnerImpl implements PaxosLearner {
 
     private static final Logger logger = LoggerFactory.getLogger(PaxosLearnerImpl.class);
 
+    /**
+     * The number of rounds below the greatest learned value that are kept in memory; older rounds
+     * are read back from the log when asked for.
+     */
+    static final long IN_MEMORY_ROUNDS = 1024L;
+
+    /**
+     * The largest batch returned by {@link #getLearnedValuesBatch(long, int)}, whatever the caller
+     * asks for.
+     */
+    static final int MAX_BATCH_BYTES = 16 * 1024 * 1024;
+
     /**
      * @param logDir string path for directory to place durable logs
      * @param type the type of the objects to be learned by the learner
      * @return a new learner
      */
     public static PaxosLearner newLearner(String logDir) {
-        PaxosStateLogImpl<PaxosValue> log = new PaxosStateLogImpl<PaxosValue>(logDir);
+        return newLearner(logDir, 0L);
+    }
+
+    /**
+     * @param logDir string path for directory to place durable logs
+     * @param retainedRounds how many rounds below the greatest learned value to keep in the log,
+     *        or 0 to never truncate it. The log is truncated each time another retainedRounds
+     *        rounds have been learned, so it holds at most twice that many.
+     * @return a new learner
+     */
+    public static PaxosLearner newLearner(String logDir, long retainedRounds) {
+        PaxosStateLog<PaxosValue> log = new SegmentedPaxosStateLog<PaxosValue>(logDir);
         ConcurrentSkipListMap<Long, PaxosValue> state = new ConcurrentSkipListMap<Long, PaxosValue>();
 
         byte[] greatestValidValue = PaxosStateLogs.getGreatestValidLogEntry(log);
@@ -43,35 +71,66 @@ public class PaxosLearnerImpl implements PaxosLearner {
             state.put(value.getRound(), value);
         }
 
-        return new PaxosLearnerImpl(state, log);
+        return new PaxosLearnerImpl(state, log, retainedRounds);
     }
 
-    final SortedMap<Long, PaxosValue> state;
+    final ConcurrentSkipListMap<Long, PaxosValue> state;
     final PaxosStateLog<PaxosValue> log;
+    final long retainedRounds;
+    private final AtomicLong lastTruncatedAt = new AtomicLong(PaxosAcceptor.NO_LOG_ENTRY);
 
-    private PaxosLearnerImpl(SortedMap<Long, PaxosValue> stateWithGreatestValueFromLog,
-                             PaxosStateLog<PaxosValue> log) {
+    private PaxosLearnerImpl(ConcurrentSkipListMap<Long, PaxosValue> stateWithGreatestValueFromLog,
+                             PaxosStateLog<PaxosValue> log,
+                             long retainedRounds) {
+        Preconditions.checkArgument(retainedRounds >= 0, "retainedRounds must not be negative");
         this.state = stateWithGreatestValueFromLog;
         this.log = log;
+        this.retainedRounds = retainedRounds;
     }
 
     @Override
     public void learn(long seq, PaxosValue val) {
         state.put(seq, val);
         log.writeRound(seq, val);
+        compact();
+    }
+
+    /**
+     * Drops rounds that have fallen out of the in-memory window, and truncates the log once
+     * another retainedRounds rounds have been learned since it was last truncated.
+     */
+    private void compact() {
+        long greatestSeq = state.lastKey();
+        if (state.firstKey() < greatestSeq - IN_MEMORY_ROUNDS) {
+            state.headMap(greatestSeq - IN_MEMORY_ROUNDS).clear();
+        }
+        long truncatedAt = lastTruncatedAt.get();
+        if (retainedRounds > 0
+                && greatestSeq - truncatedAt >= retainedRounds
+                && greatestSeq > retainedRounds
+                && lastTruncatedAt.compareAndSet(truncatedAt, greatestSeq)) {
+            log.truncate(greatestSeq - retainedRounds - 1);
+        }
     }
 
     @Override
     public PaxosValue getLearnedValue(long seq) {
+        PaxosValue value = state.get(seq);
+        if (value != null) {
+            return value;
+        }
         try {
-            if (!state.containsKey(seq)) {
-                byte[] bytes = log.readRound(seq);
-                if (bytes != null) {
-                    PaxosValue value = PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(log.readRound(seq));
-                    state.put(seq, value);
-                }
+            byte[] bytes = log.readRound(seq);
+            if (bytes == null) {
+                return null;
             }
-            return state.get(seq);
+            value = PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(bytes);
+            // Only cache rounds inside the in-memory window; cold reads of old rounds go to the log.
+            Map.Entry<Long, PaxosValue> greatest = state.lastEntry();
+            if (greatest == null || seq >= greatest.getKey() - IN_MEMORY_ROUNDS) {
+                state.putIfAbsent(seq, value);
+            }
+            return value;
         } catch (IOException e) {
             logger.error("unable to get corrupt learned value", e);
             return null;
@@ -87,7 +146,8 @@ public class PaxosLearnerImpl implements PaxosLearner {
         }
 
         Collection<PaxosValue> values = new ArrayList<PaxosValue>();
-        for (long i = seq; i <= greatestSeq; i++) {
+        // Rounds below the least log entry have been truncated and can't be returned.
+        for (long i = Math.max(seq, log.getLeastLogEntry()); i <= greatestSeq; i++) {
             PaxosValue value;
             value = getLearnedValue(i);
             if (value != null) {
@@ -98,10 +158,34 @@ public class PaxosLearnerImpl implements PaxosLearner {
     }
 
     @Override
-    public PaxosValue getGreatestLearnedValue() {
-        if (!state.isEmpty()) {
-            return state.get(state.lastKey());
+    public byte[] getLearnedValuesBatch(long seq, int maxBytes) {
+        PaxosValue greatestLearnedValue = getGreatestLearnedValue();
+        if (greatestLearnedValue == null) {
+            return new byte[0];
         }
-        return null;
+        int byteLimit = maxBytes > 0 ? Math.min(maxBytes, MAX_BATCH_BYTES) : MAX_BATCH_BYTES;
+
+        List<byte[]> batch = Lists.newArrayList();
+        int batchBytes = 0;
+        for (long i = Math.max(seq, log.getLeastLogEntry()); i <= greatestLearnedValue.seq; i++) {
+            PaxosValue value = getLearnedValue(i);
+            if (value == null) {
+                continue;
+            }
+            byte[] persistedValue = value.persistToBytes();
+            int frameSize = PaxosValues.getFrameSize(persistedValue);
+            if (!batch.isEmpty() && batchBytes + frameSize > byteLimit) {
+                break;
+            }
+            batch.add(persistedValue);
+            batchBytes += frameSize;
+        }
+        return PaxosValues.toFrames(batch);
+    }
+
+    @Override
+    public PaxosValue getGreatestLearnedValue() {
+        Map.Entry<Long, PaxosValue> greatest = state.lastEntry();
+        return greatest != null ? greatest.getValue() : null;
     }
 }
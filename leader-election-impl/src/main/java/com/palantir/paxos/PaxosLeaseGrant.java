@@ -0,0 +1,71 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import java.nio.ByteBuffer;
+
+import com.google.common.base.Charsets;
+import com.palantir.common.annotation.Immutable;
+import com.palantir.common.persist.Persistable;
+
+/**
+ * The logged record that an acceptor has granted a leader lease on a round to a leader. Only the
+ * holder is logged, not when the lease expires, so after a restart the acceptor treats the last
+ * holder's lease as running for the longest lease it grants.
+ */
+@Immutable
+class PaxosLeaseGrant implements Persistable, Versionable {
+    final long seq;
+    final String leaderUUID;
+    final long version;
+
+    public static final Hydrator<PaxosLeaseGrant> BYTES_HYDRATOR = new Hydrator<PaxosLeaseGrant>() {
+        @Override
+        public PaxosLeaseGrant hydrateFromBytes(byte[] input) {
+            ByteBuffer buffer = ByteBuffer.wrap(input);
+            long seq = buffer.getLong();
+            long version = buffer.getLong();
+            String leaderUUID = new String(input, buffer.position(), buffer.remaining(), Charsets.UTF_8);
+            return new PaxosLeaseGrant(seq, leaderUUID, version);
+        }
+    };
+
+    PaxosLeaseGrant(long seq, String leaderUUID, long version) {
+        this.seq = seq;
+        this.leaderUUID = leaderUUID;
+        this.version = version;
+    }
+
+    @Override
+    public byte[] persistToBytes() {
+        byte[] leaderUUIDBytes = leaderUUID.getBytes(Charsets.UTF_8);
+        return ByteBuffer.allocate(16 + leaderUUIDBytes.length)
+                .putLong(seq)
+                .putLong(version)
+                .put(leaderUUIDBytes)
+                .array();
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "PaxosLeaseGrant [seq=" + seq + ", leaderUUID=" + leaderUUID + ", version=" + version + "]";
+    }
+}
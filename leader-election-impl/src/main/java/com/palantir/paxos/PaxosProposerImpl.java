@@ -22,6 +22,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,10 +30,16 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.palantir.leader.PingableLeader;
 
 /**
  * Implementation of a paxos proposer than can be a designated proposer (leader) and designated
  * learner (informer).
+ * <p>
+ * A proposer created with {@link #newMultiPaxosProposer} runs multi-paxos while its local leader
+ * reports that it is leading: it prepares once for every sequence number from the one it is
+ * proposing onwards and then only sends accept requests for increasing sequence numbers. Any
+ * failure drops back to running both phases of paxos for that round and re-preparing later.
  *
  * @author rullman
  */
@@ -50,9 +57,32 @@ public class PaxosProposerImpl implements PaxosProposer {
                 allLearners,
                 quorumSize,
                 UUID.randomUUID().toString(),
-                executor);
+                executor,
+                null);
+    }
+
+    /**
+     * @param localLeader the leader election service on this node; phase one is only skipped while
+     *        it reports that it is the leader, to avoid competing stable proposers
+     */
+    public static PaxosProposer newMultiPaxosProposer(PaxosLearner localLearner,
+                                                      ImmutableList<PaxosAcceptor> allAcceptors,
+                                                      ImmutableList<PaxosLearner> allLearners,
+                                                      int quorumSize,
+                                                      ExecutorService executor,
+                                                      PingableLeader localLeader) {
+        return new PaxosProposerImpl(
+                localLearner,
+                allAcceptors,
+                allLearners,
+                quorumSize,
+                UUID.randomUUID().toString(),
+                executor,
+                Preconditions.checkNotNull(localLeader));
     }
 
+    private static final long RANGE_PREPARE_RETRY_MILLIS = 1000L;
+
     final ImmutableList<PaxosAcceptor> allAcceptors;
     final ImmutableList<PaxosLearner> allLearners;
     final PaxosLearner localLearner;
@@ -61,13 +91,20 @@ public class PaxosProposerImpl implements PaxosProposer {
     final AtomicLong proposalNum;
 
     private final ExecutorService executor;
+    @Nullable private final PingableLeader localLeader;
+
+    // The proposal id a quorum has promised for every round from nextStableSeq onwards, if any.
+    @GuardedBy("this") private PaxosProposalId stableProposalId = null;
+    @GuardedBy("this") private long nextStableSeq = Long.MAX_VALUE;
+    @GuardedBy("this") private long lastRangePrepareMillis = 0L;
 
     private PaxosProposerImpl(PaxosLearner localLearner,
                               ImmutableList<PaxosAcceptor> acceptors,
                               ImmutableList<PaxosLearner> learners,
                               int quorumSize,
                               String uuid,
-                              ExecutorService executor) {
+                              ExecutorService executor,
+                              @Nullable PingableLeader localLeader) {
         Preconditions.checkState(
                 quorumSize > acceptors.size() / 2,
                 "quorum size needs to be at least the majority of acceptors");
@@ -78,18 +115,15 @@ public class PaxosProposerImpl implements PaxosProposer {
         this.uuid = uuid;
         this.proposalNum = new AtomicLong();
         this.executor = executor;
+        this.localLeader = localLeader;
     }
 
     @Override
     public byte[] propose(final long seq, @Nullable byte[] bytes) throws PaxosRoundFailureException {
-        final PaxosProposalId proposalID = new PaxosProposalId(proposalNum.incrementAndGet(), uuid);
         PaxosValue toPropose = new PaxosValue(uuid, seq, bytes);
-
-        // paxos phase one (prepare and promise)
-        final PaxosValue finalValue = phaseOne(seq, proposalID, toPropose);
-
-        // paxos phase two (accept request and accepted)
-        phaseTwo(seq, proposalID, finalValue);
+        final PaxosValue finalValue = proposeWithStableLeader(seq, toPropose)
+                ? toPropose
+                : proposeWithBothPhases(seq, toPropose);
 
         // broadcast learned value
         for (final PaxosLearner learner : allLearners) {
@@ -116,6 +150,99 @@ public class PaxosProposerImpl implements PaxosProposer {
         return finalValue.getData();
     }
 
+    private PaxosValue proposeWithBothPhases(long seq, PaxosValue toPropose) throws PaxosRoundFailureException {
+        final PaxosProposalId proposalID = new PaxosProposalId(proposalNum.incrementAndGet(), uuid);
+
+        // paxos phase one (prepare and promise)
+        PaxosValue finalValue = phaseOne(seq, proposalID, toPropose);
+
+        // paxos phase two (accept request and accepted)
+        phaseTwo(seq, proposalID, finalValue);
+        return finalValue;
+    }
+
+    /**
+     * Runs only phase two of paxos if a quorum has already promised us every round from seq
+     * onwards, preparing that range first if we are the leader and do not hold it.
+     *
+     * @return true if toPropose was accepted by a quorum, false if full paxos must be run instead
+     */
+    private boolean proposeWithStableLeader(long seq, PaxosValue toPropose) {
+        if (localLeader == null || !localLeader.ping()) {
+            return false;
+        }
+        PaxosProposalId stableId = claimStableSeq(seq);
+        if (stableId == null) {
+            return false;
+        }
+        try {
+            phaseTwo(seq, stableId, toPropose);
+            return true;
+        } catch (PaxosRoundFailureException e) {
+            log.info("Stable leader accept failed for sequence number " + seq + "; falling back to full paxos", e);
+            releaseStableRange(stableId);
+            return false;
+        }
+    }
+
+    /**
+     * Claims seq for an accept request under the stable proposal id. Every sequence number is
+     * claimed at most once, since sending two values for one round under the same proposal id
+     * could get both of them chosen.
+     */
+    private synchronized PaxosProposalId claimStableSeq(long seq) {
+        if (stableProposalId == null) {
+            long now = System.currentTimeMillis();
+            if (now - lastRangePrepareMillis < RANGE_PREPARE_RETRY_MILLIS) {
+                return null;
+            }
+            lastRangePrepareMillis = now;
+            PaxosProposalId rangeId = new PaxosProposalId(proposalNum.incrementAndGet(), uuid);
+            if (!prepareRange(seq, rangeId)) {
+                return null;
+            }
+            stableProposalId = rangeId;
+            nextStableSeq = seq;
+        }
+        if (seq < nextStableSeq) {
+            return null;
+        }
+        nextStableSeq = seq + 1;
+        return stableProposalId;
+    }
+
+    private synchronized void releaseStableRange(PaxosProposalId stableId) {
+        if (stableId.equals(stableProposalId)) {
+            stableProposalId = null;
+            nextStableSeq = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Executes phase one of paxos for every round from fromSeq onwards.
+     *
+     * @return true if a quorum promised pid for all of those rounds
+     */
+    private boolean prepareRange(final long fromSeq, final PaxosProposalId pid) {
+        List<PaxosPromise> receivedPromises = PaxosQuorumChecker.<PaxosAcceptor, PaxosPromise> collectQuorumResponses(
+                allAcceptors,
+                new Function<PaxosAcceptor, PaxosPromise>() {
+                    @Override
+                    @Nullable
+                    public PaxosPromise apply(@Nullable PaxosAcceptor acceptor) {
+                        return acceptor.prepareRange(fromSeq, pid);
+                    }
+                },
+                quorumSize,
+                executor,
+                PaxosQuorumChecker.DEFAULT_REMOTE_REQUESTS_TIMEOUT_IN_SECONDS);
+        if (!PaxosQuorumChecker.hasQuorum(receivedPromises, quorumSize)) {
+            updateProposalNumber(receivedPromises);
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Executes phase one of paxos (see
      * http://en.wikipedia.org/wiki/Paxos_(computer_science)#Basic_Paxos)
@@ -143,18 +270,7 @@ public class PaxosProposerImpl implements PaxosProposer {
                 PaxosQuorumChecker.DEFAULT_REMOTE_REQUESTS_TIMEOUT_IN_SECONDS);
 
         if (!PaxosQuorumChecker.hasQuorum(receivedPromises, quorumSize)) {
-            // update proposal number on failure
-            for (PaxosPromise promise : receivedPromises) {
-                while (true) {
-                    long curNum = proposalNum.get();
-                    if (promise.promisedId.number <= curNum) {
-                        break;
-                    }
-                    if (proposalNum.compareAndSet(curNum, promise.promisedId.number)) {
-                        break;
-                    }
-                }
-            }
+            updateProposalNumber(receivedPromises);
             throw new PaxosRoundFailureException("failed to acquire quorum in paxos phase one");
         }
 
@@ -195,6 +311,23 @@ public class PaxosProposerImpl implements PaxosProposer {
         }
     }
 
+    /**
+     * Raises our proposal number past any the acceptors have promised, so the next attempt can win.
+     */
+    private void updateProposalNumber(List<PaxosPromise> receivedPromises) {
+        for (PaxosPromise promise : receivedPromises) {
+            while (true) {
+                long curNum = proposalNum.get();
+                if (promise.promisedId.number <= curNum) {
+                    break;
+                }
+                if (proposalNum.compareAndSet(curNum, promise.promisedId.number)) {
+                    break;
+                }
+            }
+        }
+    }
+
     @Override
     public int getQuorumSize() {
         return quorumSize;
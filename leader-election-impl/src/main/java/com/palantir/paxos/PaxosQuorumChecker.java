@@ -15,15 +15,17 @@
  */
 package com.palantir.paxos;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CompletionService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.concurrent.GuardedBy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +34,14 @@ import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.common.base.Throwables;
 import com.palantir.util.Pair;
 
 public final class PaxosQuorumChecker {
@@ -39,6 +49,10 @@ public final class PaxosQuorumChecker {
     public static final int DEFAULT_REMOTE_REQUESTS_TIMEOUT_IN_SECONDS = 5;
     private static final Logger log = LoggerFactory.getLogger(PaxosQuorumChecker.class);
 
+    // Remotes are often proxies that forward equals, hashCode and toString, so key them by identity.
+    private static final ConcurrentMap<Object, PaxosLatencyHistogram> remoteLatencies =
+            new MapMaker().weakKeys().makeMap();
+
     private PaxosQuorumChecker() {
         // Private constructor. Disallow instantiation.
     }
@@ -66,101 +80,200 @@ public final class PaxosQuorumChecker {
                                                                                                   Executor executor,
                                                                                                   long remoteRequestTimeoutInSec,
                                                                                                   boolean onlyLogOnQuorumFailure) {
-        CompletionService<RESPONSE> responseCompletionService = new ExecutorCompletionService<RESPONSE>(executor);
-
-        // kick off all the requests
-        List<Future<RESPONSE>> allFutures = Lists.newArrayList();
-        for (final SERVICE remote : remotes) {
-            allFutures.add(responseCompletionService.submit(new Callable<RESPONSE>() {
-                @Override
-                public RESPONSE call() throws Exception {
-                    return request.apply(remote);
-                }
-            }));
+        QuorumCollector<SERVICE, RESPONSE> collector =
+                new QuorumCollector<SERVICE, RESPONSE>(remotes, request, quorumSize, onlyLogOnQuorumFailure);
+        ListenableFuture<List<RESPONSE>> responses = collector.start(executor);
+        try {
+            return responses.get(remoteRequestTimeoutInSec, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // out of time (no quorum failure)
+            return collector.finish();
+        } catch (InterruptedException e) {
+            log.warn("paxos request interrupted", e);
+            Thread.currentThread().interrupt();
+            return collector.finish();
+        } catch (ExecutionException e) {
+            throw Throwables.rewrapAndThrowUncheckedException(e.getCause());
         }
+    }
 
-        List<Pair<String, Throwable>> toLog = Lists.newArrayList();
-        boolean interrupted = false;
-        List<RESPONSE> receivedResponses = new ArrayList<RESPONSE>();
-        int acksRecieved = 0;
-        int nacksRecieved = 0;
+    /**
+     * Collects responses from remote services without blocking. The returned future completes as
+     * soon as a quorum of acknowledgements has been received, a quorum has become impossible, or
+     * every remote has answered, with every response received by then. Requests that have not yet
+     * started are cancelled at that point. It is up to the caller to bound how long it waits.
+     *
+     * @param remotes a list endpoints to make the remote call on
+     * @param request the request to make on each of the remote endpoints
+     * @param quorumSize number of acknowledge requests required to reach quorum
+     * @param executor runs the requests
+     * @return a future of the list of responses
+     */
+    public static <SERVICE, RESPONSE extends PaxosResponse> ListenableFuture<List<RESPONSE>> collectQuorumResponsesAsync(ImmutableList<SERVICE> remotes,
+                                                                                                                         Function<SERVICE, RESPONSE> request,
+                                                                                                                         int quorumSize,
+                                                                                                                         Executor executor) {
+        return new QuorumCollector<SERVICE, RESPONSE>(remotes, request, quorumSize, false).start(executor);
+    }
 
-        try {
-            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(remoteRequestTimeoutInSec);
-            // handle responses
-            while (acksRecieved < quorumSize) {
-                try {
-                    // check if quorum is impossible (nack quorum failure)
-                    if (nacksRecieved > remotes.size() - quorumSize) {
-                        break;
-                    }
+    /**
+     * @return the latency histogram of requests made to the given remote service
+     */
+    public static PaxosLatencyHistogram getLatencyHistogram(Object remote) {
+        PaxosLatencyHistogram histogram = remoteLatencies.get(remote);
+        if (histogram == null) {
+            remoteLatencies.putIfAbsent(remote, new PaxosLatencyHistogram());
+            histogram = remoteLatencies.get(remote);
+        }
+        return histogram;
+    }
 
-                    Future<RESPONSE> responseFuture = responseCompletionService.poll(
-                            deadline - System.nanoTime(),
-                            TimeUnit.NANOSECONDS);
-                    // check if out of responses (no quorum failure)
-                    if (responseFuture == null) {
-                        return receivedResponses;
-                    }
+    private static final class QuorumCollector<SERVICE, RESPONSE extends PaxosResponse> {
+        private final ImmutableList<SERVICE> remotes;
+        private final Function<SERVICE, RESPONSE> request;
+        private final int quorumSize;
+        private final boolean onlyLogOnQuorumFailure;
+        private final SettableFuture<List<RESPONSE>> result = SettableFuture.create();
+        private final List<ListenableFutureTask<RESPONSE>> allFutures = Lists.newArrayList();
+
+        @GuardedBy("this") private final List<RESPONSE> receivedResponses = Lists.newArrayList();
+        @GuardedBy("this") private final List<Pair<String, Throwable>> toLog = Lists.newArrayList();
+        @GuardedBy("this") private int acksRecieved = 0;
+        @GuardedBy("this") private int nacksRecieved = 0;
+        @GuardedBy("this") private int failuresRecieved = 0;
 
-                    // reject invalid or repeat promises
-                    RESPONSE response = responseFuture.get();
-                    if (response.isSuccessful()) {
-                        acksRecieved++;
-                    } else {
-                        nacksRecieved++;
+        QuorumCollector(ImmutableList<SERVICE> remotes,
+                        Function<SERVICE, RESPONSE> request,
+                        int quorumSize,
+                        boolean onlyLogOnQuorumFailure) {
+            this.remotes = remotes;
+            this.request = request;
+            this.quorumSize = quorumSize;
+            this.onlyLogOnQuorumFailure = onlyLogOnQuorumFailure;
+        }
+
+        ListenableFuture<List<RESPONSE>> start(Executor executor) {
+            for (final SERVICE remote : remotes) {
+                final PaxosLatencyHistogram latencies = getLatencyHistogram(remote);
+                ListenableFutureTask<RESPONSE> future = ListenableFutureTask.create(new Callable<RESPONSE>() {
+                    @Override
+                    public RESPONSE call() throws Exception {
+                        long startNanos = System.nanoTime();
+                        RESPONSE response = request.apply(remote);
+                        latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+                        return response;
+                    }
+                });
+                Futures.addCallback(future, new FutureCallback<RESPONSE>() {
+                    @Override
+                    public void onSuccess(RESPONSE response) {
+                        recordResponse(response);
                     }
 
-                    // record response
-                    receivedResponses.add(response);
-                } catch (InterruptedException e) {
-                    log.warn("paxos request interrupted", e);
-                    interrupted = true;
-                    break;
-                } catch (ExecutionException e) {
-                    nacksRecieved++;
-                    String msg = "error requesting paxos message";
-                    if (onlyLogOnQuorumFailure) {
-                        toLog.add(Pair.create(msg, e.getCause()));
-                    } else {
-                        log.warn(msg, e.getCause());
+                    @Override
+                    public void onFailure(Throwable t) {
+                        if (t instanceof CancellationException) {
+                            latencies.recordCancellation();
+                        } else {
+                            latencies.recordFailure();
+                            recordFailure(t);
+                        }
                     }
-                }
+                }, MoreExecutors.directExecutor());
+                allFutures.add(future);
             }
 
-            // poll for extra completed futures
-            Future<RESPONSE> future;
-            while ((future = responseCompletionService.poll()) != null) {
+            // kick off all the requests
+            for (ListenableFutureTask<RESPONSE> future : allFutures) {
                 try {
-                    receivedResponses.add(future.get());
-                } catch (InterruptedException e) {
-                    log.warn("paxos request interrupted", e);
-                    interrupted = true;
-                    break;
-                } catch (ExecutionException e) {
-                    log.warn("error requesting paxos message", e.getCause());
+                    executor.execute(future);
+                } catch (RejectedExecutionException e) {
+                    recordFailure(e);
                 }
             }
-
-        } finally {
-            // cancel pending futures (during failures)
-            for (Future<RESPONSE> future : allFutures) {
-                future.cancel(false);
+            if (remotes.isEmpty()) {
+                finish();
             }
+            return result;
+        }
+
+        private void recordResponse(RESPONSE response) {
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                // reject invalid or repeat promises
+                if (response.isSuccessful()) {
+                    acksRecieved++;
+                } else {
+                    nacksRecieved++;
+                }
 
-            // reset interrupted flag
-            if (interrupted) {
-                Thread.currentThread().interrupt();
+                // record response
+                receivedResponses.add(response);
             }
+            finishIfDecided();
+        }
 
-            if (onlyLogOnQuorumFailure && acksRecieved < quorumSize) {
-                for (Pair<String, Throwable> p : toLog) {
-                    log.warn(p.lhSide, p.rhSide);
+        private void recordFailure(Throwable t) {
+            String msg = "error requesting paxos message";
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                nacksRecieved++;
+                failuresRecieved++;
+                if (onlyLogOnQuorumFailure) {
+                    toLog.add(Pair.create(msg, t));
+                    t = null;
                 }
             }
+            if (t != null) {
+                log.warn(msg, t);
+            }
+            finishIfDecided();
         }
 
-        return receivedResponses;
+        private void finishIfDecided() {
+            boolean decided;
+            synchronized (this) {
+                // check if quorum is reached, quorum is impossible (nack quorum failure), or out of responses
+                decided = acksRecieved >= quorumSize
+                        || nacksRecieved > remotes.size() - quorumSize
+                        || receivedResponses.size() + failuresRecieved == remotes.size();
+            }
+            if (decided) {
+                finish();
+            }
+        }
+
+        /**
+         * Completes the result with the responses received so far, if it is not already complete,
+         * and cancels any requests that have not started.
+         *
+         * @return the responses the result was completed with
+         */
+        List<RESPONSE> finish() {
+            List<Pair<String, Throwable>> failuresToLog = ImmutableList.of();
+            synchronized (this) {
+                if (!result.isDone()) {
+                    result.set(ImmutableList.copyOf(receivedResponses));
+                    if (onlyLogOnQuorumFailure && acksRecieved < quorumSize) {
+                        failuresToLog = ImmutableList.copyOf(toLog);
+                    }
+                }
+            }
+            for (Pair<String, Throwable> p : failuresToLog) {
+                log.warn(p.lhSide, p.rhSide);
+            }
+
+            // Requests already running are left to finish rather than interrupted, since an
+            // interrupt could close a local acceptor's or learner's log file in the middle of a write.
+            for (ListenableFutureTask<RESPONSE> future : allFutures) {
+                future.cancel(false);
+            }
+            return Futures.getUnchecked(result);
+        }
     }
 
     public static boolean hasQuorum(List<? extends PaxosResponse> responses, int quorumSize) {
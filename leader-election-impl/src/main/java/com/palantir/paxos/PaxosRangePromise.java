@@ -0,0 +1,90 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import java.nio.ByteBuffer;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.palantir.common.annotation.Immutable;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.persist.Persistable;
+import com.palantir.paxos.persistence.generated.PaxosPersistence;
+
+/**
+ * The logged promise an acceptor has made not to accept proposals less than promisedId for any
+ * round with sequence number at least fromSeq.
+ */
+@Immutable
+class PaxosRangePromise implements Persistable, Versionable {
+    final long fromSeq;
+    final PaxosProposalId promisedId;
+    final long version;
+
+    public static final Hydrator<PaxosRangePromise> BYTES_HYDRATOR = new Hydrator<PaxosRangePromise>() {
+        @Override
+        public PaxosRangePromise hydrateFromBytes(byte[] input) {
+            ByteBuffer buffer = ByteBuffer.wrap(input);
+            long fromSeq = buffer.getLong();
+            long version = buffer.getLong();
+            try {
+                PaxosPersistence.PaxosProposalId message = PaxosPersistence.PaxosProposalId.newBuilder()
+                        .mergeFrom(input, buffer.position(), buffer.remaining())
+                        .build();
+                return new PaxosRangePromise(fromSeq, PaxosProposalId.hydrateFromProto(message), version);
+            } catch (InvalidProtocolBufferException e) {
+                throw Throwables.throwUncheckedException(e);
+            }
+        }
+    };
+
+    PaxosRangePromise(long fromSeq, PaxosProposalId promisedId, long version) {
+        this.fromSeq = fromSeq;
+        this.promisedId = promisedId;
+        this.version = version;
+    }
+
+    /**
+     * Returns a promise for promisedId that still covers every round this promise covered, since
+     * narrowing the range would let a proposal we already promised to reject be accepted.
+     */
+    public PaxosRangePromise withPromise(long newFromSeq, PaxosProposalId newPromisedId) {
+        return new PaxosRangePromise(Math.min(fromSeq, newFromSeq), newPromisedId, version + 1);
+    }
+
+    public boolean covers(long seq) {
+        return seq >= fromSeq;
+    }
+
+    @Override
+    public byte[] persistToBytes() {
+        byte[] promisedIdBytes = promisedId.persistToProto().toByteArray();
+        return ByteBuffer.allocate(16 + promisedIdBytes.length)
+                .putLong(fromSeq)
+                .putLong(version)
+                .put(promisedIdBytes)
+                .array();
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "PaxosRangePromise [fromSeq=" + fromSeq + ", promisedId=" + promisedId + ", version=" + version + "]";
+    }
+}
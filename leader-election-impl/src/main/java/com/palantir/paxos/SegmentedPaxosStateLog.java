@@ -0,0 +1,778 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Longs;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.persist.Persistable;
+
+/**
+ * A {@link PaxosStateLog} that appends every round to a sequence of segment files instead of
+ * writing one file per round.
+ * <p>
+ * Each record is [length][crc32][seq][version][payload], where length covers everything after the
+ * crc. A segment is rolled once the next record would take it past maxSegmentSizeBytes. The
+ * location of the latest record for every live seq is kept in memory and rebuilt by scanning the
+ * segments when the log is opened; a torn record at the tail of the last segment is cut off.
+ * <p>
+ * Concurrent writers share fsyncs: a writer that finds another sync in progress waits for it and
+ * then only syncs again if its own record was appended after that sync started.
+ * <p>
+ * Truncation is recorded in a small separate file so that truncated rounds are never replayed, and
+ * a segment file is deleted once none of its records are live.
+ * <p>
+ * Whenever a segment is rolled, the log is truncated or the log is closed, the in-memory index is
+ * written to a snapshot file together with the position in the segments that it covers. Opening
+ * the log loads the snapshot and only scans the records written after that position, so restarts
+ * do not have to read every live record. A snapshot that does not match the segments is ignored. A directory written by
+ * {@link PaxosStateLogImpl} is migrated into segments the first time it is opened.
+ */
+public class SegmentedPaxosStateLog<V extends Persistable & Versionable> implements PaxosStateLog<V> {
+    private static final Logger log = LoggerFactory.getLogger(SegmentedPaxosStateLog.class);
+
+    public static final long DEFAULT_MAX_SEGMENT_SIZE_BYTES = 64L * 1024 * 1024;
+
+    private static final String SEGMENT_DIR = "segments";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String TRUNCATION_FILE = "truncated";
+    private static final String SNAPSHOT_FILE = "index.snapshot";
+    private static final int SNAPSHOT_FORMAT_VERSION = 1;
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private static final long NOT_TRUNCATED = Long.MIN_VALUE;
+    private static final long UNKNOWN_VERSION = Long.MIN_VALUE;
+    private static final int LENGTH_AND_CRC_SIZE = 8;
+    private static final int SEQ_AND_VERSION_SIZE = 16;
+
+    private final File dir;
+    private final File segmentDir;
+    private final long maxSegmentSizeBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    @GuardedBy("lock") private final TreeMap<Long, RecordLocation> index = Maps.newTreeMap();
+    @GuardedBy("lock") private final Map<Long, Long> seqToVersionMap = Maps.newHashMap();
+    @GuardedBy("lock") private final TreeMap<Long, Segment> segments = Maps.newTreeMap();
+    @GuardedBy("lock") private Segment currentSegment;
+    @GuardedBy("lock") private long truncatedThrough = NOT_TRUNCATED;
+    @GuardedBy("lock") private long appendCount = 0L;
+
+    private final Object syncLock = new Object();
+    @GuardedBy("syncLock") private long syncedCount = 0L;
+
+    public SegmentedPaxosStateLog(String path) {
+        this(path, DEFAULT_MAX_SEGMENT_SIZE_BYTES);
+    }
+
+    public SegmentedPaxosStateLog(String path, long maxSegmentSizeBytes) {
+        Preconditions.checkArgument(maxSegmentSizeBytes > 0, "maxSegmentSizeBytes must be positive");
+        this.dir = new File(path);
+        this.segmentDir = new File(dir, SEGMENT_DIR);
+        this.maxSegmentSizeBytes = maxSegmentSizeBytes;
+        lock.lock();
+        try {
+            FileUtils.forceMkdir(segmentDir);
+            truncatedThrough = readTruncation();
+            replaySegments();
+            migrateLegacyLog();
+        } catch (IOException e) {
+            throw new RuntimeException("IO problem related to the path " + dir.getAbsolutePath(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeRound(long seq, V round) {
+        long appendNumber;
+        lock.lock();
+        try {
+            // reject old state
+            Long latestVersion = seqToVersionMap.get(seq);
+            if (latestVersion != null && round.getVersion() < latestVersion) {
+                return;
+            }
+            append(seq, round.getVersion(), round.persistToBytes());
+            appendNumber = appendCount;
+        } catch (IOException e) {
+            reopenClosedSegments();
+            log.error("problem writing paxos state", e);
+            throw Throwables.throwUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+        sync(appendNumber);
+    }
+
+    @Override
+    public byte[] readRound(long seq) throws IOException {
+        lock.lock();
+        try {
+            RecordLocation location = index.get(seq);
+            if (location == null) {
+                return null;
+            }
+            Segment segment = segments.get(location.segmentId);
+            ByteBuffer record = ByteBuffer.allocate(location.length);
+            try {
+                readFully(segment.channel, record, location.offset);
+            } catch (ClosedByInterruptException e) {
+                reopenClosedSegments();
+                throw e;
+            }
+            record.flip();
+            int bodyLength = record.getInt();
+            int checksum = record.getInt();
+            if (bodyLength != location.length - LENGTH_AND_CRC_SIZE || checksum != checksum(record)) {
+                throw new CorruptLogFileException();
+            }
+            record.position(LENGTH_AND_CRC_SIZE + SEQ_AND_VERSION_SIZE);
+            byte[] bytes = new byte[record.remaining()];
+            record.get(bytes);
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getLeastLogEntry() {
+        lock.lock();
+        try {
+            // Until the first truncation the log behaves as if it had an entry at NO_LOG_ENTRY,
+            // so that we can never skip over seq 0 after a restart.
+            if (truncatedThrough == NOT_TRUNCATED || index.isEmpty()) {
+                return PaxosAcceptor.NO_LOG_ENTRY;
+            }
+            return index.firstKey();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getGreatestLogEntry() {
+        lock.lock();
+        try {
+            return index.isEmpty() ? PaxosAcceptor.NO_LOG_ENTRY : index.lastKey();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void truncate(long toDeleteInclusive) {
+        lock.lock();
+        try {
+            long greatestLogEntry = getGreatestLogEntry();
+            if (greatestLogEntry >= 0) {
+                // We never want to remove our most recent entry
+                toDeleteInclusive = Math.min(greatestLogEntry - 1, toDeleteInclusive);
+            }
+            if (toDeleteInclusive <= truncatedThrough) {
+                return;
+            }
+            // Persist the truncation point before forgetting anything, so that a crash can never
+            // resurrect a round that has already been dropped from memory.
+            writeTruncation(toDeleteInclusive);
+            truncatedThrough = toDeleteInclusive;
+            Iterator<Map.Entry<Long, RecordLocation>> it =
+                    index.headMap(toDeleteInclusive, true).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, RecordLocation> entry = it.next();
+                it.remove();
+                seqToVersionMap.remove(entry.getKey());
+                release(entry.getValue());
+            }
+            writeSnapshot();
+        } catch (IOException e) {
+            reopenClosedSegments();
+            log.error("problem truncating paxos state", e);
+            throw Throwables.throwUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Snapshots the index and closes all segment files. The log must not be used afterwards.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                log.warn("unable to snapshot the paxos log index in {}", dir.getAbsolutePath(), e);
+            }
+            for (Segment segment : segments.values()) {
+                IOUtils.closeQuietly(segment.channel);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sync(long appendNumber) {
+        synchronized (syncLock) {
+            if (syncedCount >= appendNumber) {
+                // Another writer's fsync already covered our record.
+                return;
+            }
+            Segment segment;
+            long syncingThrough;
+            lock.lock();
+            try {
+                // Segments are forced when they are rolled, so only the current one can be dirty.
+                segment = currentSegment;
+                syncingThrough = appendCount;
+            } finally {
+                lock.unlock();
+            }
+            while (true) {
+                try {
+                    segment.channel.force(false);
+                    break;
+                } catch (ClosedByInterruptException e) {
+                    // Interrupting us closed the channel before our records were forced, so they
+                    // must not be counted as durable. Reopen it so that other writers can carry on.
+                    reopenClosedSegmentsWithLock();
+                    log.error("interrupted while syncing paxos state", e);
+                    throw Throwables.throwUncheckedException(e);
+                } catch (ClosedChannelException e) {
+                    if (isRetired(segment)) {
+                        // The segment was rolled (and so forced) and maybe deleted since we looked at it.
+                        break;
+                    }
+                    // Another thread was interrupted while using the channel. Our records are
+                    // still in the file, so force it again through a new channel.
+                    reopenClosedSegmentsWithLock();
+                    if (!segment.channel.isOpen()) {
+                        log.error("problem syncing paxos state", e);
+                        throw Throwables.throwUncheckedException(e);
+                    }
+                } catch (IOException e) {
+                    log.error("problem syncing paxos state", e);
+                    throw Throwables.throwUncheckedException(e);
+                }
+            }
+            syncedCount = syncingThrough;
+        }
+    }
+
+    private boolean isRetired(Segment segment) {
+        lock.lock();
+        try {
+            return segment != currentSegment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reopenClosedSegmentsWithLock() {
+        lock.lock();
+        try {
+            reopenClosedSegments();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A thread that is interrupted while it uses a FileChannel closes that channel for everyone.
+     * Reopens any live segment this happened to, so that one interrupted caller fails alone.
+     */
+    @GuardedBy("lock")
+    private void reopenClosedSegments() {
+        for (Segment segment : segments.values()) {
+            if (!segment.channel.isOpen()) {
+                try {
+                    segment.channel = openChannel(segment.file);
+                } catch (IOException e) {
+                    log.error("unable to reopen paxos log segment {}", segment.file.getAbsolutePath(), e);
+                }
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private void append(long seq, long version, byte[] bytes) throws IOException {
+        int recordLength = LENGTH_AND_CRC_SIZE + SEQ_AND_VERSION_SIZE + bytes.length;
+        if (currentSegment.size > 0 && currentSegment.size + recordLength > maxSegmentSizeBytes) {
+            rollSegment();
+        }
+        ByteBuffer record = ByteBuffer.allocate(recordLength);
+        record.putInt(recordLength - LENGTH_AND_CRC_SIZE);
+        record.putInt(0);
+        record.putLong(seq);
+        record.putLong(version);
+        record.put(bytes);
+        record.position(LENGTH_AND_CRC_SIZE);
+        int checksum = checksum(record);
+        record.putInt(4, checksum);
+        record.position(0);
+
+        long offset = currentSegment.size;
+        while (record.hasRemaining()) {
+            currentSegment.channel.write(record, offset + record.position());
+        }
+        currentSegment.size += recordLength;
+        appendCount++;
+        index(seq, version, new RecordLocation(currentSegment.id, offset, recordLength));
+    }
+
+    @GuardedBy("lock")
+    private void index(long seq, long version, RecordLocation location) {
+        RecordLocation previous = index.put(seq, location);
+        seqToVersionMap.put(seq, version);
+        segments.get(location.segmentId).liveRecords++;
+        if (previous != null) {
+            release(previous);
+        }
+    }
+
+    @GuardedBy("lock")
+    private void release(RecordLocation location) {
+        Segment segment = segments.get(location.segmentId);
+        segment.liveRecords--;
+        if (segment.liveRecords == 0 && segment != currentSegment) {
+            deleteSegment(segment);
+        }
+    }
+
+    @GuardedBy("lock")
+    private void rollSegment() throws IOException {
+        currentSegment.channel.force(false);
+        currentSegment = openSegment(currentSegment.id + 1);
+        segments.put(currentSegment.id, currentSegment);
+        // Every record in the segment we just rolled may already have been superseded.
+        Segment previous = segments.lowerEntry(currentSegment.id).getValue();
+        if (previous.liveRecords == 0) {
+            deleteSegment(previous);
+        }
+        writeSnapshot();
+    }
+
+    @GuardedBy("lock")
+    private void deleteSegment(Segment segment) {
+        segments.remove(segment.id);
+        IOUtils.closeQuietly(segment.channel);
+        if (!segment.file.delete()) {
+            log.warn("failed to delete paxos log segment {}", segment.file.getAbsolutePath());
+        }
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        File file = new File(segmentDir, id + SEGMENT_SUFFIX);
+        FileChannel channel = openChannel(file);
+        return new Segment(id, file, channel, channel.size());
+    }
+
+    private static FileChannel openChannel(File file) throws IOException {
+        return FileChannel.open(
+                file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    @GuardedBy("lock")
+    private void replaySegments() throws IOException {
+        List<Long> ids = Lists.newArrayList();
+        File[] files = segmentDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    Long id = Longs.tryParse(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    if (id != null) {
+                        ids.add(id);
+                    }
+                }
+            }
+        }
+        Collections.sort(ids);
+        for (long id : ids) {
+            Segment segment = openSegment(id);
+            segments.put(segment.id, segment);
+        }
+
+        Snapshot snapshot = readSnapshot();
+        if (snapshot != null && !loadSnapshot(snapshot)) {
+            log.warn("ignoring a paxos log index snapshot that does not match the segments in {}",
+                    dir.getAbsolutePath());
+            index.clear();
+            seqToVersionMap.clear();
+            for (Segment segment : segments.values()) {
+                segment.liveRecords = 0;
+            }
+            snapshot = null;
+        }
+        for (Segment segment : segments.values()) {
+            boolean isLastSegment = segment.id == segments.lastKey();
+            if (snapshot == null || segment.id > snapshot.segmentId) {
+                replaySegment(segment, 0L, isLastSegment);
+            } else if (segment.id == snapshot.segmentId) {
+                replaySegment(segment, snapshot.offset, isLastSegment);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            // Never reuse a segment id that an old snapshot may still describe.
+            currentSegment = openSegment(snapshot == null ? 0L : snapshot.segmentId + 1);
+            segments.put(currentSegment.id, currentSegment);
+        } else {
+            currentSegment = segments.lastEntry().getValue();
+        }
+        for (Segment segment : Lists.newArrayList(segments.values())) {
+            if (segment.liveRecords == 0 && segment != currentSegment) {
+                deleteSegment(segment);
+            }
+        }
+    }
+
+    /**
+     * Indexes the records described by the snapshot. Records in segments that have since been
+     * deleted were superseded or truncated after the snapshot was taken, so they are skipped.
+     *
+     * @return false if the segments are shorter than the snapshot says they should be
+     */
+    @GuardedBy("lock")
+    private boolean loadSnapshot(Snapshot snapshot) {
+        Segment coveredSegment = segments.get(snapshot.segmentId);
+        if (coveredSegment != null && coveredSegment.size < snapshot.offset) {
+            return false;
+        }
+        for (Map.Entry<Long, RecordLocation> entry : snapshot.index.entrySet()) {
+            long seq = entry.getKey();
+            RecordLocation location = entry.getValue();
+            Segment segment = segments.get(location.segmentId);
+            if (seq <= truncatedThrough || segment == null) {
+                continue;
+            }
+            if (location.offset + location.length > segment.size) {
+                return false;
+            }
+            index(seq, snapshot.seqToVersion.get(seq), location);
+        }
+        return true;
+    }
+
+    @GuardedBy("lock")
+    private void replaySegment(Segment segment, long startOffset, boolean isLastSegment) throws IOException {
+        long offset = startOffset;
+        ByteBuffer header = ByteBuffer.allocate(LENGTH_AND_CRC_SIZE);
+        while (offset < segment.size) {
+            header.clear();
+            if (!tryReadFully(segment.channel, header, offset)) {
+                break;
+            }
+            header.flip();
+            int bodyLength = header.getInt();
+            int checksum = header.getInt();
+            if (bodyLength < SEQ_AND_VERSION_SIZE || offset + LENGTH_AND_CRC_SIZE + bodyLength > segment.size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(bodyLength);
+            readFully(segment.channel, body, offset + LENGTH_AND_CRC_SIZE);
+            body.flip();
+            if (checksum != checksum(body)) {
+                break;
+            }
+            long seq = body.getLong();
+            long version = body.getLong();
+            if (seq > truncatedThrough) {
+                index(seq, version, new RecordLocation(segment.id, offset, LENGTH_AND_CRC_SIZE + bodyLength));
+            }
+            offset += LENGTH_AND_CRC_SIZE + bodyLength;
+        }
+        if (offset < segment.size) {
+            if (isLastSegment) {
+                // A write that was torn by a crash was never acknowledged, so it is safe to drop.
+                log.warn("discarding {} bytes of incomplete paxos log records at the end of {}",
+                        segment.size - offset, segment.file.getAbsolutePath());
+                segment.channel.truncate(offset);
+                segment.channel.force(true);
+                segment.size = offset;
+            } else {
+                log.error("paxos log segment {} is corrupt after offset {}; ignoring the rest of it",
+                        segment.file.getAbsolutePath(), offset);
+            }
+        }
+    }
+
+    /**
+     * Imports rounds written by {@link PaxosStateLogImpl} (one file per seq, named by the seq) and
+     * then deletes those files. If we crash part way through, the next open imports them again,
+     * which just rewrites the same rounds.
+     */
+    @GuardedBy("lock")
+    private void migrateLegacyLog() throws IOException {
+        List<Long> legacySeqs = Lists.newArrayList();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Long seq = Longs.tryParse(file.getName());
+                if (seq != null && file.isFile()) {
+                    legacySeqs.add(seq);
+                }
+            }
+        }
+        if (legacySeqs.isEmpty()) {
+            return;
+        }
+        Collections.sort(legacySeqs);
+        PaxosStateLogImpl<V> legacyLog = new PaxosStateLogImpl<V>(dir.getPath());
+        long leastMigrated = Long.MAX_VALUE;
+        for (long seq : legacySeqs) {
+            if (seq <= truncatedThrough || seq == PaxosAcceptor.NO_LOG_ENTRY) {
+                continue;
+            }
+            byte[] bytes;
+            try {
+                bytes = legacyLog.readRound(seq);
+            } catch (IOException e) {
+                log.warn("skipping unreadable legacy paxos log entry {} in {}", seq, dir.getAbsolutePath());
+                continue;
+            } catch (RuntimeException e) {
+                log.warn("skipping unreadable legacy paxos log entry {} in {}", seq, dir.getAbsolutePath());
+                continue;
+            }
+            if (bytes != null) {
+                append(seq, UNKNOWN_VERSION, bytes);
+                leastMigrated = Math.min(leastMigrated, seq);
+            }
+        }
+        currentSegment.channel.force(false);
+        syncDirectory(segmentDir);
+
+        // The legacy log marks a log that has never been truncated with an empty NO_LOG_ENTRY file.
+        boolean wasTruncated = !legacySeqs.contains(PaxosAcceptor.NO_LOG_ENTRY);
+        if (wasTruncated && leastMigrated != Long.MAX_VALUE && leastMigrated - 1 > truncatedThrough) {
+            writeTruncation(leastMigrated - 1);
+            truncatedThrough = leastMigrated - 1;
+        }
+
+        for (long seq : legacySeqs) {
+            File file = new File(dir, Long.toString(seq));
+            if (!file.delete()) {
+                log.warn("failed to delete legacy paxos log file {}", file.getAbsolutePath());
+            }
+            FileUtils.deleteQuietly(new File(dir, Long.toString(seq) + TMP_FILE_SUFFIX));
+        }
+        log.info("migrated {} legacy paxos log files in {}", legacySeqs.size(), dir.getAbsolutePath());
+    }
+
+    private long readTruncation() throws IOException {
+        File file = new File(dir, TRUNCATION_FILE);
+        if (!file.exists()) {
+            return NOT_TRUNCATED;
+        }
+        return Long.parseLong(FileUtils.readFileToString(file).trim());
+    }
+
+    private void writeTruncation(long toDeleteInclusive) throws IOException {
+        writeAtomically(TRUNCATION_FILE, ByteBuffer.wrap(Long.toString(toDeleteInclusive).getBytes("UTF-8")));
+    }
+
+    /**
+     * Writes [format version][covered segment id][covered offset][record count], then
+     * [seq][version][segment id][offset][length] for each record, then a crc32 of all of it.
+     * Every record the snapshot points at must already be durable, so the current segment is
+     * forced first.
+     */
+    @GuardedBy("lock")
+    private void writeSnapshot() throws IOException {
+        currentSegment.channel.force(false);
+        int recordSize = 4 * Longs.BYTES + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 2 * Longs.BYTES + 4 + index.size() * recordSize + 4);
+        buffer.putInt(SNAPSHOT_FORMAT_VERSION);
+        buffer.putLong(currentSegment.id);
+        buffer.putLong(currentSegment.size);
+        buffer.putInt(index.size());
+        for (Map.Entry<Long, RecordLocation> entry : index.entrySet()) {
+            RecordLocation location = entry.getValue();
+            buffer.putLong(entry.getKey());
+            buffer.putLong(seqToVersionMap.get(entry.getKey()));
+            buffer.putLong(location.segmentId);
+            buffer.putLong(location.offset);
+            buffer.putInt(location.length);
+        }
+        buffer.flip();
+        int checksum = checksum(buffer);
+        buffer.limit(buffer.capacity());
+        buffer.position(buffer.capacity() - 4);
+        buffer.putInt(checksum);
+        buffer.flip();
+        writeAtomically(SNAPSHOT_FILE, buffer);
+    }
+
+    /**
+     * @return the snapshot, or null if there is none or it is unreadable
+     */
+    private Snapshot readSnapshot() throws IOException {
+        File file = new File(dir, SNAPSHOT_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(FileUtils.readFileToByteArray(file));
+        try {
+            if (buffer.remaining() < 4) {
+                return null;
+            }
+            ByteBuffer contents = buffer.duplicate();
+            contents.limit(buffer.limit() - 4);
+            int checksum = buffer.getInt(buffer.limit() - 4);
+            if (checksum != checksum(contents) || contents.getInt() != SNAPSHOT_FORMAT_VERSION) {
+                log.warn("ignoring an unreadable paxos log index snapshot in {}", dir.getAbsolutePath());
+                return null;
+            }
+            Snapshot snapshot = new Snapshot(contents.getLong(), contents.getLong());
+            int count = contents.getInt();
+            for (int i = 0; i < count; i++) {
+                long seq = contents.getLong();
+                snapshot.seqToVersion.put(seq, contents.getLong());
+                snapshot.index.put(seq, new RecordLocation(contents.getLong(), contents.getLong(), contents.getInt()));
+            }
+            return snapshot;
+        } catch (BufferUnderflowException e) {
+            log.warn("ignoring a truncated paxos log index snapshot in {}", dir.getAbsolutePath());
+            return null;
+        }
+    }
+
+    private void writeAtomically(String fileName, ByteBuffer contents) throws IOException {
+        File tmpFile = new File(dir, fileName + TMP_FILE_SUFFIX);
+        FileChannel channel = FileChannel.open(
+                tmpFile.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+            channel.force(true);
+        } finally {
+            IOUtils.closeQuietly(channel);
+        }
+        Files.move(tmpFile.toPath(), new File(dir, fileName).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(dir);
+    }
+
+    private static void syncDirectory(File directory) {
+        // Not every platform can open a directory for fsync; a rename or create is still atomic there.
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("unable to sync directory {}", directory.getAbsolutePath(), e);
+        } finally {
+            IOUtils.closeQuietly(channel);
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        byte[] array = buffer.array();
+        crc.update(array, buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        return (int) crc.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        if (!tryReadFully(channel, buffer, position)) {
+            throw new CorruptLogFileException();
+        }
+    }
+
+    private static boolean tryReadFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Segment {
+        final long id;
+        final File file;
+        // Replaced if a thread is interrupted while using it; see #reopenClosedSegments.
+        volatile FileChannel channel;
+        long size;
+        int liveRecords = 0;
+
+        Segment(long id, File file, FileChannel channel, long size) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.size = size;
+        }
+    }
+
+    private static final class Snapshot {
+        final long segmentId;
+        final long offset;
+        final Map<Long, RecordLocation> index = Maps.newHashMap();
+        final Map<Long, Long> seqToVersion = Maps.newHashMap();
+
+        Snapshot(long segmentId, long offset) {
+            this.segmentId = segmentId;
+            this.offset = offset;
+        }
+    }
+
+    private static final class RecordLocation {
+        final long segmentId;
+        final long offset;
+        final int length;
+
+        RecordLocation(long segmentId, long offset, int length) {
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
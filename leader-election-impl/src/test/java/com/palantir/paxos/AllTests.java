@@ -24,8 +24,13 @@ import com.palantir.paxos.persistence.ProtobufTest;
 @RunWith(Suite.class)
 @SuiteClasses({
     ProtobufTest.class,
+    MultiPaxosProposerTest.class,
+    SegmentedPaxosStateLogTest.class,
     PaxosConsensusFastTest.class,
-    PaxosConsensusSlowTest.class
+    PaxosConsensusSlowTest.class,
+    PaxosQuorumCheckerTest.class,
+    PaxosLearnerImplTest.class,
+    PaxosLeaderLeaseTest.class
 })
 public class AllTests {
 }
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.leader.PingableLeader;
+
+public class MultiPaxosProposerTest {
+    private static final String LOG_DIR = "multi-paxos-test/";
+    private static final int NUM_ACCEPTORS = 3;
+    private static final int QUORUM_SIZE = 2;
+
+    private final AtomicInteger prepareCount = new AtomicInteger();
+    private final AtomicInteger rangePrepareCount = new AtomicInteger();
+    private ExecutorService executor;
+    private ImmutableList<PaxosAcceptor> acceptors;
+    private ImmutableList<PaxosLearner> learners;
+
+    @Before
+    public void setup() {
+        executor = PTExecutors.newCachedThreadPool();
+        List<PaxosAcceptor> acceptorList = Lists.newArrayList();
+        List<PaxosLearner> learnerList = Lists.newArrayList();
+        for (int i = 0; i < NUM_ACCEPTORS; i++) {
+            acceptorList.add(new CountingAcceptor(PaxosAcceptorImpl.newAcceptor(LOG_DIR + "acceptor/" + i)));
+            learnerList.add(PaxosLearnerImpl.newLearner(LOG_DIR + "learner/" + i));
+        }
+        acceptors = ImmutableList.copyOf(acceptorList);
+        learners = ImmutableList.copyOf(learnerList);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        FileUtils.deleteDirectory(new File(LOG_DIR));
+    }
+
+    @Test
+    public void testStableLeaderPreparesOnce() throws PaxosRoundFailureException {
+        PaxosProposer proposer = newMultiPaxosProposer(true);
+        for (long seq = 0; seq < 10; seq++) {
+            assertArrayEquals(new byte[] { (byte) seq }, proposer.propose(seq, new byte[] { (byte) seq }));
+        }
+        // At most one range prepare per acceptor, and none for the individual rounds.
+        assertTrue(rangePrepareCount.get() >= QUORUM_SIZE && rangePrepareCount.get() <= NUM_ACCEPTORS);
+        assertEquals(0, prepareCount.get());
+        assertArrayEquals(new byte[] { 7 }, learners.get(1).getLearnedValue(7).getData());
+    }
+
+    @Test
+    public void testNonLeaderRunsFullPaxos() throws PaxosRoundFailureException {
+        PaxosProposer proposer = newMultiPaxosProposer(false);
+        proposer.propose(0, new byte[] { 0 });
+        proposer.propose(1, new byte[] { 1 });
+        assertEquals(0, rangePrepareCount.get());
+        assertTrue(prepareCount.get() >= 2 * QUORUM_SIZE);
+    }
+
+    @Test
+    public void testStableLeaderFallsBackToChosenValue() throws PaxosRoundFailureException {
+        PaxosProposer stableProposer = newMultiPaxosProposer(true);
+        stableProposer.propose(0, new byte[] { 0 });
+
+        // Another proposer gets a value chosen with full paxos; it may need to retry to outbid
+        // the range promise.
+        PaxosProposer otherProposer = PaxosProposerImpl.newProposer(
+                learners.get(2), acceptors, learners, QUORUM_SIZE, executor);
+        byte[] chosen = null;
+        for (int attempt = 0; chosen == null && attempt < 5; attempt++) {
+            try {
+                chosen = otherProposer.propose(3, new byte[] { 42 });
+            } catch (PaxosRoundFailureException e) {
+                // retry with a higher proposal number
+            }
+        }
+        assertArrayEquals(new byte[] { 42 }, chosen);
+
+        // The stable leader's accept is rejected, and full paxos finds the chosen value.
+        assertArrayEquals(new byte[] { 42 }, stableProposer.propose(3, new byte[] { 3 }));
+    }
+
+    private PaxosProposer newMultiPaxosProposer(final boolean isLeader) {
+        return PaxosProposerImpl.newMultiPaxosProposer(
+                learners.get(0),
+                acceptors,
+                learners,
+                QUORUM_SIZE,
+                executor,
+                new PingableLeader() {
+                    @Override
+                    public boolean ping() {
+                        return isLeader;
+                    }
+
+                    @Override
+                    public String getUUID() {
+                        return "local";
+                    }
+                });
+    }
+
+    private class CountingAcceptor implements PaxosAcceptor {
+        private final PaxosAcceptor delegate;
+
+        CountingAcceptor(PaxosAcceptor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public PaxosPromise prepare(long seq, PaxosProposalId pid) {
+            prepareCount.incrementAndGet();
+            return delegate.prepare(seq, pid);
+        }
+
+        @Override
+        public PaxosPromise prepareRange(long fromSeq, PaxosProposalId pid) {
+            rangePrepareCount.incrementAndGet();
+            return delegate.prepareRange(fromSeq, pid);
+        }
+
+        @Override
+        public BooleanPaxosResponse accept(long seq, PaxosProposal proposal) {
+            return delegate.accept(seq, proposal);
+        }
+
+        @Override
+        public BooleanPaxosResponse grantLease(long seq, String leaderUUID, long leaseMs) {
+            return delegate.grantLease(seq, leaderUUID, leaseMs);
+        }
+
+        @Override
+        public long getLatestSequencePreparedOrAccepted() {
+            return delegate.getLatestSequencePreparedOrAccepted();
+        }
+    }
+}
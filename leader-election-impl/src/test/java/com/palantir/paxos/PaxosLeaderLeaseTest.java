@@ -0,0 +1,238 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.net.HostAndPort;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.leader.LeaderElectionService.LeadershipToken;
+import com.palantir.leader.LeaderElectionService.StillLeadingStatus;
+import com.palantir.leader.PaxosLeaderElectionService;
+import com.palantir.leader.PingableLeader;
+import com.palantir.leader.proxy.ToggleableExceptionProxy;
+
+public class PaxosLeaderLeaseTest {
+    private static final int NUM_NODES = 3;
+    private static final int QUORUM_SIZE = 2;
+    private static final long LEASE_MS = 500;
+    private static final long MAX_CLOCK_DRIFT_MS = 50;
+    private static final String LOG_DIR = "testlogs/lease/";
+
+    private final List<PaxosAcceptor> acceptors = Lists.newArrayList();
+    private final List<PaxosLearner> learners = Lists.newArrayList();
+    private final List<AtomicBoolean> partitioned = Lists.newArrayList();
+    private final List<PaxosLeaderElectionService> leaders = Lists.newArrayList();
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = PTExecutors.newCachedThreadPool();
+        for (int i = 0; i < NUM_NODES; i++) {
+            acceptors.add(PaxosAcceptorImpl.newAcceptor(LOG_DIR + "acceptor/" + i, 0L, LEASE_MS));
+            learners.add(PaxosLearnerImpl.newLearner(LOG_DIR + "learner/" + i));
+            partitioned.add(new AtomicBoolean(false));
+        }
+        RuntimeException e = new RuntimeException("partitioned");
+        for (int i = 0; i < NUM_NODES; i++) {
+            // Each node sees the others through proxies that fail while it is partitioned.
+            List<PaxosAcceptor> nodeAcceptors = Lists.newArrayList();
+            List<PaxosLearner> nodeLearners = Lists.newArrayList();
+            for (int j = 0; j < NUM_NODES; j++) {
+                nodeAcceptors.add(ToggleableExceptionProxy.newProxyInstance(PaxosAcceptor.class, acceptors.get(j), partitioned.get(i), e));
+                nodeLearners.add(ToggleableExceptionProxy.newProxyInstance(PaxosLearner.class, learners.get(j), partitioned.get(i), e));
+            }
+            PaxosProposer proposer = PaxosProposerImpl.newProposer(
+                    learners.get(i),
+                    ImmutableList.copyOf(nodeAcceptors),
+                    ImmutableList.copyOf(nodeLearners),
+                    QUORUM_SIZE,
+                    executor);
+            leaders.add(new PaxosLeaderElectionService(
+                    proposer,
+                    learners.get(i),
+                    ImmutableMap.<PingableLeader, HostAndPort>of(),
+                    ImmutableList.copyOf(nodeAcceptors),
+                    ImmutableList.copyOf(nodeLearners),
+                    executor,
+                    10L, 10L, 10L,
+                    LEASE_MS,
+                    MAX_CLOCK_DRIFT_MS));
+        }
+    }
+
+    @After
+    public void teardown() throws Exception {
+        try {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } finally {
+            FileUtils.deleteDirectory(new File(LOG_DIR));
+        }
+    }
+
+    @Test
+    public void testLeaseAnswersLocallyUntilItExpires() throws Exception {
+        LeadershipToken token = leaders.get(0).blockOnBecomingLeader();
+        Thread.sleep(LEASE_MS);
+        long leaseStart = System.nanoTime();
+        assertEquals(StillLeadingStatus.LEADING, leaders.get(0).isStillLeading(token));
+
+        // The leader can no longer reach any acceptor, but its lease still holds.
+        partitioned.get(0).set(true);
+        assertEquals(StillLeadingStatus.LEADING, leaders.get(0).isStillLeading(token));
+
+        long remainingMs = LEASE_MS - MAX_CLOCK_DRIFT_MS - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - leaseStart);
+        Thread.sleep(Math.max(0, remainingMs) + 10);
+        assertEquals(StillLeadingStatus.NO_QUORUM, leaders.get(0).isStillLeading(token));
+    }
+
+    @Test
+    public void testTakeoverWaitsForLeaseToExpire() throws Exception {
+        LeadershipToken oldToken = leaders.get(0).blockOnBecomingLeader();
+        Thread.sleep(LEASE_MS);
+        // Any lease granted by this check starts after this point.
+        long leaseStart = System.nanoTime();
+        assertEquals(StillLeadingStatus.LEADING, leaders.get(0).isStillLeading(oldToken));
+        partitioned.get(0).set(true);
+
+        Future<LeadershipToken> takeover = executor.submit(new Callable<LeadershipToken>() {
+            @Override
+            public LeadershipToken call() throws Exception {
+                return leaders.get(1).blockOnBecomingLeader();
+            }
+        });
+        // The partitioned leader keeps answering locally while the other node tries to take over.
+        assertEquals(StillLeadingStatus.LEADING, leaders.get(0).isStillLeading(oldToken));
+
+        LeadershipToken newToken = takeover.get(10, TimeUnit.SECONDS);
+        long takeoverMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - leaseStart);
+        assertTrue("took over after " + takeoverMs + "ms", takeoverMs >= LEASE_MS);
+        assertFalse(newToken.sameAs(oldToken));
+        assertNotEquals(StillLeadingStatus.LEADING, leaders.get(0).isStillLeading(oldToken));
+        assertEquals(StillLeadingStatus.LEADING, leaders.get(1).isStillLeading(newToken));
+    }
+
+    @Test
+    public void testAcceptorLeaseRules() throws Exception {
+        PaxosAcceptor acceptor = acceptors.get(0);
+        PaxosProposalId leaderId = new PaxosProposalId(1L, "leader");
+        PaxosProposalId otherId = new PaxosProposalId(2L, "other");
+
+        // An acceptor that has never granted a lease takes part in rounds straight away.
+        assertTrue(acceptor.prepare(0L, leaderId).isSuccessful());
+
+        assertFalse(acceptor.grantLease(0L, "leader", LEASE_MS + 1).isSuccessful());
+        assertTrue(acceptor.grantLease(0L, "leader", LEASE_MS).isSuccessful());
+        assertFalse(acceptor.grantLease(0L, "other", LEASE_MS).isSuccessful());
+
+        // Later rounds are refused to everyone but the leader until the lease expires.
+        assertFalse(acceptor.prepare(1L, otherId).isSuccessful());
+        assertFalse(acceptor.prepareRange(1L, otherId).isSuccessful());
+        assertFalse(acceptor.accept(1L, new PaxosProposal(otherId, new PaxosValue("other", 1L, null))).isSuccessful());
+        assertTrue(acceptor.prepare(1L, leaderId).isSuccessful());
+        Thread.sleep(LEASE_MS);
+        assertTrue(acceptor.prepare(2L, otherId).isSuccessful());
+
+        // No lease is granted on a round that has been superseded.
+        assertFalse(acceptor.grantLease(1L, "leader", LEASE_MS).isSuccessful());
+    }
+
+    @Test
+    public void testRestartedAcceptorHonoursLoggedLease() throws Exception {
+        PaxosProposalId leaderId = new PaxosProposalId(1L, "leader");
+        PaxosProposalId otherId = new PaxosProposalId(2L, "other");
+        assertTrue(acceptors.get(0).grantLease(0L, "leader", LEASE_MS).isSuccessful());
+
+        // The restarted acceptor cannot tell how long the lease has left, so it assumes the most.
+        PaxosAcceptor restarted = PaxosAcceptorImpl.newAcceptor(LOG_DIR + "acceptor/0", 0L, LEASE_MS);
+        assertFalse(restarted.prepare(1L, otherId).isSuccessful());
+        assertTrue(restarted.prepare(1L, leaderId).isSuccessful());
+        assertFalse(restarted.grantLease(1L, "other", LEASE_MS).isSuccessful());
+        Thread.sleep(LEASE_MS);
+        assertTrue(restarted.prepare(2L, otherId).isSuccessful());
+
+        // An acceptor that never granted a lease does not hold up rounds after a restart.
+        PaxosAcceptor neverLeased = PaxosAcceptorImpl.newAcceptor(LOG_DIR + "acceptor/1", 0L, LEASE_MS);
+        assertTrue(neverLeased.prepare(0L, otherId).isSuccessful());
+    }
+
+    @Test
+    public void testLeaderToleratesAcceptorsWithoutLeases() throws Exception {
+        // Acceptors on servers from before leases existed have no grant-lease endpoint.
+        List<PaxosAcceptor> oldAcceptors = Lists.newArrayList();
+        for (final PaxosAcceptor acceptor : acceptors) {
+            oldAcceptors.add((PaxosAcceptor) Proxy.newProxyInstance(
+                    PaxosAcceptor.class.getClassLoader(),
+                    new Class<?>[] { PaxosAcceptor.class },
+                    new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            if (method.getName().equals("grantLease")) {
+                                throw new RuntimeException("404 Not Found");
+                            }
+                            try {
+                                return method.invoke(acceptor, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    }));
+        }
+        PaxosLeaderElectionService leader = new PaxosLeaderElectionService(
+                PaxosProposerImpl.newProposer(learners.get(0), ImmutableList.copyOf(oldAcceptors),
+                        ImmutableList.copyOf(learners), QUORUM_SIZE, executor),
+                learners.get(0),
+                ImmutableMap.<PingableLeader, HostAndPort>of(),
+                ImmutableList.copyOf(oldAcceptors),
+                ImmutableList.copyOf(learners),
+                executor,
+                10L, 10L, 10L,
+                LEASE_MS,
+                MAX_CLOCK_DRIFT_MS);
+        LeadershipToken token = leader.blockOnBecomingLeader();
+        assertEquals(StillLeadingStatus.LEADING, leader.isStillLeading(token));
+
+        // Without a lease the next check goes to the acceptors and sees the later round.
+        for (PaxosAcceptor acceptor : acceptors) {
+            acceptor.prepare(Long.MAX_VALUE - 1, new PaxosProposalId(Long.MAX_VALUE, "other"));
+        }
+        assertEquals(StillLeadingStatus.NOT_LEADING, leader.isStillLeading(token));
+    }
+}
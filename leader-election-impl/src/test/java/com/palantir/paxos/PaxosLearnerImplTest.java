@@ -0,0 +1,99 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+public class PaxosLearnerImplTest {
+    private static final String DIR = "learner-test";
+
+    @After
+    public void cleanup() throws IOException {
+        FileUtils.deleteDirectory(new File(DIR));
+    }
+
+    @Test
+    public void testOldRoundsAreReadFromTheLog() {
+        PaxosLearnerImpl learner = (PaxosLearnerImpl) PaxosLearnerImpl.newLearner(DIR);
+        long rounds = 3 * PaxosLearnerImpl.IN_MEMORY_ROUNDS;
+        for (long seq = 0; seq < rounds; seq++) {
+            learner.learn(seq, value(seq));
+        }
+        assertTrue(learner.state.size() <= PaxosLearnerImpl.IN_MEMORY_ROUNDS + 1);
+        assertEquals(0L, learner.getLearnedValue(0).getRound());
+        assertEquals(rounds, learner.getLearnedValuesSince(0).size());
+        assertEquals(rounds - 1, learner.getGreatestLearnedValue().getRound());
+    }
+
+    @Test
+    public void testTruncatesLogBelowRetainedRounds() {
+        PaxosLearner learner = PaxosLearnerImpl.newLearner(DIR, 10);
+        for (long seq = 0; seq < 100; seq++) {
+            learner.learn(seq, value(seq));
+        }
+        assertEquals(99L, learner.getGreatestLearnedValue().getRound());
+        assertEquals(89L, learner.getLearnedValue(89).getRound());
+        assertTrue(learner.getLearnedValuesSince(0).size() <= 21);
+
+        // The truncation is durable.
+        PaxosLearner reopened = PaxosLearnerImpl.newLearner(DIR, 10);
+        assertEquals(99L, reopened.getGreatestLearnedValue().getRound());
+        assertNull(reopened.getLearnedValue(0));
+    }
+
+    @Test
+    public void testPagesThroughLearnedValuesInBatches() {
+        PaxosLearner learner = PaxosLearnerImpl.newLearner(DIR);
+        for (long seq = 0; seq < 100; seq++) {
+            learner.learn(seq, value(seq));
+        }
+        int frameSize = PaxosValues.getFrameSize(value(0).persistToBytes());
+
+        long nextSeq = 0;
+        int batches = 0;
+        while (true) {
+            List<PaxosValue> batch = PaxosValues.fromFrames(learner.getLearnedValuesBatch(nextSeq, 10 * frameSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            assertTrue(batch.size() <= 10);
+            for (PaxosValue value : batch) {
+                assertEquals(value(nextSeq), value);
+                nextSeq++;
+            }
+            batches++;
+        }
+        assertEquals(100L, nextSeq);
+        assertEquals(10, batches);
+
+        // A batch always makes progress, however small the limit.
+        assertEquals(1, PaxosValues.fromFrames(learner.getLearnedValuesBatch(0, 1)).size());
+    }
+
+    private static PaxosValue value(long seq) {
+        return new PaxosValue("leader", seq, new byte[] { (byte) seq });
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.palantir.common.concurrent.PTExecutors;
+
+public class PaxosQuorumCheckerTest {
+    private final ExecutorService executor = PTExecutors.newCachedThreadPool();
+    private final CountDownLatch stragglerLatch = new CountDownLatch(1);
+
+    @After
+    public void teardown() throws InterruptedException {
+        stragglerLatch.countDown();
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testCompletesOnQuorumWithoutWaitingForStragglers() throws Exception {
+        ImmutableList<Remote> remotes = ImmutableList.of(new Remote(true, false), new Remote(true, false), new Remote(true, true));
+        List<PaxosResponse> responses = PaxosQuorumChecker.collectQuorumResponsesAsync(remotes, ASK, 2, executor)
+                .get(5, TimeUnit.SECONDS);
+        assertTrue(PaxosQuorumChecker.hasQuorum(responses, 2));
+        assertEquals(1, PaxosQuorumChecker.getLatencyHistogram(remotes.get(0)).getCount());
+    }
+
+    @Test
+    public void testCompletesWhenQuorumIsImpossible() throws Exception {
+        ImmutableList<Remote> remotes = ImmutableList.of(new Remote(false, false), new Remote(false, false), new Remote(true, true));
+        List<PaxosResponse> responses = PaxosQuorumChecker.collectQuorumResponsesAsync(remotes, ASK, 2, executor)
+                .get(5, TimeUnit.SECONDS);
+        assertFalse(PaxosQuorumChecker.hasQuorum(responses, 2));
+        assertEquals(2, responses.size());
+    }
+
+    @Test
+    public void testTimesOutWithResponsesSoFar() {
+        ImmutableList<Remote> remotes = ImmutableList.of(new Remote(true, false), new Remote(true, true), new Remote(true, true));
+        List<PaxosResponse> responses = PaxosQuorumChecker.collectQuorumResponses(remotes, ASK, 2, executor, 1);
+        assertEquals(1, responses.size());
+        assertFalse(PaxosQuorumChecker.hasQuorum(responses, 2));
+    }
+
+    private static final Function<Remote, PaxosResponse> ASK = new Function<Remote, PaxosResponse>() {
+        @Override
+        public PaxosResponse apply(@Nullable Remote remote) {
+            return remote.ask();
+        }
+    };
+
+    private class Remote {
+        private final boolean ack;
+        private final boolean straggler;
+
+        Remote(boolean ack, boolean straggler) {
+            this.ack = ack;
+            this.straggler = straggler;
+        }
+
+        PaxosResponse ask() {
+            if (straggler) {
+                Uninterruptibles.awaitUninterruptibly(stragglerLatch);
+            }
+            return new PaxosResponseImpl(ack);
+        }
+    }
+}
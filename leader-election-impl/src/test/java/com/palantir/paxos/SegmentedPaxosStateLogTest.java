@@ -0,0 +1,232 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+public class SegmentedPaxosStateLogTest {
+    private static final String DIR = "segmented-log-test";
+    private static final long SMALL_SEGMENT_SIZE_BYTES = 256;
+
+    @After
+    public void cleanup() throws IOException {
+        FileUtils.deleteDirectory(new File(DIR));
+    }
+
+    @Test
+    public void testReadsLatestRoundAfterReopen() throws IOException {
+        SegmentedPaxosStateLog<PaxosValue> log = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        assertEquals(PaxosAcceptor.NO_LOG_ENTRY, log.getGreatestLogEntry());
+        for (long seq = 0; seq < 20; seq++) {
+            log.writeRound(seq, value("first", seq));
+        }
+        log.writeRound(5, value("second", 5));
+        assertEquals("second", read(log, 5).getLeaderUUID());
+        log.close();
+
+        log = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        assertTrue("log should have rolled segments", new File(DIR, "segments").list().length > 1);
+        assertEquals(PaxosAcceptor.NO_LOG_ENTRY, log.getLeastLogEntry());
+        assertEquals(19L, log.getGreatestLogEntry());
+        assertEquals("second", read(log, 5).getLeaderUUID());
+        assertEquals("first", read(log, 19).getLeaderUUID());
+        assertNull(log.readRound(20));
+        log.close();
+    }
+
+    @Test
+    public void testTruncationSurvivesReopen() throws IOException {
+        SegmentedPaxosStateLog<PaxosValue> log = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        for (long seq = 0; seq < 20; seq++) {
+            log.writeRound(seq, value("leader", seq));
+        }
+        int segmentsBeforeTruncation = new File(DIR, "segments").list().length;
+        log.truncate(15);
+        assertTrue(new File(DIR, "segments").list().length < segmentsBeforeTruncation);
+        assertEquals(16L, log.getLeastLogEntry());
+        assertNull(log.readRound(15));
+
+        // The greatest entry is never truncated.
+        log.truncate(100);
+        assertEquals(19L, log.getLeastLogEntry());
+        log.close();
+
+        log = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        assertEquals(19L, log.getLeastLogEntry());
+        assertEquals(19L, log.getGreatestLogEntry());
+        assertNull(log.readRound(16));
+        log.close();
+    }
+
+    @Test
+    public void testDiscardsTornTail() throws IOException {
+        SegmentedPaxosStateLog<PaxosValue> log = new SegmentedPaxosStateLog<PaxosValue>(DIR);
+        log.writeRound(0, value("leader", 0));
+        log.writeRound(1, value("leader", 1));
+        log.close();
+
+        File segment = new File(new File(DIR, "segments"), "0.log");
+        RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try {
+            file.setLength(file.length() - 3);
+        } finally {
+            file.close();
+        }
+
+        log = new SegmentedPaxosStateLog<PaxosValue>(DIR);
+        assertEquals(0L, log.getGreatestLogEntry());
+        log.writeRound(1, value("rewritten", 1));
+        log.close();
+
+        log = new SegmentedPaxosStateLog<PaxosValue>(DIR);
+        assertEquals("rewritten", read(log, 1).getLeaderUUID());
+        log.close();
+    }
+
+    @Test
+    public void testMigratesLegacyLog() throws IOException {
+        PaxosStateLog<PaxosValue> legacyLog = new PaxosStateLogImpl<PaxosValue>(DIR);
+        for (long seq = 0; seq < 5; seq++) {
+            legacyLog.writeRound(seq, value("legacy", seq));
+        }
+        legacyLog.truncate(1);
+
+        SegmentedPaxosStateLog<PaxosValue> log = new SegmentedPaxosStateLog<PaxosValue>(DIR);
+        assertEquals(2L, log.getLeastLogEntry());
+        assertEquals(4L, log.getGreatestLogEntry());
+        assertEquals("legacy", read(log, 3).getLeaderUUID());
+        assertTrue(!new File(DIR, "3").exists());
+        log.close();
+
+        log = new SegmentedPaxosStateLog<PaxosValue>(DIR);
+        assertEquals(2L, log.getLeastLogEntry());
+        assertEquals("legacy", read(log, 4).getLeaderUUID());
+        log.close();
+    }
+
+    @Test
+    public void testReplaysRoundsWrittenAfterSnapshot() throws IOException {
+        SegmentedPaxosStateLog<PaxosValue> log = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        for (long seq = 0; seq < 20; seq++) {
+            log.writeRound(seq, value("first", seq));
+        }
+        assertTrue("rolling a segment should snapshot the index", new File(DIR, "index.snapshot").exists());
+        log.writeRound(3, value("second", 3));
+
+        // Reopen without closing, as after a crash.
+        SegmentedPaxosStateLog<PaxosValue> reopened = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        assertEquals(19L, reopened.getGreatestLogEntry());
+        assertEquals("second", read(reopened, 3).getLeaderUUID());
+        assertEquals("first", read(reopened, 19).getLeaderUUID());
+        reopened.close();
+        log.close();
+    }
+
+    @Test
+    public void testIgnoresCorruptSnapshot() throws IOException {
+        SegmentedPaxosStateLog<PaxosValue> log = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        for (long seq = 0; seq < 20; seq++) {
+            log.writeRound(seq, value("leader", seq));
+        }
+        log.close();
+        FileUtils.writeStringToFile(new File(DIR, "index.snapshot"), "garbage");
+
+        log = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        assertEquals(19L, log.getGreatestLogEntry());
+        assertEquals("leader", read(log, 7).getLeaderUUID());
+        log.close();
+    }
+
+    @Test
+    public void testInterruptedWriteFailsWithoutBreakingLog() throws IOException {
+        SegmentedPaxosStateLog<PaxosValue> log = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        log.writeRound(0, value("leader", 0));
+        Thread.currentThread().interrupt();
+        try {
+            log.writeRound(1, value("leader", 1));
+            fail("an interrupted write must not be acknowledged");
+        } catch (RuntimeException e) {
+            // expected
+        } finally {
+            Thread.interrupted();
+        }
+        log.writeRound(2, value("leader", 2));
+        assertEquals("leader", read(log, 0).getLeaderUUID());
+        assertEquals("leader", read(log, 2).getLeaderUUID());
+        log.close();
+    }
+
+    @Test
+    public void testInterruptsDuringSyncOnlyFailTheInterruptedWrite() throws Exception {
+        final SegmentedPaxosStateLog<PaxosValue> log = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        final List<Long> acknowledged = new CopyOnWriteArrayList<Long>();
+        final AtomicInteger failures = new AtomicInteger();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (long seq = 0; seq < 300; seq++) {
+                    try {
+                        log.writeRound(seq, value("leader", seq));
+                        acknowledged.add(seq);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        Thread.interrupted();
+                    }
+                }
+            }
+        });
+        writer.start();
+        // Most of a write is spent forcing the segment, so most of these land in sync.
+        while (writer.isAlive()) {
+            writer.interrupt();
+            Thread.sleep(1);
+        }
+        writer.join();
+        assertTrue("the writer should have been interrupted", failures.get() > 0);
+
+        // Other writers can still use the log, and everything acknowledged is in it.
+        log.writeRound(1000, value("leader", 1000));
+        log.close();
+        SegmentedPaxosStateLog<PaxosValue> reopened = new SegmentedPaxosStateLog<PaxosValue>(DIR, SMALL_SEGMENT_SIZE_BYTES);
+        for (long seq : acknowledged) {
+            assertEquals(seq, read(reopened, seq).getRound());
+        }
+        assertEquals(1000L, reopened.getGreatestLogEntry());
+        reopened.close();
+    }
+
+    private static PaxosValue value(String leaderUUID, long seq) {
+        return new PaxosValue(leaderUUID, seq, new byte[] { (byte) seq });
+    }
+
+    private static PaxosValue read(PaxosStateLog<PaxosValue> log, long seq) throws IOException {
+        return PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(log.readRound(seq));
+    }
+}
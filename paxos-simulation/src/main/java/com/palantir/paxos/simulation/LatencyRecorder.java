@@ -0,0 +1,82 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos.simulation;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Records every latency of one kind of operation, so that exact percentiles can be reported at the
+ * end of a run.
+ */
+public final class LatencyRecorder {
+    private final String name;
+
+    @GuardedBy("this") private long[] latenciesNanos = new long[1024];
+    @GuardedBy("this") private int count = 0;
+    @GuardedBy("this") private long failures = 0;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long latencyNanos) {
+        if (count == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, 2 * count);
+        }
+        latenciesNanos[count++] = latencyNanos;
+    }
+
+    public synchronized void recordFailure() {
+        failures++;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized long getFailureCount() {
+        return failures;
+    }
+
+    /**
+     * @return the latency below which the given fraction of operations completed, or 0 if none did
+     */
+    public synchronized long getPercentileMicros(double percentile) {
+        if (count == 0) {
+            return 0L;
+        }
+        long[] sorted = Arrays.copyOf(latenciesNanos, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(count - 1, Math.max(0, Math.ceil(percentile * count) - 1));
+        return TimeUnit.NANOSECONDS.toMicros(sorted[index]);
+    }
+
+    public synchronized String summarize(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%-28s ops=%-8d failures=%-6d ops/s=%-10.1f p50=%dus p99=%dus p999=%dus max=%dus",
+                name,
+                count,
+                failures,
+                seconds > 0 ? count / seconds : 0.0,
+                getPercentileMicros(0.5),
+                getPercentileMicros(0.99),
+                getPercentileMicros(0.999),
+                getPercentileMicros(1.0));
+    }
+}
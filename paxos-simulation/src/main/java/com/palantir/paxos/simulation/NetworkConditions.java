@@ -0,0 +1,71 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos.simulation;
+
+import java.util.Random;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * How messages between simulated nodes are delayed and lost. Each message in each direction is
+ * delayed by baseLatencyMicros plus an exponentially distributed jitter with mean
+ * meanJitterMicros, and is lost with probability lossProbability.
+ */
+public final class NetworkConditions {
+    public static final NetworkConditions PERFECT = new NetworkConditions(0L, 0L, 0.0);
+
+    private final long baseLatencyMicros;
+    private final long meanJitterMicros;
+    private final double lossProbability;
+
+    public NetworkConditions(long baseLatencyMicros, long meanJitterMicros, double lossProbability) {
+        Preconditions.checkArgument(baseLatencyMicros >= 0 && meanJitterMicros >= 0, "latencies must not be negative");
+        Preconditions.checkArgument(lossProbability >= 0.0 && lossProbability < 1.0, "lossProbability must be in [0, 1)");
+        this.baseLatencyMicros = baseLatencyMicros;
+        this.meanJitterMicros = meanJitterMicros;
+        this.lossProbability = lossProbability;
+    }
+
+    public long getBaseLatencyMicros() {
+        return baseLatencyMicros;
+    }
+
+    public long getMeanJitterMicros() {
+        return meanJitterMicros;
+    }
+
+    public double getLossProbability() {
+        return lossProbability;
+    }
+
+    long sampleLatencyMicros(Random random) {
+        if (meanJitterMicros == 0) {
+            return baseLatencyMicros;
+        }
+        return baseLatencyMicros + (long) (-meanJitterMicros * Math.log(1.0 - random.nextDouble()));
+    }
+
+    boolean sampleLoss(Random random) {
+        return lossProbability > 0.0 && random.nextDouble() < lossProbability;
+    }
+
+    @Override
+    public String toString() {
+        return "NetworkConditions [baseLatencyMicros=" + baseLatencyMicros
+                + ", meanJitterMicros=" + meanJitterMicros
+                + ", lossProbability=" + lossProbability + "]";
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos.simulation;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.palantir.atlasdb.transaction.service.TransactionService;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.leader.LeaderElectionService;
+import com.palantir.leader.LeaderElectionService.LeadershipToken;
+
+/**
+ * Measures leader election and paxos transaction commits on a {@link SimulatedPaxosCluster}.
+ * <p>
+ * Arguments are given as --name=value: seed, nodes, seconds (per scenario), clients, latency-micros
+ * and jitter-micros (per message), loss (probability per message), restart-every-ms (restart a
+ * random node other than node 0 this often, or 0 never) and dir (for the paxos logs).
+ */
+public final class PaxosSimulationBenchmark {
+    private final long seed;
+    private final int numNodes;
+    private final long durationNanos;
+    private final int numClients;
+    private final NetworkConditions conditions;
+    private final long restartEveryMs;
+    private final File dir;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Maps.newHashMap();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        PaxosSimulationBenchmark benchmark = new PaxosSimulationBenchmark(
+                Long.parseLong(get(options, "seed", "0")),
+                Integer.parseInt(get(options, "nodes", "3")),
+                TimeUnit.SECONDS.toNanos(Long.parseLong(get(options, "seconds", "10"))),
+                Integer.parseInt(get(options, "clients", "8")),
+                new NetworkConditions(
+                        Long.parseLong(get(options, "latency-micros", "200")),
+                        Long.parseLong(get(options, "jitter-micros", "100")),
+                        Double.parseDouble(get(options, "loss", "0.0"))),
+                Long.parseLong(get(options, "restart-every-ms", "0")),
+                new File(get(options, "dir", "var/paxos-simulation")));
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("unknown options " + options.keySet());
+        }
+        benchmark.run();
+    }
+
+    private static String get(Map<String, String> options, String name, String defaultValue) {
+        String value = options.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    public PaxosSimulationBenchmark(long seed,
+                                    int numNodes,
+                                    long durationNanos,
+                                    int numClients,
+                                    NetworkConditions conditions,
+                                    long restartEveryMs,
+                                    File dir) {
+        this.seed = seed;
+        this.numNodes = numNodes;
+        this.durationNanos = durationNanos;
+        this.numClients = numClients;
+        this.conditions = conditions;
+        this.restartEveryMs = restartEveryMs;
+        this.dir = dir;
+    }
+
+    public void run() throws Exception {
+        System.out.println("seed=" + seed + " nodes=" + numNodes + " clients=" + numClients
+                + " restartEveryMs=" + restartEveryMs + " " + conditions);
+        report(runLeaderElection());
+        report(runTransactions(false));
+        report(runTransactions(true));
+    }
+
+    private void report(List<LatencyRecorder> recorders) {
+        for (LatencyRecorder recorder : recorders) {
+            System.out.println(recorder.summarize(durationNanos));
+        }
+    }
+
+    /**
+     * Times isStillLeading on the leader, then repeatedly stops the leader and times how long the
+     * next node takes to take over.
+     */
+    private List<LatencyRecorder> runLeaderElection() throws Exception {
+        final LatencyRecorder stillLeading = new LatencyRecorder("leader/isStillLeading");
+        LatencyRecorder failover = new LatencyRecorder("leader/failover");
+        SimulatedPaxosCluster cluster = SimulatedPaxosCluster.create(
+                new File(dir, "leader"), numNodes, seed, conditions);
+        try {
+            final LeaderElectionService leader = cluster.getLeaderElectionService(0);
+            final LeadershipToken token = leader.blockOnBecomingLeader();
+            runClients(stillLeading, new Operation() {
+                @Override
+                public void run(long opNumber) {
+                    if (leader.isStillLeading(token) != LeaderElectionService.StillLeadingStatus.LEADING) {
+                        throw new IllegalStateException("not leading");
+                    }
+                }
+            });
+
+            long deadline = System.nanoTime() + durationNanos;
+            for (int leaderNode = 0; System.nanoTime() < deadline; leaderNode = (leaderNode + 1) % numNodes) {
+                int nextLeaderNode = (leaderNode + 1) % numNodes;
+                cluster.stop(leaderNode);
+                long start = System.nanoTime();
+                cluster.getLeaderElectionService(nextLeaderNode).blockOnBecomingLeader();
+                failover.record(System.nanoTime() - start);
+                cluster.start(leaderNode);
+            }
+        } finally {
+            cluster.close();
+        }
+        return Lists.newArrayList(stillLeading, failover);
+    }
+
+    /**
+     * Commits distinct transactions from every client through node 0 while the chaos schedule
+     * restarts the other nodes.
+     */
+    private List<LatencyRecorder> runTransactions(boolean batching) throws Exception {
+        String name = batching ? "transactions/batching" : "transactions/single";
+        LatencyRecorder commits = new LatencyRecorder(name);
+        final SimulatedPaxosCluster cluster = SimulatedPaxosCluster.create(
+                new File(dir, name.replace('/', '-')), numNodes, seed, conditions);
+        ExecutorService chaos = PTExecutors.newSingleThreadExecutor();
+        try {
+            final TransactionService transactions = cluster.newTransactionService(0, batching);
+            if (restartEveryMs > 0 && numNodes > 1) {
+                chaos.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        Random random = new Random(seed);
+                        while (!Thread.currentThread().isInterrupted()) {
+                            Uninterruptibles.sleepUninterruptibly(restartEveryMs, TimeUnit.MILLISECONDS);
+                            cluster.restart(1 + random.nextInt(cluster.getNumNodes() - 1));
+                        }
+                    }
+                });
+            }
+            runClients(commits, new Operation() {
+                @Override
+                public void run(long opNumber) throws Exception {
+                    transactions.putUnlessExists(2 * opNumber + 1, 2 * opNumber + 2);
+                }
+            });
+        } finally {
+            chaos.shutdownNow();
+            cluster.close();
+        }
+        return Lists.newArrayList(commits);
+    }
+
+    private interface Operation {
+        void run(long opNumber) throws Exception;
+    }
+
+    private void runClients(final LatencyRecorder recorder, final Operation operation) throws Exception {
+        ExecutorService clients = PTExecutors.newFixedThreadPool(numClients);
+        final AtomicLong opNumbers = new AtomicLong();
+        final long deadline = System.nanoTime() + durationNanos;
+        try {
+            List<Future<?>> futures = Lists.newArrayList();
+            for (int i = 0; i < numClients; i++) {
+                futures.add(clients.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        while (System.nanoTime() < deadline) {
+                            long start = System.nanoTime();
+                            try {
+                                operation.run(opNumbers.getAndIncrement());
+                                recorder.record(System.nanoTime() - start);
+                            } catch (Exception e) {
+                                recorder.recordFailure();
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos.simulation;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.palantir.common.remoting.ServiceNotAvailableException;
+
+/**
+ * Connects simulated nodes with proxies that delay, drop and partition the calls between them.
+ * <p>
+ * Every directed link draws its delays and losses from its own random number generator, seeded
+ * from the network seed and the two node ids, so a run with the same seed and the same sequence of
+ * calls on each link sees the same network. Thread scheduling is still up to the JVM, so runs are
+ * repeatable in their conditions rather than step for step.
+ * <p>
+ * A lost request fails after its delay without reaching the target; a lost response reaches the
+ * target and then fails on the way back, as a remote call that times out after being applied would.
+ * Calls from a node to itself are never delayed or lost.
+ */
+public final class SimulatedNetwork {
+    private final int numNodes;
+    private final Random[][] links;
+    private volatile NetworkConditions conditions;
+
+    @GuardedBy("this") private final boolean[][] partitioned;
+
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong lostMessages = new AtomicLong();
+
+    public SimulatedNetwork(int numNodes, long seed, NetworkConditions conditions) {
+        this.numNodes = numNodes;
+        this.links = new Random[numNodes][numNodes];
+        this.partitioned = new boolean[numNodes][numNodes];
+        this.conditions = conditions;
+        for (int from = 0; from < numNodes; from++) {
+            for (int to = 0; to < numNodes; to++) {
+                links[from][to] = new Random(seed * 31 * 31 + from * 31 + to);
+            }
+        }
+    }
+
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    public NetworkConditions getConditions() {
+        return conditions;
+    }
+
+    public void setConditions(NetworkConditions conditions) {
+        this.conditions = Preconditions.checkNotNull(conditions);
+    }
+
+    /**
+     * Cuts every link between the given nodes and the rest of the cluster, in both directions.
+     */
+    public synchronized void partition(Set<Integer> side) {
+        for (int from = 0; from < numNodes; from++) {
+            for (int to = 0; to < numNodes; to++) {
+                if (side.contains(from) != side.contains(to)) {
+                    partitioned[from][to] = true;
+                }
+            }
+        }
+    }
+
+    public synchronized void heal() {
+        for (int from = 0; from < numNodes; from++) {
+            for (int to = 0; to < numNodes; to++) {
+                partitioned[from][to] = false;
+            }
+        }
+    }
+
+    public long getMessageCount() {
+        return messages.get();
+    }
+
+    public long getLostMessageCount() {
+        return lostMessages.get();
+    }
+
+    /**
+     * Returns a proxy through which the from node calls the to node. The target is looked up on
+     * every call, so the proxy keeps working across restarts of the to node.
+     */
+    public <T> T link(Class<T> iface, final int from, final int to, final Supplier<? extends T> target) {
+        InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getDeclaringClass() == Object.class) {
+                    return invokeObjectMethod(proxy, method, args, from, to);
+                }
+                send(from, to, "request");
+                Object result;
+                try {
+                    result = method.invoke(target.get(), args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                send(to, from, "response");
+                return result;
+            }
+        };
+        return iface.cast(Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[] { iface }, handler));
+    }
+
+    private void send(int from, int to, String what) {
+        if (from == to) {
+            return;
+        }
+        messages.incrementAndGet();
+        synchronized (this) {
+            if (partitioned[from][to]) {
+                throw new ServiceNotAvailableException("node " + to + " is partitioned from node " + from);
+            }
+        }
+        NetworkConditions currentConditions = conditions;
+        Random random = links[from][to];
+        long latencyMicros;
+        boolean lost;
+        synchronized (random) {
+            latencyMicros = currentConditions.sampleLatencyMicros(random);
+            lost = currentConditions.sampleLoss(random);
+        }
+        if (latencyMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+        }
+        if (lost) {
+            lostMessages.incrementAndGet();
+            throw new ServiceNotAvailableException("lost " + what + " from node " + from + " to node " + to);
+        }
+    }
+
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args, int from, int to) {
+        // Answered locally by identity; these are often called on proxies used as map keys.
+        if (method.getName().equals("equals")) {
+            return proxy == args[0];
+        } else if (method.getName().equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        } else if (method.getName().equals("toString")) {
+            return "SimulatedLink [from=" + from + ", to=" + to + "]";
+        }
+        throw new UnsupportedOperationException(method.getName());
+    }
+}
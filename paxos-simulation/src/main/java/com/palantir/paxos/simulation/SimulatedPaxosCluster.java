@@ -0,0 +1,275 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos.simulation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.net.HostAndPort;
+import com.palantir.atlasdb.config.LeaderConfig;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.transaction.service.PaxosTransactionService;
+import com.palantir.atlasdb.transaction.service.TransactionKVSWrapper;
+import com.palantir.atlasdb.transaction.service.TransactionService;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.common.remoting.ServiceNotAvailableException;
+import com.palantir.leader.LeaderElectionService;
+import com.palantir.leader.PaxosLeaderElectionService;
+import com.palantir.leader.PingableLeader;
+import com.palantir.paxos.PaxosAcceptor;
+import com.palantir.paxos.PaxosAcceptorImpl;
+import com.palantir.paxos.PaxosLearner;
+import com.palantir.paxos.PaxosLearnerImpl;
+import com.palantir.paxos.PaxosProposer;
+import com.palantir.paxos.PaxosProposerImpl;
+
+/**
+ * A cluster of paxos nodes running in this process, each with its own acceptor and learner logs
+ * on disk, wired together through a {@link SimulatedNetwork}.
+ * <p>
+ * Every service handed out talks to the rest of the cluster through the network, including to its
+ * own node, so stopping a node makes it unreachable and starting it again brings it back with
+ * whatever its logs held. A started node gets a fresh proposer and leader election service, as a
+ * restarted server would.
+ * <p>
+ * In a multi-paxos cluster each node's proposer skips the prepare phase while that node's leader
+ * election service reports that it is leading, as with {@link LeaderConfig#multiPaxos()}.
+ */
+public final class SimulatedPaxosCluster implements Closeable {
+    private static final long UPDATE_POLLING_WAIT_MS = 10L;
+    private static final long RANDOM_WAIT_BEFORE_PROPOSING_LEADERSHIP_MS = 50L;
+    private static final long LEADER_PING_RESPONSE_WAIT_MS = 100L;
+
+    private final File dir;
+    private final int numNodes;
+    private final int quorumSize;
+    private final boolean multiPaxos;
+    private final SimulatedNetwork network;
+    private final ExecutorService executor = PTExecutors.newCachedThreadPool();
+    private final KeyValueService keyValueService = new InMemoryKeyValueService(true);
+    private final List<Node> nodes = Lists.newArrayList();
+
+    public static SimulatedPaxosCluster create(File dir, int numNodes, long seed, NetworkConditions conditions) {
+        return create(dir, numNodes, seed, conditions, false);
+    }
+
+    public static SimulatedPaxosCluster create(File dir,
+                                               int numNodes,
+                                               long seed,
+                                               NetworkConditions conditions,
+                                               boolean multiPaxos) {
+        SimulatedPaxosCluster cluster = new SimulatedPaxosCluster(
+                dir, new SimulatedNetwork(numNodes, seed, conditions), multiPaxos);
+        for (int i = 0; i < numNodes; i++) {
+            cluster.start(i);
+        }
+        return cluster;
+    }
+
+    private SimulatedPaxosCluster(File dir, SimulatedNetwork network, boolean multiPaxos) {
+        this.dir = dir;
+        this.numNodes = network.getNumNodes();
+        this.quorumSize = numNodes / 2 + 1;
+        this.multiPaxos = multiPaxos;
+        this.network = network;
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(new Node());
+        }
+    }
+
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    public int getQuorumSize() {
+        return quorumSize;
+    }
+
+    public SimulatedNetwork getNetwork() {
+        return network;
+    }
+
+    public boolean isUp(int node) {
+        return nodes.get(node).incarnation != null;
+    }
+
+    public synchronized void start(int node) {
+        Node n = nodes.get(node);
+        if (n.incarnation == null) {
+            n.incarnation = new Incarnation(node);
+        }
+    }
+
+    public synchronized void stop(int node) {
+        nodes.get(node).incarnation = null;
+    }
+
+    public void restart(int node) {
+        stop(node);
+        start(node);
+    }
+
+    /**
+     * @return the proposer of the given node's current incarnation
+     */
+    public PaxosProposer getProposer(int node) {
+        return getIncarnation(node).proposer;
+    }
+
+    /**
+     * @return the leader election service of the given node, as seen through the network
+     */
+    public LeaderElectionService getLeaderElectionService(final int node) {
+        return network.link(LeaderElectionService.class, node, node, new Supplier<LeaderElectionService>() {
+            @Override
+            public LeaderElectionService get() {
+                return getIncarnation(node).leaderElectionService;
+            }
+        });
+    }
+
+    /**
+     * Returns a transaction service that proposes through the given node's current proposer and
+     * applies what it learns to a transaction table shared by the whole cluster. A cluster's paxos
+     * log should be used either for single commits or for batches, never both.
+     */
+    public TransactionService newTransactionService(int node, boolean batching) {
+        TransactionKVSWrapper kvStore = new TransactionKVSWrapper(keyValueService);
+        Incarnation incarnation = getIncarnation(node);
+        if (batching) {
+            return PaxosTransactionService.createBatching(incarnation.proposer, incarnation.localLearner, kvStore);
+        }
+        return PaxosTransactionService.create(incarnation.proposer, kvStore);
+    }
+
+    @Override
+    public void close() {
+        // Let requests still in flight finish; interrupting one mid-write would close its log files.
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        keyValueService.teardown();
+        FileUtils.deleteQuietly(dir);
+    }
+
+    private Incarnation getIncarnation(int node) {
+        Incarnation incarnation = nodes.get(node).incarnation;
+        if (incarnation == null) {
+            throw new ServiceNotAvailableException("node " + node + " is down");
+        }
+        return incarnation;
+    }
+
+    private static final class Node {
+        volatile Incarnation incarnation;
+    }
+
+    /**
+     * Everything a node holds in memory between one start and the next stop.
+     */
+    private final class Incarnation {
+        final PaxosAcceptor acceptor;
+        final PaxosLearner learner;
+        final PaxosLearner localLearner;
+        final PaxosProposer proposer;
+        final PaxosLeaderElectionService leaderElectionService;
+
+        Incarnation(int node) {
+            File nodeDir = new File(dir, "node-" + node);
+            acceptor = PaxosAcceptorImpl.newAcceptor(new File(nodeDir, "acceptor").getPath());
+            learner = PaxosLearnerImpl.newLearner(new File(nodeDir, "learner").getPath());
+
+            List<PaxosAcceptor> acceptors = Lists.newArrayList();
+            List<PaxosLearner> learners = Lists.newArrayList();
+            Map<PingableLeader, HostAndPort> potentialLeaders = Maps.newHashMap();
+            for (int i = 0; i < numNodes; i++) {
+                final int other = i;
+                acceptors.add(network.link(PaxosAcceptor.class, node, other, new Supplier<PaxosAcceptor>() {
+                    @Override
+                    public PaxosAcceptor get() {
+                        return getIncarnation(other).acceptor;
+                    }
+                }));
+                learners.add(network.link(PaxosLearner.class, node, other, new Supplier<PaxosLearner>() {
+                    @Override
+                    public PaxosLearner get() {
+                        return getIncarnation(other).learner;
+                    }
+                }));
+                if (other != node) {
+                    potentialLeaders.put(
+                            network.link(PingableLeader.class, node, other, new Supplier<PingableLeader>() {
+                                @Override
+                                public PingableLeader get() {
+                                    return getIncarnation(other).leaderElectionService;
+                                }
+                            }),
+                            HostAndPort.fromParts("node-" + other, 0));
+                }
+            }
+            localLearner = learners.get(node);
+            proposer = multiPaxos
+                    ? PaxosProposerImpl.newMultiPaxosProposer(
+                            localLearner,
+                            ImmutableList.copyOf(acceptors),
+                            ImmutableList.copyOf(learners),
+                            quorumSize,
+                            executor,
+                            new PingableLeader() {
+                                // Only asked once proposing, by which time the service is built.
+                                @Override
+                                public boolean ping() {
+                                    return leaderElectionService.ping();
+                                }
+
+                                @Override
+                                public String getUUID() {
+                                    return leaderElectionService.getUUID();
+                                }
+                            })
+                    : PaxosProposerImpl.newProposer(
+                            localLearner,
+                            ImmutableList.copyOf(acceptors),
+                            ImmutableList.copyOf(learners),
+                            quorumSize,
+                            executor);
+            leaderElectionService = new PaxosLeaderElectionService(
+                    proposer,
+                    localLearner,
+                    potentialLeaders,
+                    ImmutableList.copyOf(acceptors),
+                    ImmutableList.copyOf(learners),
+                    executor,
+                    UPDATE_POLLING_WAIT_MS,
+                    RANDOM_WAIT_BEFORE_PROPOSING_LEADERSHIP_MS,
+                    LEADER_PING_RESPONSE_WAIT_MS);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2015 Palantir Technologies
+ *
+ * Licensed under the BSD-3 License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.transaction.service.TransactionService;
+import com.palantir.common.remoting.ServiceNotAvailableException;
+import com.palantir.paxos.PaxosProposer;
+import com.palantir.paxos.PaxosRoundFailureException;
+
+public class SimulatedPaxosClusterTest {
+    private static final File DIR = new File("paxos-simulation-test");
+
+    private SimulatedPaxosCluster cluster;
+
+    @After
+    public void teardown() {
+        if (cluster != null) {
+            cluster.close();
+        }
+    }
+
+    @Test
+    public void testNodesAgreeDespiteLossAndRestarts() throws Exception {
+        cluster = SimulatedPaxosCluster.create(DIR, 3, 42L, new NetworkConditions(0L, 50L, 0.05));
+        TransactionService first = cluster.newTransactionService(0, false);
+        TransactionService second = cluster.newTransactionService(1, false);
+        for (long startTs = 1; startTs < 50; startTs++) {
+            putIgnoringConflicts(first, startTs, startTs + 1000);
+            putIgnoringConflicts(second, startTs, startTs + 2000);
+            if (startTs % 10 == 0) {
+                cluster.restart(2);
+            }
+        }
+        // Proposing again on any round must find the value that was chosen and committed.
+        PaxosProposer proposer = cluster.getProposer(2);
+        for (long startTs = 1; startTs < 50; startTs++) {
+            Long commitTs = first.get(startTs);
+            assertEquals(commitTs, second.get(startTs));
+            assertEquals(commitTs.longValue(), PtBytes.toLong(proposeWithRetries(proposer, startTs)));
+        }
+    }
+
+    @Test
+    public void testMinorityCannotCommitUntilHealed() throws Exception {
+        cluster = SimulatedPaxosCluster.create(DIR, 3, 42L, NetworkConditions.PERFECT);
+        TransactionService transactions = cluster.newTransactionService(0, true);
+        cluster.getNetwork().partition(ImmutableSet.of(0));
+        try {
+            transactions.putUnlessExists(1L, 2L);
+            fail("a node cut off from the quorum should not be able to commit");
+        } catch (ServiceNotAvailableException e) {
+            // expected
+        }
+        cluster.getNetwork().heal();
+        transactions.putUnlessExists(3L, 4L);
+        assertEquals(Long.valueOf(4L), transactions.get(3L));
+    }
+
+    @Test
+    public void testMultiPaxosLeaderSkipsPrepares() throws Exception {
+        long basicMessages = countMessagesForLeaderCommits(false);
+        long multiPaxosMessages = countMessagesForLeaderCommits(true);
+        assertTrue("multi-paxos sent " + multiPaxosMessages + " messages, basic paxos " + basicMessages,
+                multiPaxosMessages < basicMessages);
+    }
+
+    private long countMessagesForLeaderCommits(boolean multiPaxos) throws Exception {
+        if (cluster != null) {
+            cluster.close();
+        }
+        cluster = SimulatedPaxosCluster.create(DIR, 3, 42L, NetworkConditions.PERFECT, multiPaxos);
+        cluster.getLeaderElectionService(0).blockOnBecomingLeader();
+        TransactionService transactions = cluster.newTransactionService(0, true);
+        long messagesBefore = cluster.getNetwork().getMessageCount();
+        for (long startTs = 1; startTs <= 20; startTs++) {
+            transactions.putUnlessExists(startTs, startTs + 1000);
+        }
+        long messages = cluster.getNetwork().getMessageCount() - messagesBefore;
+        TransactionService other = cluster.newTransactionService(1, true);
+        for (long startTs = 1; startTs <= 20; startTs++) {
+            assertEquals(Long.valueOf(startTs + 1000), other.get(startTs));
+        }
+        return messages;
+    }
+
+    private static byte[] proposeWithRetries(PaxosProposer proposer, long seq) {
+        for (int attempt = 0; attempt < 10; attempt++) {
+            try {
+                return proposer.propose(seq, PtBytes.toBytes(-1L));
+            } catch (PaxosRoundFailureException e) {
+                // retry
+            }
+        }
+        throw new AssertionError("could not reach consensus on " + seq);
+    }
+
+    private static void putIgnoringConflicts(TransactionService transactions, long startTs, long commitTs) {
+        // Lost messages can fail a round; try again like a client would.
+        for (int attempt = 0; attempt < 10; attempt++) {
+            try {
+                transactions.putUnlessExists(startTs, commitTs);
+                return;
+            } catch (KeyAlreadyExistsException e) {
+                return;
+            } catch (ServiceNotAvailableException e) {
+                // retry
+            }
+        }
+        fail("could not commit " + startTs);
+    }
+}